@@ -0,0 +1,89 @@
+//--------------------------BATCH SCRATCH CLASS-------------------------------//
+//@author TitanJack
+//@project MathTools
+//A per-thread stack of reusable arrays used by the batch compute methods. A
+//node which needs temporary storage for the values of its sub functions
+//acquires an array, fills it, and releases it again once it is done, so that
+//evaluating a whole frame of samples does not allocate any new arrays.
+
+package Functions;
+
+final class BatchScratch {
+
+    private static final ThreadLocal<BatchScratch> LOCAL =
+            ThreadLocal.withInitial(BatchScratch::new);
+
+    private double[][] buffers;
+    private int depth;
+    //Reusable arrays which hold references to a set of acquired arrays
+    private double[][][] columnSets;
+    private int columnDepth;
+
+    private BatchScratch() {
+        buffers = new double[8][];
+        depth = 0;
+        columnSets = new double[4][][];
+        columnDepth = 0;
+    }
+
+    //Function: Get
+    //@return               the scratch stack belonging to the current thread
+    static BatchScratch get() {
+        return LOCAL.get();
+    }
+
+    //Function: Acquire
+    //@param n              the minimum length of the array
+    //@return               an array of at least <n> values which is not in use
+    //                      by any other node on this thread
+    //Every call must be paired with a call to <release>
+    double[] acquire(int n) {
+        if (depth == buffers.length) {
+            double[][] grown = new double[buffers.length * 2][];
+            System.arraycopy(buffers, 0, grown, 0, buffers.length);
+            buffers = grown;
+        }
+        double[] buffer = buffers[depth];
+        if (buffer == null || buffer.length < n) {
+            buffer = new double[n];
+            buffers[depth] = buffer;
+        }
+        depth++;
+        return buffer;
+    }
+
+    //Function: Release
+    //Returns the most recently acquired array to the stack
+    void release() {
+        depth--;
+    }
+
+    //Function: Acquire Columns
+    //@param count          the number of arrays needed
+    //       n              the minimum length of each array
+    //@return               an array holding <count> acquired arrays
+    //Every call must be paired with a call to <releaseColumns>
+    double[][] acquireColumns(int count, int n) {
+        if (columnDepth == columnSets.length) {
+            double[][][] grown = new double[columnSets.length * 2][][];
+            System.arraycopy(columnSets, 0, grown, 0, columnSets.length);
+            columnSets = grown;
+        }
+        double[][] columns = columnSets[columnDepth];
+        if (columns == null || columns.length < count) {
+            columns = new double[count][];
+            columnSets[columnDepth] = columns;
+        }
+        for (int i = 0; i < count; i++) columns[i] = acquire(n);
+        columnDepth++;
+        return columns;
+    }
+
+    //Function: Release Columns
+    //@param count          the number of arrays which were acquired
+    //Returns the most recently acquired set of arrays to the stack
+    void releaseColumns(int count) {
+        columnDepth--;
+        depth -= count;
+    }
+}
@@ -0,0 +1,16 @@
+//----------------------BUDGET EXCEEDED EXCEPTION CLASS-----------------------//
+//The exception is thrown when parsing, rewriting, differentiating or computing
+//a function takes longer than the time it was given, see EvaluationBudget.
+
+package Functions;
+
+@SuppressWarnings("serial")
+public class BudgetExceededException extends RuntimeException {
+
+    public BudgetExceededException() {
+    }
+
+    public BudgetExceededException(String message) {
+        super(message);
+    }
+}
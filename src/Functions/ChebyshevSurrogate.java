@@ -0,0 +1,319 @@
+//------------------------CHEBYSHEV SURROGATE CLASS---------------------------//
+//@author TitanJack
+//@project MathTools
+//A stand-in for a function which is expensive to compute, made of Chebyshev
+//series over pieces of a range of x values. Each piece is fitted through the
+//values of the function at Chebyshev points, starting with a few points and
+//doubling them until the last coefficients of the series fall below the
+//tolerance, and a piece whose series does not settle is split in half. The
+//series is then computed with Clenshaw's method, which only takes a multiply
+//and two adds per coefficient no matter how deep the function tree is.
+//
+//Pieces which hold a pole, are undefined somewhere, or whose values all lie
+//outside of the range of values which is of interest (see Interval) are not
+//fitted, and the function itself is computed there instead.
+
+package Functions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+@SuppressWarnings("WeakerAccess")
+public class ChebyshevSurrogate {
+
+    //The number of Chebyshev points used for a piece starts at MIN_DEGREE+1
+    //and is doubled until MAX_DEGREE+1
+    private static final int MIN_DEGREE = 16;
+    private static final int MAX_DEGREE = 64;
+    //How many times the range may be halved, so the smallest piece is 1/64th
+    //of the range
+    private static final int MAX_SPLITS = 6;
+
+    private final Function function;
+    //The range of x values and function values which is covered, and the
+    //largest difference between the series and the function
+    private final double lo;
+    private final double hi;
+    private final double bottom;
+    private final double top;
+    private final double tolerance;
+    //The x values where each piece starts, followed by where the last piece
+    //ends, and the series of each piece, or null for a piece where the
+    //function is computed instead
+    private final double[] breaks;
+    private final double[][] coeffs;
+
+    private ChebyshevSurrogate(Function function, double lo, double hi,
+                               double bottom, double top, double tolerance,
+                               double[] breaks, double[][] coeffs) {
+        this.function = function;
+        this.lo = lo;
+        this.hi = hi;
+        this.bottom = bottom;
+        this.top = top;
+        this.tolerance = tolerance;
+        this.breaks = breaks;
+        this.coeffs = coeffs;
+    }
+
+    //Function: Build
+    //@param function       the function to be stood in for
+    //       lo             the lowest x value to be covered
+    //       hi             the highest x value to be covered
+    //       bottom         the lowest function value of interest
+    //       top            the highest function value of interest
+    //       tolerance      the largest allowed difference between the series
+    //                      and the function
+    //@return               the surrogate of the function
+    public static ChebyshevSurrogate build(Function function, double lo,
+                                           double hi, double bottom,
+                                           double top, double tolerance) {
+        ArrayList<Double> breaks = new ArrayList<>();
+        ArrayList<double[]> coeffs = new ArrayList<>();
+        Builder builder = new Builder(function, bottom, top, tolerance,
+                breaks, coeffs);
+        builder.fitPiece(lo, hi, 0);
+        double[] breakArr = new double[breaks.size() + 1];
+        for (int i = 0; i < breaks.size(); i++) breakArr[i] = breaks.get(i);
+        breakArr[breaks.size()] = hi;
+        return new ChebyshevSurrogate(function, lo, hi, bottom, top,
+                tolerance, breakArr, coeffs.toArray(new double[0][]));
+    }
+
+    //Function: Covers
+    //@param lo             the lowest x value
+    //       hi             the highest x value
+    //       bottom         the lowest function value of interest
+    //       top            the highest function value of interest
+    //       tolerance      the largest allowed error
+    //@return               whether the surrogate covers the whole range of x
+    //                      values and function values with an error of at
+    //                      most <tolerance>
+    public boolean covers(double lo, double hi, double bottom, double top,
+                          double tolerance) {
+        return lo >= this.lo && hi <= this.hi && bottom >= this.bottom &&
+                top <= this.top && tolerance >= this.tolerance;
+    }
+
+    //Function: Compute
+    //@param x              the x value to be computed
+    //@return               the value of the series at <x>, or of the function
+    //                      itself where it is not covered by a series
+    public double compute(double x) {
+        int piece = pieceOf(x);
+        if (piece < 0 || coeffs[piece] == null) return function.compute(x);
+        //Clenshaw's method, with x moved to between -1 and 1
+        double[] c = coeffs[piece];
+        double a = breaks[piece], b = breaks[piece + 1];
+        double t = (2 * x - a - b) / (b - a), t2 = 2 * t;
+        double b1 = 0, b2 = 0;
+        for (int k = c.length - 1; k >= 1; k--) {
+            double next = t2 * b1 - b2 + c[k];
+            b2 = b1;
+            b1 = next;
+        }
+        return t * b1 - b2 + c[0];
+    }
+
+    //Function: Compute (Batch)
+    //@param xs             the x values to be computed
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    //Neighbouring x values which fall into the same piece are computed
+    //together, one coefficient at a time over all of them, so that the inner
+    //loop has no dependency between its steps and fits into SIMD lanes
+    public void compute(double[] xs, double[] out, int n) {
+        BatchScratch scratch = BatchScratch.get();
+        double[] t2s = scratch.acquire(n);
+        double[] b2s = scratch.acquire(n);
+        try {
+            int start = 0;
+            while (start < n) {
+                int piece = pieceOf(xs[start]);
+                if (piece < 0 || coeffs[piece] == null) {
+                    out[start] = function.compute(xs[start]);
+                    start++;
+                    continue;
+                }
+                double a = breaks[piece], b = breaks[piece + 1];
+                int end = start + 1;
+                while (end < n && xs[end] >= a && xs[end] <= b) end++;
+                clenshaw(coeffs[piece], a, b, xs, out, t2s, b2s, start, end);
+                start = end;
+            }
+        } finally {
+            scratch.release();
+            scratch.release();
+        }
+    }
+
+    //Function: Clenshaw
+    //@param c              the coefficients of the series of a piece
+    //       a              the lowest x value of the piece
+    //       b              the highest x value of the piece
+    //       xs             the x values to be computed
+    //       out            the array which the results are written into, which
+    //                      also holds the latest step of Clenshaw's method
+    //       t2s            scratch space for twice the moved x values
+    //       b2s            scratch space for the step before the latest
+    //       start          the index of the first value to be computed
+    //       end            the index after the last value to be computed
+    private static void clenshaw(double[] c, double a, double b, double[] xs,
+                                 double[] out, double[] t2s, double[] b2s,
+                                 int start, int end) {
+        double scale = 4 / (b - a), shift = 2 * (a + b) / (b - a);
+        for (int i = start; i < end; i++) {
+            t2s[i] = xs[i] * scale - shift;
+            out[i] = 0;
+            b2s[i] = 0;
+        }
+        for (int k = c.length - 1; k >= 1; k--) {
+            double ck = c[k];
+            for (int i = start; i < end; i++) {
+                double next = t2s[i] * out[i] - b2s[i] + ck;
+                b2s[i] = out[i];
+                out[i] = next;
+            }
+        }
+        for (int i = start; i < end; i++)
+            out[i] = 0.5 * t2s[i] * out[i] - b2s[i] + c[0];
+    }
+
+    //Function: Piece Of
+    //@param x              an x value
+    //@return               the index of the piece which holds <x>, or -1 if
+    //                      <x> is outside of the covered range
+    private int pieceOf(double x) {
+        if (!(x >= lo && x <= hi)) return -1;
+        int piece = Arrays.binarySearch(breaks, x);
+        if (piece < 0) piece = -piece - 2;
+        return Math.min(piece, coeffs.length - 1);
+    }
+
+    //Function: Check
+    //@param x              an x value
+    //       tolerance      the largest allowed error
+    //@return               whether the series is within <tolerance> of the
+    //                      function at <x>
+    public boolean check(double x, double tolerance) {
+        double expected = function.compute(x), actual = compute(x);
+        if (Double.isNaN(expected) || Double.isNaN(actual))
+            return Double.isNaN(expected) == Double.isNaN(actual);
+        return Math.abs(actual - expected) <= tolerance;
+    }
+
+    //Function: Get Tolerance
+    //@return               the largest difference between the series and the
+    //                      function
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    //Function: Get Piece Count
+    //@return               the number of pieces the range is split into
+    int getPieceCount() {
+        return coeffs.length;
+    }
+
+    //Fits the pieces of a surrogate from left to right
+    private static class Builder {
+
+        private final Function function;
+        private final double bottom;
+        private final double top;
+        private final double tolerance;
+        private final ArrayList<Double> breaks;
+        private final ArrayList<double[]> coeffs;
+
+        Builder(Function function, double bottom, double top, double tolerance,
+                ArrayList<Double> breaks, ArrayList<double[]> coeffs) {
+            this.function = function;
+            this.bottom = bottom;
+            this.top = top;
+            this.tolerance = tolerance;
+            this.breaks = breaks;
+            this.coeffs = coeffs;
+        }
+
+        //Function: Fit Piece
+        //@param a          the lowest x value of the piece
+        //       b          the highest x value of the piece
+        //       splits     how many times the range has been halved to get
+        //                  this piece
+        //Adds the piece, or the two halves of it if it has to be split
+        void fitPiece(double a, double b, int splits) {
+            Interval bounds = function.computeInterval(a, b);
+            if (bounds.isEmpty() || bounds.getLo() > top || bounds.getHi() <
+                    bottom) {
+                addPiece(a, null);
+                return;
+            }
+            double[] c = null;
+            if (bounds.isContinuous() && bounds.isDefined())
+                for (int n = MIN_DEGREE; n <= MAX_DEGREE && c == null; n *= 2)
+                    c = fit(a, b, n);
+            if (c != null) addPiece(a, c);
+            else if (splits < MAX_SPLITS) {
+                double middle = 0.5 * (a + b);
+                fitPiece(a, middle, splits + 1);
+                fitPiece(middle, b, splits + 1);
+            } else
+                addPiece(a, null);
+        }
+
+        //Function: Fit
+        //@param a          the lowest x value of the piece
+        //       b          the highest x value of the piece
+        //       n          the degree of the series
+        //@return           the coefficients of the series through the
+        //                  function at the <n>+1 Chebyshev points of the
+        //                  piece, cut after the last coefficient which
+        //                  matters, or null if the series has not settled
+        //                  within the tolerance
+        private double[] fit(double a, double b, int n) {
+            double middle = 0.5 * (a + b), half = 0.5 * (b - a);
+            //cos(pi*m/n) for m from 0 to 2n-1, which covers every product of
+            //a point and a degree
+            double[] cosines = new double[2 * n];
+            for (int m = 0; m < 2 * n; m++)
+                cosines[m] = Math.cos(Math.PI * m / n);
+            double[] xs = new double[n + 1], values = new double[n + 1];
+            for (int j = 0; j <= n; j++) xs[j] = middle + half * cosines[j];
+            function.compute(xs, values, n + 1);
+            for (double value : values)
+                if (Double.isNaN(value) || Double.isInfinite(value))
+                    return null;
+
+            //The discrete cosine transform of the values, where the first
+            //and last point count half
+            double[] c = new double[n + 1];
+            for (int k = 0; k <= n; k++) {
+                double sum = 0.5 * (values[0] + values[n] * cosines[(n * k) %
+                        (2 * n)]);
+                for (int j = 1; j < n; j++)
+                    sum += values[j] * cosines[(j * k) % (2 * n)];
+                c[k] = sum * 2 / n;
+            }
+            c[0] *= 0.5;
+            c[n] *= 0.5;
+
+            //The series has settled once the last quarter of its
+            //coefficients adds up to a small part of the tolerance
+            double tail = 0;
+            for (int k = n - n / 4; k <= n; k++) tail += Math.abs(c[k]);
+            if (tail > tolerance / 8) return null;
+            //Coefficients are dropped from the end while the dropped ones
+            //add up to at most half of the tolerance
+            int last = n;
+            double dropped = 0;
+            while (last > 0 && dropped + Math.abs(c[last]) <= tolerance / 2)
+                dropped += Math.abs(c[last--]);
+            return Arrays.copyOf(c, last + 1);
+        }
+
+        private void addPiece(double a, double[] c) {
+            breaks.add(a);
+            coeffs.add(c);
+        }
+    }
+}
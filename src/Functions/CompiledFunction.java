@@ -0,0 +1,15 @@
+//------------------------COMPILED FUNCTION INTERFACE-------------------------//
+//@author TitanJack
+//@project MathTools
+//The interface implemented by the classes which the Function Compiler
+//generates at runtime. Each generated class computes one expression as
+//straight-line code instead of walking a tree of function objects.
+
+package Functions;
+
+public interface CompiledFunction {
+
+    double compute(double x);
+
+    void compute(double[] xs, double[] out, int n);
+}
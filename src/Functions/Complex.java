@@ -0,0 +1,381 @@
+//------------------------------COMPLEX CLASS---------------------------------//
+//@author TitanJack
+//@project MathTools
+//Arithmetic and elementary functions of complex numbers, used by the
+//computeComplex methods of the function classes. A column of complex numbers
+//is held as two arrays, one with the real parts and one with the imaginary
+//parts, and every method works on the arrays in place so that computing a
+//whole row of values does not create any objects.
+//
+//The functions with more than one value (logs, roots, powers and the inverse
+//trigonometric functions) give their principal value, with the branch cut
+//along the negative real axis or wherever the formula built from the log puts
+//it.
+
+package Functions;
+
+final class Complex {
+
+    private Complex() {
+    }
+
+    //--------------------------COLUMN FUNCTIONS------------------------------//
+    //FUNCTION LIST:
+    //static void scale(double[] re, double[] im, double c, int n)
+    //static void add(double[] re, double[] im, double[] addRe,
+    //                double[] addIm, int n)
+    //static void multiply(double[] re, double[] im, double[] byRe,
+    //                     double[] byIm, int n)
+    //static void divide(double[] re, double[] im, double[] byRe,
+    //                   double[] byIm, int n)
+    //static void log(double[] re, double[] im, int n)
+    //static void wholePower(double[] re, double[] im, int power, int n)
+    //static void power(double[] re, double[] im, double power, int n)
+    //static void power(double[] re, double[] im, double[] powerRe,
+    //                  double[] powerIm, int n)
+    //static void trig(TrigType type, double[] re, double[] im, int n)
+
+    //Function: Scale
+    //@param re             the real parts, which get replaced by the results
+    //       im             the imaginary parts, which get replaced as well
+    //       c              the real number to multiply by
+    //       n              the number of values
+    static void scale(double[] re, double[] im, double c, int n) {
+        if (c == 1) return;
+        for (int i = 0; i < n; i++) {
+            re[i] *= c;
+            im[i] *= c;
+        }
+    }
+
+    //Function: Add
+    //@param re, im         the values added to, which get replaced
+    //       addRe, addIm   the values to be added
+    //       n              the number of values
+    static void add(double[] re, double[] im, double[] addRe, double[] addIm,
+                    int n) {
+        for (int i = 0; i < n; i++) {
+            re[i] += addRe[i];
+            im[i] += addIm[i];
+        }
+    }
+
+    //Function: Multiply
+    //@param re, im         the values multiplied, which get replaced
+    //       byRe, byIm     the values to multiply by
+    //       n              the number of values
+    static void multiply(double[] re, double[] im, double[] byRe,
+                         double[] byIm, int n) {
+        for (int i = 0; i < n; i++) {
+            double a = re[i], b = im[i], c = byRe[i], d = byIm[i];
+            re[i] = a * c - b * d;
+            im[i] = a * d + b * c;
+        }
+    }
+
+    //Function: Divide
+    //@param re, im         the values divided, which get replaced
+    //       byRe, byIm     the values to divide by
+    //       n              the number of values
+    //Uses Smith's method, which divides by the larger part of the divisor
+    //first so that squaring it does not overflow
+    static void divide(double[] re, double[] im, double[] byRe, double[] byIm,
+                       int n) {
+        for (int i = 0; i < n; i++) {
+            double a = re[i], b = im[i], c = byRe[i], d = byIm[i];
+            if (Math.abs(c) >= Math.abs(d)) {
+                double ratio = d / c, denominator = c + d * ratio;
+                re[i] = (a + b * ratio) / denominator;
+                im[i] = (b - a * ratio) / denominator;
+            } else {
+                double ratio = c / d, denominator = c * ratio + d;
+                re[i] = (a * ratio + b) / denominator;
+                im[i] = (b * ratio - a) / denominator;
+            }
+        }
+    }
+
+    //Function: Log
+    //@param re, im         the values, which get replaced by their logs
+    //       n              the number of values
+    static void log(double[] re, double[] im, int n) {
+        for (int i = 0; i < n; i++) log(re[i], im[i], re, im, i);
+    }
+
+    //Function: Whole Power
+    //@param re, im         the values, which get replaced by their powers
+    //       power          a whole number power
+    //       n              the number of values
+    //Multiplies the values by themselves, which is exact for the small
+    //powers written in expressions such as <z^3>
+    static void wholePower(double[] re, double[] im, int power, int n) {
+        int exponent = Math.abs(power);
+        for (int i = 0; i < n; i++) {
+            double a = re[i], b = im[i], resultRe = 1, resultIm = 0;
+            for (int e = exponent; e > 0; e >>= 1) {
+                if ((e & 1) != 0) {
+                    double r = resultRe * a - resultIm * b;
+                    resultIm = resultRe * b + resultIm * a;
+                    resultRe = r;
+                }
+                double r = a * a - b * b;
+                b = 2 * a * b;
+                a = r;
+            }
+            re[i] = resultRe;
+            im[i] = resultIm;
+            if (power < 0) reciprocal(resultRe, resultIm, re, im, i);
+        }
+    }
+
+    //Function: Power
+    //@param re, im         the values, which get replaced by their powers
+    //       power          a real power
+    //       n              the number of values
+    //Raises the modulus to the power and multiplies the argument by it, which
+    //unlike going through the log also works for 0
+    static void power(double[] re, double[] im, double power, int n) {
+        for (int i = 0; i < n; i++) {
+            double a = re[i], b = im[i];
+            double modulus = Math.pow(Math.hypot(a, b), power);
+            double argument = Math.atan2(b, a) * power;
+            re[i] = modulus * Math.cos(argument);
+            im[i] = modulus * Math.sin(argument);
+        }
+    }
+
+    //Function: Power
+    //@param re, im         the bases, which get replaced by the powers
+    //       powerRe        the real parts of the exponents
+    //       powerIm        the imaginary parts of the exponents
+    //       n              the number of values
+    //Computes exp(exponent * log(base)), or the real power when the exponent
+    //has no imaginary part
+    static void power(double[] re, double[] im, double[] powerRe,
+                      double[] powerIm, int n) {
+        for (int i = 0; i < n; i++) {
+            double a = re[i], b = im[i], c = powerRe[i], d = powerIm[i];
+            double argument = Math.atan2(b, a);
+            double modulus, newArgument;
+            if (d == 0) {
+                modulus = Math.pow(Math.hypot(a, b), c);
+                newArgument = argument * c;
+            } else {
+                double logModulus = Math.log(Math.hypot(a, b));
+                modulus = Math.exp(logModulus * c - argument * d);
+                newArgument = logModulus * d + argument * c;
+            }
+            re[i] = modulus * Math.cos(newArgument);
+            im[i] = modulus * Math.sin(newArgument);
+        }
+    }
+
+    //Function: Trig
+    //@param type           the type of trigonometric function
+    //       re, im         the values inside of the trigonometric function,
+    //                      which get replaced by the results
+    //       n              the number of values
+    static void trig(TrigType type, double[] re, double[] im, int n) {
+        for (int i = 0; i < n; i++) {
+            double a = re[i], b = im[i];
+            switch (type) {
+                case SIN: sin(a, b, re, im, i);
+                    break;
+                case COS: cos(a, b, re, im, i);
+                    break;
+                case TAN: tan(a, b, re, im, i);
+                    break;
+                case CSC: sin(a, b, re, im, i);
+                    reciprocal(re[i], im[i], re, im, i);
+                    break;
+                case SEC: cos(a, b, re, im, i);
+                    reciprocal(re[i], im[i], re, im, i);
+                    break;
+                case COT: tan(a, b, re, im, i);
+                    reciprocal(re[i], im[i], re, im, i);
+                    break;
+                case ARCSIN: arcsin(a, b, re, im, i);
+                    break;
+                case ARCCOS: arcsin(a, b, re, im, i);
+                    re[i] = Math.PI / 2 - re[i];
+                    im[i] = -im[i];
+                    break;
+                case ARCTAN: arctan(a, b, re, im, i);
+                    break;
+                case ARCCSC: reciprocal(a, b, re, im, i);
+                    arcsin(re[i], im[i], re, im, i);
+                    break;
+                case ARCSEC: reciprocal(a, b, re, im, i);
+                    arcsin(re[i], im[i], re, im, i);
+                    re[i] = Math.PI / 2 - re[i];
+                    im[i] = -im[i];
+                    break;
+                case ARCCOT: reciprocal(a, b, re, im, i);
+                    arctan(re[i], im[i], re, im, i);
+                    break;
+                case SINH: sinh(a, b, re, im, i);
+                    break;
+                case COSH: cosh(a, b, re, im, i);
+                    break;
+                case TANH: tanh(a, b, re, im, i);
+                    break;
+                case CSCH: sinh(a, b, re, im, i);
+                    reciprocal(re[i], im[i], re, im, i);
+                    break;
+                case SECH: cosh(a, b, re, im, i);
+                    reciprocal(re[i], im[i], re, im, i);
+                    break;
+                case COTH: tanh(a, b, re, im, i);
+                    reciprocal(re[i], im[i], re, im, i);
+                    break;
+                case ARCSINH: arcsinh(a, b, re, im, i);
+                    break;
+                case ARCCOSH: arccosh(a, b, re, im, i);
+                    break;
+                case ARCTANH: arctanh(a, b, re, im, i);
+                    break;
+                case ARCCSCH: reciprocal(a, b, re, im, i);
+                    arcsinh(re[i], im[i], re, im, i);
+                    break;
+                case ARCSECH: reciprocal(a, b, re, im, i);
+                    arccosh(re[i], im[i], re, im, i);
+                    break;
+                case ARCCOTH: reciprocal(a, b, re, im, i);
+                    arctanh(re[i], im[i], re, im, i);
+                    break;
+            }
+        }
+    }
+
+    //--------------------------VALUE FUNCTIONS-------------------------------//
+    //Each function takes the value a+bi and writes its result into <re> and
+    //<im> at index <i>. Functions built from others write the parts in
+    //between into the same place and read them back
+
+    private static void reciprocal(double a, double b, double[] re,
+                                   double[] im, int i) {
+        double modulus = a * a + b * b;
+        re[i] = a / modulus;
+        im[i] = -b / modulus;
+    }
+
+    private static void log(double a, double b, double[] re, double[] im,
+                            int i) {
+        re[i] = Math.log(Math.hypot(a, b));
+        im[i] = Math.atan2(b, a);
+    }
+
+    //The root with a positive real part
+    private static void sqrt(double a, double b, double[] re, double[] im,
+                             int i) {
+        double modulus = Math.hypot(a, b);
+        if (a >= 0) {
+            double t = Math.sqrt((modulus + a) / 2);
+            re[i] = t;
+            im[i] = t == 0 ? 0 : b / (2 * t);
+        } else {
+            double t = Math.sqrt((modulus - a) / 2);
+            re[i] = Math.abs(b) / (2 * t);
+            im[i] = Math.copySign(t, b);
+        }
+    }
+
+    private static void sin(double a, double b, double[] re, double[] im,
+                            int i) {
+        re[i] = Math.sin(a) * Math.cosh(b);
+        im[i] = Math.cos(a) * Math.sinh(b);
+    }
+
+    private static void cos(double a, double b, double[] re, double[] im,
+                            int i) {
+        re[i] = Math.cos(a) * Math.cosh(b);
+        im[i] = -Math.sin(a) * Math.sinh(b);
+    }
+
+    private static void tan(double a, double b, double[] re, double[] im,
+                            int i) {
+        //Far from the real axis cosh overflows, while tan(z) is close to
+        //i or -i
+        if (Math.abs(b) > 20) {
+            re[i] = 0;
+            im[i] = Math.signum(b);
+            return;
+        }
+        double denominator = Math.cos(2 * a) + Math.cosh(2 * b);
+        re[i] = Math.sin(2 * a) / denominator;
+        im[i] = Math.sinh(2 * b) / denominator;
+    }
+
+    private static void sinh(double a, double b, double[] re, double[] im,
+                             int i) {
+        re[i] = Math.sinh(a) * Math.cos(b);
+        im[i] = Math.cosh(a) * Math.sin(b);
+    }
+
+    private static void cosh(double a, double b, double[] re, double[] im,
+                             int i) {
+        re[i] = Math.cosh(a) * Math.cos(b);
+        im[i] = Math.sinh(a) * Math.sin(b);
+    }
+
+    private static void tanh(double a, double b, double[] re, double[] im,
+                             int i) {
+        if (Math.abs(a) > 20) {
+            re[i] = Math.signum(a);
+            im[i] = 0;
+            return;
+        }
+        double denominator = Math.cosh(2 * a) + Math.cos(2 * b);
+        re[i] = Math.sinh(2 * a) / denominator;
+        im[i] = Math.sin(2 * b) / denominator;
+    }
+
+    //arcsin(z)=-i*log(iz+sqrt(1-z^2))
+    private static void arcsin(double a, double b, double[] re, double[] im,
+                               int i) {
+        sqrt(1 - a * a + b * b, -2 * a * b, re, im, i);
+        log(re[i] - b, im[i] + a, re, im, i);
+        double logRe = re[i];
+        re[i] = im[i];
+        im[i] = -logRe;
+    }
+
+    //arctan(z)=i/2*(log(1-iz)-log(1+iz))
+    private static void arctan(double a, double b, double[] re, double[] im,
+                               int i) {
+        log(1 + b, -a, re, im, i);
+        double leftRe = re[i], leftIm = im[i];
+        log(1 - b, a, re, im, i);
+        double differenceRe = leftRe - re[i], differenceIm = leftIm - im[i];
+        re[i] = -differenceIm / 2;
+        im[i] = differenceRe / 2;
+    }
+
+    //arcsinh(z)=log(z+sqrt(z^2+1))
+    private static void arcsinh(double a, double b, double[] re, double[] im,
+                                int i) {
+        sqrt(a * a - b * b + 1, 2 * a * b, re, im, i);
+        log(a + re[i], b + im[i], re, im, i);
+    }
+
+    //arccosh(z)=log(z+sqrt(z+1)*sqrt(z-1))
+    private static void arccosh(double a, double b, double[] re, double[] im,
+                                int i) {
+        sqrt(a + 1, b, re, im, i);
+        double plusRe = re[i], plusIm = im[i];
+        sqrt(a - 1, b, re, im, i);
+        double productRe = plusRe * re[i] - plusIm * im[i];
+        double productIm = plusRe * im[i] + plusIm * re[i];
+        log(a + productRe, b + productIm, re, im, i);
+    }
+
+    //arctanh(z)=1/2*(log(1+z)-log(1-z))
+    private static void arctanh(double a, double b, double[] re, double[] im,
+                                int i) {
+        log(1 + a, b, re, im, i);
+        double leftRe = re[i], leftIm = im[i];
+        log(1 - a, -b, re, im, i);
+        re[i] = (leftRe - re[i]) / 2;
+        im[i] = (leftIm - im[i]) / 2;
+    }
+}
@@ -8,9 +8,11 @@ package Functions;
 
 import NumberFormats.Numbers;
 
+import java.util.Arrays;
+
 public class Constant extends Function{
 
-    private double constVal;
+    private final double constVal;
 
     @SuppressWarnings("WeakerAccess")
     public Constant(double constVal) {
@@ -21,18 +23,61 @@ public class Constant extends Function{
         return constVal;
     }
 
-    public Function differentiate() {
+    public void compute(double[] xs, double[] out, int n) {
+        Arrays.fill(out, 0, n, constVal);
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        return DoubleDouble.of(constVal);
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        Arrays.fill(outRe, 0, n, constVal);
+        Arrays.fill(outIm, 0, n, 0);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        Taylor.constant(constVal, out, order);
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        return Interval.of(constVal, constVal);
+    }
+
+    protected Function derive() {
         return new Constant(0);
     }
 
+    double getValue() {
+        return constVal;
+    }
+
     public double getCoeff() {
         return constVal >= 0 ? 1 : -1;
     }
 
-    public Function setCoeff(double c) {
-        if (c == -1) constVal = -constVal;
+    //A constant only has a sign as its coefficient, so giving it a
+    //coefficient of -1 negates it and any other coefficient leaves it as it is
+    public Function withCoeff(double c) {
+        return c == -1 ? new Constant(-constVal) : this;
+    }
+
+    //The coefficient of a number is only its sign, and any other coefficient
+    //leaves it as it is
+    boolean hasCoeff() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Constant && Double.compare(constVal,
+                ((Constant)obj).constVal) == 0;
+    }
 
-        return this;
+    @Override
+    protected int structuralHash() {
+        return Double.hashCode(constVal);
     }
 
     public String toString() {
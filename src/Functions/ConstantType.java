@@ -0,0 +1,55 @@
+//---------------------------CONSTANT TYPE ENUM-------------------------------//
+//@author TitanJack
+//@project MathTools
+//Every mathematical constant which can be written in an expression, together
+//with its value in double and double-double precision.
+
+package Functions;
+
+import java.util.HashMap;
+
+public enum ConstantType {
+
+    PI("pi", Math.PI, DoubleDouble.PI), E("e", Math.E, DoubleDouble.E);
+
+    private static final HashMap<String, ConstantType> BY_NAME =
+            new HashMap<>();
+    static {
+        for (ConstantType constant : values())
+            BY_NAME.put(constant.name, constant);
+    }
+
+    private final String name;
+    private final double value;
+    private final DoubleDouble exactValue;
+
+    ConstantType(String name, double value, DoubleDouble exactValue) {
+        this.name = name;
+        this.value = value;
+        this.exactValue = exactValue;
+    }
+
+    //Function: Of
+    //@param name           the name of a constant, eg. "pi"
+    //@return               the constant with that name, or null if there is
+    //                      none
+    public static ConstantType of(String name) {
+        return BY_NAME.get(name);
+    }
+
+    //Function: Get Value
+    //@return               the value of the constant
+    public double getValue() {
+        return value;
+    }
+
+    //Function: Get Exact Value
+    //@return               the value of the constant in double-double
+    DoubleDouble getExactValue() {
+        return exactValue;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
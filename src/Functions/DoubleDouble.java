@@ -0,0 +1,375 @@
+//---------------------------DOUBLE DOUBLE CLASS------------------------------//
+//@author TitanJack
+//@project MathTools
+//A number stored as the unevaluated sum of two doubles, hi + lo, where lo is
+//the rounding error of hi. This gives about 106 bits of precision, twice as
+//many as a double, while every operation is still a handful of ordinary
+//double operations instead of the arbitrary precision math of BigDecimal.
+//Used to compute functions when the graph is zoomed in so far that the
+//doubles of neighbouring pixels are no longer distinct enough.
+//
+//The arithmetic follows the error free transformations of Dekker and Knuth,
+//eg. two doubles a and b are added as s + e where s = a + b rounded and e is
+//the exact rounding error of that addition.
+
+package Functions;
+
+@SuppressWarnings("WeakerAccess")
+public final class DoubleDouble {
+
+    public static final DoubleDouble ZERO = new DoubleDouble(0, 0);
+    public static final DoubleDouble ONE = new DoubleDouble(1, 0);
+    public static final DoubleDouble PI = new DoubleDouble(3.141592653589793,
+            1.2246467991473532e-16);
+    public static final DoubleDouble E = new DoubleDouble(2.718281828459045,
+            1.4456468917292502e-16);
+    private static final DoubleDouble HALF_PI = new DoubleDouble(
+            1.5707963267948966, 6.123233995736766e-17);
+    private static final DoubleDouble LN2 = new DoubleDouble(
+            0.6931471805599453, 2.3190468138462996e-17);
+
+    //2^27+1, used to split a double into two halves of 26 bits
+    private static final double SPLITTER = 134217729.0;
+    //Series are summed until the terms fall below this, relative to the sum
+    private static final double EPSILON = 1e-33;
+
+    private final double hi;
+    private final double lo;
+
+    private DoubleDouble(double hi, double lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    //Function: Of
+    //@param value          a double
+    //@return               the double as a double double
+    public static DoubleDouble of(double value) {
+        return new DoubleDouble(value, 0);
+    }
+
+    //Function: Double Value
+    //@return               the nearest double
+    public double doubleValue() {
+        return hi + lo;
+    }
+
+    //Function: Is NaN
+    //@return               whether the number is not a number
+    public boolean isNaN() {
+        return Double.isNaN(hi);
+    }
+
+    public String toString() {
+        return hi + (lo >= 0 ? " + " : " - ") + Math.abs(lo);
+    }
+
+    //------------------------------ARITHMETIC--------------------------------//
+    //FUNCTION LIST:
+    //public DoubleDouble add(DoubleDouble b)
+    //public DoubleDouble add(double b)
+    //public DoubleDouble subtract(DoubleDouble b)
+    //public DoubleDouble negate()
+    //public DoubleDouble multiply(DoubleDouble b)
+    //public DoubleDouble multiply(double b)
+    //public DoubleDouble divide(DoubleDouble b)
+    //public DoubleDouble sqrt()
+
+    public DoubleDouble add(DoubleDouble b) {
+        double s = hi + b.hi;
+        if (!isFinite(s)) return of(s);
+        double e = twoSumError(hi, b.hi, s);
+        double t = lo + b.lo;
+        double f = twoSumError(lo, b.lo, t);
+        e += t;
+        double s2 = s + e;
+        e = e - (s2 - s);
+        e += f;
+        return normalize(s2, e);
+    }
+
+    public DoubleDouble add(double b) {
+        double s = hi + b;
+        if (!isFinite(s)) return of(s);
+        double e = twoSumError(hi, b, s) + lo;
+        return normalize(s, e);
+    }
+
+    public DoubleDouble subtract(DoubleDouble b) {
+        return add(b.negate());
+    }
+
+    public DoubleDouble negate() {
+        return new DoubleDouble(-hi, -lo);
+    }
+
+    public DoubleDouble multiply(DoubleDouble b) {
+        double p = hi * b.hi;
+        if (!isFinite(p)) return of(p);
+        double e = twoProductError(hi, b.hi, p) + (hi * b.lo + lo * b.hi);
+        return normalize(p, e);
+    }
+
+    public DoubleDouble multiply(double b) {
+        if (b == 1) return this;
+        double p = hi * b;
+        if (!isFinite(p)) return of(p);
+        double e = twoProductError(hi, b, p) + lo * b;
+        return normalize(p, e);
+    }
+
+    public DoubleDouble divide(DoubleDouble b) {
+        //Long division with three double digits, each one correcting the
+        //remainder of the ones before
+        double q1 = hi / b.hi;
+        if (!isFinite(q1) || q1 == 0) return of(q1);
+        DoubleDouble r = subtract(b.multiply(q1));
+        double q2 = r.hi / b.hi;
+        r = r.subtract(b.multiply(q2));
+        double q3 = r.hi / b.hi;
+        return normalize(q1, q2).add(q3);
+    }
+
+    public DoubleDouble sqrt() {
+        if (hi <= 0 || !isFinite(hi)) return of(Math.sqrt(hi));
+        //One Newton step from the double square root doubles its precision
+        double y = Math.sqrt(hi);
+        DoubleDouble square = normalize(y * y, twoProductError(y, y, y * y));
+        return of(y).add(subtract(square).hi / (2 * y));
+    }
+
+    //---------------------------ELEMENTARY FUNCTIONS-------------------------//
+    //FUNCTION LIST:
+    //static DoubleDouble exp(DoubleDouble a)
+    //static DoubleDouble log(DoubleDouble a)
+    //static DoubleDouble pow(DoubleDouble a, double p)
+    //static DoubleDouble pow(DoubleDouble a, DoubleDouble b)
+    //static DoubleDouble sin(DoubleDouble a)
+    //static DoubleDouble cos(DoubleDouble a)
+    //static DoubleDouble trig(TrigType type, DoubleDouble a)
+
+    //Function: Exp
+    //@return               e ^ <a>
+    static DoubleDouble exp(DoubleDouble a) {
+        if (a.hi > 709.8) return of(Double.POSITIVE_INFINITY);
+        if (a.hi < -745.2) return ZERO;
+        if (a.isNaN()) return a;
+        //e^a=2^k*e^r where r=a-k*ln(2), and e^r is the 64th power of
+        //e^(r/64), whose series needs only a few terms. Every squaring
+        //doubles the rounding error, so more squarings would cost precision
+        double k = Math.rint(a.hi / LN2.hi);
+        DoubleDouble r = a.subtract(LN2.multiply(k)).multiply(1.0 / 64);
+        //<s> holds e^r-1, which keeps the digits of small values
+        DoubleDouble s = r;
+        DoubleDouble term = r;
+        for (int n = 2; Math.abs(term.hi) > EPSILON; n++) {
+            term = term.multiply(r).divide(of(n));
+            s = s.add(term);
+        }
+        //(1+s)^2-1=2s+s^2
+        for (int i = 0; i < 6; i++) s = s.multiply(2).add(s.multiply(s));
+        s = s.add(1);
+        return new DoubleDouble(Math.scalb(s.hi, (int)k), Math.scalb(s.lo,
+                (int)k));
+    }
+
+    //Function: Log
+    //@return               the natural log of <a>
+    static DoubleDouble log(DoubleDouble a) {
+        if (a.hi <= 0 || !isFinite(a.hi)) return of(Math.log(a.hi));
+        //One Newton step on e^x=a from the double log, x+a*e^(-x)-1
+        DoubleDouble x = of(Math.log(a.hi));
+        return x.add(a.multiply(exp(x.negate()))).add(-1);
+    }
+
+    //Function: Pow
+    //@return               <a> ^ <p> for a constant power <p>, with the same
+    //                      special cases as Math.pow
+    static DoubleDouble pow(DoubleDouble a, double p) {
+        if (p == (int)p && Math.abs(p) <= 64) {
+            //Repeated squaring, which works for negative bases as well
+            DoubleDouble result = ONE, base = a;
+            int remaining = Math.abs((int)p);
+            while (remaining > 0) {
+                if ((remaining & 1) != 0) result = result.multiply(base);
+                base = base.multiply(base);
+                remaining >>= 1;
+            }
+            return p < 0 ? ONE.divide(result) : result;
+        }
+        if (a.hi == 0 || !isFinite(a.hi) || !isFinite(p))
+            return of(Math.pow(a.hi, p));
+        if (a.hi < 0) {
+            //Only whole powers of negative numbers are defined
+            if (p != Math.rint(p)) return of(Double.NaN);
+            DoubleDouble result = exp(log(a.negate()).multiply(p));
+            return Math.rint(p / 2) == p / 2 ? result : result.negate();
+        }
+        return exp(log(a).multiply(p));
+    }
+
+    //Function: Pow
+    //@return               <a> ^ <b>
+    static DoubleDouble pow(DoubleDouble a, DoubleDouble b) {
+        if (b.lo == 0) return pow(a, b.hi);
+        if (a.hi < 0) return of(Double.NaN);
+        if (a.hi == 0 || !isFinite(a.hi))
+            return of(Math.pow(a.hi, b.hi));
+        return exp(log(a).multiply(b));
+    }
+
+    //Function: Sin
+    //@return               the sine of <a>
+    static DoubleDouble sin(DoubleDouble a) {
+        return sinCos(a, false);
+    }
+
+    //Function: Cos
+    //@return               the cosine of <a>
+    static DoubleDouble cos(DoubleDouble a) {
+        return sinCos(a, true);
+    }
+
+    //Function: Trig
+    //@param type           the type of trigonometric function
+    //@return               <type>(<a>), using the same formulas as
+    //                      Trigonometric.compute
+    static DoubleDouble trig(TrigType type, DoubleDouble a) {
+        switch (type) {
+            case SIN: return sin(a);
+            case COS: return cos(a);
+            case TAN: return sin(a).divide(cos(a));
+            case CSC: return ONE.divide(sin(a));
+            case SEC: return ONE.divide(cos(a));
+            case COT: return cos(a).divide(sin(a));
+            case ARCSIN: {
+                if (Math.abs(a.hi) >= 1)
+                    return Math.abs(a.hi) == 1 && a.lo == 0 ? HALF_PI
+                            .multiply(a.hi) : of(Double.NaN);
+                //One Newton step on sin(y)=a from the double arcsin
+                DoubleDouble y = of(Math.asin(a.hi));
+                return y.subtract(sin(y).subtract(a).divide(cos(y)));
+            }
+            case ARCCOS: {
+                DoubleDouble arcsin = trig(TrigType.ARCSIN, a);
+                return arcsin.isNaN() ? arcsin : HALF_PI.subtract(arcsin);
+            }
+            case ARCTAN: {
+                if (!isFinite(a.hi)) return of(Math.atan(a.hi));
+                //One Newton step on tan(y)=a, which multiplied out by cos^2
+                //is y-(sin(y)-a*cos(y))*cos(y)
+                DoubleDouble y = of(Math.atan(a.hi));
+                DoubleDouble cos = cos(y);
+                return y.subtract(sin(y).subtract(a.multiply(cos)).multiply(
+                        cos));
+            }
+            case ARCCSC: return trig(TrigType.ARCSIN, ONE.divide(a));
+            case ARCSEC: return trig(TrigType.ARCCOS, ONE.divide(a));
+            case ARCCOT: return trig(TrigType.ARCTAN, ONE.divide(a));
+            case SINH: {
+                if (Math.abs(a.hi) < 0.5) {
+                    //The series keeps the digits which e^a-e^(-a) cancels
+                    DoubleDouble sum = a, term = a, square = a.multiply(a);
+                    for (int n = 3; Math.abs(term.hi) > EPSILON * Math.abs(
+                            sum.hi); n += 2) {
+                        term = term.multiply(square).divide(of(n * (n -
+                                1)));
+                        sum = sum.add(term);
+                    }
+                    return sum;
+                }
+                DoubleDouble e = exp(a);
+                return e.subtract(ONE.divide(e)).multiply(0.5);
+            }
+            case COSH: {
+                DoubleDouble e = exp(a);
+                return e.add(ONE.divide(e)).multiply(0.5);
+            }
+            case TANH:
+                if (Math.abs(a.hi) > 40) return of(Math.signum(a.hi));
+                return trig(TrigType.SINH, a).divide(trig(TrigType.COSH, a));
+            case CSCH: return ONE.divide(trig(TrigType.SINH, a));
+            case SECH: return ONE.divide(trig(TrigType.COSH, a));
+            case COTH: return ONE.divide(trig(TrigType.TANH, a));
+            case ARCSINH: {
+                //The positive side avoids the cancellation of a+sqrt(a^2+1)
+                DoubleDouble abs = a.hi < 0 ? a.negate() : a;
+                DoubleDouble result = log(abs.add(abs.multiply(abs).add(1)
+                        .sqrt()));
+                return a.hi < 0 ? result.negate() : result;
+            }
+            case ARCCOSH:
+                return log(a.add(a.multiply(a).add(-1).sqrt()));
+            case ARCTANH:
+                return log(ONE.add(a).divide(ONE.subtract(a))).multiply(0.5);
+            case ARCCSCH: return trig(TrigType.ARCSINH, ONE.divide(a));
+            case ARCSECH: return trig(TrigType.ARCCOSH, ONE.divide(a));
+            case ARCCOTH: return trig(TrigType.ARCTANH, ONE.divide(a));
+            default: return of(Double.NaN);
+        }
+    }
+
+    //Function: Sin Cos
+    //@param cosine         whether the cosine is computed instead of the sine
+    private static DoubleDouble sinCos(DoubleDouble a, boolean cosine) {
+        if (!isFinite(a.hi)) return of(Double.NaN);
+        //a=k*pi/2+r where r is at most pi/4, then the quarter turn <k> decides
+        //which of sin(r) and cos(r) is used and its sign
+        double k = Math.rint(a.hi / HALF_PI.hi);
+        DoubleDouble r = a.subtract(HALF_PI.multiply(k));
+        int quarter = (int)(((k % 4) + 4) % 4);
+        if (cosine) quarter = (quarter + 1) % 4;
+        DoubleDouble result = quarter % 2 == 0 ? sinSeries(r) : cosSeries(r);
+        return quarter >= 2 ? result.negate() : result;
+    }
+
+    private static DoubleDouble sinSeries(DoubleDouble r) {
+        DoubleDouble sum = r, term = r, square = r.multiply(r).negate();
+        for (int n = 3; Math.abs(term.hi) > EPSILON; n += 2) {
+            term = term.multiply(square).divide(of(n * (n - 1)));
+            sum = sum.add(term);
+        }
+        return sum;
+    }
+
+    private static DoubleDouble cosSeries(DoubleDouble r) {
+        DoubleDouble sum = ONE, term = ONE, square = r.multiply(r).negate();
+        for (int n = 2; Math.abs(term.hi) > EPSILON; n += 2) {
+            term = term.multiply(square).divide(of(n * (n - 1)));
+            sum = sum.add(term);
+        }
+        return sum;
+    }
+
+    //-------------------------------UTILITIES--------------------------------//
+
+    //Function: Two Sum Error
+    //@return               the exact rounding error of <s> = <a> + <b>
+    static double twoSumError(double a, double b, double s) {
+        double bb = s - a;
+        return (a - (s - bb)) + (b - bb);
+    }
+
+    //Function: Two Product Error
+    //@return               the exact rounding error of <p> = <a> * <b>
+    static double twoProductError(double a, double b, double p) {
+        double t = SPLITTER * a;
+        double aHi = t - (t - a), aLo = a - aHi;
+        t = SPLITTER * b;
+        double bHi = t - (t - b), bLo = b - bHi;
+        return ((aHi * bHi - p) + aHi * bLo + aLo * bHi) + aLo * bLo;
+    }
+
+    //Function: Normalize
+    //@return               <s> + <e> with the rounding error moved into lo,
+    //                      for an <e> which is small compared to <s>
+    private static DoubleDouble normalize(double s, double e) {
+        double hi = s + e;
+        if (!isFinite(hi)) return of(hi);
+        return new DoubleDouble(hi, e - (hi - s));
+    }
+
+    private static boolean isFinite(double value) {
+        return !Double.isNaN(value) && !Double.isInfinite(value);
+    }
+}
@@ -0,0 +1,419 @@
+//------------------------------E-GRAPH CLASS---------------------------------//
+//@author TitanJack
+//@project MathTools
+//An equality graph, which stores many equivalent forms of an expression at
+//once. Nodes are grouped into classes, and every node in a class computes the
+//same value. The children of a node are classes rather than nodes, so a single
+//node such as <x*(x+1)> stands for every way of writing <x> times every way
+//of writing <x+1>. Rewrite rules add new nodes and merge classes which are
+//known to be equal, and the cheapest form is extracted at the end.
+//
+//Coefficients are not stored on the nodes, a function with a coefficient is
+//added as a product of a constant and the function.
+
+package Functions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+final class EGraph {
+
+    static final byte CONST = 0;
+    static final byte X = 1;
+    static final byte ADD = 2;
+    static final byte MUL = 3;
+    static final byte DIV = 4;
+    static final byte POW = 5;
+    static final byte LOG = 6;
+    static final byte TRIG = 7;
+    //Any other type of function, which is kept as it is
+    static final byte LEAF = 8;
+
+    private int[] parents;
+    private final ArrayList<ArrayList<Node>> classes;
+    private boolean[] isConstant;
+    private double[] constants;
+    private final HashMap<Node, Integer> memo;
+
+    EGraph() {
+        parents = new int[64];
+        classes = new ArrayList<>();
+        isConstant = new boolean[64];
+        constants = new double[64];
+        memo = new HashMap<>();
+    }
+
+    //Function: Add Function
+    //@param function       the function to be added
+    //@return               the class of the function
+    int addFunction(Function function) {
+        int id;
+        double coeff = function.getCoeff();
+        if (function instanceof Constant || function instanceof MathConstant)
+            return add(Node.constant(function.compute(0)));
+        else if (function instanceof Variable && ((Variable)function).isX())
+            id = add(new Node(X, 0, 0, null, new int[0]));
+        else if (function instanceof SumFunction)
+            id = add(ADD, addFunctions(((SumFunction)function).getTerms()));
+        else if (function instanceof GeoFunction)
+            id = add(MUL, addFunctions(((GeoFunction)function).getFactors()));
+        else if (function instanceof Rational)
+            id = add(DIV, addFunction(((Rational)function).getNumerator()),
+                    addFunction(((Rational)function).getDenominator()));
+        else if (function instanceof Exponential)
+            id = add(POW, addFunction(((Exponential)function).getBase()),
+                    addFunction(((Exponential)function).getExponent()));
+        else if (function instanceof Logarithmic)
+            id = add(LOG, addFunction(((Logarithmic)function).getSubFunc()));
+        else if (function instanceof Trigonometric)
+            id = add(new Node(TRIG, 0, ((Trigonometric)function).getType()
+                    .ordinal(), null, new int[]{addFunction(((Trigonometric)
+                    function).getSubFunc())}));
+        else if (function instanceof Polynomial)
+            id = addPolynomial(((Polynomial)function).getCoefficients());
+        else return add(new Node(LEAF, 0, 0, function, new int[0]));
+        if (coeff == 1) return id;
+        return add(MUL, add(Node.constant(coeff)), id);
+    }
+
+    //Function: Add Polynomial
+    //@param coeffs         the coefficients of a polynomial
+    //@return               the class of the polynomial written as a sum of
+    //                      powers of x, so that the rules can work on its terms
+    private int addPolynomial(double[] coeffs) {
+        int x = add(new Node(X, 0, 0, null, new int[0]));
+        ArrayList<Integer> terms = new ArrayList<>();
+        for (int k = 0; k < coeffs.length; k++) {
+            if (coeffs[k] == 0) continue;
+            int term = k == 0 ? addConstant(1) : k == 1 ? x : add(POW, x,
+                    addConstant(k));
+            terms.add(coeffs[k] == 1 ? term : add(MUL, addConstant(coeffs[k]),
+                    term));
+        }
+        int[] ids = new int[terms.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = terms.get(i);
+        return add(ADD, ids);
+    }
+
+    private int[] addFunctions(Function[] functions) {
+        int[] ids = new int[functions.length];
+        for (int i = 0; i < functions.length; i++)
+            ids[i] = addFunction(functions[i]);
+        return ids;
+    }
+
+    //Function: Add
+    //@param op             the operation of the node
+    //       children       the classes the operation is applied to
+    //@return               the class of the new node. A sum or product of a
+    //                      single class is that class itself
+    int add(byte op, int... children) {
+        if ((op == ADD || op == MUL) && children.length == 1)
+            return find(children[0]);
+        if (op == ADD && children.length == 0) return addConstant(0);
+        if (op == MUL && children.length == 0) return addConstant(1);
+        return add(new Node(op, 0, 0, null, children));
+    }
+
+    int addConstant(double value) {
+        return add(Node.constant(value));
+    }
+
+    //Function: Add
+    //@param node           the node to be added
+    //@return               the class of the node. An equal node which is
+    //                      already in the graph is not added again
+    int add(Node node) {
+        node = canonicalize(node);
+        Integer existing = memo.get(node);
+        if (existing != null) return find(existing);
+
+        int id = classes.size();
+        if (id == parents.length) {
+            parents = Arrays.copyOf(parents, id * 2);
+            isConstant = Arrays.copyOf(isConstant, id * 2);
+            constants = Arrays.copyOf(constants, id * 2);
+        }
+        parents[id] = id;
+        ArrayList<Node> nodes = new ArrayList<>();
+        nodes.add(node);
+        classes.add(nodes);
+        memo.put(node, id);
+        if (node.op == CONST) {
+            isConstant[id] = true;
+            constants[id] = node.value;
+        } else {
+            //A node whose children are all numbers is itself a number
+            double value = fold(node);
+            if (!Double.isNaN(value)) return merge(id, addConstant(value));
+        }
+        return id;
+    }
+
+    //Function: Find
+    //@param id             a class
+    //@return               the class which <id> has been merged into
+    int find(int id) {
+        while (parents[id] != id) {
+            parents[id] = parents[parents[id]];
+            id = parents[id];
+        }
+        return id;
+    }
+
+    //Function: Merge
+    //@param a              a class
+    //       b              a class which computes the same value as <a>
+    //@return               the class both of them are now part of
+    //<rebuild> must be called before the graph is searched again
+    int merge(int a, int b) {
+        a = find(a);
+        b = find(b);
+        if (a == b) return a;
+        parents[b] = a;
+        classes.get(a).addAll(classes.get(b));
+        classes.set(b, new ArrayList<>());
+        if (isConstant[b] && !isConstant[a]) {
+            isConstant[a] = true;
+            constants[a] = constants[b];
+        }
+        return a;
+    }
+
+    //Function: Rebuild
+    //Merging two classes can make nodes in other classes equal, such as
+    //<x+a> and <x+b> after <a> and <b> are merged. Those classes are merged
+    //as well, until no two classes contain the same node
+    void rebuild() {
+        while (true) {
+            memo.clear();
+            ArrayList<int[]> unions = new ArrayList<>();
+            ArrayList<double[]> folds = new ArrayList<>();
+            for (int id = 0; id < classes.size(); id++) {
+                if (parents[id] != id) continue;
+                ArrayList<Node> nodes = new ArrayList<>();
+                for (Node node : classes.get(id)) {
+                    //A number only needs to be written one way, and other
+                    //ways of writing it would only give the rules more to do
+                    if (isConstant[id] && node.op != CONST) continue;
+                    Node canonical = canonicalize(node);
+                    Integer other = memo.putIfAbsent(canonical, id);
+                    if (other == null) nodes.add(canonical);
+                    else if (other != id) unions.add(new int[]{other, id});
+                    if (!isConstant[id]) {
+                        double value = fold(canonical);
+                        if (!Double.isNaN(value))
+                            folds.add(new double[]{id, value});
+                    }
+                }
+                classes.set(id, nodes);
+            }
+            if (unions.isEmpty() && folds.isEmpty()) return;
+            for (int[] union : unions) merge(union[0], union[1]);
+            for (double[] fold : folds)
+                merge((int)fold[0], addConstant(fold[1]));
+        }
+    }
+
+    //Function: Class Count
+    //@return               the number of classes which have been created,
+    //                      including those merged into other classes
+    int classCount() {
+        return classes.size();
+    }
+
+    //Function: Size
+    //@return               the number of distinct nodes in the graph
+    int size() {
+        return memo.size();
+    }
+
+    //Function: Nodes
+    //@param id             a class
+    //@return               a copy of the nodes in the class
+    ArrayList<Node> nodes(int id) {
+        return new ArrayList<>(classes.get(find(id)));
+    }
+
+    //Function: Find Node
+    //@param id             a class
+    //       op             the operation to look for
+    //@return               the first node in the class with the operation, or
+    //                      null if there is none
+    Node findNode(int id, byte op) {
+        for (Node node : classes.get(find(id)))
+            if (node.op == op) return node;
+        return null;
+    }
+
+    boolean isConstant(int id) {
+        return isConstant[find(id)];
+    }
+
+    double constant(int id) {
+        return constants[find(id)];
+    }
+
+    //Function: Extract
+    //@param root           the class to be extracted
+    //       costs          the cost of computing each type of node
+    //@return               the function with the lowest total cost among all
+    //                      of the forms in the class
+    Function extract(int root, NodeCosts costs) {
+        int count = classes.size();
+        double[] classCosts = new double[count];
+        Node[] best = new Node[count];
+        Arrays.fill(classCosts, Double.POSITIVE_INFINITY);
+        //Every node costs more than its children, so the costs settle after
+        //a few passes and the chosen nodes never form a cycle
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int id = 0; id < count; id++) {
+                if (parents[id] != id) continue;
+                for (Node node : classes.get(id)) {
+                    double cost = costs.cost(this, node);
+                    for (int child : node.children)
+                        cost += classCosts[find(child)];
+                    if (cost < classCosts[id]) {
+                        classCosts[id] = cost;
+                        best[id] = node;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return build(find(root), best, new HashMap<>());
+    }
+
+    private Function build(int id, Node[] best, HashMap<Integer, Function>
+            built) {
+        Function function = built.get(id);
+        if (function != null) return function;
+        Node node = best[id];
+        Function[] subFuncs = new Function[node.children.length];
+        for (int i = 0; i < subFuncs.length; i++)
+            subFuncs[i] = build(find(node.children[i]), best, built);
+        switch (node.op) {
+            case CONST: function = new Constant(node.value);
+                break;
+            case X: function = new Variable();
+                break;
+            case ADD: function = new SumFunction(subFuncs);
+                break;
+            case MUL: function = new GeoFunction(subFuncs);
+                break;
+            case DIV: function = new Rational(subFuncs[0], subFuncs[1]);
+                break;
+            case POW: function = new Exponential(subFuncs[0], subFuncs[1]);
+                break;
+            case LOG: function = new Logarithmic(subFuncs[0]);
+                break;
+            case TRIG: function = new Trigonometric(Trigonometric.TYPES[node
+                    .type], subFuncs[0]);
+                break;
+            default: function = node.leaf;
+        }
+        built.put(id, function);
+        return function;
+    }
+
+    //Function: Canonicalize
+    //@param node           a node
+    //@return               the node with its children replaced by the classes
+    //                      they were merged into. The children of sums and
+    //                      products are sorted, since their order does not
+    //                      matter
+    private Node canonicalize(Node node) {
+        if (node.children.length == 0) return node;
+        int[] children = new int[node.children.length];
+        for (int i = 0; i < children.length; i++)
+            children[i] = find(node.children[i]);
+        if (node.op == ADD || node.op == MUL) Arrays.sort(children);
+        if (Arrays.equals(children, node.children)) return node;
+        return new Node(node.op, node.value, node.type, node.leaf, children);
+    }
+
+    //Function: Fold
+    //@param node           a node
+    //@return               the value of the node if all of its children are
+    //                      numbers and the value is finite, otherwise NaN
+    private double fold(Node node) {
+        if (node.op == CONST || node.op == X || node.op == LEAF) return
+                Double.NaN;
+        double[] values = new double[node.children.length];
+        for (int i = 0; i < values.length; i++) {
+            if (!isConstant(node.children[i])) return Double.NaN;
+            values[i] = constant(node.children[i]);
+        }
+        double value;
+        switch (node.op) {
+            case ADD:
+                value = 0;
+                for (double v : values) value += v;
+                break;
+            case MUL:
+                value = 1;
+                for (double v : values) value *= v;
+                break;
+            case DIV: value = values[0] / values[1];
+                break;
+            case POW: value = Math.pow(values[0], values[1]);
+                break;
+            case LOG: value = Math.log(values[0]);
+                break;
+            default: value = Trigonometric.compute(Trigonometric.TYPES[node
+                    .type], values[0]);
+        }
+        return Double.isInfinite(value) ? Double.NaN : value;
+    }
+
+    //A single operation applied to classes
+    static final class Node {
+
+        final byte op;
+        //The value of a constant
+        final double value;
+        //The index of a trigonometric function in Trigonometric.TYPES
+        final int type;
+        //The function kept by a leaf
+        final Function leaf;
+        final int[] children;
+        private final int hash;
+
+        Node(byte op, double value, int type, Function leaf, int[] children) {
+            this.op = op;
+            //Adding 0 turns -0 into 0, so that both are the same constant
+            this.value = value + 0.0;
+            this.type = type;
+            this.leaf = leaf;
+            this.children = children;
+            int h = op;
+            h = 31 * h + Double.hashCode(this.value);
+            h = 31 * h + type;
+            h = 31 * h + (leaf == null ? 0 : leaf.hashCode());
+            hash = 31 * h + Arrays.hashCode(children);
+        }
+
+        static Node constant(double value) {
+            return new Node(CONST, value, 0, null, new int[0]);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Node)) return false;
+            Node other = (Node)obj;
+            return hash == other.hash && op == other.op && Double.compare(
+                    value, other.value) == 0 && type == other.type &&
+                    (leaf == null ? other.leaf == null : leaf.equals(
+                    other.leaf)) && Arrays.equals(children, other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+//------------------------EVALUATION BUDGET CLASS-----------------------------//
+//@author TitanJack
+//@project MathTools
+//A per-thread time limit on working with functions. Work which can run for a
+//long time, such as walking a large function tree, differentiating it or
+//rewriting it, calls <checkpoint> every now and then, which throws a
+//BudgetExceededException once the time is up. The work is cancelled by the
+//exception, and the caller decides what to do instead.
+//
+//Budgets nest like the arrays of BatchScratch, and an inner budget never
+//lasts longer than the one around it. Without a budget, <checkpoint> does
+//nothing.
+
+package Functions;
+
+@SuppressWarnings("WeakerAccess")
+public final class EvaluationBudget {
+
+    private static final ThreadLocal<EvaluationBudget> LOCAL =
+            ThreadLocal.withInitial(EvaluationBudget::new);
+
+    //The time each budget runs out at, as given by System.nanoTime
+    private long[] deadlines;
+    private int depth;
+
+    private EvaluationBudget() {
+        deadlines = new long[4];
+        depth = 0;
+    }
+
+    //Function: Get
+    //@return               the budget belonging to the current thread
+    public static EvaluationBudget get() {
+        return LOCAL.get();
+    }
+
+    //Function: Begin
+    //@param nanos          how long the work may take, in nanoseconds
+    //Starts a budget for the work which follows. Every call must be paired
+    //with a call to <end>, in a finally block
+    public void begin(long nanos) {
+        if (depth == deadlines.length) {
+            long[] grown = new long[deadlines.length * 2];
+            System.arraycopy(deadlines, 0, grown, 0, deadlines.length);
+            deadlines = grown;
+        }
+        long deadline = System.nanoTime() + nanos;
+        //Deadlines are compared by their difference, as nanoTime may wrap
+        if (depth > 0 && deadline - deadlines[depth - 1] > 0)
+            deadline = deadlines[depth - 1];
+        deadlines[depth++] = deadline;
+    }
+
+    //Function: End
+    //Ends the most recently started budget
+    public void end() {
+        depth--;
+    }
+
+    //Function: Check
+    //Throws a BudgetExceededException if the current budget has run out
+    public void check() {
+        if (depth > 0 && System.nanoTime() - deadlines[depth - 1] > 0)
+            throw new BudgetExceededException("The function took too long " +
+                    "to evaluate");
+    }
+
+    //Function: Remaining
+    //@return               the nanoseconds left in the current budget, or
+    //                      Long.MAX_VALUE without a budget. Work which is
+    //                      handed to other threads begins a budget of this
+    //                      length on each of them, since budgets belong to a
+    //                      single thread
+    public long remaining() {
+        if (depth == 0) return Long.MAX_VALUE;
+        return deadlines[depth - 1] - System.nanoTime();
+    }
+
+    //Function: Checkpoint
+    //Checks the budget of the current thread, see <check>
+    public static void checkpoint() {
+        LOCAL.get().check();
+    }
+}
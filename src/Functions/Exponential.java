@@ -9,9 +9,17 @@ package Functions;
 import NumberFormats.Numbers;
 
 public class Exponential extends Function{
-    private double coeff;
-    private Function baseFunc;
-    private Function exponentFunc;
+
+    //Largest whole number power which is computed by multiplication instead
+    //of Math.pow
+    private static final int MAX_WHOLE_POWER = 16;
+
+    private final double coeff;
+    private final Function baseFunc;
+    private final Function exponentFunc;
+    //The power when the exponent is a small whole number such as in <x^3>,
+    //otherwise 0
+    private final int wholePower;
 
     @SuppressWarnings("WeakerAccess")
     public Exponential(Function baseFunc, Function exponentFunc) {
@@ -22,6 +30,13 @@ public class Exponential extends Function{
         this.baseFunc = baseFunc;
         this.exponentFunc = exponentFunc;
         this.coeff = coeff;
+        int wholePower = 0;
+        if (exponentFunc instanceof Constant) {
+            double power = exponentFunc.compute(0);
+            if (power == (int)power && Math.abs(power) <= MAX_WHOLE_POWER)
+                wholePower = (int)power;
+        }
+        this.wholePower = wholePower;
     }
 
     public Exponential(Function baseFunc, double power, double coeff) {
@@ -33,44 +48,197 @@ public class Exponential extends Function{
     }
 
     public double compute(double x) {
+        if (wholePower != 0)
+            return coeff * wholePower(baseFunc.compute(x), wholePower);
         return coeff*Math.pow(baseFunc.compute(x), exponentFunc.compute(x));
     }
 
-    public Function differentiate() {
+    public DoubleDouble compute(DoubleDouble x) {
+        DoubleDouble base = baseFunc.compute(x);
+        if (exponentFunc instanceof Constant)
+            return DoubleDouble.pow(base, exponentFunc.compute(0))
+                    .multiply(coeff);
+        return DoubleDouble.pow(base, exponentFunc.compute(x)).multiply(coeff);
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    public double compute(double[] env) {
+        if (wholePower != 0)
+            return coeff * wholePower(baseFunc.compute(env), wholePower);
+        return coeff * Math.pow(baseFunc.compute(env), exponentFunc.compute(
+                env));
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        computeSubFunction(baseFunc, xs, env, out, n);
+        if (wholePower != 0) {
+            for (int i = 0; i < n; i++)
+                out[i] = coeff * wholePower(out[i], wholePower);
+            return;
+        }
+        //A constant exponent such as in <x^0.5> does not need to be computed
+        //for every value
+        if (exponentFunc instanceof Constant) {
+            double power = exponentFunc.compute(0);
+            for (int i = 0; i < n; i++)
+                out[i] = coeff * Math.pow(out[i], power);
+            return;
+        }
+        BatchScratch scratch = BatchScratch.get();
+        double[] powers = scratch.acquire(n);
+        try {
+            computeSubFunction(exponentFunc, xs, env, powers, n);
+            for (int i = 0; i < n; i++)
+                out[i] = coeff * Math.pow(out[i], powers[i]);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    //Function: Whole Power
+    //@param base           the base of the power
+    //       power          a whole number power
+    //@return               <base> raised to <power>, using repeated squaring
+    //                      which is much faster than Math.pow
+    static double wholePower(double base, int power) {
+        double result = 1;
+        int remaining = Math.abs(power);
+        while (remaining > 0) {
+            if ((remaining & 1) != 0) result *= base;
+            base *= base;
+            remaining >>= 1;
+        }
+        return power < 0 ? 1 / result : result;
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        baseFunc.computeComplex(re, im, outRe, outIm, n);
+        if (wholePower != 0)
+            Complex.wholePower(outRe, outIm, wholePower, n);
+        else if (exponentFunc instanceof Constant)
+            Complex.power(outRe, outIm, exponentFunc.compute(0), n);
+        else {
+            BatchScratch scratch = BatchScratch.get();
+            double[] powersRe = scratch.acquire(n);
+            double[] powersIm = scratch.acquire(n);
+            try {
+                exponentFunc.computeComplex(re, im, powersRe, powersIm, n);
+                Complex.power(outRe, outIm, powersRe, powersIm, n);
+            } finally {
+                scratch.release();
+                scratch.release();
+            }
+        }
+        Complex.scale(outRe, outIm, coeff, n);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        BatchScratch scratch = BatchScratch.get();
+        double[][] temp = scratch.acquireColumns(2, order + 1);
+        try {
+            double[] base = temp[0], exponent = temp[1];
+            baseFunc.computeTaylor(x, base, order);
+            if (exponentFunc instanceof Constant)
+                Taylor.power(base, exponentFunc.compute(0), out, order);
+            else {
+                //f(x)^g(x)=e^(g(x)ln(f(x)))
+                exponentFunc.computeTaylor(x, exponent, order);
+                Taylor.log(base, out, order);
+                Taylor.multiply(out, exponent, base, order);
+                Taylor.exp(base, out, order);
+            }
+        } finally {
+            scratch.releaseColumns(2);
+        }
+        Taylor.scale(out, coeff, order);
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        Interval base = baseFunc.computeInterval(lo, hi);
+        Interval result;
+        if (exponentFunc instanceof Constant)
+            result = Interval.power(base, exponentFunc.compute(0));
+        else
+            result = Interval.pow(base, exponentFunc.computeInterval(lo, hi));
+        return Interval.scale(result, coeff);
+    }
+
+    protected Function derive() {
         if (exponentFunc instanceof Constant) {
             //Derivative for power functions. d/dx(f(x))^a=a(f(x))^(a-1)(f'(x))
             double constVal = exponentFunc.compute(0);
             if (constVal == 0) return new Constant(0);
-            else if (constVal == 1) return baseFunc.differentiate();
-            else return new GeoFunction(new Function[]{exponentFunc, new
-                        Exponential(baseFunc,exponentFunc.compute(0) -
-                        1), baseFunc.differentiate()});
+            else if (constVal == 1) return product(coeff, baseFunc
+                    .differentiate());
+            else return product(coeff * constVal, new Exponential(baseFunc,
+                    constVal - 1), baseFunc.differentiate());
         } else {
             //Generalized derivative formula for exponential functions
             //d/dx(f(x)^g(x))=(f(x)^g(x))(g'(x)lnf(x)+g(x)/f(x)*f'(x))
-            return new GeoFunction(new Function[]{
-                    this,
-                    new SumFunction(new Function[]{
-                            new GeoFunction(new Function[]{
-                                    exponentFunc.differentiate(),
-                                    new Logarithmic(baseFunc)
-                            }),
-                            new GeoFunction(new Function[]{
-                                    new Rational(exponentFunc, baseFunc),
-                                    baseFunc.differentiate()
-                            })
-                    })
-            });
+            //<this> already carries the coefficient
+            return product(1, this, sum(
+                    product(1, exponentFunc.differentiate(),
+                            new Logarithmic(baseFunc)),
+                    product(1, new Rational(exponentFunc, baseFunc),
+                            baseFunc.differentiate())
+            ));
         }
     }
 
+    Function getBase() {
+        return baseFunc;
+    }
+
+    Function getExponent() {
+        return exponentFunc;
+    }
+
     public double getCoeff() {
         return coeff;
     }
 
-    public Function setCoeff(double c) {
-        coeff = c;
-        return this;
+    public Function withCoeff(double c) {
+        return new Exponential(baseFunc, exponentFunc, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Exponential) || obj.hashCode() != hashCode())
+            return false;
+        Exponential other = (Exponential)obj;
+        return Double.compare(coeff, other.coeff) == 0 && baseFunc.equals(
+                other.baseFunc) && exponentFunc.equals(other.exponentFunc);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 5;
+        h = 31 * h + Double.hashCode(coeff);
+        h = 31 * h + baseFunc.hashCode();
+        return 31 * h + exponentFunc.hashCode();
+    }
+
+    Function[] getSubFunctions() {
+        return new Function[]{baseFunc, exponentFunc};
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new Exponential(subFuncs[0], subFuncs[1], coeff);
     }
 
     public String toString() {
@@ -0,0 +1,157 @@
+//---------------------------FAMILY EVALUATOR CLASS---------------------------//
+//@author TitanJack
+//@project MathTools
+//Computes every member of a family of curves, such as
+//<a*sin(x)+a^2 for a in 0..5 step 0.1>, over the same x values in one batch.
+//
+//The members are split into a few groups of neighbouring members, one for
+//each thread of the ForkJoin pool. Each group computes its members one after
+//another through an IncrementalEvaluator, so from one member to the next only
+//the nodes which use the variable of the family are computed again. The
+//parts which only depend on x, such as sin(x) above, are computed once by
+//each group rather than once by each member.
+
+package Functions;
+
+import java.util.IdentityHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+@SuppressWarnings("WeakerAccess")
+public final class FamilyEvaluator {
+
+    //The number of values below which the members are computed by the
+    //calling thread alone
+    private static final long PARALLEL_WORK = 1 << 14;
+
+    private final Function function;
+    //The slot of the variable of the family, and its value for each member
+    private final int slot;
+    private final double[] values;
+    //The evaluator of each group, and the first member of each group. The
+    //last group ends at the last member
+    private final IncrementalEvaluator[] groups;
+    private final int[] firstMembers;
+
+    public FamilyEvaluator(Function function, int slot, double[] values) {
+        this.function = function;
+        this.slot = slot;
+        this.values = values.clone();
+        int groupCount = Math.max(1, Math.min(values.length, ForkJoinPool
+                .getCommonPoolParallelism()));
+        groups = new IncrementalEvaluator[groupCount];
+        firstMembers = new int[groupCount];
+        for (int g = 0; g < groupCount; g++) {
+            groups[g] = new IncrementalEvaluator(function);
+            firstMembers[g] = (int)((long)g * values.length / groupCount);
+        }
+    }
+
+    //Function: Size
+    //@return               the number of members of the family
+    public int size() {
+        return values.length;
+    }
+
+    //Function: Get Value
+    //@param member         the index of a member
+    //@return               the value of the variable of the family for the
+    //                      member
+    public double getValue(int member) {
+        return values[member];
+    }
+
+    //Function: Get Member
+    //@param member         the index of a member
+    //@return               the function of the member on its own, with the
+    //                      variable of the family replaced by its value
+    public Function getMember(int member) {
+        double value = values[member];
+        return ParameterValues.substitute(function, s -> s == slot, s ->
+                value, new IdentityHashMap<>());
+    }
+
+    //Function: Compute
+    //@param xs             the x values to be computed
+    //       env            the value of every parameter, indexed by its slot
+    //                      as in Function.compute(double[] env)
+    //       out            the array of each member which its results are
+    //                      written into
+    //       n              the number of values to be computed
+    public void compute(double[] xs, double[] env, double[][] out, int n) {
+        long work = (long)values.length * n;
+        if (groups.length > 1 && work >= PARALLEL_WORK)
+            ForkJoinPool.commonPool().invoke(new GroupTask(xs, env, out, n,
+                    0, groups.length, EvaluationBudget.get().remaining(),
+                    System.nanoTime()));
+        else
+            for (int g = 0; g < groups.length; g++)
+                computeGroup(g, xs, env, out, n);
+    }
+
+    //Function: Compute Group
+    //@param group          the index of a group
+    //       xs             the x values to be computed
+    //       env            the value of every parameter
+    //       out            the array of each member
+    //       n              the number of values to be computed
+    private void computeGroup(int group, double[] xs, double[] env,
+                              double[][] out, int n) {
+        int end = group + 1 < groups.length ? firstMembers[group + 1] :
+                values.length;
+        double[] row = new double[Math.max(env.length, slot + 1)];
+        System.arraycopy(env, 0, row, 0, env.length);
+        for (int member = firstMembers[group]; member < end; member++) {
+            row[slot] = values[member];
+            groups[group].compute(xs, row, out[member], n);
+        }
+    }
+
+    //Computes a range of groups, splitting it in half until a single group
+    //is left
+    @SuppressWarnings("serial")
+    private class GroupTask extends RecursiveAction {
+
+        private final double[] xs;
+        private final double[] env;
+        private final double[][] out;
+        private final int n;
+        private final int from;
+        private final int to;
+        //The budget of the thread which started the work, and when it did
+        private final long budget;
+        private final long start;
+
+        GroupTask(double[] xs, double[] env, double[][] out, int n, int from,
+                  int to, long budget, long start) {
+            this.xs = xs;
+            this.env = env;
+            this.out = out;
+            this.n = n;
+            this.from = from;
+            this.to = to;
+            this.budget = budget;
+            this.start = start;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new GroupTask(xs, env, out, n, from, middle, budget,
+                        start), new GroupTask(xs, env, out, n, middle, to,
+                        budget, start));
+                return;
+            }
+            EvaluationBudget evaluationBudget = EvaluationBudget.get();
+            boolean limited = budget != Long.MAX_VALUE;
+            if (limited)
+                evaluationBudget.begin(budget - (System.nanoTime() - start));
+            try {
+                computeGroup(from, xs, env, out, n);
+            } finally {
+                if (limited) evaluationBudget.end();
+            }
+        }
+    }
+}
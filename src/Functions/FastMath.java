@@ -0,0 +1,304 @@
+//----------------------------FAST MATH CLASS---------------------------------//
+//@author TitanJack
+//@project MathTools
+//Approximate versions of the Math methods which are used to draw curves. The
+//Math methods are correct to the last bit, which is wasted when the result
+//only decides which pixel a curve passes through, and the JIT cannot turn a
+//loop of Math calls into SIMD instructions. Each method here works on a whole
+//lane of values like VectorEvaluator, reducing every value to a small range
+//and computing a short polynomial there. The loops have no branches or calls,
+//and the bit operations on doubles get loops of their own, since the JIT
+//only turns a loop into SIMD instructions when all of its values are of the
+//same kind.
+//
+//The error bound is given in the comment of each method. The bounds are
+//relative to the result unless stated otherwise, and do not include the
+//rounding of the argument itself, which affects Math the same way. A lane
+//with a value outside of the range where the bound holds is computed with
+//Math instead, so infinities, NaN and huge values behave exactly like Math.
+
+package Functions;
+
+final class FastMath {
+
+    //The largest relative error of sin, cos, tan, exp and log, away from the
+    //zeros of sine and cosine and the poles of tangent
+    static final double MAX_ERROR = 2e-11;
+
+    //Largest |x| which sin, cos and tan reduce themselves. Up to here the
+    //number of quarter turns fits in 20 bits, so k*PIO2_HI stays exact
+    private static final double TRIG_LIMIT = 1e6;
+    //pi/2 split into its first 33 bits and the rest
+    private static final double PIO2_HI = 1.57079632673412561417e+00;
+    private static final double PIO2_LO = 6.07710050650619224932e-11;
+    private static final double TWO_OVER_PI = 6.36619772367581382433e-01;
+
+    //ln(2) split so that k*LN2_HI is exact for every exponent
+    private static final double LN2_HI = 6.93147180369123816490e-01;
+    private static final double LN2_LO = 1.90821492927058770002e-10;
+    private static final double INV_LN2 = 1.44269504088896338700e+00;
+
+    //Adding 1.5*2^52 to a number rounds it to a whole number, which is left
+    //in the low bits of the sum
+    private static final double ROUNDER = 0x1.8p52;
+    private static final double TWO_52 = 0x1p52;
+    private static final long TWO_52_BITS = Double.doubleToRawLongBits(TWO_52);
+    //The bits of a double which hold the mantissa, and the mantissa of
+    //sqrt(2)
+    private static final long MANTISSA = 0x000FFFFFFFFFFFFFL;
+    private static final long SQRT2_MANTISSA = Double.doubleToRawLongBits(
+            Math.sqrt(2)) & MANTISSA;
+
+    //Series coefficients, 1/n!
+    private static final double F2 = 1.0 / 2, F3 = 1.0 / 6, F4 = 1.0 / 24,
+            F5 = 1.0 / 120, F6 = 1.0 / 720, F7 = 1.0 / 5040,
+            F8 = 1.0 / 40320, F9 = 1.0 / 362880, F10 = 1.0 / 3628800,
+            F11 = 1.0 / 39916800, F12 = 1.0 / 479001600;
+
+    private static final ThreadLocal<Scratch> LOCAL_SCRATCH =
+            ThreadLocal.withInitial(Scratch::new);
+
+    private FastMath() {}
+
+    //Function: Sin
+    //@param lane           the angles in radians, which get replaced by
+    //                      their sines
+    //       n              the number of values to be computed
+    //The sines have an absolute error below 1e-11, and a relative error
+    //below 1e-11 apart from near the zeros of sine
+    static void sin(double[] lane, int n) {
+        if (!(maxAbs(lane, n) <= TRIG_LIMIT)) {
+            for (int i = 0; i < n; i++) lane[i] = Math.sin(lane[i]);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            //x=k*pi/2+r, and every quarter turn swaps sine and cosine or
+            //flips the sign, which is done with multiplies instead of
+            //branches
+            double k = Math.rint(lane[i] * TWO_OVER_PI);
+            double r = (lane[i] - k * PIO2_HI) - k * PIO2_LO;
+            double quarter = k - 4 * Math.floor(k * 0.25);
+            double odd = quarter - 2 * Math.floor(quarter * 0.5);
+            double s = sinPoly(r), c = cosPoly(r);
+            lane[i] = (1 - quarter + odd) * (s + odd * (c - s));
+        }
+    }
+
+    //Function: Cos
+    //@param lane           the angles in radians, which get replaced by
+    //                      their cosines
+    //       n              the number of values to be computed
+    //The cosines have the same bound as <sin>
+    static void cos(double[] lane, int n) {
+        if (!(maxAbs(lane, n) <= TRIG_LIMIT)) {
+            for (int i = 0; i < n; i++) lane[i] = Math.cos(lane[i]);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            //cos(x)=sin(x+pi/2), which is one more quarter turn
+            double k = Math.rint(lane[i] * TWO_OVER_PI);
+            double r = (lane[i] - k * PIO2_HI) - k * PIO2_LO;
+            double quarter = (k + 1) - 4 * Math.floor((k + 1) * 0.25);
+            double odd = quarter - 2 * Math.floor(quarter * 0.5);
+            double s = sinPoly(r), c = cosPoly(r);
+            lane[i] = (1 - quarter + odd) * (s + odd * (c - s));
+        }
+    }
+
+    //Function: Tan
+    //@param lane           the angles in radians, which get replaced by
+    //                      their tangents
+    //       n              the number of values to be computed
+    //The tangents have a relative error below 2e-11, apart from within about
+    //1e-10 of a pole, where the rounding of the reduced angle matters more
+    static void tan(double[] lane, int n) {
+        if (!(maxAbs(lane, n) <= TRIG_LIMIT)) {
+            for (int i = 0; i < n; i++) lane[i] = Math.tan(lane[i]);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            //tan(r) for an even number of quarter turns, -cot(r) for an odd
+            //number
+            double k = Math.rint(lane[i] * TWO_OVER_PI);
+            double r = (lane[i] - k * PIO2_HI) - k * PIO2_LO;
+            double odd = k - 2 * Math.floor(k * 0.5);
+            double s = sinPoly(r), c = cosPoly(r);
+            lane[i] = (s - odd * (s + c)) / (c + odd * (s - c));
+        }
+    }
+
+    //Function: Exp
+    //@param lane           the powers of e, which get replaced by e to the
+    //                      power of each
+    //       n              the number of values to be computed
+    //The results have a relative error below 1e-12
+    static void exp(double[] lane, int n) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            min = Math.min(min, lane[i]);
+            max = Math.max(max, lane[i]);
+        }
+        if (!(min > -708 && max < 709)) {
+            for (int i = 0; i < n; i++) lane[i] = Math.exp(lane[i]);
+            return;
+        }
+        //e^x=2^k*e^r, where k is x/ln(2) rounded and |r| is at most ln(2)/2.
+        //2^k is built from its bits, with k taken from the low bits of
+        //x/ln(2)+1.5*2^52
+        Scratch scratch = LOCAL_SCRATCH.get().ensure(n);
+        double[] scale = scratch.doubles;
+        long[] bits = scratch.bits;
+        for (int i = 0; i < n; i++) scale[i] = lane[i] * INV_LN2 + ROUNDER;
+        for (int i = 0; i < n; i++)
+            bits[i] = Double.doubleToRawLongBits(scale[i]);
+        for (int i = 0; i < n; i++) bits[i] = (bits[i] + 1023) << 52;
+        for (int i = 0; i < n; i++)
+            scale[i] = Double.longBitsToDouble(bits[i]);
+        for (int i = 0; i < n; i++) {
+            //The series up to r^10 leaves out less than 3.1e-13 of e^r
+            double k = Math.rint(lane[i] * INV_LN2);
+            double r = (lane[i] - k * LN2_HI) - k * LN2_LO;
+            double p = 1 + r * (1 + r * (F2 + r * (F3 + r * (F4 + r * (F5 +
+                    r * (F6 + r * (F7 + r * (F8 + r * (F9 + r * F10)))))))));
+            lane[i] = p * scale[i];
+        }
+    }
+
+    //Function: Log
+    //@param lane           positive numbers, which get replaced by their
+    //                      natural logs
+    //       n              the number of values to be computed
+    //The logs have an absolute error below 5e-13 and a relative error below
+    //2e-12
+    static void log(double[] lane, int n) {
+        double min = Double.POSITIVE_INFINITY, max = 0;
+        for (int i = 0; i < n; i++) {
+            min = Math.min(min, lane[i]);
+            max = Math.max(max, lane[i]);
+        }
+        if (!(min >= Double.MIN_NORMAL && max < Double.POSITIVE_INFINITY)) {
+            for (int i = 0; i < n; i++) lane[i] = Math.log(lane[i]);
+            return;
+        }
+        //x=m*2^e with m between sqrt(1/2) and sqrt(2). The mantissa is
+        //halved when it is above sqrt(2) by moving one from its exponent to
+        //e, and e is found as a double by putting it in the low bits of 2^52
+        Scratch scratch = LOCAL_SCRATCH.get().ensure(n);
+        double[] exponents = scratch.doubles;
+        long[] bits = scratch.bits, exponentBits = scratch.exponentBits;
+        for (int i = 0; i < n; i++) bits[i] = Double.doubleToRawLongBits(
+                lane[i]);
+        for (int i = 0; i < n; i++) {
+            long mantissa = bits[i] & MANTISSA;
+            long halve = (SQRT2_MANTISSA - mantissa) >>> 63;
+            exponentBits[i] = TWO_52_BITS | ((bits[i] >>> 52) + halve);
+            bits[i] = mantissa | ((1023 - halve) << 52);
+        }
+        for (int i = 0; i < n; i++) lane[i] = Double.longBitsToDouble(bits[i]);
+        for (int i = 0; i < n; i++)
+            exponents[i] = Double.longBitsToDouble(exponentBits[i]);
+        for (int i = 0; i < n; i++) {
+            //log(m)=2(s+s^3/3+s^5/5+...) where s=(m-1)/(m+1) is at most
+            //0.172. The series up to s^13 leaves out less than 5e-13
+            double e = exponents[i] - (TWO_52 + 1023);
+            double s = (lane[i] - 1) / (lane[i] + 1);
+            double s2 = s * s;
+            double logM = 2 * s * (1 + s2 * (1.0 / 3 + s2 * (1.0 / 5 + s2 *
+                    (1.0 / 7 + s2 * (1.0 / 9 + s2 * (1.0 / 11 + s2 * (1.0 /
+                    13)))))));
+            lane[i] = e * LN2_HI + (e * LN2_LO + logM);
+        }
+    }
+
+    //Function: Pow
+    //@param lane           the bases, which get replaced by the results
+    //       power          the power of every base
+    //       n              the number of values to be computed
+    //Computes e^(power*log(base)). The error of the log is multiplied by the
+    //power, so the relative error is below 1e-12+5e-13*|power|. A lane with
+    //a base which is not positive uses Math
+    static void pow(double[] lane, double power, int n) {
+        if (!isPositive(lane, n) || Double.isNaN(power)) {
+            for (int i = 0; i < n; i++) lane[i] = Math.pow(lane[i], power);
+            return;
+        }
+        log(lane, n);
+        for (int i = 0; i < n; i++) lane[i] *= power;
+        exp(lane, n);
+    }
+
+    //Function: Pow
+    //@param lane           the bases, which get replaced by the results
+    //       powers         the power of each base
+    //       n              the number of values to be computed
+    //The same as the other <pow>, with a power for each base
+    static void pow(double[] lane, double[] powers, int n) {
+        if (!isPositive(lane, n) || Double.isNaN(maxAbs(powers, n))) {
+            for (int i = 0; i < n; i++)
+                lane[i] = Math.pow(lane[i], powers[i]);
+            return;
+        }
+        log(lane, n);
+        for (int i = 0; i < n; i++) lane[i] *= powers[i];
+        exp(lane, n);
+    }
+
+    //Function: Max Abs
+    //@return               the largest |value| of the lane, or NaN if the
+    //                      lane holds a NaN
+    private static double maxAbs(double[] lane, int n) {
+        double max = 0;
+        for (int i = 0; i < n; i++) max = Math.max(max, Math.abs(lane[i]));
+        return max;
+    }
+
+    //Function: Is Positive
+    //@return               whether every value of the lane is positive and
+    //                      finite
+    private static boolean isPositive(double[] lane, int n) {
+        double min = Double.POSITIVE_INFINITY, max = 0;
+        for (int i = 0; i < n; i++) {
+            min = Math.min(min, lane[i]);
+            max = Math.max(max, lane[i]);
+        }
+        return min > 0 && max < Double.POSITIVE_INFINITY;
+    }
+
+    //Function: Sin Poly
+    //@param r              an angle between -pi/4 and pi/4
+    //@return               the sine of <r>. The series up to r^11 leaves out
+    //                      less than 7e-12, which is less than 1e-11 of the
+    //                      result
+    private static double sinPoly(double r) {
+        double r2 = r * r;
+        return r + r * r2 * (-F3 + r2 * (F5 + r2 * (-F7 + r2 * (F9 + r2 *
+                -F11))));
+    }
+
+    //Function: Cos Poly
+    //@param r              an angle between -pi/4 and pi/4
+    //@return               the cosine of <r>. The series up to r^12 leaves
+    //                      out less than 4e-13
+    private static double cosPoly(double r) {
+        double r2 = r * r;
+        return 1 + r2 * (-F2 + r2 * (F4 + r2 * (-F6 + r2 * (F8 + r2 * (-F10 +
+                r2 * F12)))));
+    }
+
+    //The lanes used by one thread to hold the bits of the values
+    private static class Scratch {
+
+        private double[] doubles = new double[0];
+        private long[] bits = new long[0];
+        private long[] exponentBits = new long[0];
+
+        Scratch ensure(int n) {
+            if (doubles.length < n) {
+                doubles = new double[n];
+                bits = new long[n];
+                exponentBits = new long[n];
+            }
+            return this;
+        }
+    }
+}
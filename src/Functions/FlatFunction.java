@@ -0,0 +1,685 @@
+//---------------------------FLAT FUNCTION CLASS------------------------------//
+//@author TitanJack
+//@project MathTools
+//A compact form of a function tree stored as a postfix program. Instead of a
+//separate object for every node, the whole expression is kept in three
+//primitive arrays: the opcodes, one operand for each opcode, and a pool of
+//numbers. For example, <3sin(x)+1> becomes:
+//  X, TRIG sin, SCALE 3, CONST 1, ADD 2
+//The program is computed using a stack, which lives in reusable scratch
+//arrays so that computing does not allocate. Flat functions are also cheap to
+//compare, hash and write out as bytes.
+
+package Functions;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Stack;
+
+@SuppressWarnings("WeakerAccess")
+public class FlatFunction extends Function {
+
+    //Pushes the number at <operand> in the number pool
+    static final byte CONST = 0;
+    //Pushes x
+    static final byte X = 1;
+    //Pops <operand> values and pushes their sum
+    static final byte ADD = 2;
+    //Pops <operand> values and pushes their product
+    static final byte MUL = 3;
+    //Pops a denominator and a numerator and pushes their quotient
+    static final byte DIV = 4;
+    //Pops an exponent and a base and pushes the power
+    static final byte POW = 5;
+    //Raises the top value to the number at <operand> in the number pool
+    static final byte POWC = 6;
+    //Multiplies the top value by the number at <operand> in the number pool
+    static final byte SCALE = 7;
+    //Replaces the top value by its natural log
+    static final byte LOG = 8;
+    //Replaces the top value by the trigonometric function at index <operand>
+    //of the trigonometric types
+    static final byte TRIG = 9;
+    //Pushes the value of the function at <operand> in the call table, used for
+    //nodes which have no opcode of their own
+    static final byte CALL = 10;
+
+    private final byte[] ops;
+    private final int[] operands;
+    private final double[] numbers;
+    private final Function[] calls;
+    private final int maxStack;
+
+    private FlatFunction(byte[] ops, int[] operands, double[] numbers,
+                         Function[] calls) {
+        this.ops = ops;
+        this.operands = operands;
+        this.numbers = numbers;
+        this.calls = calls;
+        maxStack = findMaxStack(ops, operands);
+    }
+
+    //Function: Flatten
+    //@param function       the function tree to be flattened
+    //@return               the flat program which computes the same function
+    public static FlatFunction flatten(Function function) {
+        if (function instanceof FlatFunction) return (FlatFunction)function;
+        Flattener flattener = new Flattener();
+        flattener.append(function);
+        return flattener.toFlatFunction();
+    }
+
+    public double compute(double x) {
+        return run(x, null);
+    }
+
+    public double compute(double[] env) {
+        return run(env[VariableTable.X], env);
+    }
+
+    //Function: Run
+    //@param x              the x value to be computed
+    //       env            the values of every variable, or null if the
+    //                      function only depends on x
+    //@return               the value of the function
+    private double run(double x, double[] env) {
+        BatchScratch scratch = BatchScratch.get();
+        double[] stack = scratch.acquire(maxStack);
+        try {
+            int top = -1;
+            for (int pc = 0; pc < ops.length; pc++) {
+                int operand = operands[pc];
+                switch (ops[pc]) {
+                    case CONST: stack[++top] = numbers[operand];
+                        break;
+                    case X: stack[++top] = x;
+                        break;
+                    case ADD:
+                        for (int i = 1; i < operand; i++)
+                            stack[top - operand + 1] += stack[top - operand +
+                                    1 + i];
+                        top -= operand - 1;
+                        break;
+                    case MUL:
+                        for (int i = 1; i < operand; i++)
+                            stack[top - operand + 1] *= stack[top - operand +
+                                    1 + i];
+                        top -= operand - 1;
+                        break;
+                    case DIV: stack[top - 1] /= stack[top];
+                        top--;
+                        break;
+                    case POW:
+                        stack[top - 1] = Math.pow(stack[top - 1], stack[top]);
+                        top--;
+                        break;
+                    case POWC:
+                        stack[top] = Math.pow(stack[top], numbers[operand]);
+                        break;
+                    case SCALE: stack[top] *= numbers[operand];
+                        break;
+                    case LOG: stack[top] = Math.log(stack[top]);
+                        break;
+                    case TRIG:
+                        stack[top] = Trigonometric.compute(
+                                Trigonometric.TYPES[operand], stack[top]);
+                        break;
+                    case CALL:
+                        stack[++top] = env == null ? calls[operand].compute(
+                                x) : calls[operand].compute(env);
+                        break;
+                }
+            }
+            return stack[0];
+        } finally {
+            scratch.release();
+        }
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        run(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        run(env[VariableTable.X], env, out, n);
+    }
+
+    //Function: Run (Batch)
+    //@param xs             the x values to be computed
+    //       env            the columns of every variable, or null if the
+    //                      function only depends on x
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void run(double[] xs, double[][] env, double[] out, int n) {
+        //Every slot of the stack is a whole column of values, so each opcode
+        //is only decoded once for the entire array
+        BatchScratch scratch = BatchScratch.get();
+        double[][] stack = scratch.acquireColumns(maxStack, n);
+        try {
+            int top = -1;
+            for (int pc = 0; pc < ops.length; pc++) {
+                int operand = operands[pc];
+                double[] column;
+                switch (ops[pc]) {
+                    case CONST:
+                        Arrays.fill(stack[++top], 0, n, numbers[operand]);
+                        break;
+                    case X: System.arraycopy(xs, 0, stack[++top], 0, n);
+                        break;
+                    case ADD:
+                        column = stack[top - operand + 1];
+                        for (int j = 1; j < operand; j++) {
+                            double[] term = stack[top - operand + 1 + j];
+                            for (int i = 0; i < n; i++) column[i] += term[i];
+                        }
+                        top -= operand - 1;
+                        break;
+                    case MUL:
+                        column = stack[top - operand + 1];
+                        for (int j = 1; j < operand; j++) {
+                            double[] factor = stack[top - operand + 1 + j];
+                            for (int i = 0; i < n; i++) column[i] *= factor[i];
+                        }
+                        top -= operand - 1;
+                        break;
+                    case DIV:
+                        column = stack[top - 1];
+                        for (int i = 0; i < n; i++) column[i] /= stack[top][i];
+                        top--;
+                        break;
+                    case POW:
+                        column = stack[top - 1];
+                        for (int i = 0; i < n; i++)
+                            column[i] = Math.pow(column[i], stack[top][i]);
+                        top--;
+                        break;
+                    case POWC:
+                        column = stack[top];
+                        double power = numbers[operand];
+                        for (int i = 0; i < n; i++)
+                            column[i] = Math.pow(column[i], power);
+                        break;
+                    case SCALE:
+                        column = stack[top];
+                        double scale = numbers[operand];
+                        for (int i = 0; i < n; i++) column[i] *= scale;
+                        break;
+                    case LOG:
+                        column = stack[top];
+                        for (int i = 0; i < n; i++)
+                            column[i] = Math.log(column[i]);
+                        break;
+                    case TRIG:
+                        Trigonometric.computeAll(Trigonometric.TYPES[operand],
+                                stack[top], n);
+                        break;
+                    case CALL:
+                        computeSubFunction(calls[operand], xs, env,
+                                stack[++top], n);
+                        break;
+                }
+            }
+            System.arraycopy(stack[0], 0, out, 0, n);
+        } finally {
+            scratch.releaseColumns(maxStack);
+        }
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        DoubleDouble[] stack = new DoubleDouble[maxStack];
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            int operand = operands[pc];
+            switch (ops[pc]) {
+                case CONST: stack[++top] = DoubleDouble.of(numbers[operand]);
+                    break;
+                case X: stack[++top] = x;
+                    break;
+                case ADD:
+                    for (int i = 1; i < operand; i++)
+                        stack[top - operand + 1] = stack[top - operand + 1]
+                                .add(stack[top - operand + 1 + i]);
+                    top -= operand - 1;
+                    break;
+                case MUL:
+                    for (int i = 1; i < operand; i++)
+                        stack[top - operand + 1] = stack[top - operand + 1]
+                                .multiply(stack[top - operand + 1 + i]);
+                    top -= operand - 1;
+                    break;
+                case DIV:
+                    stack[top - 1] = stack[top - 1].divide(stack[top]);
+                    top--;
+                    break;
+                case POW:
+                    stack[top - 1] = DoubleDouble.pow(stack[top - 1],
+                            stack[top]);
+                    top--;
+                    break;
+                case POWC:
+                    stack[top] = DoubleDouble.pow(stack[top], numbers[operand]);
+                    break;
+                case SCALE:
+                    stack[top] = stack[top].multiply(numbers[operand]);
+                    break;
+                case LOG: stack[top] = DoubleDouble.log(stack[top]);
+                    break;
+                case TRIG:
+                    stack[top] = DoubleDouble.trig(Trigonometric.TYPES[
+                            operand], stack[top]);
+                    break;
+                case CALL: stack[++top] = calls[operand].compute(x);
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        //The program only holds real operations, so the tree is rebuilt for
+        //complex numbers
+        toTree().computeComplex(re, im, outRe, outIm, n);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        //Every slot of the stack holds a whole Taylor series, and the slot
+        //above the stack is used for the result of each operation
+        int length = order + 1;
+        BatchScratch scratch = BatchScratch.get();
+        double[][] stack = scratch.acquireColumns(maxStack + 1, length);
+        try {
+            int top = -1;
+            for (int pc = 0; pc < ops.length; pc++) {
+                int operand = operands[pc];
+                double[] temp = stack[top + 1];
+                switch (ops[pc]) {
+                    case CONST: Taylor.constant(numbers[operand], stack[++top],
+                            order);
+                        break;
+                    case X:
+                        Taylor.constant(x, stack[++top], order);
+                        if (order >= 1) stack[top][1] = 1;
+                        break;
+                    case ADD:
+                        for (int i = 1; i < operand; i++)
+                            for (int k = 0; k <= order; k++)
+                                stack[top - operand + 1][k] += stack[top -
+                                        operand + 1 + i][k];
+                        top -= operand - 1;
+                        break;
+                    case MUL:
+                        for (int i = 1; i < operand; i++) {
+                            Taylor.multiply(stack[top - operand + 1], stack[
+                                    top - operand + 1 + i], temp, order);
+                            System.arraycopy(temp, 0, stack[top - operand + 1],
+                                    0, length);
+                        }
+                        top -= operand - 1;
+                        break;
+                    case DIV:
+                        Taylor.divide(stack[top - 1], stack[top], stack[top -
+                                1], order);
+                        top--;
+                        break;
+                    case POW:
+                        //f^g=e^(g*ln(f))
+                        Taylor.log(stack[top - 1], temp, order);
+                        Taylor.multiply(temp, stack[top], stack[top - 1], order);
+                        Taylor.exp(stack[top - 1], temp, order);
+                        System.arraycopy(temp, 0, stack[top - 1], 0, length);
+                        top--;
+                        break;
+                    case POWC:
+                        Taylor.power(stack[top], numbers[operand], temp, order);
+                        System.arraycopy(temp, 0, stack[top], 0, length);
+                        break;
+                    case SCALE: Taylor.scale(stack[top], numbers[operand],
+                            order);
+                        break;
+                    case LOG:
+                        Taylor.log(stack[top], temp, order);
+                        System.arraycopy(temp, 0, stack[top], 0, length);
+                        break;
+                    case TRIG:
+                        Taylor.trig(Trigonometric.TYPES[operand], stack[top],
+                                temp, order);
+                        System.arraycopy(temp, 0, stack[top], 0, length);
+                        break;
+                    case CALL:
+                        calls[operand].computeTaylor(x, stack[++top], order);
+                        break;
+                }
+            }
+            System.arraycopy(stack[0], 0, out, 0, length);
+        } finally {
+            scratch.releaseColumns(maxStack + 1);
+        }
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        Interval[] stack = new Interval[maxStack];
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            int operand = operands[pc];
+            switch (ops[pc]) {
+                case CONST: stack[++top] = Interval.of(numbers[operand],
+                        numbers[operand]);
+                    break;
+                case X: stack[++top] = Interval.of(lo, hi);
+                    break;
+                case ADD:
+                    for (int i = 1; i < operand; i++)
+                        stack[top - operand + 1] = Interval.add(stack[top -
+                                operand + 1], stack[top - operand + 1 + i]);
+                    top -= operand - 1;
+                    break;
+                case MUL:
+                    for (int i = 1; i < operand; i++)
+                        stack[top - operand + 1] = Interval.multiply(stack[top -
+                                operand + 1], stack[top - operand + 1 + i]);
+                    top -= operand - 1;
+                    break;
+                case DIV:
+                    stack[top - 1] = Interval.divide(stack[top - 1],
+                            stack[top]);
+                    top--;
+                    break;
+                case POW:
+                    stack[top - 1] = Interval.pow(stack[top - 1], stack[top]);
+                    top--;
+                    break;
+                case POWC:
+                    stack[top] = Interval.power(stack[top], numbers[operand]);
+                    break;
+                case SCALE:
+                    stack[top] = Interval.scale(stack[top], numbers[operand]);
+                    break;
+                case LOG: stack[top] = Interval.log(stack[top]);
+                    break;
+                case TRIG:
+                    stack[top] = Interval.trig(Trigonometric.TYPES[operand],
+                            stack[top]);
+                    break;
+                case CALL:
+                    stack[++top] = calls[operand].computeInterval(lo, hi);
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    protected Function derive() {
+        return flatten(toTree().differentiate());
+    }
+
+    public double getCoeff() {
+        //The coefficient is folded into the program, so a trailing SCALE is
+        //the only coefficient the flat function has
+        int last = ops.length - 1;
+        return ops[last] == SCALE ? numbers[operands[last]] : 1;
+    }
+
+    public Function withCoeff(double c) {
+        return flatten(toTree().withCoeff(c));
+    }
+
+    //Function: To Tree
+    //@return               a function tree built back up from the program
+    public Function toTree() {
+        Stack<Function> stack = new Stack<>();
+        for (int pc = 0; pc < ops.length; pc++) {
+            int operand = operands[pc];
+            Function top;
+            switch (ops[pc]) {
+                case CONST: stack.push(new Constant(numbers[operand]));
+                    break;
+                case X: stack.push(new Variable(1));
+                    break;
+                case ADD: case MUL:
+                    Function[] subFuncs = new Function[operand];
+                    for (int i = operand - 1; i >= 0; i--)
+                        subFuncs[i] = stack.pop();
+                    stack.push(ops[pc] == ADD ? new SumFunction(subFuncs) :
+                            new GeoFunction(subFuncs));
+                    break;
+                case DIV:
+                    top = stack.pop();
+                    stack.push(new Rational(stack.pop(), top));
+                    break;
+                case POW:
+                    top = stack.pop();
+                    stack.push(new Exponential(stack.pop(), top));
+                    break;
+                case POWC:
+                    stack.push(new Exponential(stack.pop(), numbers[operand]));
+                    break;
+                case SCALE:
+                    top = stack.pop();
+                    double scale = numbers[operand];
+                    if (top instanceof Constant)
+                        stack.push(new Constant(top.compute(0) * scale));
+                    else stack.push(top.withCoeff(scale * top.getCoeff()));
+                    break;
+                case LOG: stack.push(new Logarithmic(stack.pop()));
+                    break;
+                case TRIG:
+                    stack.push(new Trigonometric(Trigonometric.TYPES[operand],
+                            stack.pop()));
+                    break;
+                case CALL: stack.push(calls[operand]);
+                    break;
+            }
+        }
+        return stack.pop();
+    }
+
+    byte[] getOps() {
+        return ops;
+    }
+
+    int[] getOperands() {
+        return operands;
+    }
+
+    double[] getNumbers() {
+        return numbers;
+    }
+
+    Function[] getCalls() {
+        return calls;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    //Function: Size
+    //@return               the number of opcodes in the program
+    public int size() {
+        return ops.length;
+    }
+
+    //Function: Write To
+    //@param out            the destination of the bytes
+    //Writes out the program so that it can be read back by <readFrom>. Nodes
+    //which are called through the call table cannot be written out
+    public void writeTo(DataOutput out) throws IOException {
+        if (calls.length != 0)
+            throw new NotSerializableException("Function contains nodes " +
+                    "which have no opcode");
+        out.writeInt(ops.length);
+        out.write(ops);
+        for (int operand : operands) out.writeInt(operand);
+        out.writeInt(numbers.length);
+        for (double number : numbers) out.writeDouble(number);
+    }
+
+    //Function: Read From
+    //@param in             the source of the bytes
+    //@return               the flat function which was written by <writeTo>
+    public static FlatFunction readFrom(DataInput in) throws IOException {
+        byte[] ops = new byte[in.readInt()];
+        in.readFully(ops);
+        int[] operands = new int[ops.length];
+        for (int i = 0; i < operands.length; i++) operands[i] = in.readInt();
+        double[] numbers = new double[in.readInt()];
+        for (int i = 0; i < numbers.length; i++) numbers[i] = in.readDouble();
+        return new FlatFunction(ops, operands, numbers, new Function[0]);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof FlatFunction) || obj.hashCode() != hashCode())
+            return false;
+        FlatFunction other = (FlatFunction)obj;
+        return Arrays.equals(ops, other.ops) && Arrays.equals(operands,
+                other.operands) && Arrays.equals(numbers, other.numbers) &&
+                Arrays.equals(calls, other.calls);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = Arrays.hashCode(ops);
+        h = 31 * h + Arrays.hashCode(operands);
+        return 31 * h + Arrays.hashCode(numbers);
+    }
+
+    public String toString() {
+        return toTree().toString();
+    }
+
+    //Function: Find Max Stack
+    //@param ops            the opcodes of the program
+    //       operands       the operands of the program
+    //@return               the deepest the stack gets while computing
+    private static int findMaxStack(byte[] ops, int[] operands) {
+        int depth = 0, maxDepth = 0;
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case CONST: case X: case CALL: depth++;
+                    break;
+                case ADD: case MUL: depth -= operands[pc] - 1;
+                    break;
+                case DIV: case POW: depth--;
+                    break;
+            }
+            maxDepth = Math.max(maxDepth, depth);
+        }
+        return maxDepth;
+    }
+
+    //Builds up the arrays of a flat function while walking the tree
+    private static class Flattener {
+
+        private byte[] ops = new byte[16];
+        private int[] operands = new int[16];
+        private int length = 0;
+        private final ArrayList<Double> numbers = new ArrayList<>();
+        private final ArrayList<Function> calls = new ArrayList<>();
+
+        //Function: Append
+        //@param function   the function to be added to the end of the program
+        void append(Function function) {
+            if (function instanceof Constant) {
+                emit(CONST, number(function.compute(0)));
+            } else if (function instanceof MathConstant) {
+                emit(CONST, number(function.compute(0)));
+            } else if (function instanceof Variable && ((Variable)function)
+                    .isX()) {
+                emit(X, 0);
+                scale(function.getCoeff());
+            } else if (function instanceof SumFunction) {
+                Function[] terms = ((SumFunction)function).getTerms();
+                if (terms.length == 0) emit(CONST, number(0));
+                else {
+                    for (Function term : terms) append(term);
+                    if (terms.length > 1) emit(ADD, terms.length);
+                    scale(function.getCoeff());
+                }
+            } else if (function instanceof GeoFunction) {
+                Function[] factors = ((GeoFunction)function).getFactors();
+                if (factors.length == 0) emit(CONST, number(1));
+                else {
+                    for (Function factor : factors) append(factor);
+                    if (factors.length > 1) emit(MUL, factors.length);
+                }
+                scale(function.getCoeff());
+            } else if (function instanceof Rational) {
+                append(((Rational)function).getNumerator());
+                scale(function.getCoeff());
+                append(((Rational)function).getDenominator());
+                emit(DIV, 0);
+            } else if (function instanceof Exponential) {
+                Function exponent = ((Exponential)function).getExponent();
+                append(((Exponential)function).getBase());
+                if (exponent instanceof Constant)
+                    emit(POWC, number(exponent.compute(0)));
+                else {
+                    append(exponent);
+                    emit(POW, 0);
+                }
+                scale(function.getCoeff());
+            } else if (function instanceof Logarithmic) {
+                append(((Logarithmic)function).getSubFunc());
+                emit(LOG, 0);
+                scale(function.getCoeff());
+            } else if (function instanceof Trigonometric) {
+                append(((Trigonometric)function).getSubFunc());
+                emit(TRIG, ((Trigonometric)function).getType().ordinal());
+                scale(function.getCoeff());
+            } else if (function instanceof Polynomial) {
+                //Horner's method, <(c2*x+c1)*x+c0>
+                double[] coeffs = ((Polynomial)function).getCoefficients();
+                emit(CONST, number(coeffs[coeffs.length - 1]));
+                for (int k = coeffs.length - 2; k >= 0; k--) {
+                    emit(X, 0);
+                    emit(MUL, 2);
+                    if (coeffs[k] != 0) {
+                        emit(CONST, number(coeffs[k]));
+                        emit(ADD, 2);
+                    }
+                }
+                scale(function.getCoeff());
+            } else {
+                calls.add(function);
+                emit(CALL, calls.size() - 1);
+            }
+        }
+
+        FlatFunction toFlatFunction() {
+            double[] pool = new double[numbers.size()];
+            for (int i = 0; i < pool.length; i++) pool[i] = numbers.get(i);
+            return new FlatFunction(Arrays.copyOf(ops, length),
+                    Arrays.copyOf(operands, length), pool,
+                    calls.toArray(new Function[0]));
+        }
+
+        private void scale(double coeff) {
+            if (coeff != 1) emit(SCALE, number(coeff));
+        }
+
+        //Returns the index of the number in the pool, adding it if needed
+        private int number(double value) {
+            for (int i = 0; i < numbers.size(); i++)
+                if (Double.compare(numbers.get(i), value) == 0) return i;
+            numbers.add(value);
+            return numbers.size() - 1;
+        }
+
+        private void emit(byte op, int operand) {
+            if (length == ops.length) {
+                ops = Arrays.copyOf(ops, length * 2);
+                operands = Arrays.copyOf(operands, length * 2);
+            }
+            ops[length] = op;
+            operands[length] = operand;
+            length++;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+//----------------------------FRAME CACHE CLASS-------------------------------//
+//@author TitanJack
+//@project MathTools
+//A per-thread cache of the values of shared functions, such as a function
+//the user defined as <f(x)=...> and used in several other expressions (see
+//UserFunction). While a frame is drawn, the value of a shared function at an
+//x is only computed the first time any curve asks for it, and is looked up
+//by every other curve after that.
+//
+//Values are kept in a hash table for each function, keyed by the bits of x,
+//so curves which were sampled at different sets of x still share the values
+//they have in common. Frames nest like the budgets of EvaluationBudget, and
+//the cache is emptied once the outermost frame ends, so it never holds
+//values from before a function or the view changed. Outside of a frame,
+//nothing is cached.
+
+package Functions;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+@SuppressWarnings("WeakerAccess")
+public final class FrameCache {
+
+    //A function stops getting new entries once it has this many, so that a
+    //frame which computes it at very many x values does not keep them all
+    private static final int MAX_ENTRIES = 1 << 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private static final ThreadLocal<FrameCache> LOCAL =
+            ThreadLocal.withInitial(FrameCache::new);
+
+    private final IdentityHashMap<Function, Table> tables;
+    private int depth;
+    //The positions of the values of each batch being computed which were
+    //not in the cache, one array for each batch which is nested in another,
+    //see acquireMisses
+    private int[][] misses;
+    private int missDepth;
+
+    private FrameCache() {
+        tables = new IdentityHashMap<>();
+        depth = 0;
+        misses = new int[4][];
+        missDepth = 0;
+    }
+
+    //Function: Get
+    //@return               the cache belonging to the current thread
+    public static FrameCache get() {
+        return LOCAL.get();
+    }
+
+    //Function: Begin
+    //Starts a frame, during which the values of shared functions are cached.
+    //Every call must be paired with a call to <end>, in a finally block
+    public void begin() {
+        depth++;
+    }
+
+    //Function: End
+    //Ends the most recently started frame, and empties the cache once no
+    //frame is left
+    public void end() {
+        if (--depth == 0) tables.clear();
+    }
+
+    //Function: Compute
+    //@param function       a shared function
+    //       x              the x value to be computed
+    //@return               the value of the function at <x>, taken from the
+    //                      cache if it was computed before in this frame
+    public double compute(Function function, double x) {
+        if (depth == 0) return function.compute(x);
+        Table table = tableOf(function);
+        long key = Double.doubleToLongBits(x);
+        int slot = table.slotOf(key);
+        if (table.used[slot]) return table.values[slot];
+        double value = function.compute(x);
+        table.put(key, value);
+        return value;
+    }
+
+    //Function: Compute (Batch)
+    //@param function       a shared function
+    //       xs             the x values to be computed
+    //       out            the array which the results are written into,
+    //                      must not be the same array as <xs>
+    //       n              the number of values to be computed
+    //Looks up every value, and computes the ones which are missing together
+    //in a single batch
+    public void compute(Function function, double[] xs, double[] out, int n) {
+        if (depth == 0) {
+            function.compute(xs, out, n);
+            return;
+        }
+        Table table = tableOf(function);
+        //The function may call other shared functions, which compute their
+        //own batches through the cache while this one is still using its
+        //positions, so every batch has an array of its own
+        int[] missed = acquireMisses(n);
+        try {
+            int missCount = 0;
+            for (int i = 0; i < n; i++) {
+                int slot = table.slotOf(Double.doubleToLongBits(xs[i]));
+                if (table.used[slot]) out[i] = table.values[slot];
+                else missed[missCount++] = i;
+            }
+            if (missCount == 0) return;
+            BatchScratch scratch = BatchScratch.get();
+            double[] missXs = scratch.acquire(missCount);
+            double[] missValues = scratch.acquire(missCount);
+            try {
+                for (int j = 0; j < missCount; j++) missXs[j] = xs[missed[j]];
+                function.compute(missXs, missValues, missCount);
+                for (int j = 0; j < missCount; j++) {
+                    out[missed[j]] = missValues[j];
+                    table.put(Double.doubleToLongBits(missXs[j]),
+                            missValues[j]);
+                }
+            } finally {
+                scratch.release();
+                scratch.release();
+            }
+        } finally {
+            missDepth--;
+        }
+    }
+
+    //Function: Acquire Misses
+    //@param n              the minimum length of the array
+    //@return               an array for the positions of the misses of a
+    //                      batch, which no batch that is still being computed
+    //                      uses. Every call must be paired with decrementing
+    //                      <missDepth>, in a finally block
+    private int[] acquireMisses(int n) {
+        if (missDepth == misses.length)
+            misses = Arrays.copyOf(misses, misses.length * 2);
+        int[] missed = misses[missDepth];
+        if (missed == null || missed.length < n) {
+            missed = new int[n];
+            misses[missDepth] = missed;
+        }
+        missDepth++;
+        return missed;
+    }
+
+    //Function: Table Of
+    //@param function       a shared function
+    //@return               the table of values of the function, which is
+    //                      made the first time it is asked for
+    private Table tableOf(Function function) {
+        Table table = tables.get(function);
+        if (table == null) {
+            table = new Table();
+            tables.put(function, table);
+        }
+        return table;
+    }
+
+    //A hash table from the bits of x to the value of a function, which finds
+    //its slots by linear probing
+    private static final class Table {
+
+        private long[] keys;
+        private double[] values;
+        private boolean[] used;
+        private int size;
+
+        Table() {
+            keys = new long[INITIAL_CAPACITY];
+            values = new double[INITIAL_CAPACITY];
+            used = new boolean[INITIAL_CAPACITY];
+            size = 0;
+        }
+
+        //Function: Slot Of
+        //@param key            the bits of an x value
+        //@return               the slot holding <key>, or the empty slot
+        //                      where it would be put
+        int slotOf(long key) {
+            int mask = keys.length - 1;
+            long h = key * 0x9E3779B97F4A7C15L;
+            int slot = (int)(h >>> 32) & mask;
+            while (used[slot] && keys[slot] != key) slot = (slot + 1) & mask;
+            return slot;
+        }
+
+        //Function: Put
+        //@param key            the bits of an x value
+        //       value          the value of the function at that x
+        void put(long key, double value) {
+            if (size >= MAX_ENTRIES) return;
+            //The table is kept at most half full
+            if (2 * (size + 1) > keys.length) grow();
+            int slot = slotOf(key);
+            if (!used[slot]) {
+                used[slot] = true;
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] = value;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new double[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (!oldUsed[i]) continue;
+                int slot = slotOf(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -2,18 +2,332 @@
 //@author TitanJack
 //@project MathTools
 //A blueprint class for all types of functions, includes core methods
+//
+//Functions are immutable. Every field of a function is final and set in its
+//constructor, and a change such as a new coefficient builds a new function
+//instead, see withCoeff. A parsed tree can therefore be shared between
+//threads and kept in caches. The only fields written later are the caches
+//below, which always end up holding the same value no matter which thread
+//fills them in
 
 package Functions;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 public abstract class Function {
 
+    //The structural hash code, computed once and then cached. 0 means that it
+    //has not been computed yet. Two threads may both compute it, but they
+    //get the same number
+    private int hash;
+    //The derivative, computed once and then cached. The derivative caches its
+    //own derivative in turn, so f, f' and f'' are only ever built once. The
+    //field is volatile so that a thread which reads the derivative also sees
+    //everything inside of it
+    private volatile Function derivative;
+
     public abstract double compute(double x);
 
-    public abstract Function differentiate();
+    //Function: Compute (Batch)
+    //@param xs     the x values to be computed
+    //       out    the array which the results are written into, must not be
+    //              the same array as <xs>
+    //       n      the number of values to be computed
+    //Computes the function for the first <n> values of <xs>. Subclasses
+    //override this to evaluate the whole array one node at a time, rather
+    //than walking the entire tree once for every value
+    public void compute(double[] xs, double[] out, int n) {
+        for (int i = 0; i < n; i++) out[i] = compute(xs[i]);
+    }
+
+    //Function: Compute (Environment)
+    //@param env    the value of every variable, indexed by its slot, see
+    //              VariableTable
+    //@return       the value of the function. Functions with sub functions
+    //              override this to pass <env> on, the default is for
+    //              functions of x alone
+    public double compute(double[] env) {
+        return compute(env[VariableTable.X]);
+    }
+
+    //Function: Compute (Environment Batch)
+    //@param env    a column of values for every variable, where env[s][i] is
+    //              the value of the variable in slot s for the i-th result
+    //       out    the array which the results are written into, must not be
+    //              one of the columns of <env>
+    //       n      the number of values to be computed
+    //Computes the function for the first <n> values of every column.
+    //Functions with sub functions override this, the default is for
+    //functions of x alone
+    public void compute(double[][] env, double[] out, int n) {
+        compute(env[VariableTable.X], out, n);
+    }
+
+    //Function: Compute (Double-Double)
+    //@param x      the x value to be computed, with about 32 digits
+    //@return       the value of the function with about 32 digits, see
+    //              DoubleDouble. Used when drawing at zoom levels where a
+    //              double cannot tell neighbouring pixels apart. Subclasses
+    //              override this, the default only has the precision of
+    //              compute(double)
+    public DoubleDouble compute(DoubleDouble x) {
+        return DoubleDouble.of(compute(x.doubleValue()));
+    }
+
+    //Function: Differentiate
+    //@return               the derivative of the function. The derivative is
+    //                      built the first time it is asked for, and the same
+    //                      instance is returned afterwards. If two threads
+    //                      ask at once, both may build it and either one is
+    //                      kept, which is harmless since they are equal
+    public final Function differentiate() {
+        Function d = derivative;
+        if (d == null) {
+            //Derivatives can grow much larger than the function itself
+            EvaluationBudget.checkpoint();
+            d = derive();
+            derivative = d;
+        }
+        return d;
+    }
+
+    //Function: Compute Interval
+    //@param lo     the lowest x value
+    //       hi     the highest x value
+    //@return       bounds which hold every value of the function for x from
+    //              <lo> to <hi>, and whether the function may have a pole or
+    //              be undefined somewhere in between, see Interval
+    public abstract Interval computeInterval(double lo, double hi);
+
+    //Function: Derive
+    //@return               a newly built derivative of the function. The
+    //                      derivative should be built with <sum> and
+    //                      <product> and reuse the sub functions of this
+    //                      function rather than copies of them
+    protected abstract Function derive();
+
+    //Function: Compute Complex
+    //@param re     the real parts of the values to be computed
+    //       im     the imaginary parts of the values to be computed
+    //       outRe  the array which the real parts of the results are written
+    //              into, must not be <re> or <im>
+    //       outIm  the array which the imaginary parts of the results are
+    //              written into, must not be <re> or <im>
+    //       n      the number of values to be computed
+    //Computes the function with x taken as a complex number, see Complex.
+    //Types of function which have no complex form give not a number
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        Arrays.fill(outRe, 0, n, Double.NaN);
+        Arrays.fill(outIm, 0, n, Double.NaN);
+    }
+
+    //Function: Compute Taylor
+    //@param x      the x value to be computed
+    //       out    the array which the Taylor series is written into, holding
+    //              at least <order>+1 values. out[k] is the k-th derivative at
+    //              <x> divided by k!
+    //       order  the highest derivative to be computed
+    //Computes the function and its derivatives together in a single pass over
+    //the tree, see Taylor. Subclasses override this, functions without an
+    //override fall back on computing their symbolic derivatives
+    public void computeTaylor(double x, double[] out, int order) {
+        out[0] = compute(x);
+        Function derivative = this;
+        double factorial = 1;
+        for (int k = 1; k <= order; k++) {
+            derivative = derivative.differentiate();
+            factorial *= k;
+            out[k] = derivative.compute(x) / factorial;
+        }
+    }
+
+    //Function: Compute Derivatives
+    //@param x      the x value to be computed
+    //       order  the highest derivative to be computed
+    //@return       the value of the function at <x> followed by its first
+    //              <order> derivatives, eg. {f(x), f'(x), f''(x)} for an order
+    //              of 2
+    public double[] computeDerivatives(double x, int order) {
+        double[] derivatives = new double[order + 1];
+        computeTaylor(x, derivatives, order);
+        double factorial = 1;
+        for (int k = 1; k <= order; k++) {
+            factorial *= k;
+            derivatives[k] *= factorial;
+        }
+        return derivatives;
+    }
 
     public abstract double getCoeff();
 
-    public abstract Function setCoeff(double c);
+    //Function: With Coeff
+    //@param c              the new coefficient
+    //@return               a function equal to this one but with a
+    //                      coefficient of <c>. The function itself is left
+    //                      unchanged
+    public abstract Function withCoeff(double c);
+
+    //Function: Has Coeff
+    //@return               whether <withCoeff> replaces a coefficient kept
+    //                      apart from the rest of the function, so that
+    //                      f.withCoeff(c) is c/f.getCoeff() times f. True
+    //                      unless a type overrides it
+    boolean hasCoeff() {
+        return true;
+    }
+
+    //Function: Is Determined By Sub Functions
+    //@return               whether the function only depends on x and the
+    //                      other variables through its sub functions, so
+    //                      that it is a number when they all are. True
+    //                      unless a type overrides it
+    boolean isDeterminedBySubFunctions() {
+        return true;
+    }
 
     public abstract String toString();
+
+    //Function: Equals
+    //@param obj            the object to be compared
+    //@return               whether <obj> is the same function. Subclasses
+    //                      compare their type, coefficient and sub functions,
+    //                      functions without an override are only equal to
+    //                      themselves
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    //Function: Hash Code
+    //@return               the structural hash code of the function
+    @Override
+    public final int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = structuralHash();
+            if (h == 0) h = 1;
+            hash = h;
+        }
+        return h;
+    }
+
+    //Function: Structural Hash
+    //@return               a hash code computed from the type, coefficient
+    //                      and sub functions. Subclasses which override
+    //                      <equals> override this as well
+    protected int structuralHash() {
+        return System.identityHashCode(this);
+    }
+
+    //Function: Get Sub Functions
+    //@return               the functions directly inside of this function
+    Function[] getSubFunctions() {
+        return new Function[0];
+    }
+
+    //Function: With Sub Functions
+    //@param subFuncs       replacements for the functions returned by
+    //                      <getSubFunctions>, in the same order
+    //@return               a copy of this function built from <subFuncs>
+    Function withSubFunctions(Function[] subFuncs) {
+        return this;
+    }
+
+    //Function: Compute Sub Function
+    //@param subFunc        a sub function
+    //       xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    //Lets a node write its batch compute once for both x values and
+    //environments, passing on whichever one it was given
+    static void computeSubFunction(Function subFunc, double[] xs, double[][]
+            env, double[] out, int n) {
+        EvaluationBudget.checkpoint();
+        if (env == null) subFunc.compute(xs, out, n);
+        else subFunc.compute(env, out, n);
+    }
+
+    //Function: Same Sub Functions
+    //@param a              sub functions of one function
+    //       b              sub functions of another function
+    //@return               whether both arrays hold equal functions, ignoring
+    //                      their order. Used by sums and products where the
+    //                      order of the terms does not matter
+    static boolean sameSubFunctions(Function[] a, Function[] b) {
+        if (a.length != b.length) return false;
+        boolean[] matched = new boolean[b.length];
+        for (Function subFunc : a) {
+            boolean isMatched = false;
+            for (int j = 0; j < b.length && !isMatched; j++) {
+                if (!matched[j] && subFunc.equals(b[j])) {
+                    matched[j] = true;
+                    isMatched = true;
+                }
+            }
+            if (!isMatched) return false;
+        }
+        return true;
+    }
+
+    //Function: Sub Functions Hash
+    //@param subFuncs       sub functions of a sum or product
+    //@return               a hash code which does not depend on the order of
+    //                      the sub functions
+    static int subFunctionsHash(Function[] subFuncs) {
+        int h = 0;
+        for (Function subFunc : subFuncs) h += subFunc.hashCode();
+        return h;
+    }
+
+    //--------------------------DERIVATIVE BUILDERS---------------------------//
+    //FUNCTION LIST:
+    //static Function sum(Function... terms)
+    //static Function product(double coeff, Function... factors)
+    //static boolean isZero(Function function)
+
+    //Function: Sum
+    //@param terms          the terms of the sum
+    //@return               the sum of the terms with all numbers added up and
+    //                      zeros left out. A sum of a single term is the term
+    //                      itself
+    static Function sum(Function... terms) {
+        double constant = 0;
+        ArrayList<Function> kept = new ArrayList<>();
+        for (Function term : terms) {
+            if (term instanceof Constant) constant += term.compute(0);
+            else kept.add(term);
+        }
+        if (constant != 0) kept.add(new Constant(constant));
+        if (kept.size() == 0) return new Constant(0);
+        if (kept.size() == 1) return kept.get(0);
+        return new SumFunction(kept.toArray(new Function[0]));
+    }
+
+    //Function: Product
+    //@param coeff          a number multiplied into the product
+    //       factors        the factors of the product
+    //@return               the product of the factors with all numbers
+    //                      multiplied into the coefficient, and 0 if any of
+    //                      them is 0. A product of a single factor and a
+    //                      coefficient of 1 is the factor itself
+    static Function product(double coeff, Function... factors) {
+        ArrayList<Function> kept = new ArrayList<>();
+        for (Function factor : factors) {
+            if (factor instanceof Constant) coeff *= factor.compute(0);
+            else kept.add(factor);
+        }
+        if (coeff == 0 || kept.size() == 0) return new Constant(coeff);
+        if (kept.size() == 1 && coeff == 1) return kept.get(0);
+        return new GeoFunction(kept.toArray(new Function[0]), coeff);
+    }
+
+    //Function: Is Zero
+    //@param function       a function
+    //@return               whether the function is the number 0
+    static boolean isZero(Function function) {
+        return function instanceof Constant && function.compute(0) == 0;
+    }
 }
@@ -0,0 +1,660 @@
+//-------------------------FUNCTION COMPILER CLASS----------------------------//
+//@author TitanJack
+//@project MathTools
+//Turns a function tree into a class that is generated at runtime. The class
+//computes the whole expression as straight-line bytecode: every node becomes a
+//few arithmetic instructions or a direct call to a Math method, and numbers
+//such as coefficients and math constants are folded into the code. This lets
+//the JIT inline the entire expression instead of making a virtual call for
+//every node and every value.
+//
+//Each compiled expression is defined by its own class loader so that the
+//generated class can be unloaded together with the function that owns it.
+//Nodes that the compiler does not recognize are called through their own
+//compute method, so any function tree can be compiled.
+
+package Functions;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@SuppressWarnings("WeakerAccess")
+public class FunctionCompiler {
+
+    private static final String FUNCTION_CLASS = "Functions/Function";
+    private static final String COMPILED_CLASS = "Functions/CompiledFunction";
+    private static final String FALLBACK_DESC = "[LFunctions/Function;";
+
+    private static final AtomicInteger classCount = new AtomicInteger();
+
+    //Constant pool and code of the class being generated
+    private final ConstantPool pool;
+    private final String className;
+    private final ArrayList<Function> fallbacks;
+    private ByteArrayOutputStream code;
+    private int stack;
+    private int maxStack;
+    private int nextLocal;
+
+    private FunctionCompiler() {
+        pool = new ConstantPool();
+        className = "Functions/generated/Expression" +
+                classCount.getAndIncrement();
+        fallbacks = new ArrayList<>();
+    }
+
+    //Function: Compile
+    //@param function       the function tree to be compiled
+    //@return               the compiled form of the function
+    //Generates, loads and instantiates a class which computes <function>.
+    //Throws an IllegalArgumentException if the expression is too large to fit
+    //into a single method
+    public static CompiledFunction compile(Function function) {
+        FunctionCompiler compiler = new FunctionCompiler();
+        byte[] classBytes = compiler.generateClass(function);
+        Function[] fallbacks = compiler.fallbacks.toArray(new Function[0]);
+        try {
+            Class<?> compiledClass = new ExpressionLoader().define(
+                    compiler.className.replace('/', '.'), classBytes);
+            return (CompiledFunction)compiledClass.getConstructor(
+                    Function[].class).newInstance((Object)fallbacks);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Compiled expression could not " +
+                    "be instantiated", e);
+        }
+    }
+
+    //-------------------------CLASS GENERATION-------------------------------//
+    //FUNCTION LIST:
+    //private byte[] generateClass(Function function)
+    //private byte[] generateConstructor()
+    //private byte[] generateCompute(Function function)
+    //private byte[] generateBatchCompute()
+
+    //Function: Generate Class
+    //@param function       the function to be computed by the class
+    //@return               the bytes of the class file
+    private byte[] generateClass(Function function) {
+        //The methods reference the constant pool, so they are generated before
+        //the pool is written out
+        byte[] constructor = generateConstructor();
+        byte[] compute = generateCompute(function);
+        byte[] batchCompute = generateBatchCompute();
+
+        ByteOutput out = new ByteOutput();
+        out.u4(0xCAFEBABE);
+        //Class file version 49 does not require stack map frames, which keeps
+        //the loop in the batch method simple to generate
+        out.u2(0);
+        out.u2(49);
+        int thisClass = pool.classRef(className);
+        int superClass = pool.classRef("java/lang/Object");
+        int compiledInterface = pool.classRef(COMPILED_CLASS);
+        int fallbackName = pool.utf8("fallbacks");
+        int fallbackDesc = pool.utf8(FALLBACK_DESC);
+        if (pool.size() > 0xFFFF)
+            throw new IllegalArgumentException("Expression is too large to " +
+                    "be compiled");
+        pool.writeTo(out);
+        //ACC_PUBLIC | ACC_FINAL | ACC_SUPER
+        out.u2(0x0031);
+        out.u2(thisClass);
+        out.u2(superClass);
+        out.u2(1);
+        out.u2(compiledInterface);
+        //private final Function[] fallbacks
+        out.u2(1);
+        out.u2(0x0012);
+        out.u2(fallbackName);
+        out.u2(fallbackDesc);
+        out.u2(0);
+        out.u2(3);
+        out.bytes(constructor);
+        out.bytes(compute);
+        out.bytes(batchCompute);
+        out.u2(0);
+        return out.toByteArray();
+    }
+
+    //Function: Generate Constructor
+    //@return               the method which stores the fallback nodes
+    private byte[] generateConstructor() {
+        ByteOutput body = new ByteOutput();
+        //aload_0, invokespecial Object.<init>
+        body.u1(0x2A);
+        body.u1(0xB7);
+        body.u2(pool.methodRef("java/lang/Object", "<init>", "()V"));
+        //aload_0, aload_1, putfield fallbacks, return
+        body.u1(0x2A);
+        body.u1(0x2B);
+        body.u1(0xB5);
+        body.u2(pool.fieldRef(className, "fallbacks", FALLBACK_DESC));
+        body.u1(0xB1);
+        return method(0x0001, "<init>", "(" + FALLBACK_DESC + ")V", 2, 2,
+                body.toByteArray());
+    }
+
+    //Function: Generate Compute
+    //@param function       the function to be computed
+    //@return               the method which computes the function for a
+    //                      single x value
+    private byte[] generateCompute(Function function) {
+        code = new ByteArrayOutputStream();
+        stack = 0;
+        maxStack = 0;
+        //Local 0 holds this, locals 1 and 2 hold x
+        nextLocal = 3;
+        emit(function);
+        op(0xAF, -2);
+        return method(0x0001, "compute", "(D)D", maxStack, nextLocal,
+                code.toByteArray());
+    }
+
+    //Function: Generate Batch Compute
+    //@return               the method which computes the function for a whole
+    //                      array of x values by looping over <compute>
+    private byte[] generateBatchCompute() {
+        int compute = pool.methodRef(className, "compute", "(D)D");
+        ByteOutput body = new ByteOutput();
+        //for (int i = 0; i < n; i++) out[i] = compute(xs[i]);
+        body.u1(0x03);
+        body.u1(0x36); body.u1(4);
+        //Offset 3: loop condition
+        body.u1(0x15); body.u1(4);
+        body.u1(0x1D);
+        body.u1(0xA2); body.u2(21);
+        //Offset 9: loop body
+        body.u1(0x2C);
+        body.u1(0x15); body.u1(4);
+        body.u1(0x2A);
+        body.u1(0x2B);
+        body.u1(0x15); body.u1(4);
+        body.u1(0x31);
+        body.u1(0xB6); body.u2(compute);
+        body.u1(0x52);
+        body.u1(0x84); body.u1(4); body.u1(1);
+        //Offset 24: jump back to the condition at offset 3
+        body.u1(0xA7); body.u2(-21);
+        //Offset 27: end of loop
+        body.u1(0xB1);
+        return method(0x0001, "compute", "([D[DI)V", 6, 5,
+                body.toByteArray());
+    }
+
+    //Function: Method
+    //@param access         the access flags of the method
+    //       name           the name of the method
+    //       desc           the type descriptor of the method
+    //       maxStack       the deepest the operand stack will get
+    //       maxLocals      the number of local variable slots used
+    //       body           the bytecode of the method
+    //@return               the method_info structure of the method
+    private byte[] method(int access, String name, String desc, int maxStack,
+                          int maxLocals, byte[] body) {
+        if (body.length > 0xFFFF)
+            throw new IllegalArgumentException("Expression is too large to " +
+                    "be compiled");
+        ByteOutput out = new ByteOutput();
+        out.u2(access);
+        out.u2(pool.utf8(name));
+        out.u2(pool.utf8(desc));
+        out.u2(1);
+        out.u2(pool.utf8("Code"));
+        out.u4(12 + body.length);
+        out.u2(maxStack);
+        out.u2(maxLocals);
+        out.u4(body.length);
+        out.bytes(body);
+        out.u2(0);
+        out.u2(0);
+        return out.toByteArray();
+    }
+
+    //-------------------------EXPRESSION EMITTERS----------------------------//
+    //FUNCTION LIST:
+    //private void emit(Function function)
+    //private void emitPower(Function base, double power)
+    //private void emitTrig(TrigType type, Function subFunc)
+    //private void emitFallback(Function function)
+
+    //Function: Emit
+    //@param function       the function to be computed
+    //Appends the code which leaves the value of <function> at the current x
+    //on top of the operand stack
+    private void emit(Function function) {
+        if (function instanceof Constant) {
+            pushDouble(((Constant)function).getValue());
+        } else if (function instanceof MathConstant) {
+            pushDouble(function.compute(0));
+        } else if (function instanceof Variable && ((Variable)function)
+                .isX()) {
+            op(0x27, 2);
+            scale(function.getCoeff());
+        } else if (function instanceof SumFunction) {
+            Function[] terms = ((SumFunction)function).getTerms();
+            if (terms.length == 0) pushDouble(0);
+            else {
+                emit(terms[0]);
+                for (int i = 1; i < terms.length; i++) {
+                    emit(terms[i]);
+                    op(0x63, -2);
+                }
+                scale(function.getCoeff());
+            }
+        } else if (function instanceof GeoFunction) {
+            //Number factors are multiplied into the coefficient beforehand
+            double coeff = function.getCoeff();
+            ArrayList<Function> factors = new ArrayList<>();
+            for (Function factor : ((GeoFunction)function).getFactors()) {
+                if (factor instanceof Constant || factor instanceof
+                        MathConstant)
+                    coeff *= factor.compute(0);
+                else factors.add(factor);
+            }
+            if (factors.size() == 0) pushDouble(coeff);
+            else {
+                emit(factors.get(0));
+                for (int i = 1; i < factors.size(); i++) {
+                    emit(factors.get(i));
+                    op(0x6B, -2);
+                }
+                scale(coeff);
+            }
+        } else if (function instanceof Rational) {
+            emit(((Rational)function).getNumerator());
+            scale(function.getCoeff());
+            emit(((Rational)function).getDenominator());
+            op(0x6F, -2);
+        } else if (function instanceof Exponential) {
+            Function base = ((Exponential)function).getBase();
+            Function exponent = ((Exponential)function).getExponent();
+            if (exponent instanceof Constant)
+                emitPower(base, ((Constant)exponent).getValue());
+            else {
+                emit(base);
+                emit(exponent);
+                invokeMath("pow", "(DD)D", -2);
+            }
+            scale(function.getCoeff());
+        } else if (function instanceof Logarithmic) {
+            emit(((Logarithmic)function).getSubFunc());
+            invokeMath("log", "(D)D", 0);
+            scale(function.getCoeff());
+        } else if (function instanceof Trigonometric) {
+            emitTrig(((Trigonometric)function).getType(),
+                    ((Trigonometric)function).getSubFunc());
+            scale(function.getCoeff());
+        } else if (function instanceof Polynomial) {
+            //Horner's method, <(c2*x+c1)*x+c0>
+            double[] coeffs = ((Polynomial)function).getCoefficients();
+            pushDouble(coeffs[coeffs.length - 1]);
+            for (int k = coeffs.length - 2; k >= 0; k--) {
+                op(0x27, 2);
+                op(0x6B, -2);
+                if (coeffs[k] != 0) {
+                    pushDouble(coeffs[k]);
+                    op(0x63, -2);
+                }
+            }
+            scale(function.getCoeff());
+        } else if (function instanceof PluginFunction) {
+            //Compiled code computes one x at a time, which would call the
+            //scalar kernel of the plugin for every value. The tree is kept
+            //instead, so its batch kernel is used
+            throw new IllegalArgumentException("Plugin functions are not " +
+                    "compiled");
+        } else {
+            emitFallback(function);
+        }
+    }
+
+    //Function: Emit Power
+    //@param base           the base of the power
+    //       power          the constant exponent
+    //Small whole number powers are computed by repeated multiplication and
+    //square roots by Math.sqrt, which are both far cheaper than Math.pow
+    private void emitPower(Function base, double power) {
+        if (power == 0) {
+            pushDouble(1);
+        } else if (power == 1) {
+            emit(base);
+        } else if (power == 0.5) {
+            emit(base);
+            invokeMath("sqrt", "(D)D", 0);
+        } else if (power == (int)power && Math.abs(power) <= 8) {
+            int times = Math.abs((int)power);
+            emit(base);
+            int baseLocal = storeLocal();
+            if (power < 0) pushDouble(1);
+            loadLocal(baseLocal);
+            for (int i = 1; i < times; i++) {
+                loadLocal(baseLocal);
+                op(0x6B, -2);
+            }
+            if (power < 0) op(0x6F, -2);
+        } else {
+            emit(base);
+            pushDouble(power);
+            invokeMath("pow", "(DD)D", -2);
+        }
+    }
+
+    //Function: Emit Trig
+    //@param type           the type of trigonometric function
+    //       subFunc        the function inside of the trigonometric function
+    private void emitTrig(TrigType type, Function subFunc) {
+        switch (type) {
+            case SIN: case COS: case TAN: case SINH: case COSH:
+            case TANH:
+                emit(subFunc);
+                invokeMath(type.getName(), "(D)D", 0);
+                break;
+            case ARCSIN: case ARCCOS: case ARCTAN:
+                emit(subFunc);
+                invokeMath(type.getName().replace("arc", "a"), "(D)D", 0);
+                break;
+            case CSC: case SEC: case COT:
+            case CSCH: case SECH: case COTH:
+                //Reciprocals: 1/sin(y), 1/cos(y), etc.
+                pushDouble(1);
+                emit(subFunc);
+                invokeMath(reciprocalOf(type), "(D)D", 0);
+                op(0x6F, -2);
+                break;
+            case ARCCSC: case ARCSEC: case ARCCOT:
+                //Inverse reciprocals: asin(1/y), acos(1/y), atan(1/y)
+                pushDouble(1);
+                emit(subFunc);
+                op(0x6F, -2);
+                invokeMath("a" + reciprocalOf(type), "(D)D", 0);
+                break;
+            case ARCSINH: case ARCCOSH: {
+                //log(y + sqrt(y*y +/- 1))
+                emit(subFunc);
+                int y = storeLocal();
+                loadLocal(y);
+                loadLocal(y);
+                loadLocal(y);
+                op(0x6B, -2);
+                pushDouble(1);
+                op(type == TrigType.ARCSINH ? 0x63 : 0x67, -2);
+                invokeMath("sqrt", "(D)D", 0);
+                op(0x63, -2);
+                invokeMath("log", "(D)D", 0);
+                break;
+            }
+            case ARCCSCH: case ARCSECH: {
+                //log(1/y + sqrt(1/(y*y) +/- 1))
+                emit(subFunc);
+                int y = storeLocal();
+                pushDouble(1);
+                loadLocal(y);
+                op(0x6F, -2);
+                pushDouble(1);
+                loadLocal(y);
+                loadLocal(y);
+                op(0x6B, -2);
+                op(0x6F, -2);
+                pushDouble(1);
+                op(type == TrigType.ARCCSCH ? 0x63 : 0x67, -2);
+                invokeMath("sqrt", "(D)D", 0);
+                op(0x63, -2);
+                invokeMath("log", "(D)D", 0);
+                break;
+            }
+            case ARCTANH: case ARCCOTH: {
+                //0.5*log((1+y)/(1-y)) and 0.5*log((y+1)/(y-1))
+                emit(subFunc);
+                int y = storeLocal();
+                boolean tanh = type == TrigType.ARCTANH;
+                pushDouble(0.5);
+                pushDouble(1);
+                loadLocal(y);
+                op(0x63, -2);
+                if (tanh) {
+                    pushDouble(1);
+                    loadLocal(y);
+                } else {
+                    loadLocal(y);
+                    pushDouble(1);
+                }
+                op(0x67, -2);
+                op(0x6F, -2);
+                invokeMath("log", "(D)D", 0);
+                op(0x6B, -2);
+                break;
+            }
+        }
+    }
+
+    //Function: Reciprocal Of
+    //@param type           a reciprocal trigonometric function or its
+    //                      inverse
+    //@return               the Math method whose reciprocal it is, without
+    //                      the "a" of the inverse
+    private String reciprocalOf(TrigType type) {
+        switch (type) {
+            case CSC: case ARCCSC: return "sin";
+            case SEC: case ARCSEC: return "cos";
+            case COT: case ARCCOT: return "tan";
+            case CSCH: return "sinh";
+            case SECH: return "cosh";
+            default: return "tanh";
+        }
+    }
+
+    //Function: Emit Fallback
+    //@param function       a function which the compiler does not recognize
+    //Calls the compute method of the node itself, which is kept in the
+    //fallbacks array of the generated class
+    private void emitFallback(Function function) {
+        int index = fallbacks.size();
+        fallbacks.add(function);
+        op(0x2A, 1);
+        op(0xB4, 0);
+        u2(pool.fieldRef(className, "fallbacks", FALLBACK_DESC));
+        pushInt(index);
+        op(0x32, -1);
+        op(0x27, 2);
+        op(0xB6, -1);
+        u2(pool.methodRef(FUNCTION_CLASS, "compute", "(D)D"));
+    }
+
+    //---------------------------CODE UTILITIES-------------------------------//
+
+    //Multiplies the value on top of the stack by a constant coefficient
+    private void scale(double coeff) {
+        if (coeff == 1) return;
+        if (coeff == -1) op(0x77, 0);
+        else {
+            pushDouble(coeff);
+            op(0x6B, -2);
+        }
+    }
+
+    private void pushDouble(double value) {
+        if (Double.doubleToRawLongBits(value) == 0) op(0x0E, 2);
+        else if (value == 1) op(0x0F, 2);
+        else {
+            op(0x14, 2);
+            u2(pool.doubleConst(value));
+        }
+    }
+
+    private void pushInt(int value) {
+        if (value <= 5) op(0x03 + value, 1);
+        else if (value <= Byte.MAX_VALUE) {
+            op(0x10, 1);
+            code.write(value);
+        } else {
+            op(0x11, 1);
+            u2(value);
+        }
+    }
+
+    private void invokeMath(String name, String desc, int stackChange) {
+        op(0xB8, stackChange);
+        u2(pool.methodRef("java/lang/Math", name, desc));
+    }
+
+    //Stores the value on top of the stack into a new local variable slot
+    private int storeLocal() {
+        int local = nextLocal;
+        nextLocal += 2;
+        if (local > 0xFF)
+            throw new IllegalArgumentException("Expression is too large to " +
+                    "be compiled");
+        op(0x39, -2);
+        code.write(local);
+        return local;
+    }
+
+    private void loadLocal(int local) {
+        op(0x18, 2);
+        code.write(local);
+    }
+
+    //Writes an opcode and keeps track of how deep the operand stack gets
+    private void op(int opcode, int stackChange) {
+        code.write(opcode);
+        stack += stackChange;
+        if (stack > maxStack) maxStack = stack;
+    }
+
+    private void u2(int value) {
+        code.write(value >> 8);
+        code.write(value);
+    }
+
+    //---------------------------HELPER CLASSES-------------------------------//
+
+    //Big endian output used to write the class file structures
+    private static class ByteOutput extends ByteArrayOutputStream {
+
+        void u1(int value) {
+            write(value);
+        }
+
+        void u2(int value) {
+            write(value >> 8);
+            write(value);
+        }
+
+        void u4(int value) {
+            u2(value >> 16);
+            u2(value);
+        }
+
+        void bytes(byte[] b) {
+            write(b, 0, b.length);
+        }
+    }
+
+    //The constant pool of the class being generated. Entries are shared, so
+    //asking for the same entry twice returns the same index
+    private static class ConstantPool {
+
+        private final ByteOutput entries = new ByteOutput();
+        private final HashMap<String, Integer> indices = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String value) {
+            Integer index = indices.get("U" + value);
+            if (index != null) return index;
+            entries.u1(1);
+            byte[] bytes;
+            try {
+                bytes = value.getBytes("UTF-8");
+            } catch (java.io.UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            }
+            entries.u2(bytes.length);
+            entries.bytes(bytes);
+            return add("U" + value, 1);
+        }
+
+        int classRef(String name) {
+            Integer index = indices.get("C" + name);
+            if (index != null) return index;
+            int nameIndex = utf8(name);
+            entries.u1(7);
+            entries.u2(nameIndex);
+            return add("C" + name, 1);
+        }
+
+        int methodRef(String owner, String name, String desc) {
+            return memberRef(10, owner, name, desc);
+        }
+
+        int fieldRef(String owner, String name, String desc) {
+            return memberRef(9, owner, name, desc);
+        }
+
+        int doubleConst(double value) {
+            String key = "D" + Double.doubleToRawLongBits(value);
+            Integer index = indices.get(key);
+            if (index != null) return index;
+            entries.u1(6);
+            long bits = Double.doubleToRawLongBits(value);
+            entries.u4((int)(bits >> 32));
+            entries.u4((int)bits);
+            //Doubles take up two entries in the constant pool
+            return add(key, 2);
+        }
+
+        int size() {
+            return count;
+        }
+
+        void writeTo(ByteOutput out) {
+            out.u2(count);
+            out.bytes(entries.toByteArray());
+        }
+
+        private int memberRef(int tag, String owner, String name,
+                              String desc) {
+            String key = tag + owner + "." + name + desc;
+            Integer index = indices.get(key);
+            if (index != null) return index;
+            int ownerIndex = classRef(owner);
+            int nameAndType = nameAndType(name, desc);
+            entries.u1(tag);
+            entries.u2(ownerIndex);
+            entries.u2(nameAndType);
+            return add(key, 1);
+        }
+
+        private int nameAndType(String name, String desc) {
+            String key = "N" + name + " " + desc;
+            Integer index = indices.get(key);
+            if (index != null) return index;
+            int nameIndex = utf8(name);
+            int descIndex = utf8(desc);
+            entries.u1(12);
+            entries.u2(nameIndex);
+            entries.u2(descIndex);
+            return add(key, 1);
+        }
+
+        private int add(String key, int slots) {
+            int index = count;
+            indices.put(key, index);
+            count += slots;
+            return index;
+        }
+    }
+
+    //Loads each generated class with its own class loader
+    private static class ExpressionLoader extends ClassLoader {
+
+        ExpressionLoader() {
+            super(FunctionCompiler.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] classBytes) {
+            return defineClass(name, classBytes, 0, classBytes.length);
+        }
+    }
+}
@@ -7,7 +7,12 @@
 package Functions;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.Stack;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @SuppressWarnings({"SpellCheckingInspection"})
 public class FunctionConstructor {
@@ -15,30 +20,70 @@ public class FunctionConstructor {
     private boolean DEBUG = false;
     private boolean DEBUG_indices = false;
 
-    private final String[] trigFuncs = {
-            "sin", "cos", "tan", "csc", "sec", "cot", "arcsin", "arccos",
-            "arctan", "arccsc", "arcsec", "arccot", "sinh", "cosh", "tanh",
-            "csch", "sech", "coth", "arcsinh", "arccosh", "arctanh", "arccsch",
-            "arcsech", "arccoth",
-    };
+    //A plain number, which unlike an expression may have a decimal point
+    private static final String NUMBER = "-?(?:\\d+\\.?\\d*|\\.\\d+)";
+    //A family of curves, eg. <a*x for a in 0..5 step 0.5>. The groups are the
+    //expression, the variable, the two bounds and the optional step
+    private static final Pattern FAMILY = Pattern.compile("(.+?)\\s+for\\s+" +
+            "([A-Za-z]+)\\s+in\\s+(" + NUMBER + ")\\s*\\.\\.\\s*(" + NUMBER +
+            ")(?:\\s+step\\s+(" + NUMBER + "))?\\s*");
+    private static final int MAX_FAMILY_SIZE = 1000;
+
+    //Parsed functions are interned so that identical subtrees, within one
+    //expression or across expressions, are shared
+    private static final FunctionPool pool = new FunctionPool();
+
+    //The variables which may appear in an expression, each of which is given
+    //its slot here so that nothing is looked up by name once it is parsed
+    private final VariableTable variables;
+    //The functions the user has defined, which an expression may call
+    private final FunctionTable definitions;
+
+    public FunctionConstructor() {
+        this(new VariableTable());
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public FunctionConstructor(VariableTable variables) {
+        this(variables, new FunctionTable());
+    }
 
-    private final String[] mathConstants = {"pi", "e"};
+    @SuppressWarnings("WeakerAccess")
+    public FunctionConstructor(VariableTable variables, FunctionTable
+            definitions) {
+        this.variables = variables;
+        this.definitions = definitions;
+    }
 
     //---------------------------CORE FUNCTIONS-------------------------------//
     //FUNCTION LIST:
     //public Function toFunction(String funcStr)
     //public Function toFunctionDebug(String funcStr)
     //private Function toFunction(String funcStr, String DEBUG_spacing)
+    //private Function toSeries(boolean product, String argStr,
+    //                                                  String DEBUG_spacing)
+    //public VariableTable getVariables()
+    //public String getDefinedName(String text)
+    //public boolean isParameterDefinition(String text)
+    //public String getBody(String text)
+    //public double toParameterValue(String text)
+    //public String getFamilyBody(String text)
+    //public int toFamilyIndex(String text)
+    //public double[] toFamilyValues(String text)
+    //private Matcher matchFamily(String text)
+    //public Set<String> getReferencedNames(String funcStr)
+    //private void addName(String funcStr, int start, int end,
+    //                                                      Set<String> names)
 
     //Function: To Function (Side method)
     //@param funcStr        String function expression
     //@return               A function object
-    //Calls the "main" toFunction method
+    //Calls the "main" toFunction method and interns the result
     @SuppressWarnings ({"unused", "WeakerAccess"})
     public Function toFunction(String funcStr) throws
             InvalidExpressionException {
         funcStr = removeOccurrences(funcStr, " ");
-        return toFunction(funcStr, "");
+        return pool.intern(toFunction(funcStr, ""));
     }
 
     //Function: To Function Debug
@@ -75,6 +120,7 @@ public class FunctionConstructor {
     //6. Similar approach is taken with <x-1>
     private Function toFunction(String funcStr, String DEBUG_spacing) throws
             InvalidExpressionException{
+        EvaluationBudget.checkpoint();
 
         //Debug output
         if (DEBUG) {
@@ -118,7 +164,7 @@ public class FunctionConstructor {
 
         //Check for leading negative sign, eg. -(x+1)
         if (funcStr.length() >= 2 && funcStr.charAt(0) == '-') {
-            return toFunction(funcStr.substring(1), DEBUG_spacing).setCoeff(-1);
+            return toFunction(funcStr.substring(1), DEBUG_spacing).withCoeff(-1);
         }
 
         //Check for exponents, eg. (x+1)^(x-1)
@@ -148,7 +194,10 @@ public class FunctionConstructor {
             }
         }
 
-        //Check for special functions: trigonometric, logarithmic, square root
+        //Check for named functions: trigonometric, special, logarithmic,
+        //square root, the functions of plugins, sums, products and functions
+        //defined by the user. Keywords are found in a hash table, see
+        //FunctionKeywords
         if (isLetter(funcStr.charAt(0))) {
             int wordEndIndex = getWordEndIndex(funcStr);
             String word = funcStr.substring(0, wordEndIndex);
@@ -157,41 +206,255 @@ public class FunctionConstructor {
                 charAt(funcStr.length() - 1))) {
                 String innerFunc = funcStr.substring(word.length() + 1,
                         funcStr.length() - 1);
-                if (strEqlsAny(word, trigFuncs)) {
-                    return new Trigonometric(word, toFunction(innerFunc, ""));
-                }
-                if (word.equals("sqrt")) {
-                    return new Exponential(toFunction(innerFunc, DEBUG_spacing),
-                            new Constant(0.5));
+                UnaryOperator<Function> builder = FunctionKeywords.get(word);
+                if (builder != null)
+                    return builder.apply(toFunction(innerFunc, DEBUG_spacing));
+                if (word.equals("sum") || word.equals("prod")) {
+                    return toSeries(word.equals("prod"), innerFunc,
+                            DEBUG_spacing);
                 }
-                if (word.equals("log")) {
-                    return new Logarithmic(toFunction(innerFunc,
+                Function body = definitions.get(word);
+                if (body != null) {
+                    return new UserFunction(word, body, toFunction(innerFunc,
                             DEBUG_spacing));
                 }
             }
         }
 
-        //Check for variable "x"
-        if(funcStr.equals("x")) return new Variable(1);
+        //Check for variables: x, y, t and named parameters
+        int slot = variables.getSlot(funcStr);
+        if (slot == VariableTable.X) return new Variable(1);
+        if (slot >= 0) return new Variable(slot, funcStr, 1);
 
         //Check for math constants: pi, e
-        if (strEqlsAny(funcStr, mathConstants))
-            return new MathConstant(funcStr);
+        ConstantType constant = ConstantType.of(funcStr);
+        if (constant != null) return new MathConstant(constant);
 
         //Check for abrivated form: sinx instead of sin(x)
-        if (strEqlsAny(funcStr, trigFuncs, new String[]{"x"}))
-            return new Trigonometric(funcStr.substring(0, funcStr.length() - 1),
-                    new Variable());
-        if (funcStr.equals("logx"))
-            return new Logarithmic(new Variable());
-        if (funcStr.equals("sqrtx")) {
-            return new Exponential(new Variable(), new Constant(0.5));
+        if (funcStr.endsWith("x")) {
+            UnaryOperator<Function> builder = FunctionKeywords.get(funcStr
+                    .substring(0, funcStr.length() - 1));
+            if (builder != null) return builder.apply(new Variable());
         }
 
         throw new InvalidExpressionException("The parser is unable to handle " +
                 "this expression");
     }
 
+    //Function: To Series
+    //@param product        Whether the terms are multiplied, as in <prod>,
+    //                      rather than added, as in <sum>
+    //       argStr         The arguments inside of the brackets, eg.
+    //                      <k,1,100,sin(k*x)/k>
+    //       DEBUG_spacing  Used in debug mode to indent the output to a tree
+    //                      structure
+    //@return               A sum or product over a range of whole numbers
+    //The index is added to the variables before the term is parsed, so that
+    //the term can use it like any other variable
+    private Function toSeries(boolean product, String argStr, String
+            DEBUG_spacing) throws InvalidExpressionException {
+        ArrayList<Integer> commaIndex = findOutsideOfBrackets(argStr, ",");
+        if (commaIndex.size() != 3) {
+            throw new InvalidExpressionException("A sum or product needs an " +
+                    "index, two bounds and a term, eg. sum(k,1,10,x^k)");
+        }
+        String index = argStr.substring(0, commaIndex.get(0));
+        int slot = variables.addIndex(index);
+        if (slot < 0) {
+            throw new InvalidExpressionException("The index of a sum or " +
+                    "product must be a name other than x, y, t or a " +
+                    "parameter");
+        }
+        //Number bounds are folded here, so that the range is known before
+        //the series is computed
+        Function lower = FunctionOptimizer.optimize(toFunction(argStr
+                .substring(commaIndex.get(0) + 1, commaIndex.get(1)),
+                DEBUG_spacing));
+        Function upper = FunctionOptimizer.optimize(toFunction(argStr
+                .substring(commaIndex.get(1) + 1, commaIndex.get(2)),
+                DEBUG_spacing));
+        Function term = toFunction(argStr.substring(commaIndex.get(2) + 1),
+                DEBUG_spacing);
+        return new SeriesFunction(product, slot, index, lower, upper, term);
+    }
+
+    //Function: Get Variables
+    //@return               the table of variables which expressions may use
+    @SuppressWarnings("unused")
+    public VariableTable getVariables() {
+        return variables;
+    }
+
+    //Function: Get Defined Name
+    //@param text           the text entered by the user, either an
+    //                      expression, a definition of a function such as
+    //                      <f(x)=x^2+1> or of a parameter such as <a=2>
+    //@return               the name of the function or parameter being
+    //                      defined, or null if the text is a plain expression
+    //Throws if the part in front of the equals sign is not a valid name,
+    //optionally followed by <(x)>
+    public String getDefinedName(String text) throws
+            InvalidExpressionException {
+        text = removeOccurrences(text, " ");
+        int equalsIndex = text.indexOf('=');
+        if (equalsIndex < 0) return null;
+        String head = text.substring(0, equalsIndex);
+        if (text.indexOf('=', equalsIndex + 1) >= 0)
+            throw new InvalidExpressionException("A definition may only " +
+                    "have one equals sign");
+        String name = head.endsWith("(x)") ? head.substring(0, head.length()
+                - 3) : head;
+        //Functions and parameters share their names, so that a call or a
+        //variable is never ambiguous
+        if (!FunctionTable.isValidName(name))
+            throw new InvalidExpressionException("The name of a function " +
+                    "or parameter must be made of letters other than x, and " +
+                    "must not be the name of a built in function");
+        return name;
+    }
+
+    //Function: Is Parameter Definition
+    //@param text           a definition, see getDefinedName
+    //@return               whether the text defines a parameter, eg. <a=2>,
+    //                      rather than a function
+    public boolean isParameterDefinition(String text) {
+        text = removeOccurrences(text, " ");
+        int equalsIndex = text.indexOf('=');
+        return equalsIndex >= 0 && !text.substring(0, equalsIndex).endsWith(
+                "(x)");
+    }
+
+    //Function: Get Body
+    //@param text           the text entered by the user
+    //@return               the expression after the equals sign of a
+    //                      definition, or the text itself if it is a plain
+    //                      expression
+    public String getBody(String text) {
+        return text.substring(text.indexOf('=') + 1);
+    }
+
+    //Function: To Parameter Value
+    //@param text           a definition of a parameter, eg. <a=-0.5>
+    //@return               the value the parameter is set to
+    public double toParameterValue(String text) throws
+            InvalidExpressionException {
+        String value = removeOccurrences(getBody(text), " ");
+        if (!value.matches(NUMBER))
+            throw new InvalidExpressionException("The value of a parameter " +
+                    "must be a number, eg. a=2");
+        return toNumberDouble(value);
+    }
+
+    //Function: Get Family Body
+    //@param text           the text entered by the user
+    //@return               the expression of a family of curves such as
+    //                      <a*x for a in 0..5 step 0.5>, or null if the text
+    //                      is not a family
+    //The words of a family are told apart by the spaces between them, so
+    //unlike an expression the text is read with its spaces
+    public String getFamilyBody(String text) throws
+            InvalidExpressionException {
+        if (!text.matches("(?s).*\\sfor\\s.*")) return null;
+        return matchFamily(text).group(1);
+    }
+
+    //Function: To Family Index
+    //@param text           a family of curves, see getFamilyBody
+    //@return               the slot of the variable of the family, which is
+    //                      added to the variables like the index of a sum
+    public int toFamilyIndex(String text) throws InvalidExpressionException {
+        int slot = variables.addIndex(matchFamily(text).group(2));
+        if (slot < 0) {
+            throw new InvalidExpressionException("The variable of a family " +
+                    "must be a name other than x, y, t or a parameter");
+        }
+        return slot;
+    }
+
+    //Function: To Family Values
+    //@param text           a family of curves, see getFamilyBody
+    //@return               the value of the variable for each member of the
+    //                      family, from the lower bound up to the upper bound
+    //                      in steps of the step, which is 1 if it is left out
+    public double[] toFamilyValues(String text) throws
+            InvalidExpressionException {
+        Matcher matcher = matchFamily(text);
+        double lower = toNumberDouble(matcher.group(3));
+        double upper = toNumberDouble(matcher.group(4));
+        double step = matcher.group(5) != null ? toNumberDouble(matcher
+                .group(5)) : 1;
+        if (!(step > 0) || upper < lower) {
+            throw new InvalidExpressionException("A family must go from a " +
+                    "lower to an upper bound in steps greater than 0");
+        }
+        //The upper bound is kept when the steps only miss it by rounding,
+        //eg. <0..1 step 0.1>
+        double count = Math.floor((upper - lower) / step + 1e-9) + 1;
+        if (count > MAX_FAMILY_SIZE) {
+            throw new InvalidExpressionException("A family may have at most " +
+                    MAX_FAMILY_SIZE + " curves");
+        }
+        double[] values = new double[(int)count];
+        //Each value is found from the lower bound, so that the rounding of
+        //the steps does not add up
+        for (int i = 0; i < values.length; i++)
+            values[i] = lower + i * step;
+        return values;
+    }
+
+    //Function: Match Family
+    //@param text           a family of curves, see getFamilyBody
+    //@return               the matched parts of the family
+    private Matcher matchFamily(String text) throws
+            InvalidExpressionException {
+        Matcher matcher = FAMILY.matcher(text.trim());
+        if (!matcher.matches()) {
+            throw new InvalidExpressionException("A family of curves is " +
+                    "written as eg. a*x for a in 0..5 step 0.5");
+        }
+        return matcher;
+    }
+
+    //Function: Get Referenced Names
+    //@param funcStr        String function expression
+    //@return               the names of every function the expression calls
+    //                      and every parameter it uses which could be
+    //                      defined by the user, whether they are defined yet
+    //                      or not
+    //A name is a run of letters, which is a call when it comes directly in
+    //front of a bracket. Only the letters after the last x of the run belong
+    //to it, since the parser reads <xf(x)> as <x*f(x)>
+    public Set<String> getReferencedNames(String funcStr) {
+        funcStr = removeOccurrences(funcStr, " ");
+        Set<String> names = new HashSet<>();
+        int wordStart = -1;
+        for (int i = 0; i < funcStr.length(); i++) {
+            char chr = funcStr.charAt(i);
+            if (isLetter(chr)) {
+                if (chr == 'x') wordStart = i + 1;
+                else if (wordStart < 0) wordStart = i;
+                continue;
+            }
+            addName(funcStr, wordStart, i, names);
+            wordStart = -1;
+        }
+        addName(funcStr, wordStart, funcStr.length(), names);
+        return names;
+    }
+
+    //Function: Add Name
+    //@param funcStr        String function expression
+    //       start          the index of the first letter of a name, or -1
+    //       end            the index after the name
+    //       names          the set the name is added to if it could be
+    //                      defined by the user
+    private void addName(String funcStr, int start, int end, Set<String>
+            names) {
+        if (start < 0 || start >= end) return;
+        String name = funcStr.substring(start, end);
+        if (FunctionTable.isValidName(name)) names.add(name);
+    }
+
     //--------------------------UTILITY FUNCTIONS-----------------------------//
     //FUNCTION LIST:
     //private Function[] getSubFunctions(String funcStr, ArrayList<Integer>
@@ -233,13 +496,13 @@ public class FunctionConstructor {
             else coeff = 1;
             subFunctions[i] = toFunction(funcStr.substring(
                     splitIndices.get(i - 1) + 1, splitIndices.get(i)
-                            + substrOffset), DEBUG_spacing).setCoeff(coeff);
+                            + substrOffset), DEBUG_spacing).withCoeff(coeff);
         }
         if (funcStr.charAt(splitIndices.get(subFuncsLength - 2)) == '-')
             coeff = -1;
         subFunctions[subFuncsLength - 1] = toFunction(funcStr.substring(
                 splitIndices.get(subFuncsLength - 2) + 1), DEBUG_spacing).
-                setCoeff(coeff);
+                withCoeff(coeff);
         return subFunctions;
     }
 
@@ -289,7 +552,9 @@ public class FunctionConstructor {
                     if (str.charAt(i) == '*') indices.add(i);
                     if (i < str.length() - 1) {
                         char nextChr = str.charAt(i + 1);
-                        if (isNum(str.charAt(i))) {
+                        //A digit right after a letter other than x is part
+                        //of a name, eg. j0(x)
+                        if (isNum(str.charAt(i)) && !isNameDigit(str, i)) {
                             if (eqlsOpenBrackets(nextChr) || nextChr == 'x')
                                 indices.add(i);
                         }
@@ -330,9 +595,7 @@ public class FunctionConstructor {
     //private double toNumberDouble(String str)
     //private boolean isLetter(char chr)
     //private int getWordEndIndex(String wordStr)
-    //private boolean strEqlsAny(String str, String[] strsToCompare)
-    //private boolean strEqlsAny(String str, String[] strsToCompare,
-    //                                                      String[] extraStrs)
+    //private boolean isNameDigit(String str, int index)
     //private boolean strHasAny(String str, String charsToCompare)
     //private boolean eqlsOpenBrackets(char chr)
     //private boolean eqlsClosedBrackets(char chr)
@@ -429,32 +692,30 @@ public class FunctionConstructor {
         return (chr >= 97 && chr <= 122);
     }
 
+    //Function: Get Word End Index
+    //@param wordStr        A string which starts with a letter
+    //@return               The index after the name at the start of the
+    //                      string, which is made up of letters followed by
+    //                      digits, eg. <sin> or <j0>
     private int getWordEndIndex(String wordStr) {
         for (int i = 0; i < wordStr.length(); i++) {
-            if (!isLetter(wordStr.charAt(i))) return i;
+            if (!isLetter(wordStr.charAt(i)) && !isNameDigit(wordStr, i))
+                return i;
         }
         return wordStr.length();
     }
 
-    //Function: String Equals Any
-    //@param str            Check if this string equals any in <strsToCompare>
-    //       strsToCompare  Strings to be compared
-    //@return               Whether <str> equals any in <strsToCompare>
-    private boolean strEqlsAny(String str, String[] strsToCompare) {
-        return strEqlsAny(str, strsToCompare, new String[]{""});
-    }
-
-    //Function: String Equals Any
-    //@param str            Check if this string equals any in <strsToCompare>
-    //       strsToCompare  Strings to be compared
-    //       extraStrs      To be added behind each string in <strsToCompare>
-    //@return               Whether <str> equals any in <strsToCompare>
-    private boolean strEqlsAny(String str, String[] strsToCompare,
-                                                           String[] extraStrs) {
-        for (String strCompare : strsToCompare)
-            for (String extraStr : extraStrs)
-                if (str.equals(strCompare + extraStr)) return true;
-        return false;
+    //Function: Is Name Digit
+    //@param str            The string holding the character
+    //       index          The index of the character
+    //@return               Whether the character is a digit which belongs to
+    //                      a name, that is a digit after a letter other than x
+    //                      or after another such digit
+    private boolean isNameDigit(String str, int index) {
+        int i = index;
+        while (i > 0 && isNum(str.charAt(i)) && isNum(str.charAt(i - 1))) i--;
+        return isNum(str.charAt(index)) && i > 0 && isLetter(str.charAt(i - 1))
+                && str.charAt(i - 1) != 'x';
     }
 
     //Function: String Has Any
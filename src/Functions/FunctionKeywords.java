@@ -0,0 +1,128 @@
+//--------------------------FUNCTION KEYWORDS CLASS---------------------------//
+//@author TitanJack
+//@project MathTools
+//The names of the functions of one argument which the parser knows, such as
+//sin, erf, log and sqrt, each with the way its node is built. The names are
+//kept in a hash table, so a name is found in a single lookup however many
+//functions there are.
+//
+//Besides the built in functions, the table holds the keywords of every
+//FunctionPlugin on the class path, which are loaded once when the table is
+//first used, see FunctionPlugin.
+
+package Functions;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.function.UnaryOperator;
+
+final class FunctionKeywords {
+
+    //The names which the parser reads itself, as they take more than one
+    //argument
+    private static final String[] SERIES = {"sum", "prod"};
+
+    private static final HashMap<String, UnaryOperator<Function>> BUILDERS =
+            load();
+
+    private FunctionKeywords() {
+    }
+
+    //Function: Get
+    //@param keyword        a possible name of a function
+    //@return               what builds the node of the function from its
+    //                      argument, or null if there is no function with
+    //                      that name
+    static UnaryOperator<Function> get(String keyword) {
+        return BUILDERS.get(keyword);
+    }
+
+    //Function: Is Reserved
+    //@param name           a name
+    //@return               whether the name is taken by a function, a
+    //                      constant or a sum or product, so that it cannot
+    //                      name a parameter or a function of the user
+    static boolean isReserved(String name) {
+        return isTaken(name, BUILDERS);
+    }
+
+    //Function: Is Taken
+    //@param name           a name
+    //       builders       the functions known so far
+    //@return               whether the name is one of the functions, a
+    //                      constant or a sum or product
+    private static boolean isTaken(String name, HashMap<String,
+            UnaryOperator<Function>> builders) {
+        if (builders.containsKey(name) || ConstantType.of(name) != null)
+            return true;
+        for (String series : SERIES)
+            if (series.equals(name)) return true;
+        return false;
+    }
+
+    //Function: Load
+    //@return               the table of every built in function and every
+    //                      function of the plugins
+    //A plugin which cannot be loaded, or has a keyword which is not a valid
+    //name or is taken, is left out and reported, so that it cannot stop the
+    //built in functions from being parsed
+    private static HashMap<String, UnaryOperator<Function>> load() {
+        HashMap<String, UnaryOperator<Function>> builders = new HashMap<>();
+        for (TrigType type : TrigType.values())
+            builders.put(type.getName(), arg -> new Trigonometric(type, arg));
+        for (SpecialType type : SpecialType.values())
+            builders.put(type.getName(), arg -> new SpecialFunction(type,
+                    arg));
+        builders.put("log", Logarithmic::new);
+        builders.put("sqrt", arg -> new Exponential(arg, new Constant(0.5)));
+        Iterator<FunctionPlugin> plugins = ServiceLoader.load(FunctionPlugin
+                .class).iterator();
+        String lastError = null;
+        while (true) {
+            FunctionPlugin plugin;
+            try {
+                if (!plugins.hasNext()) break;
+                plugin = plugins.next();
+            } catch (ServiceConfigurationError e) {
+                //The loader moves past a broken entry, unless it keeps
+                //failing on the same one
+                if (String.valueOf(e.getMessage()).equals(lastError)) break;
+                lastError = String.valueOf(e.getMessage());
+                System.err.println("Error: Skipped plugin, " + lastError);
+                continue;
+            }
+            lastError = null;
+            try {
+                addPlugin(plugin, builders);
+            } catch (RuntimeException | LinkageError e) {
+                System.err.println("Error: Skipped plugin " + plugin
+                        .getClass().getName() + ", " + e.getMessage());
+            }
+        }
+        return builders;
+    }
+
+    //Function: Add Plugin
+    //@param plugin         a plugin
+    //       builders       the functions known so far, which the functions
+    //                      of the plugin are added to
+    //Adds none of the functions of the plugin and throws if any of its
+    //keywords is not a valid name or is taken
+    private static void addPlugin(FunctionPlugin plugin, HashMap<String,
+            UnaryOperator<Function>> builders) {
+        HashMap<String, UnaryOperator<Function>> added = new HashMap<>();
+        for (String keyword : plugin.getKeywords()) {
+            //An x would be read as a product, eg. <ax(...)> as <a*x*(...)>,
+            //and y and t are variables, see FunctionTable.isValidName
+            if (keyword == null || !keyword.matches("[a-wyz]+[0-9]*") ||
+                    isTaken(keyword, builders) || added.containsKey(keyword)
+                    || keyword.equals("y") || keyword.equals("t"))
+                throw new IllegalArgumentException("invalid or taken " +
+                        "keyword " + keyword);
+            added.put(keyword, arg -> plugin.create(keyword, arg));
+        }
+        builders.putAll(added);
+    }
+}
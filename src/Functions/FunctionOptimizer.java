@@ -0,0 +1,145 @@
+//-------------------------FUNCTION OPTIMIZER CLASS---------------------------//
+//@author TitanJack
+//@project MathTools
+//An optimization pass which runs once after an expression is parsed, so that
+//work which is the same for every x is not repeated for every pixel. The pass:
+//1. Folds every sub function which does not depend on x into a single
+//   constant. Eg. <sin(pi/4)x^2> becomes <0.7071(x^2)>, and the sine is
+//   computed only once
+//2. Merges coefficients. Number factors and the coefficients of factors are
+//   multiplied into the coefficient of the product, sums and products nested
+//   inside of another sum or product are flattened into it, and a division by
+//   a number becomes a coefficient
+//3. Turns every sum, product and power which makes up a polynomial of x into
+//   a single Polynomial, eg. <x(x+1)^2> becomes <x^3+2x^2+x>
+//Small whole number powers produced by the pass are computed by multiplication
+//inside of the Exponential class itself.
+
+package Functions;
+
+import java.util.ArrayList;
+
+@SuppressWarnings("WeakerAccess")
+public class FunctionOptimizer {
+
+    //Function: Optimize
+    //@param function       the function to be optimized
+    //@return               a function which computes the same values with less
+    //                      work. <function> itself is not changed
+    public static Function optimize(Function function) {
+        EvaluationBudget.checkpoint();
+        Function[] subFuncs = function.getSubFunctions();
+        boolean changed = false;
+        boolean allConstant = true;
+        for (int i = 0; i < subFuncs.length; i++) {
+            Function optimized = optimize(subFuncs[i]);
+            if (optimized != subFuncs[i]) {
+                subFuncs[i] = optimized;
+                changed = true;
+            }
+            if (!(optimized instanceof Constant)) allConstant = false;
+        }
+        if (changed) function = function.withSubFunctions(subFuncs);
+
+        //A function whose sub functions are all numbers does not depend on x,
+        //unless it depends on more than its sub functions, such as a call to
+        //a function of the user, see isDeterminedBySubFunctions
+        if (function instanceof MathConstant || (subFuncs.length > 0 &&
+                allConstant && function.isDeterminedBySubFunctions()))
+            return new Constant(function.compute(0));
+        if (function instanceof GeoFunction)
+            function = mergeProduct((GeoFunction)function);
+        else if (function instanceof SumFunction)
+            function = mergeSum((SumFunction)function);
+        else if (function instanceof Rational)
+            function = mergeQuotient((Rational)function);
+        return toPolynomial(function);
+    }
+
+    //Function: To Polynomial
+    //@param function       a function whose sub functions are optimized
+    //@return               the function as a Polynomial if it is a sum,
+    //                      product, power or quotient which makes up a
+    //                      polynomial of x, otherwise the function itself
+    private static Function toPolynomial(Function function) {
+        if (!(function instanceof SumFunction || function instanceof
+                GeoFunction || function instanceof Exponential || function
+                instanceof Rational))
+            return function;
+        double[] coeffs = Polynomial.coefficientsOf(function);
+        if (coeffs == null) return function;
+        Polynomial polynomial = new Polynomial(coeffs);
+        if (polynomial.degree() == 0) return new Constant(polynomial
+                .getCoefficients()[0]);
+        return polynomial;
+    }
+
+    //Function: Merge Product
+    //@param function       a product whose sub functions are optimized
+    //@return               the product with all of its number factors and
+    //                      factor coefficients moved into its coefficient
+    private static Function mergeProduct(GeoFunction function) {
+        double coeff = function.getCoeff();
+        ArrayList<Function> factors = new ArrayList<>();
+        for (Function factor : function.getFactors()) {
+            if (factor instanceof Constant)
+                coeff *= factor.compute(0);
+            else if (factor instanceof GeoFunction) {
+                //<x(2(x+1))> is the same as <2x(x+1)>
+                coeff *= factor.getCoeff();
+                for (Function nested : ((GeoFunction)factor).getFactors())
+                    factors.add(nested);
+            } else if (factor.hasCoeff() && factor.getCoeff() != 1) {
+                coeff *= factor.getCoeff();
+                factors.add(factor.withCoeff(1));
+            } else factors.add(factor);
+        }
+        if (coeff == 0 || factors.size() == 0) return new Constant(coeff);
+        if (factors.size() == 1 && factors.get(0).hasCoeff())
+            return factors.get(0).withCoeff(coeff);
+        return new GeoFunction(factors.toArray(new Function[0]), coeff);
+    }
+
+    //Function: Merge Sum
+    //@param function       a sum whose sub functions are optimized
+    //@return               the sum with nested sums flattened into it
+    private static Function mergeSum(SumFunction function) {
+        ArrayList<Function> terms = new ArrayList<>();
+        boolean changed = false;
+        for (Function term : function.getTerms()) {
+            //<x+(x^2+1)> is the same as <x+x^2+1>
+            if (term instanceof SumFunction && term.getCoeff() == 1) {
+                for (Function nested : ((SumFunction)term).getTerms())
+                    terms.add(nested);
+                changed = true;
+            } else terms.add(term);
+        }
+        double coeff = function.getCoeff();
+        if (terms.size() == 0) return new Constant(0);
+        if (terms.size() == 1) {
+            Function term = terms.get(0);
+            if (term instanceof Constant)
+                return new Constant(coeff * term.compute(0));
+            if (term.hasCoeff())
+                return term.withCoeff(coeff * term.getCoeff());
+        }
+        return changed ? new SumFunction(terms.toArray(new Function[0]),
+                coeff) : function;
+    }
+
+    //Function: Merge Quotient
+    //@param function       a quotient whose sub functions are optimized
+    //@return               a division by a number turned into a coefficient,
+    //                      eg. <x/2> becomes <0.5x>
+    private static Function mergeQuotient(Rational function) {
+        Function numerator = function.getNumerator();
+        Function denominator = function.getDenominator();
+        if (!(denominator instanceof Constant)) return function;
+        double coeff = function.getCoeff() / denominator.compute(0);
+        if (numerator instanceof Constant)
+            return new Constant(coeff * numerator.compute(0));
+        if (numerator.hasCoeff())
+            return numerator.withCoeff(coeff * numerator.getCoeff());
+        return new GeoFunction(new Function[]{numerator}, coeff);
+    }
+}
@@ -0,0 +1,35 @@
+//---------------------------FUNCTION PLUGIN INTERFACE------------------------//
+//@author TitanJack
+//@project MathTools
+//A set of functions added to the parser from outside of MathTools, such as
+//special functions kept in a separate jar. Plugins are found with the
+//ServiceLoader: a jar lists its plugin classes in the file
+//META-INF/services/Functions.FunctionPlugin, and every plugin on the class
+//path is loaded the first time an expression is parsed.
+//
+//Each keyword of a plugin is written like a built in function, eg.
+//<besselk(x^2)> or <besselkx>, and is parsed into the node the plugin
+//creates. The node is a PluginFunction, which makes the plugin supply the
+//scalar, batch, interval and derivative kernels of its function. A plugin
+//which cannot be loaded, or has a keyword which is not valid or is taken, is
+//left out and reported on the error stream. Plugins.SigmoidPlugin, in the
+//tests, is a sample.
+
+package Functions;
+
+public interface FunctionPlugin {
+
+    //Function: Get Keywords
+    //@return               the names of the functions of the plugin. A name
+    //                      is made of lowercase letters other than x, which
+    //                      may be followed by digits, eg. <besselk> or <k0>,
+    //                      and must not be taken by a built in function or
+    //                      another plugin
+    String[] getKeywords();
+
+    //Function: Create
+    //@param keyword        one of the keywords of the plugin
+    //       arg            the function inside of the brackets
+    //@return               the node of the function named <keyword> of <arg>
+    PluginFunction create(String keyword, Function arg);
+}
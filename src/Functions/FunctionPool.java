@@ -0,0 +1,56 @@
+//---------------------------FUNCTION POOL CLASS------------------------------//
+//@author TitanJack
+//@project MathTools
+//A hash-consing node factory. Interning a function replaces every sub function
+//by the one instance in the pool which is structurally equal to it, so that
+//identical subtrees, such as the two <x^2+1> in <sin(x^2+1)/(x^2+1)>, become a
+//single shared object. Functions are only kept in the pool while something
+//else still refers to them.
+//
+//Sharing is safe because functions are never changed once they are built,
+//see Function.
+
+package Functions;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+@SuppressWarnings("WeakerAccess")
+public class FunctionPool {
+
+    private final WeakHashMap<Function, WeakReference<Function>> pool;
+
+    public FunctionPool() {
+        pool = new WeakHashMap<>();
+    }
+
+    //Function: Intern
+    //@param function       the function to be interned
+    //@return               the pooled instance which is structurally equal to
+    //                      <function>, with all of its sub functions interned
+    public synchronized Function intern(Function function) {
+        Function[] subFuncs = function.getSubFunctions();
+        boolean changed = false;
+        for (int i = 0; i < subFuncs.length; i++) {
+            Function interned = intern(subFuncs[i]);
+            if (interned != subFuncs[i]) {
+                subFuncs[i] = interned;
+                changed = true;
+            }
+        }
+        //Rebuild the function only if one of its sub functions was replaced
+        if (changed) function = function.withSubFunctions(subFuncs);
+
+        WeakReference<Function> pooledRef = pool.get(function);
+        Function pooled = pooledRef != null ? pooledRef.get() : null;
+        if (pooled != null) return pooled;
+        pool.put(function, new WeakReference<>(function));
+        return function;
+    }
+
+    //Function: Size
+    //@return               the number of distinct functions in the pool
+    public synchronized int size() {
+        return pool.size();
+    }
+}
@@ -0,0 +1,423 @@
+//--------------------------FUNCTION REWRITER CLASS---------------------------//
+//@author TitanJack
+//@project MathTools
+//Finds the cheapest way of writing an expression. The expression is put into
+//an equality graph (see EGraph), and algebraic rules keep adding equivalent
+//forms to the graph until no rule finds anything new or the graph grows too
+//large. The form with the lowest measured cost (see NodeCosts) is then taken
+//out of the graph. The rules:
+//1. Flatten nested sums and products
+//2. Merge like terms, eg. <2x+3x> becomes <5x>, which the SumFunction
+//   constructor cannot do on its own
+//3. Merge powers of the same base, eg. <x*x^2> becomes <x^3>
+//4. Factor out common factors, eg. <x^3+2x^2> becomes <x^2(x+2)>
+//5. Multiply out products of sums, eg. <2x(x+1)> becomes <2x^2+2x>
+//6. Cancel factors shared by a numerator and a denominator, eg. <x^2(x+1)/x>
+//   becomes <x(x+1)>, and turn a division by a number into a coefficient.
+//   Products of quotients are first written as a single quotient
+//7. Remove powers of 0 and 1
+//Like the SumFunction and GeoFunction constructors, the rules treat <x/x> and
+//<0x> as 1 and 0 even where x is 0, so a single missing point of a curve may
+//be filled in.
+
+package Functions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@SuppressWarnings("WeakerAccess")
+public class FunctionRewriter {
+
+    //The graph stops growing once it holds this many nodes
+    private static final int NODE_LIMIT = 2500;
+    private static final int MAX_ITERATIONS = 8;
+    //The most common factors tried for each sum
+    private static final int MAX_FACTOR_CANDIDATES = 3;
+    //Sums with more terms are not multiplied out, since every term becomes
+    //a new product
+    private static final int MAX_DISTRIBUTED_TERMS = 8;
+    //Sums and products are not flattened past this many terms. Classes can
+    //contain each other, so flattening could otherwise go on forever
+    private static final int MAX_CHILDREN = 16;
+
+    //Function: Rewrite
+    //@param function       the function to be rewritten
+    //@return               the cheapest equivalent function which was found,
+    //                      with constants folded by FunctionOptimizer
+    public static Function rewrite(Function function) {
+        EGraph graph = new EGraph();
+        int root = graph.addFunction(function);
+        graph.rebuild();
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            int size = graph.size();
+            int classCount = graph.classCount();
+            applyRules(graph);
+            graph.rebuild();
+            //The graph is saturated once the rules stop adding anything
+            if (graph.size() == size && graph.classCount() == classCount ||
+                    graph.size() > NODE_LIMIT)
+                break;
+        }
+        return FunctionOptimizer.optimize(graph.extract(root,
+                NodeCosts.get()));
+    }
+
+    //Function: Apply Rules
+    //@param graph          the graph to be rewritten
+    //Applies every rule once to every node in the graph
+    private static void applyRules(EGraph graph) {
+        int classCount = graph.classCount();
+        for (int id = 0; id < classCount; id++) {
+            EvaluationBudget.checkpoint();
+            if (graph.find(id) != id || graph.isConstant(id)) continue;
+            for (EGraph.Node node : graph.nodes(id)) {
+                if (graph.size() > NODE_LIMIT) return;
+                switch (node.op) {
+                    case EGraph.ADD:
+                        merge(graph, id, flatten(graph, id, node));
+                        merge(graph, id, mergeLikeTerms(graph, node));
+                        factorOut(graph, id, node);
+                        break;
+                    case EGraph.MUL:
+                        merge(graph, id, flatten(graph, id, node));
+                        merge(graph, id, mergePowers(graph, node));
+                        merge(graph, id, combineQuotients(graph, id, node));
+                        merge(graph, id, distribute(graph, id, node));
+                        break;
+                    case EGraph.DIV:
+                        merge(graph, id, cancel(graph, node));
+                        break;
+                    case EGraph.POW:
+                        merge(graph, id, simplifyPower(graph, node));
+                        break;
+                }
+            }
+        }
+    }
+
+    private static void merge(EGraph graph, int id, int result) {
+        if (result >= 0) graph.merge(id, result);
+    }
+
+    //Function: Flatten
+    //@param id             the class of the node
+    //       node           a sum or product
+    //@return               the class of the node with its nested sums or
+    //                      products taken apart, or -1 if there are none
+    private static int flatten(EGraph graph, int id, EGraph.Node node) {
+        ArrayList<Integer> children = new ArrayList<>();
+        boolean changed = false;
+        for (int child : node.children) {
+            //A class may contain itself, such as <x> being <1*x>
+            EGraph.Node nested = graph.find(child) == graph.find(id) ? null :
+                    graph.findNode(child, node.op);
+            if (nested != null) {
+                for (int nestedChild : nested.children)
+                    children.add(nestedChild);
+                changed = true;
+            } else children.add(child);
+        }
+        if (!changed || children.size() > MAX_CHILDREN) return -1;
+        return graph.add(node.op, toArray(children));
+    }
+
+    //Function: Merge Like Terms
+    //@param node           a sum
+    //@return               the class of the sum with terms which only differ
+    //                      by a number added together, or -1 if there are none
+    private static int mergeLikeTerms(EGraph graph, EGraph.Node node) {
+        //Maps each term without its number to the total of its numbers. The
+        //numbers of the sum are kept under -1
+        LinkedHashMap<Integer, Double> terms = new LinkedHashMap<>();
+        for (int child : node.children) {
+            if (graph.isConstant(child)) {
+                terms.merge(-1, graph.constant(child), Double::sum);
+                continue;
+            }
+            double coeff = 1;
+            int term = graph.find(child);
+            EGraph.Node product = graph.findNode(child, EGraph.MUL);
+            if (product != null) {
+                ArrayList<Integer> factors = new ArrayList<>();
+                for (int factor : product.children) {
+                    if (graph.isConstant(factor))
+                        coeff *= graph.constant(factor);
+                    else factors.add(factor);
+                }
+                term = graph.add(EGraph.MUL, toArray(factors));
+            }
+            terms.merge(term, coeff, Double::sum);
+        }
+        if (terms.size() == node.children.length) return -1;
+
+        ArrayList<Integer> children = new ArrayList<>();
+        for (Map.Entry<Integer, Double> term : terms.entrySet()) {
+            if (term.getValue() == 0) continue;
+            if (term.getKey() == -1)
+                children.add(graph.addConstant(term.getValue()));
+            else children.add(scale(graph, term.getValue(), term.getKey()));
+        }
+        return graph.add(EGraph.ADD, toArray(children));
+    }
+
+    //Function: Factor Out
+    //@param id             the class of the sum
+    //       node           a sum
+    //Adds the sum with its most common factors taken out of the terms which
+    //share them
+    private static void factorOut(EGraph graph, int id, EGraph.Node node) {
+        int count = node.children.length;
+        Factors[] factors = new Factors[count];
+        LinkedHashMap<Integer, Integer> occurrences = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            factors[i] = Factors.of(graph, node.children[i]);
+            for (Map.Entry<Integer, Double> power : factors[i].powers
+                    .entrySet())
+                if (power.getValue() > 0)
+                    occurrences.merge(power.getKey(), 1, Integer::sum);
+        }
+
+        int tried = 0;
+        for (Map.Entry<Integer, Integer> candidate : occurrences.entrySet()) {
+            if (tried == MAX_FACTOR_CANDIDATES) return;
+            if (candidate.getValue() < 2) continue;
+            tried++;
+            int base = candidate.getKey();
+            //The lowest power of the factor shared by the terms, eg. <x^2> in
+            //<x^3+x^2>
+            double power = Double.POSITIVE_INFINITY;
+            for (Factors term : factors) {
+                Double termPower = term.powers.get(base);
+                if (termPower != null && termPower > 0)
+                    power = Math.min(power, termPower);
+            }
+            ArrayList<Integer> quotients = new ArrayList<>();
+            ArrayList<Integer> others = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                Double termPower = factors[i].powers.get(base);
+                if (termPower != null && termPower > 0) {
+                    Factors quotient = factors[i].copy();
+                    quotient.powers.put(base, termPower - power);
+                    quotients.add(quotient.add(graph));
+                } else others.add(node.children[i]);
+            }
+            others.add(graph.add(EGraph.MUL, power(graph, base, power),
+                    graph.add(EGraph.ADD, toArray(quotients))));
+            merge(graph, id, graph.add(EGraph.ADD, toArray(others)));
+        }
+    }
+
+    //Function: Merge Powers
+    //@param node           a product
+    //@return               the class of the product with its numbers
+    //                      multiplied together and its powers of the same base
+    //                      merged, or -1 if there is nothing to merge
+    private static int mergePowers(EGraph graph, EGraph.Node node) {
+        Factors factors = new Factors();
+        int constants = 0;
+        for (int child : node.children) {
+            if (graph.isConstant(child)) constants++;
+            factors.multiply(graph, child);
+        }
+        if (factors.coeff != 0 && factors.powers.size() + constants ==
+                node.children.length && (constants == 0 || constants == 1 &&
+                factors.coeff != 1))
+            return -1;
+        return factors.add(graph);
+    }
+
+    //Function: Combine Quotients
+    //@param id             the class of the node
+    //       node           a product
+    //@return               the class of the product written as a single
+    //                      quotient, eg. <(x+1)((x-1)/(x+1))> becomes
+    //                      <((x+1)(x-1))/(x+1)>, which can then be cancelled.
+    //                      -1 if the product has no quotient
+    private static int combineQuotients(EGraph graph, int id, EGraph.Node
+            node) {
+        for (int i = 0; i < node.children.length; i++) {
+            if (graph.find(node.children[i]) == graph.find(id)) continue;
+            EGraph.Node quotient = graph.findNode(node.children[i],
+                    EGraph.DIV);
+            if (quotient == null) continue;
+            int[] factors = node.children.clone();
+            factors[i] = quotient.children[0];
+            return graph.add(EGraph.DIV, graph.add(EGraph.MUL, factors),
+                    quotient.children[1]);
+        }
+        return -1;
+    }
+
+    //Function: Distribute
+    //@param id             the class of the node
+    //       node           a product
+    //@return               the class of the product multiplied into each term
+    //                      of one of its sums, eg. <2x(x+1)> becomes
+    //                      <2x^2+2x>, or -1 if the product has no sum
+    private static int distribute(EGraph graph, int id, EGraph.Node node) {
+        for (int i = 0; i < node.children.length; i++) {
+            if (graph.find(node.children[i]) == graph.find(id)) continue;
+            EGraph.Node sum = graph.findNode(node.children[i], EGraph.ADD);
+            if (sum == null || sum.children.length > MAX_DISTRIBUTED_TERMS)
+                continue;
+            int[] terms = new int[sum.children.length];
+            for (int j = 0; j < terms.length; j++) {
+                int[] factors = node.children.clone();
+                factors[i] = sum.children[j];
+                terms[j] = graph.add(EGraph.MUL, factors);
+            }
+            return graph.add(EGraph.ADD, terms);
+        }
+        return -1;
+    }
+
+    //Function: Cancel
+    //@param node           a quotient
+    //@return               the class of the quotient with the factors shared
+    //                      by the numerator and denominator cancelled, or -1
+    //                      if nothing can be cancelled
+    private static int cancel(EGraph graph, EGraph.Node node) {
+        int numerator = graph.find(node.children[0]);
+        int denominator = graph.find(node.children[1]);
+        if (graph.isConstant(denominator)) {
+            double divisor = graph.constant(denominator);
+            return divisor == 0 ? -1 : scale(graph, 1 / divisor, numerator);
+        }
+        if (numerator == denominator) return graph.addConstant(1);
+        if (graph.isConstant(numerator) && graph.constant(numerator) == 0)
+            return graph.addConstant(0);
+
+        Factors top = Factors.of(graph, numerator);
+        Factors bottom = Factors.of(graph, denominator);
+        boolean changed = bottom.coeff != 1 && bottom.coeff != 0;
+        if (changed) {
+            top.coeff /= bottom.coeff;
+            bottom.coeff = 1;
+        }
+        for (Map.Entry<Integer, Double> power : bottom.powers.entrySet()) {
+            Double topPower = top.powers.get(power.getKey());
+            if (topPower == null || topPower <= 0 || power.getValue() <= 0)
+                continue;
+            double cancelled = Math.min(topPower, power.getValue());
+            top.powers.put(power.getKey(), topPower - cancelled);
+            power.setValue(power.getValue() - cancelled);
+            changed = true;
+        }
+        if (!changed) return -1;
+        int newDenominator = bottom.add(graph);
+        if (graph.isConstant(newDenominator) && graph.constant(
+                newDenominator) == 1)
+            return top.add(graph);
+        return graph.add(EGraph.DIV, top.add(graph), newDenominator);
+    }
+
+    //Function: Simplify Power
+    //@param node           a power
+    //@return               the class of the power with exponents of 0 and 1
+    //                      removed and powers of powers merged, or -1 if
+    //                      there is nothing to simplify
+    private static int simplifyPower(EGraph graph, EGraph.Node node) {
+        int base = node.children[0], exponent = node.children[1];
+        if (!graph.isConstant(exponent)) return -1;
+        double power = graph.constant(exponent);
+        if (power == 0) return graph.addConstant(1);
+        if (power == 1) return graph.find(base);
+        //Only whole number powers are merged, since <(x^2)^0.5> is <|x|> and
+        //<(x^0.5)^2> is not defined for negative x
+        EGraph.Node inner = graph.findNode(base, EGraph.POW);
+        if (inner == null || power != (int)power || !graph.isConstant(inner
+                .children[1]))
+            return -1;
+        double innerPower = graph.constant(inner.children[1]);
+        if (innerPower != (int)innerPower) return -1;
+        return power(graph, inner.children[0], power * innerPower);
+    }
+
+    //Function: Scale
+    //@return               the class of <coeff> multiplied by class <id>
+    private static int scale(EGraph graph, double coeff, int id) {
+        if (coeff == 1) return graph.find(id);
+        if (coeff == 0) return graph.addConstant(0);
+        return graph.add(EGraph.MUL, graph.addConstant(coeff), id);
+    }
+
+    //Function: Power
+    //@return               the class of class <base> raised to <power>
+    private static int power(EGraph graph, int base, double power) {
+        if (power == 1) return graph.find(base);
+        if (power == 0) return graph.addConstant(1);
+        return graph.add(EGraph.POW, base, graph.addConstant(power));
+    }
+
+    private static int[] toArray(ArrayList<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) array[i] = list.get(i);
+        return array;
+    }
+
+    //A product split into a number and powers of bases, eg. <3x^2(x+1)> is
+    //3 times x to the power of 2 times <x+1> to the power of 1. Only whole
+    //number powers are split off their base, so that merging powers never
+    //changes where a function is defined
+    private static class Factors {
+
+        private double coeff = 1;
+        private final LinkedHashMap<Integer, Double> powers =
+                new LinkedHashMap<>();
+
+        //Function: Of
+        //@param id             a class
+        //@return               the factors of the first product in the class,
+        //                      or the class itself if it has no product
+        static Factors of(EGraph graph, int id) {
+            Factors factors = new Factors();
+            EGraph.Node product = graph.findNode(id, EGraph.MUL);
+            if (product == null) factors.multiply(graph, id);
+            else for (int factor : product.children)
+                factors.multiply(graph, factor);
+            return factors;
+        }
+
+        //Function: Multiply
+        //@param id             a class to be multiplied into the factors
+        void multiply(EGraph graph, int id) {
+            id = graph.find(id);
+            if (graph.isConstant(id)) {
+                coeff *= graph.constant(id);
+                return;
+            }
+            for (EGraph.Node power : graph.nodes(id)) {
+                if (power.op != EGraph.POW || !graph.isConstant(power
+                        .children[1]))
+                    continue;
+                double exponent = graph.constant(power.children[1]);
+                if (exponent != (int)exponent) continue;
+                powers.merge(graph.find(power.children[0]), exponent,
+                        Double::sum);
+                return;
+            }
+            powers.merge(id, 1.0, Double::sum);
+        }
+
+        Factors copy() {
+            Factors copy = new Factors();
+            copy.coeff = coeff;
+            copy.powers.putAll(powers);
+            return copy;
+        }
+
+        //Function: Add
+        //@return               the class of the product of the factors
+        int add(EGraph graph) {
+            if (coeff == 0) return graph.addConstant(0);
+            ArrayList<Integer> children = new ArrayList<>();
+            if (coeff != 1) children.add(graph.addConstant(coeff));
+            for (Map.Entry<Integer, Double> power : powers.entrySet())
+                if (power.getValue() != 0)
+                    children.add(power(graph, power.getKey(), power
+                            .getValue()));
+            return graph.add(EGraph.MUL, toArray(children));
+        }
+    }
+}
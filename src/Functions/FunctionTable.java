@@ -0,0 +1,58 @@
+//---------------------------FUNCTION TABLE CLASS-----------------------------//
+//@author TitanJack
+//@project MathTools
+//The functions the user has defined by name, such as <f> in <f(x)=x^2+1>,
+//each with the body it was defined as. Like the VariableTable, names are
+//only looked up while parsing: a call to a defined function is parsed into a
+//UserFunction holding the body itself.
+
+package Functions;
+
+import java.util.HashMap;
+
+@SuppressWarnings("WeakerAccess")
+public final class FunctionTable {
+
+    private final HashMap<String, Function> bodies;
+
+    public FunctionTable() {
+        bodies = new HashMap<>();
+    }
+
+    //Function: Get
+    //@param name           the name of a function
+    //@return               the body of the function, or null if there is no
+    //                      function with that name
+    public synchronized Function get(String name) {
+        return bodies.get(name);
+    }
+
+    //Function: Define
+    //@param name           the name of the function
+    //       body           the body of the function, a function of x
+    //Defines the function, replacing any earlier definition with that name
+    public synchronized void define(String name, Function body) {
+        if (!isValidName(name))
+            throw new IllegalArgumentException("Invalid function name: " +
+                    name);
+        bodies.put(name, body);
+    }
+
+    //Function: Remove
+    //@param name           the name of a function
+    //Removes the definition of the function, if there is one
+    public synchronized void remove(String name) {
+        bodies.remove(name);
+    }
+
+    //Function: Is Valid Name
+    //@param name           a possible name of a function
+    //@return               whether the name is only made of letters, is not
+    //                      the name of a built in function or constant and
+    //                      does not hold an x. An x inside of a name would be
+    //                      read as a product, eg. <ax(...)> as <a*x*(...)>
+    public static boolean isValidName(String name) {
+        return VariableTable.isValidName(name) && name.indexOf('x') < 0 &&
+                !name.equals("y") && !name.equals("t");
+    }
+}
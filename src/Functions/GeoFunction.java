@@ -9,13 +9,14 @@ package Functions;
 import NumberFormats.Numbers;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class GeoFunction extends Function{
 
-    private Function[] geoArr;
-    private double coeff;
+    private final Function[] geoArr;
+    private final double coeff;
 
     @SuppressWarnings("WeakerAccess")
     public GeoFunction(Function[] geoArr) {
@@ -26,27 +27,18 @@ public class GeoFunction extends Function{
     public GeoFunction(Function[] geoArr, double coeff) {
         //To push all functions in geoArr into a hash map so that duplicate
         //functions can get stacked. Individual numbers being multiplied are
-        //recorded separately using variable numMultiply.
-        int numMultiply = 1;
-        HashMap<Function, Integer> subFuncs = new HashMap<>();
+        //recorded separately using variable numMultiply. Functions are matched
+        //by their structural equals and hashCode, and the factors keep the
+        //order they were given in.
+        double numMultiply = 1;
+        LinkedHashMap<Function, Integer> subFuncs = new LinkedHashMap<>();
         for (int i = 0; i < geoArr.length && numMultiply != 0; i++) {
             if (geoArr[i] instanceof Constant) {
                 if (geoArr[i].compute(0) == 0)
                     numMultiply = 0;
                 if (numMultiply != 0 && geoArr[i].compute(0) != 1)
                     numMultiply *= geoArr[i].compute(0);
-            } else {
-                boolean isMatched = false;
-                for (Map.Entry subFunc : subFuncs.entrySet()) {
-                    if (!isMatched && subFunc.getKey().toString().equals
-                            (geoArr[i].toString())) {
-                        subFuncs.put((Function)subFunc.getKey(),
-                                (int)subFunc.getValue() + 1);
-                        isMatched = true;
-                    }
-                }
-                if (!isMatched) subFuncs.put(geoArr[i], 1);
-            }
+            } else subFuncs.merge(geoArr[i], 1, Integer::sum);
         }
         //Zero multiplied by anything is zero
         if (numMultiply == 0)
@@ -58,18 +50,25 @@ public class GeoFunction extends Function{
                     subFuncs.size() + 1];
             if (numMultiply != 1) this.geoArr[0] = new Constant(numMultiply);
             int count = numMultiply != 1 ? 1 : 0;
-            for (Map.Entry subFunc : subFuncs.entrySet()) {
-                if ((int)subFunc.getValue() == 1)
-                    this.geoArr[count] = (Function)subFunc.getKey();
+            for (Map.Entry<Function, Integer> subFunc : subFuncs.entrySet()) {
+                if (subFunc.getValue() == 1)
+                    this.geoArr[count] = subFunc.getKey();
                 //The expression <x*x> is converted into <x^2>
-                else this.geoArr[count] = new Exponential((Function)subFunc.
-                        getKey(), (int)subFunc.getValue());
+                else this.geoArr[count] = new Exponential(subFunc.getKey(),
+                        subFunc.getValue());
                 count++;
             }
         }
         this.coeff = coeff;
     }
 
+    //A copy of <product> with a different coefficient, which keeps the
+    //factors as they are instead of combining them again
+    private GeoFunction(GeoFunction product, double coeff) {
+        geoArr = product.geoArr;
+        this.coeff = coeff;
+    }
+
     public GeoFunction(Function coeffNum,  Function func, double coeff) {
         this(new Function[]{coeffNum, func}, coeff);
     }
@@ -83,33 +82,165 @@ public class GeoFunction extends Function{
     }
 
     public double compute(double x) {
-        double result = geoArr[0].compute(x);
-        for (int i = 1; i < geoArr.length; i++)
-            result *= geoArr[i].compute(x);
+        //The product of no factors, such as <1*1>, is 1
+        double result = 1;
+        for (Function function : geoArr) result *= function.compute(x);
         return coeff * result;
     }
 
-    public Function differentiate() {
-        //Using power rule.
+    public DoubleDouble compute(DoubleDouble x) {
+        DoubleDouble result = DoubleDouble.ONE;
+        for (Function function : geoArr)
+            result = result.multiply(function.compute(x));
+        return result.multiply(coeff);
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    public double compute(double[] env) {
+        double result = 1;
+        for (Function function : geoArr) result *= function.compute(env);
+        return coeff * result;
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        if (geoArr.length == 0) {
+            Arrays.fill(out, 0, n, coeff);
+            return;
+        }
+        computeSubFunction(geoArr[0], xs, env, out, n);
+        if (geoArr.length > 1) {
+            //Each remaining factor is computed into a scratch array and then
+            //multiplied onto the running product
+            BatchScratch scratch = BatchScratch.get();
+            double[] factor = scratch.acquire(n);
+            try {
+                for (int j = 1; j < geoArr.length; j++) {
+                    computeSubFunction(geoArr[j], xs, env, factor, n);
+                    for (int i = 0; i < n; i++) out[i] *= factor[i];
+                }
+            } finally {
+                scratch.release();
+            }
+        }
+        if (coeff != 1)
+            for (int i = 0; i < n; i++) out[i] *= coeff;
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        if (geoArr.length == 0) {
+            Arrays.fill(outRe, 0, n, coeff);
+            Arrays.fill(outIm, 0, n, 0);
+            return;
+        }
+        geoArr[0].computeComplex(re, im, outRe, outIm, n);
+        BatchScratch scratch = BatchScratch.get();
+        double[] factorRe = scratch.acquire(n);
+        double[] factorIm = scratch.acquire(n);
+        try {
+            for (int j = 1; j < geoArr.length; j++) {
+                geoArr[j].computeComplex(re, im, factorRe, factorIm, n);
+                Complex.multiply(outRe, outIm, factorRe, factorIm, n);
+            }
+        } finally {
+            scratch.release();
+            scratch.release();
+        }
+        Complex.scale(outRe, outIm, coeff, n);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        Taylor.constant(coeff, out, order);
+        BatchScratch scratch = BatchScratch.get();
+        double[][] temp = scratch.acquireColumns(2, order + 1);
+        try {
+            double[] factor = temp[0], product = temp[1];
+            for (Function function : geoArr) {
+                function.computeTaylor(x, factor, order);
+                Taylor.multiply(out, factor, product, order);
+                System.arraycopy(product, 0, out, 0, order + 1);
+            }
+        } finally {
+            scratch.releaseColumns(2);
+        }
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        Interval result = Interval.of(coeff, coeff);
+        for (Function function : geoArr)
+            result = Interval.multiply(result, function.computeInterval(lo,
+                    hi));
+        return result;
+    }
+
+    protected Function derive() {
+        //Using product rule.
         //d/dx(f(x)g(x))=f'(x)g(x)+f(x)g'(x)
+        //Terms where the derivative of the factor is 0 are left out
         Function[] diffSumArr = new Function[geoArr.length];
         for (int i = 0; i < geoArr.length; i++) {
+            Function diffFactor = geoArr[i].differentiate();
+            if (isZero(diffFactor)) {
+                diffSumArr[i] = diffFactor;
+                continue;
+            }
             Function[] diffSubGeoArr = new Function[geoArr.length];
             for (int j = 0; j < geoArr.length; j++)
                 if (j != i)  diffSubGeoArr[j] = geoArr[j];
-                else diffSubGeoArr[j] = geoArr[j].differentiate();
-            diffSumArr[i] = new GeoFunction(diffSubGeoArr);
+                else diffSubGeoArr[j] = diffFactor;
+            diffSumArr[i] = product(coeff, diffSubGeoArr);
         }
-        return new SumFunction(diffSumArr, coeff);
+        return sum(diffSumArr);
+    }
+
+    Function[] getFactors() {
+        return geoArr;
     }
 
     public double getCoeff() {
         return coeff;
     }
 
-    public Function setCoeff(double c) {
-        coeff = c;
-        return this;
+    public Function withCoeff(double c) {
+        return new GeoFunction(this, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof GeoFunction) || obj.hashCode() != hashCode())
+            return false;
+        GeoFunction other = (GeoFunction)obj;
+        return Double.compare(coeff, other.coeff) == 0 && sameSubFunctions(
+                geoArr, other.geoArr);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 17;
+        h = 31 * h + Double.hashCode(coeff);
+        return 31 * h + subFunctionsHash(geoArr);
+    }
+
+    Function[] getSubFunctions() {
+        return geoArr.clone();
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new GeoFunction(subFuncs, coeff);
     }
 
     public String toString() {
@@ -0,0 +1,261 @@
+//-------------------------INCREMENTAL EVALUATOR CLASS------------------------//
+//@author TitanJack
+//@project MathTools
+//Computes a function of x and parameters over the same x values again and
+//again, such as while the user drags the slider of a parameter, and only
+//recomputes the parts of the function which depend on what changed.
+//
+//The tree is split into its nodes, and every node keeps the column of values
+//it computed last time along with the variables it depends on. Each node is
+//computed on its own, with its sub functions replaced by leaves which read
+//their columns. When only a parameter changed, every node which does not
+//use it, such as sin(x) in <a*sin(x)+x^2>, keeps its column and only the
+//nodes above the parameter are computed. A change of the x values
+//recomputes every node which depends on x.
+//
+//Nodes whose sub functions cannot be computed on their own, such as the
+//term of a sum which depends on the index of the sum, are computed whole.
+
+package Functions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+
+@SuppressWarnings("WeakerAccess")
+public final class IncrementalEvaluator {
+
+    private final Node[] nodes;
+    //The number of variable slots which the nodes use
+    private final int slots;
+
+    //The x values, parameters and length of the last compute, and the
+    //columns of the environment they were written into
+    private double[] lastXs;
+    private double[] lastEnv;
+    private int lastN;
+    private double[][] columns;
+
+    public IncrementalEvaluator(Function function) {
+        ArrayList<Node> order = new ArrayList<>();
+        add(function, new IdentityHashMap<>(), order);
+        nodes = order.toArray(new Node[0]);
+        int maxSlot = VariableTable.X;
+        for (Node node : nodes)
+            maxSlot = Math.max(maxSlot, node.dependencies.length() - 1);
+        slots = maxSlot + 1;
+        lastXs = new double[0];
+        lastEnv = new double[0];
+        lastN = -1;
+        columns = new double[slots][0];
+    }
+
+    //Function: Compute
+    //@param xs             the x values to be computed
+    //       env            the value of every parameter, indexed by its slot
+    //                      as in Function.compute(double[] env). The x slot
+    //                      is ignored
+    //       out            the array which the results are written into,
+    //                      must not be the same array as <xs>
+    //       n              the number of values to be computed
+    public void compute(double[] xs, double[] env, double[] out, int n) {
+        BitSet changed = findChanges(xs, env, n);
+        if (columns[VariableTable.X].length < n)
+            for (int s = 0; s < slots; s++) columns[s] = new double[n];
+        System.arraycopy(xs, 0, columns[VariableTable.X], 0, n);
+        for (int s = changed.nextSetBit(1); s >= 0; s = changed.nextSetBit(
+                s + 1))
+            Arrays.fill(columns[s], 0, n, s < env.length ? env[s] :
+                    Double.NaN);
+        //The nodes are in an order where every node comes after its sub
+        //functions, so a changed sub function has always been recomputed
+        for (Node node : nodes) {
+            if (node.valid && !node.dependencies.intersects(changed))
+                continue;
+            node.valid = false;
+            if (node.values.length < n) node.values = new double[n];
+            Function.computeSubFunction(node.compute, null, columns,
+                    node.values, n);
+            node.valid = true;
+        }
+        System.arraycopy(nodes[nodes.length - 1].values, 0, out, 0, n);
+        //Only recorded once every node is up to date, so that a compute
+        //which was cancelled partway is redone in full
+        if (lastXs.length < n) lastXs = new double[n];
+        System.arraycopy(xs, 0, lastXs, 0, n);
+        lastEnv = Arrays.copyOf(env, Math.max(env.length, slots));
+        lastN = n;
+    }
+
+    //Function: Find Changes
+    //@param xs             the x values to be computed
+    //       env            the value of every parameter
+    //       n              the number of values to be computed
+    //@return               the slots whose values differ from the last
+    //                      compute. Every slot counts as changed when the
+    //                      number of values differs, since the columns of
+    //                      nodes which do not depend on x would be too short
+    private BitSet findChanges(double[] xs, double[] env, int n) {
+        BitSet changed = new BitSet(slots);
+        if (n != lastN) {
+            changed.set(0, slots);
+            return changed;
+        }
+        for (int i = 0; i < n; i++) {
+            if (Double.doubleToLongBits(xs[i]) != Double.doubleToLongBits(
+                    lastXs[i])) {
+                changed.set(VariableTable.X);
+                break;
+            }
+        }
+        for (int s = VariableTable.X + 1; s < slots; s++) {
+            double value = s < env.length ? env[s] : Double.NaN;
+            double last = s < lastEnv.length ? lastEnv[s] : Double.NaN;
+            if (Double.doubleToLongBits(value) != Double.doubleToLongBits(
+                    last))
+                changed.set(s);
+        }
+        return changed;
+    }
+
+    //Function: Add
+    //@param function       a function
+    //       added          the node of every function which was already
+    //                      added, so that a shared sub function becomes a
+    //                      single node
+    //       order          the list the nodes are added to, each one after
+    //                      its sub functions
+    //@return               the node of the function
+    private static Node add(Function function, IdentityHashMap<Function, Node>
+            added, ArrayList<Node> order) {
+        Node node = added.get(function);
+        if (node != null) return node;
+        BitSet dependencies = new BitSet();
+        Function compute = function;
+        Function[] subFuncs = function.getSubFunctions();
+        if (subFuncs.length > 0 && isSplittable(function)) {
+            boolean replaced = false;
+            for (int i = 0; i < subFuncs.length; i++) {
+                //Numbers are left in place, since some nodes are computed
+                //more simply when they can see that a sub function is a
+                //number, eg. a whole power
+                if (subFuncs[i] instanceof Constant || subFuncs[i] instanceof
+                        MathConstant)
+                    continue;
+                Node subNode = add(subFuncs[i], added, order);
+                dependencies.or(subNode.dependencies);
+                subFuncs[i] = new Column(subNode);
+                replaced = true;
+            }
+            if (replaced) compute = function.withSubFunctions(subFuncs);
+            if (function instanceof UserFunction)
+                collectDependencies(((UserFunction)function).getBody(),
+                        dependencies, new IdentityHashMap<>());
+        } else
+            collectDependencies(function, dependencies, new
+                    IdentityHashMap<>());
+        node = new Node(compute, dependencies);
+        added.put(function, node);
+        order.add(node);
+        return node;
+    }
+
+    //Function: Is Splittable
+    //@param function       a function
+    //@return               whether the function can be computed from the
+    //                      values of its sub functions. The term of a sum,
+    //                      product or derivative of a product is computed
+    //                      once for every index, and the function inside of
+    //                      a tiered function is not one of its sub functions
+    private static boolean isSplittable(Function function) {
+        return !(function instanceof SeriesFunction || function instanceof
+                ProductDerivative || function instanceof TieredFunction);
+    }
+
+    //Function: Collect Dependencies
+    //@param function       a function
+    //       dependencies   the slots of the variables the function uses are
+    //                      added to this
+    //       visited        the functions which were already collected
+    private static void collectDependencies(Function function, BitSet
+            dependencies, IdentityHashMap<Function, Boolean> visited) {
+        if (visited.put(function, Boolean.TRUE) != null) return;
+        Function[] subFuncs = function.getSubFunctions();
+        if (function instanceof Variable)
+            dependencies.set(((Variable)function).getSlot());
+        else if (function instanceof TieredFunction)
+            collectDependencies(((TieredFunction)function).getFunction(),
+                    dependencies, visited);
+        else if (function instanceof UserFunction)
+            collectDependencies(((UserFunction)function).getBody(),
+                    dependencies, visited);
+        else if (subFuncs.length == 0 && !(function instanceof Constant ||
+                function instanceof MathConstant))
+            //Other types without sub functions, such as polynomials, are
+            //functions of x
+            dependencies.set(VariableTable.X);
+        for (Function subFunc : subFuncs)
+            collectDependencies(subFunc, dependencies, visited);
+    }
+
+    //A node of the function, with the values it computed last
+    private static final class Node {
+
+        //The node itself, with its sub functions replaced by columns
+        private final Function compute;
+        private final BitSet dependencies;
+        private double[] values;
+        private boolean valid;
+
+        Node(Function compute, BitSet dependencies) {
+            this.compute = compute;
+            this.dependencies = dependencies;
+            values = new double[0];
+            valid = false;
+        }
+    }
+
+    //A leaf which stands in for a sub function, and gives the values its
+    //node computed last. Only the batch computes are used
+    private static final class Column extends Function {
+
+        private final Node node;
+
+        Column(Node node) {
+            this.node = node;
+        }
+
+        public double compute(double x) {
+            return Double.NaN;
+        }
+
+        public void compute(double[] xs, double[] out, int n) {
+            System.arraycopy(node.values, 0, out, 0, n);
+        }
+
+        public void compute(double[][] env, double[] out, int n) {
+            System.arraycopy(node.values, 0, out, 0, n);
+        }
+
+        public Interval computeInterval(double lo, double hi) {
+            return Interval.unknown();
+        }
+
+        protected Function derive() {
+            return new Constant(Double.NaN);
+        }
+
+        public double getCoeff() {
+            return 1;
+        }
+
+        public Function withCoeff(double c) {
+            return product(c, this);
+        }
+
+        public String toString() {
+            return "column";
+        }
+    }
+}
@@ -0,0 +1,553 @@
+//-----------------------------INTERVAL CLASS---------------------------------//
+//@author TitanJack
+//@project MathTools
+//A range of values [lo, hi] which is guaranteed to hold every value a
+//function takes over a range of x. Intervals are combined with the same
+//operations as the function tree, eg. the interval of <f+g> is the sum of the
+//intervals of f and g, and every result is rounded outwards so that rounding
+//errors can never make the bounds too tight. Besides the bounds, an interval
+//records two things about the function over the range:
+//  continuous      false if the function may have a pole or a jump, such as
+//                  tan(x) around pi/2 or 1/(x-1) around 1
+//  defined         false if the function may be undefined somewhere, such as
+//                  log(x) for x<=0
+//Both are conservative: a true value is guaranteed, a false value only means
+//that the bounds could not rule the problem out. An interval where the
+//function is undefined everywhere is empty.
+
+package Functions;
+
+@SuppressWarnings("WeakerAccess")
+public final class Interval {
+
+    //The interval of a function which is undefined over the whole range
+    public static final Interval EMPTY = new Interval(Double.NaN, Double.NaN,
+            false, false);
+
+    //How many units in the last place the results of Math functions are
+    //widened by. Math functions are accurate to between one and two and a
+    //half units, the formulas used by Trigonometric add a few more
+    private static final int FUNCTION_ULPS = 8;
+    //How far the results of the special functions are widened by, relative
+    //to the result, or to the larger of 1 and the result for the functions
+    //whose kernels have an absolute error bound, see SpecialFunction
+    private static final double SPECIAL_ERROR = 1e-13;
+    //The lowest values of J0 and J1, and the highest value of J1, rounded
+    //outwards
+    private static final double J0_MIN = -0.4028;
+    private static final double J1_MAX = 0.5819;
+
+    private final double lo;
+    private final double hi;
+    private final boolean continuous;
+    private final boolean defined;
+
+    private Interval(double lo, double hi, boolean continuous,
+                     boolean defined) {
+        this.lo = lo;
+        this.hi = hi;
+        this.continuous = continuous;
+        this.defined = defined;
+    }
+
+    //Function: Of
+    //@param lo             the lowest value
+    //       hi             the highest value
+    //@return               the exact interval [lo, hi]
+    public static Interval of(double lo, double hi) {
+        return new Interval(Math.min(lo, hi), Math.max(lo, hi), true, true);
+    }
+
+    //Function: Get Lo
+    //@return               the lower bound
+    public double getLo() {
+        return lo;
+    }
+
+    //Function: Get Hi
+    //@return               the upper bound
+    public double getHi() {
+        return hi;
+    }
+
+    //Function: Is Empty
+    //@return               whether the function is undefined over the whole
+    //                      range
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    //Function: Is Continuous
+    //@return               whether the function is guaranteed to have no
+    //                      pole or jump over the range
+    public boolean isContinuous() {
+        return continuous;
+    }
+
+    //Function: Is Defined
+    //@return               whether the function is guaranteed to be defined
+    //                      over the whole range
+    public boolean isDefined() {
+        return defined;
+    }
+
+    public String toString() {
+        if (isEmpty()) return "[]";
+        return "[" + lo + ", " + hi + "]" + (continuous ? "" : " pole") +
+                (defined ? "" : " gap");
+    }
+
+    //------------------------------ARITHMETIC--------------------------------//
+    //FUNCTION LIST:
+    //static Interval add(Interval a, Interval b)
+    //static Interval multiply(Interval a, Interval b)
+    //static Interval scale(Interval a, double c)
+    //static Interval divide(Interval a, Interval b)
+    //static Interval power(Interval a, double p)
+    //static Interval pow(Interval a, Interval b)
+    //static Interval exp(Interval a)
+    //static Interval log(Interval a)
+    //static Interval multiplyCopies(Interval a, int count)
+    //static Interval unknown()
+    //static Interval compose(Interval inner, Interval outer)
+
+    //Function: Add
+    //@return               the interval of <a> + <b>
+    static Interval add(Interval a, Interval b) {
+        if (a.isEmpty() || b.isEmpty()) return EMPTY;
+        return round(a.lo + b.lo, a.hi + b.hi, 1, a, b);
+    }
+
+    //Function: Multiply
+    //@return               the interval of <a> * <b>
+    static Interval multiply(Interval a, Interval b) {
+        if (a.isEmpty() || b.isEmpty()) return EMPTY;
+        double p1 = product(a.lo, b.lo), p2 = product(a.lo, b.hi);
+        double p3 = product(a.hi, b.lo), p4 = product(a.hi, b.hi);
+        return round(Math.min(Math.min(p1, p2), Math.min(p3, p4)), Math.max(
+                Math.max(p1, p2), Math.max(p3, p4)), 1, a, b);
+    }
+
+    //Function: Scale
+    //@return               the interval of <c> * <a>
+    static Interval scale(Interval a, double c) {
+        if (c == 1 || a.isEmpty()) return a;
+        return multiply(a, of(c, c));
+    }
+
+    //Function: Divide
+    //@return               the interval of <a> / <b>. When <b> holds 0 the
+    //                      bounds become infinite on the side of the pole
+    static Interval divide(Interval a, Interval b) {
+        if (a.isEmpty() || b.isEmpty()) return EMPTY;
+        if (b.lo > 0 || b.hi < 0)
+            return multiply(a, round(1 / b.hi, 1 / b.lo, 1, b, b));
+        //Division by an interval holding 0
+        if (b.lo == 0 && b.hi == 0) return EMPTY;
+        Interval gap = new Interval(a.lo, a.hi, a.continuous, false);
+        if (a.lo == 0 && a.hi == 0) return gap;
+        Interval reciprocal;
+        if (b.lo == 0)
+            reciprocal = new Interval(Math.nextDown(1 / b.hi), Double
+                    .POSITIVE_INFINITY, b.continuous, b.defined);
+        else if (b.hi == 0)
+            reciprocal = new Interval(Double.NEGATIVE_INFINITY, Math.nextUp(
+                    1 / b.lo), b.continuous, b.defined);
+        else
+            reciprocal = new Interval(Double.NEGATIVE_INFINITY, Double
+                    .POSITIVE_INFINITY, false, b.defined);
+        return multiply(gap, reciprocal);
+    }
+
+    //Function: Power
+    //@return               the interval of <a> ^ <p> for a constant power <p>
+    static Interval power(Interval a, double p) {
+        if (a.isEmpty()) return EMPTY;
+        if (p == 0) return round(1, 1, 0, a, a);
+        if (p == (long)p) {
+            //Negative bases are fine for whole number powers
+            if (p < 0) return divide(round(1, 1, 0, a, a), power(a, -p));
+            double l = Math.pow(a.lo, p), h = Math.pow(a.hi, p);
+            if (p % 2 != 0) return round(l, h, FUNCTION_ULPS, a, a);
+            if (a.lo <= 0 && a.hi >= 0)
+                return round(0, Math.max(l, h), FUNCTION_ULPS, a, a);
+            return round(Math.min(l, h), Math.max(l, h), FUNCTION_ULPS, a, a);
+        }
+        //Other powers are only defined for bases of at least 0
+        a = restrict(a, 0, Double.POSITIVE_INFINITY);
+        if (a.isEmpty()) return EMPTY;
+        double l = Math.pow(a.lo, p), h = Math.pow(a.hi, p);
+        return round(Math.min(l, h), Math.max(l, h), FUNCTION_ULPS, a, a);
+    }
+
+    //Function: Pow
+    //@return               the interval of <a> ^ <b>
+    static Interval pow(Interval a, Interval b) {
+        if (a.isEmpty() || b.isEmpty()) return EMPTY;
+        if (a.lo < 0) {
+            //A negative base only has a value where the exponent is a whole
+            //number, so nothing tighter than all numbers can be given
+            return new Interval(Double.NEGATIVE_INFINITY, Double
+                    .POSITIVE_INFINITY, false, false);
+        }
+        //a^b=e^(b*ln(a)), where 0*ln(0) counts as 0 so that 0^0=1
+        return exp(multiply(b, log(a)));
+    }
+
+    //Function: Exp
+    //@return               the interval of e ^ <a>
+    static Interval exp(Interval a) {
+        if (a.isEmpty()) return EMPTY;
+        return round(Math.exp(a.lo), Math.exp(a.hi), FUNCTION_ULPS, a, a);
+    }
+
+    //Function: Log
+    //@return               the interval of ln(<a>)
+    static Interval log(Interval a) {
+        a = restrict(a, 0, Double.POSITIVE_INFINITY);
+        if (a.isEmpty() || a.hi == 0) return EMPTY;
+        Interval log = round(Math.log(a.lo), Math.log(a.hi), FUNCTION_ULPS,
+                a, a);
+        if (a.lo > 0) return log;
+        //The log of 0 is not a number
+        return new Interval(log.lo, log.hi, log.continuous, false);
+    }
+
+    //Function: Multiply Copies
+    //@return               the interval of a product of <count> factors which
+    //                      each lie in <a>. Unlike power(a, count), the
+    //                      factors are not taken to be equal, eg. two copies
+    //                      of [-1, 2] give [-2, 4] rather than [0, 4]
+    static Interval multiplyCopies(Interval a, int count) {
+        Interval result = of(1, 1);
+        //Repeated squaring, which gives the same bounds as multiplying one
+        //copy at a time since every copy is independent
+        for (Interval power = a; count > 0; count >>= 1) {
+            if ((count & 1) != 0) result = multiply(result, power);
+            if (count > 1) power = multiply(power, power);
+        }
+        return result;
+    }
+
+    //Function: Unknown
+    //@return               the interval of a function about which nothing is
+    //                      known over the range, which may have any value,
+    //                      jump or be undefined
+    public static Interval unknown() {
+        return new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                false, false);
+    }
+
+    //Function: Compose
+    //@param inner          the interval of an inner function g
+    //       outer          the interval of an outer function f over the
+    //                      range of <inner>
+    //@return               the interval of f(g(x)), which only has no pole
+    //                      or gap where neither function has one
+    static Interval compose(Interval inner, Interval outer) {
+        if (inner.isEmpty() || outer.isEmpty()) return EMPTY;
+        return new Interval(outer.lo, outer.hi, inner.continuous &&
+                outer.continuous, inner.defined && outer.defined);
+    }
+
+    //----------------------------TRIGONOMETRY--------------------------------//
+    //FUNCTION LIST:
+    //static Interval trig(TrigType type, Interval a)
+    //private static Interval sin(Interval a, double max)
+    //private static Interval tan(TrigType type, Interval a, double pole)
+    //private static Interval increasing(TrigType type, Interval a)
+    //private static Interval decreasing(TrigType type, Interval a)
+    //private static boolean containsPeriodic(Interval a, double p,
+    //                                        double period)
+
+    //Function: Trig
+    //@param type           the type of trigonometric function
+    //@return               the interval of <type>(<a>)
+    static Interval trig(TrigType type, Interval a) {
+        if (a.isEmpty()) return EMPTY;
+        Interval one = round(1, 1, 0, a, a);
+        switch (type) {
+            case SIN: return sin(a, Math.PI / 2);
+            case COS: return sin(a, 0);
+            case TAN: return tan(TrigType.TAN, a, Math.PI / 2);
+            case CSC: return divide(one, sin(a, Math.PI / 2));
+            case SEC: return divide(one, sin(a, 0));
+            case COT: return tan(TrigType.COT, a, 0);
+            case ARCSIN: case ARCTANH:
+                return increasing(type, restrict(a, -1, 1));
+            case ARCCOS: return decreasing(type, restrict(a, -1, 1));
+            case ARCTAN: case SINH: case TANH:
+                return increasing(type, a);
+            case ARCSINH:
+                //The formula loses most of its digits for large negative
+                //values, so the bounds are taken from the positive side
+                return round(Math.copySign(Trigonometric.compute(type, Math
+                        .abs(a.lo)), a.lo), Math.copySign(Trigonometric.compute(
+                        type, Math.abs(a.hi)), a.hi), FUNCTION_ULPS, a, a);
+            case COSH:
+                if (a.lo <= 0 && a.hi >= 0) {
+                    double max = Math.max(Math.cosh(a.lo), Math.cosh(a.hi));
+                    return round(1, max, FUNCTION_ULPS, a, a);
+                }
+                return a.lo > 0 ? increasing(type, a) : decreasing(type, a);
+            case CSCH: return divide(one, increasing(TrigType.SINH, a));
+            case SECH: return divide(one, trig(TrigType.COSH, a));
+            case COTH: return divide(one, increasing(TrigType.TANH, a));
+            case ARCCOSH: return increasing(type, restrict(a, 1, Double
+                    .POSITIVE_INFINITY));
+            //The inverses of the reciprocal functions are computed from 1/a,
+            //eg. arccsc(a)=arcsin(1/a), see Trigonometric.compute
+            case ARCCSC: return trig(TrigType.ARCSIN, divide(one, a));
+            case ARCSEC: return trig(TrigType.ARCCOS, divide(one, a));
+            case ARCCOT: return trig(TrigType.ARCTAN, divide(one, a));
+            case ARCCSCH: return trig(TrigType.ARCSINH, divide(one, a));
+            case ARCSECH: return trig(TrigType.ARCCOSH, divide(one, a));
+            case ARCCOTH: return trig(TrigType.ARCTANH, divide(one, a));
+            default: return new Interval(Double.NEGATIVE_INFINITY, Double
+                    .POSITIVE_INFINITY, false, false);
+        }
+    }
+
+    //Function: Sin
+    //@param max            where the function has its maximum, the minimum
+    //                      being half a period further. This is pi/2 for sin
+    //                      and 0 for cos
+    private static Interval sin(Interval a, double max) {
+        double period = 2 * Math.PI;
+        double l = max == 0 ? Math.cos(a.lo) : Math.sin(a.lo);
+        double h = max == 0 ? Math.cos(a.hi) : Math.sin(a.hi);
+        double top = containsPeriodic(a, max, period) ? 1 : Math.max(l, h);
+        double bottom = containsPeriodic(a, max + Math.PI, period) ? -1 :
+                Math.min(l, h);
+        Interval result = round(bottom, top, FUNCTION_ULPS, a, a);
+        return new Interval(Math.max(-1, result.lo), Math.min(1, result.hi),
+                result.continuous, result.defined);
+    }
+
+    //Function: Tan
+    //@param type           TrigType.TAN or TrigType.COT
+    //       pole           where the function has a pole
+    //Both functions are monotonic between two poles, which are pi apart
+    private static Interval tan(TrigType type, Interval a, double pole) {
+        if (containsPeriodic(a, pole, Math.PI))
+            return new Interval(Double.NEGATIVE_INFINITY, Double
+                    .POSITIVE_INFINITY, false, false);
+        return type == TrigType.TAN ? increasing(type, a) : decreasing(type, a);
+    }
+
+    //Function: Increasing
+    //@return               the interval of <type>(<a>) for a function which
+    //                      never decreases
+    private static Interval increasing(TrigType type, Interval a) {
+        if (a.isEmpty()) return EMPTY;
+        return round(Trigonometric.compute(type, a.lo), Trigonometric.compute(
+                type, a.hi), FUNCTION_ULPS, a, a);
+    }
+
+    //Function: Decreasing
+    //@return               the interval of <type>(<a>) for a function which
+    //                      never increases
+    private static Interval decreasing(TrigType type, Interval a) {
+        if (a.isEmpty()) return EMPTY;
+        return round(Trigonometric.compute(type, a.hi), Trigonometric.compute(
+                type, a.lo), FUNCTION_ULPS, a, a);
+    }
+
+    //Function: Contains Periodic
+    //@param p              a point
+    //       period         the distance between two repeats of the point
+    //@return               whether <a> may hold <p> + k * <period> for some
+    //                      whole number k
+    private static boolean containsPeriodic(Interval a, double p,
+                                            double period) {
+        if (a.hi - a.lo >= period || Double.isInfinite(a.hi - a.lo))
+            return true;
+        double kLo = (a.lo - p) / period, kHi = (a.hi - p) / period;
+        //The divisions are not exact, so the test errs on the side of
+        //finding a point, which only widens the bounds
+        double error = 1e-9 + 4 * Math.ulp(Math.max(Math.abs(kLo), Math.abs(
+                kHi)));
+        return Math.floor(kHi + error) >= Math.ceil(kLo - error);
+    }
+
+    //--------------------------SPECIAL FUNCTIONS-----------------------------//
+    //FUNCTION LIST:
+    //static Interval special(SpecialType type, int order, Interval a)
+    //private static Interval gamma(SpecialType type, Interval a)
+    //private static Interval bessel(SpecialType type, Interval a)
+    //private static Interval monotonic(SpecialType type, int order,
+    //                                  Interval a)
+    //private static Interval widen(SpecialType type, double lo, double hi,
+    //                              Interval a)
+    //private static boolean containsPole(Interval a)
+
+    //Function: Special
+    //@param type           the type of special function
+    //       order          the order of the derivative of digamma
+    //@return               the interval of <type>(<a>)
+    static Interval special(SpecialType type, int order, Interval a) {
+        if (a.isEmpty()) return EMPTY;
+        switch (type) {
+            case ERF: case ERFC: case NORMCDF:
+                return monotonic(type, 0, a);
+            case NORMPDF:
+                if (a.lo > 0 || a.hi < 0) return monotonic(type, 0, a);
+                //The highest value is at 0
+                return widen(type, Math.min(SpecialFunction.compute(type, 0,
+                        a.lo), SpecialFunction.compute(type, 0, a.hi)),
+                        SpecialFunction.compute(type, 0, 0), a);
+            case GAMMA: case LGAMMA: return gamma(type, a);
+            case J0: case J1: return bessel(type, a);
+            case DIGAMMA:
+                if (containsPole(a))
+                    return new Interval(Double.NEGATIVE_INFINITY, Double
+                            .POSITIVE_INFINITY, false, false);
+                //Digamma always increases between two poles, and each of its
+                //derivatives either increases or decreases for x>0
+                if (order == 0 || a.lo > 0) return monotonic(type, order, a);
+                return new Interval(Double.NEGATIVE_INFINITY, Double
+                        .POSITIVE_INFINITY, a.continuous, a.defined);
+            default: return new Interval(Double.NEGATIVE_INFINITY, Double
+                    .POSITIVE_INFINITY, false, false);
+        }
+    }
+
+    //Function: Gamma
+    //@param type           SpecialType.GAMMA or SpecialType.LGAMMA
+    //@return               the interval of <type>(<a>). Between two poles
+    //                      gamma keeps its sign and its absolute value only
+    //                      turns once, where digamma, the derivative of
+    //                      lgamma, is 0. Digamma always increases, so the
+    //                      turn is found by bisection
+    private static Interval gamma(SpecialType type, Interval a) {
+        if (containsPole(a))
+            return new Interval(Double.NEGATIVE_INFINITY, Double
+                    .POSITIVE_INFINITY, false, false);
+        double l = SpecialFunction.compute(type, 0, a.lo);
+        double h = SpecialFunction.compute(type, 0, a.hi);
+        double lo = Math.min(l, h), hi = Math.max(l, h);
+        if (SpecialFunction.compute(SpecialType.DIGAMMA, 0, a.lo) < 0 &&
+                SpecialFunction.compute(SpecialType.DIGAMMA, 0, a.hi) > 0) {
+            double left = a.lo, right = a.hi;
+            for (int i = 0; i < 64 && left < right; i++) {
+                double middle = left + (right - left) / 2;
+                if (middle == left || middle == right) break;
+                if (SpecialFunction.compute(SpecialType.DIGAMMA, 0, middle) < 0)
+                    left = middle;
+                else right = middle;
+            }
+            double turn = SpecialFunction.compute(type, 0, left);
+            lo = Math.min(lo, turn);
+            hi = Math.max(hi, turn);
+        }
+        return widen(type, lo, hi, a);
+    }
+
+    //Function: Bessel
+    //@param type           SpecialType.J0 or SpecialType.J1
+    //@return               the interval of <type>(<a>). Every derivative of
+    //                      a Bessel function is at most 1 in size, and the
+    //                      second is at most 1/2, so the function is within
+    //                      |f'(m)|r+r^2/4 of its value at the middle m of the
+    //                      range, r being half the width of the range
+    private static Interval bessel(SpecialType type, Interval a) {
+        double min = type == SpecialType.J0 ? J0_MIN : -J1_MAX;
+        double max = type == SpecialType.J0 ? 1 : J1_MAX;
+        double r = Math.nextUp((a.hi - a.lo) / 2);
+        if (Double.isInfinite(r)) return widen(type, min, max, a);
+        double middle = a.lo + (a.hi - a.lo) / 2;
+        double value = SpecialFunction.compute(type, 0, middle);
+        double j1 = SpecialFunction.compute(SpecialType.J1, 0, middle);
+        //J0'=-J1 and J1'=J0-J1/x, which is 1/2 at 0
+        double slope = type == SpecialType.J0 ? j1 : middle == 0 ? 0.5 :
+                SpecialFunction.compute(SpecialType.J0, 0, middle) - j1 /
+                middle;
+        //The middle is rounded, so r is widened by the rounding error
+        double spread = Math.abs(slope) * (r + Math.ulp(middle)) + r * r / 4 +
+                SPECIAL_ERROR;
+        return widen(type, Math.max(min, value - spread), Math.min(max, value +
+                spread), a);
+    }
+
+    //Function: Monotonic
+    //@param type           the type of special function
+    //       order          the order of the derivative of digamma
+    //@return               the interval of <type>(<a>) for a function which
+    //                      either never decreases or never increases over
+    //                      the range
+    private static Interval monotonic(SpecialType type, int order,
+                                      Interval a) {
+        double l = SpecialFunction.compute(type, order, a.lo);
+        double h = SpecialFunction.compute(type, order, a.hi);
+        return widen(type, Math.min(l, h), Math.max(l, h), a);
+    }
+
+    //Function: Widen
+    //@param type           the type of special function
+    //       lo             the computed lower bound
+    //       hi             the computed upper bound
+    //       a              the interval the bounds were computed from
+    //@return               the interval widened by the error of the kernels
+    //                      of the special functions
+    private static Interval widen(SpecialType type, double lo, double hi,
+                                  Interval a) {
+        boolean absolute = type == SpecialType.LGAMMA || type == SpecialType
+                .DIGAMMA || type == SpecialType.J0 || type == SpecialType.J1;
+        double scale = absolute ? 1 : 0;
+        return round(lo - SPECIAL_ERROR * Math.max(scale, Math.abs(lo)), hi +
+                SPECIAL_ERROR * Math.max(scale, Math.abs(hi)), FUNCTION_ULPS,
+                a, a);
+    }
+
+    //Function: Contains Pole
+    //@return               whether <a> may hold 0 or a negative whole number,
+    //                      where gamma and its log derivatives have poles
+    private static boolean containsPole(Interval a) {
+        return a.lo <= 0 && Math.ceil(a.lo) <= Math.min(a.hi, 0);
+    }
+
+    //-------------------------------UTILITIES--------------------------------//
+
+    //Function: Round
+    //@param lo             the computed lower bound
+    //       hi             the computed upper bound
+    //       ulps           how many units in the last place the computed
+    //                      bounds may be off by
+    //       a, b           the intervals the bounds were computed from
+    //@return               the interval widened by <ulps> on both sides. A
+    //                      bound which is not a number becomes infinite, and
+    //                      an infinite bound marks the interval as not
+    //                      continuous
+    private static Interval round(double lo, double hi, int ulps, Interval a,
+                                  Interval b) {
+        if (Double.isNaN(lo)) lo = Double.NEGATIVE_INFINITY;
+        if (Double.isNaN(hi)) hi = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < ulps; i++) {
+            lo = Math.nextDown(lo);
+            hi = Math.nextUp(hi);
+        }
+        boolean continuous = a.continuous && b.continuous && !Double
+                .isInfinite(lo) && !Double.isInfinite(hi);
+        return new Interval(lo, hi, continuous, a.defined && b.defined);
+    }
+
+    //Function: Restrict
+    //@param a              an interval
+    //       lo             the lowest value of the domain
+    //       hi             the highest value of the domain
+    //@return               the part of <a> inside the domain, which is not
+    //                      defined everywhere if some of <a> was left out
+    private static Interval restrict(Interval a, double lo, double hi) {
+        if (a.isEmpty() || a.hi < lo || a.lo > hi) return EMPTY;
+        if (a.lo >= lo && a.hi <= hi) return a;
+        return new Interval(Math.max(a.lo, lo), Math.min(a.hi, hi),
+                a.continuous, false);
+    }
+
+    //Function: Product
+    //@return               <a> * <b>, where 0 times infinity counts as 0
+    private static double product(double a, double b) {
+        if (a == 0 || b == 0) return 0;
+        return a * b;
+    }
+}
@@ -7,8 +7,8 @@ package Functions;
 
 public class Logarithmic extends Function {
 
-    private Function subFunc;
-    private double coeff;
+    private final Function subFunc;
+    private final double coeff;
 
     public Logarithmic(Function subFunc) {
         this(subFunc, 1);
@@ -23,18 +23,99 @@ public class Logarithmic extends Function {
         return coeff * Math.log(subFunc.compute(x));
     }
 
-    public Function differentiate() {
+    public DoubleDouble compute(DoubleDouble x) {
+        return DoubleDouble.log(subFunc.compute(x)).multiply(coeff);
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    public double compute(double[] env) {
+        return coeff * Math.log(subFunc.compute(env));
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        computeSubFunction(subFunc, xs, env, out, n);
+        for (int i = 0; i < n; i++) out[i] = coeff * Math.log(out[i]);
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        subFunc.computeComplex(re, im, outRe, outIm, n);
+        Complex.log(outRe, outIm, n);
+        Complex.scale(outRe, outIm, coeff, n);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        BatchScratch scratch = BatchScratch.get();
+        double[] inner = scratch.acquire(order + 1);
+        try {
+            subFunc.computeTaylor(x, inner, order);
+            Taylor.log(inner, out, order);
+        } finally {
+            scratch.release();
+        }
+        Taylor.scale(out, coeff, order);
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        return Interval.scale(Interval.log(subFunc.computeInterval(lo, hi)),
+                coeff);
+    }
+
+    protected Function derive() {
         //d/dx(log(f(x)))=f'(x)/f(x)
-        return new Rational(subFunc.differentiate(), subFunc, coeff);
+        Function subDiff = subFunc.differentiate();
+        if (isZero(subDiff)) return subDiff;
+        return new Rational(subDiff, subFunc, coeff);
+    }
+
+    Function getSubFunc() {
+        return subFunc;
     }
 
     public double getCoeff() {
         return coeff;
     }
 
-    public Function setCoeff(double c) {
-        coeff = c;
-        return this;
+    public Function withCoeff(double c) {
+        return new Logarithmic(subFunc, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Logarithmic) || obj.hashCode() != hashCode())
+            return false;
+        Logarithmic other = (Logarithmic)obj;
+        return Double.compare(coeff, other.coeff) == 0 && subFunc.equals(
+                other.subFunc);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 11;
+        h = 31 * h + Double.hashCode(coeff);
+        return 31 * h + subFunc.hashCode();
+    }
+
+    Function[] getSubFunctions() {
+        return new Function[]{subFunc};
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new Logarithmic(subFuncs[0], coeff);
     }
 
     public String toString() {
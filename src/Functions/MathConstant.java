@@ -5,44 +5,80 @@
 
 package Functions;
 
+import java.util.Arrays;
+
 public class MathConstant extends Function{
 
-    private String constant;
-    private double coeff;
+    private final ConstantType constant;
+    private final double coeff;
 
-    public MathConstant(String constant) {
+    public MathConstant(ConstantType constant) {
         this(constant, 1);
     }
 
-    public MathConstant(String constant, double coeff) {
+    public MathConstant(ConstantType constant, double coeff) {
         this.constant = constant;
         this.coeff = coeff;
     }
 
     public double compute(double x) {
-        switch(constant) {
-            case "pi": return coeff * Math.PI;
-            case "e": return coeff * Math.E;
-        }
-        System.exit(0);
-        return 0;
+        return coeff * constant.getValue();
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        Arrays.fill(out, 0, n, compute(0));
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        return constant.getExactValue().multiply(coeff);
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        Arrays.fill(outRe, 0, n, compute(0));
+        Arrays.fill(outIm, 0, n, 0);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        Taylor.constant(compute(0), out, order);
     }
 
-    public Function differentiate() {
+    public Interval computeInterval(double lo, double hi) {
+        double value = compute(0);
+        return Interval.of(value, value);
+    }
+
+    protected Function derive() {
         return new Constant(0);
     }
 
+    ConstantType getConstant() {
+        return constant;
+    }
+
     public double getCoeff() {
         return coeff;
     }
 
-    public Function setCoeff(double c) {
-        coeff = c;
-        return this;
+    public Function withCoeff(double c) {
+        return new MathConstant(constant, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof MathConstant)) return false;
+        MathConstant other = (MathConstant)obj;
+        return constant == other.constant && Double.compare(coeff,
+                other.coeff) == 0;
+    }
+
+    @Override
+    protected int structuralHash() {
+        return 31 * constant.ordinal() + Double.hashCode(coeff);
     }
 
     public String toString() {
-        String funcStr = constant;
+        String funcStr = constant.toString();
         if (coeff == -1) funcStr = "-" + funcStr;
         else if (coeff != 1) funcStr = coeff + funcStr;
         return funcStr;
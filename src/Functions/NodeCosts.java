@@ -0,0 +1,102 @@
+//-----------------------------NODE COSTS CLASS-------------------------------//
+//@author TitanJack
+//@project MathTools
+//The time it takes to compute each type of node, used to pick the cheapest
+//of the equal forms of an expression.
+//
+//The costs were measured as loops over arrays of values, the same way the
+//batch compute methods evaluate a curve, after every loop had been run long
+//enough to be compiled by the JIT. Measuring them on the running machine
+//instead would take about half a second of warming up before the first
+//expression could be rewritten, and timing the loops before they are
+//compiled only measures the interpreter, which takes about as long for an
+//addition as for a sine. What matters to the choice of a form is how the
+//costs compare, which changes far less between machines than the costs do.
+
+package Functions;
+
+final class NodeCosts {
+
+    private static final NodeCosts COSTS = new NodeCosts();
+
+    //Costs in nanoseconds per value, from OpenJDK 17 on x86-64
+    private static final double LOAD = 0.13;
+    private static final double ADD = 0.4;
+    private static final double MUL = 0.4;
+    private static final double DIV = 0.9;
+    private static final double POW = 17;
+    private static final double LOG = 8;
+
+    private NodeCosts() {
+    }
+
+    //Function: Get
+    //@return               the costs
+    static NodeCosts get() {
+        return COSTS;
+    }
+
+    //Function: Cost
+    //@param graph          the graph holding the node
+    //       node           a node
+    //@return               the cost of computing the node, not counting the
+    //                      cost of its children
+    double cost(EGraph graph, EGraph.Node node) {
+        switch (node.op) {
+            case EGraph.ADD:
+                return (node.children.length - 1) * ADD;
+            case EGraph.MUL:
+                return (node.children.length - 1) * MUL;
+            case EGraph.DIV:
+                return DIV;
+            case EGraph.POW:
+                //Small whole number powers are computed by repeated squaring
+                //instead of Math.pow, see Exponential.wholePower
+                int exponent = node.children[1];
+                if (graph.isConstant(exponent)) {
+                    double power = graph.constant(exponent);
+                    if (power == 0 || power == 1) return MUL;
+                    if (power == (int)power && Math.abs(power) <= 16) {
+                        int p = Math.abs((int)power);
+                        int steps = 31 - Integer.numberOfLeadingZeros(p) +
+                                Integer.bitCount(p);
+                        return steps * MUL + (power < 0 ? DIV : 0);
+                    }
+                }
+                return POW;
+            case EGraph.LOG:
+                return LOG;
+            case EGraph.TRIG:
+                return trigCost(Trigonometric.TYPES[node.type]);
+            default:
+                return LOAD;
+        }
+    }
+
+    //Function: Trig Cost
+    //@param type           a type of trigonometric function
+    //@return               the cost of computing the function, in nanoseconds
+    //                      per value. The inverse functions call into
+    //                      StrictMath, which is far slower than the others
+    private static double trigCost(TrigType type) {
+        switch (type) {
+            case SIN: case COS: case SEC: return 10;
+            case CSC: return 11;
+            case TAN: case COT: return 15;
+            case ARCSIN: return 180;
+            case ARCCOS: return 160;
+            case ARCTAN: return 33;
+            case ARCCSC: return 170;
+            case ARCSEC: return 150;
+            case ARCCOT: return 48;
+            case SINH: case SECH: return 60;
+            case COSH: case CSCH: return 63;
+            case TANH: return 73;
+            case COTH: return 70;
+            case ARCSINH: case ARCCOSH: case ARCTANH: return 10.5;
+            case ARCCSCH: return 13.7;
+            case ARCSECH: return 12.4;
+            case ARCCOTH: default: return 9.5;
+        }
+    }
+}
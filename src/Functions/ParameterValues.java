@@ -0,0 +1,171 @@
+//--------------------------PARAMETER VALUES CLASS----------------------------//
+//@author TitanJack
+//@project MathTools
+//The current values of the named parameters of a VariableTable, such as <a>
+//in <a*sin(x)>, which the user sets with a slider.
+//
+//The fast ways of computing a function, such as compiled code, vector lanes
+//and intervals, only take x. A function of parameters is therefore bound to
+//their current values before it is drawn, which replaces every parameter
+//with a number, see bind. Binding keeps every part of the function which
+//does not use a parameter as the same instance, so the body of a function
+//the user defined without parameters is still shared through the
+//FrameCache, and keeps its compiled code.
+
+package Functions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+@SuppressWarnings("WeakerAccess")
+public final class ParameterValues {
+
+    private final VariableTable variables;
+    private double[] values;
+    //The bound form of every function bound since the values last changed,
+    //so that a part shared by several functions is only bound once and
+    //stays shared
+    private final IdentityHashMap<Function, Function> bound;
+
+    public ParameterValues(VariableTable variables) {
+        this.variables = variables;
+        values = new double[0];
+        bound = new IdentityHashMap<>();
+    }
+
+    //Function: Get
+    //@param slot           the slot of a parameter
+    //@return               the value of the parameter, 0 if it was never set
+    public synchronized double get(int slot) {
+        return slot < values.length ? values[slot] : 0;
+    }
+
+    //Function: Set
+    //@param slot           the slot of a parameter
+    //       value          the new value of the parameter
+    //@return               whether the value changed
+    public synchronized boolean set(int slot, double value) {
+        if (slot >= values.length)
+            values = Arrays.copyOf(values, Math.max(slot + 1, 2 *
+                    values.length));
+        if (Double.compare(values[slot], value) == 0) return false;
+        values[slot] = value;
+        bound.clear();
+        return true;
+    }
+
+    //Function: Fill
+    //@param env            an environment, see VariableTable
+    //Writes the value of every parameter into its slot of <env>, leaving
+    //the other slots unchanged
+    public synchronized void fill(double[] env) {
+        for (int slot = VariableTable.T + 1; slot < env.length; slot++)
+            if (isParameter(slot)) env[slot] = get(slot);
+    }
+
+    //Function: Parameters Of
+    //@param function       a function
+    //@return               the slots of the parameters the function uses,
+    //                      including through the bodies of the functions it
+    //                      calls, in increasing order
+    public int[] parametersOf(Function function) {
+        ArrayList<Integer> slots = new ArrayList<>();
+        collectParameters(function, slots, new IdentityHashMap<>());
+        int[] result = new int[slots.size()];
+        for (int i = 0; i < result.length; i++) result[i] = slots.get(i);
+        Arrays.sort(result);
+        return result;
+    }
+
+    //Function: Bind
+    //@param function       a function
+    //@return               the function with every parameter replaced by its
+    //                      current value. A function which uses no parameters
+    //                      is returned as it is
+    public synchronized Function bind(Function function) {
+        return substitute(function, this::isParameter, this::get, bound);
+    }
+
+    //Function: Substitute
+    //@param function       a function
+    //       replaced       whether the variable in a slot is replaced
+    //       value          the number the variable in a slot is replaced with
+    //       done           the result of every function substituted so far,
+    //                      which the new results are added to
+    //@return               the function with every replaced variable turned
+    //                      into a number, including in the bodies of the
+    //                      functions it calls. Parts without a replaced
+    //                      variable are kept as the same instance
+    static Function substitute(Function function, IntPredicate replaced,
+                               IntToDoubleFunction value, IdentityHashMap<
+                               Function, Function> done) {
+        Function result = done.get(function);
+        if (result != null) return result;
+        if (function instanceof Variable) {
+            Variable variable = (Variable)function;
+            int slot = variable.getSlot();
+            result = replaced.test(slot) ? new Constant(variable.getCoeff() *
+                    value.applyAsDouble(slot)) : function;
+        } else if (function instanceof TieredFunction) {
+            Function inner = ((TieredFunction)function).getFunction();
+            Function newInner = substitute(inner, replaced, value, done);
+            result = newInner == inner ? function : new TieredFunction(
+                    newInner);
+        } else if (function instanceof UserFunction) {
+            UserFunction call = (UserFunction)function;
+            Function arg = call.getSubFunctions()[0];
+            Function body = substitute(call.getBody(), replaced, value, done);
+            Function newArg = substitute(arg, replaced, value, done);
+            result = body == call.getBody() && newArg == arg ? function :
+                    new UserFunction(call.getName(), body, newArg, call
+                    .getCoeff());
+        } else {
+            Function[] subFuncs = function.getSubFunctions();
+            boolean changed = false;
+            for (int i = 0; i < subFuncs.length; i++) {
+                Function newSub = substitute(subFuncs[i], replaced, value,
+                        done);
+                if (newSub != subFuncs[i]) {
+                    subFuncs[i] = newSub;
+                    changed = true;
+                }
+            }
+            result = changed ? function.withSubFunctions(subFuncs) : function;
+        }
+        done.put(function, result);
+        return result;
+    }
+
+    //Function: Collect Parameters
+    //@param function       a function
+    //       slots          the list the slots are added to
+    //       visited        the functions which were already collected
+    private void collectParameters(Function function, ArrayList<Integer>
+            slots, IdentityHashMap<Function, Boolean> visited) {
+        if (visited.put(function, Boolean.TRUE) != null) return;
+        if (function instanceof Variable) {
+            int slot = ((Variable)function).getSlot();
+            if (isParameter(slot) && !slots.contains(slot)) slots.add(slot);
+            return;
+        }
+        if (function instanceof TieredFunction)
+            collectParameters(((TieredFunction)function).getFunction(), slots,
+                    visited);
+        if (function instanceof UserFunction)
+            collectParameters(((UserFunction)function).getBody(), slots,
+                    visited);
+        for (Function subFunc : function.getSubFunctions())
+            collectParameters(subFunc, slots, visited);
+    }
+
+    //Function: Is Parameter
+    //@param slot           the slot of a variable
+    //@return               whether the variable is a parameter, rather than
+    //                      x, y, t or the index of a sum or product
+    private boolean isParameter(int slot) {
+        return slot > VariableTable.T && !variables.isIndex(slot);
+    }
+}
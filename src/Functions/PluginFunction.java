@@ -0,0 +1,151 @@
+//---------------------------PLUGIN FUNCTION CLASS----------------------------//
+//@author TitanJack
+//@project MathTools
+//The base of every node a FunctionPlugin adds, a function of one argument
+//with a coefficient, such as <2besselk(x^2)>.
+//
+//A plugin only writes the kernels of its function: its value at a number,
+//its values over a whole array, its bounds over an interval and its
+//derivative. All of them are abstract, so a plugin cannot leave out the
+//batch kernel and be computed one value at a time every frame. This class
+//does the rest the way the built in nodes do: the argument is computed as a
+//batch and the kernel then runs over the array once, the interval of the
+//argument is passed to the interval kernel, and the derivative is completed
+//by the chain rule.
+
+package Functions;
+
+public abstract class PluginFunction extends Function {
+
+    private final Function arg;
+    private final double coeff;
+
+    protected PluginFunction(Function arg, double coeff) {
+        this.arg = arg;
+        this.coeff = coeff;
+    }
+
+    //Function: Kernel
+    //@param y              a value of the argument
+    //@return               the function of <y>
+    protected abstract double kernel(double y);
+
+    //Function: Kernel (Batch)
+    //@param ys             values of the argument, which get replaced by the
+    //                      function of each
+    //       n              the number of values to be computed
+    protected abstract void kernel(double[] ys, int n);
+
+    //Function: Kernel Interval
+    //@param y              the interval of the argument, which is not empty
+    //@return               an interval holding the function of every value
+    //                      in <y>, rounded outwards, see Interval. Plugins
+    //                      which cannot bound their function return
+    //                      Interval.unknown()
+    protected abstract Interval kernelInterval(Interval y);
+
+    //Function: Kernel Derivative
+    //@param arg            the argument
+    //@return               the derivative of the function with respect to its
+    //                      argument at <arg>, eg. <cos(arg)> for sin. The
+    //                      derivative of the argument is multiplied in by
+    //                      this class
+    protected abstract Function kernelDerivative(Function arg);
+
+    //Function: Create
+    //@param arg            the new argument
+    //       coeff          the new coefficient
+    //@return               a node of the same function of <arg>
+    protected abstract PluginFunction create(Function arg, double coeff);
+
+    //Function: Get Keyword
+    //@return               the name the function is written as
+    public abstract String getKeyword();
+
+    public final double compute(double x) {
+        return coeff * kernel(arg.compute(x));
+    }
+
+    public final void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public final void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    public final double compute(double[] env) {
+        return coeff * kernel(arg.compute(env));
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        computeSubFunction(arg, xs, env, out, n);
+        kernel(out, n);
+        if (coeff != 1)
+            for (int i = 0; i < n; i++) out[i] *= coeff;
+    }
+
+    public final Interval computeInterval(double lo, double hi) {
+        Interval inner = arg.computeInterval(lo, hi);
+        if (inner.isEmpty()) return Interval.EMPTY;
+        return Interval.scale(Interval.compose(inner, kernelInterval(inner)),
+                coeff);
+    }
+
+    protected final Function derive() {
+        return product(coeff, kernelDerivative(arg), arg.differentiate());
+    }
+
+    //Function: Get Arg
+    //@return               the argument of the function
+    public final Function getArg() {
+        return arg;
+    }
+
+    public final double getCoeff() {
+        return coeff;
+    }
+
+    public final Function withCoeff(double c) {
+        return create(arg, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || obj.getClass() != getClass() || obj.hashCode() !=
+                hashCode())
+            return false;
+        PluginFunction other = (PluginFunction)obj;
+        return getKeyword().equals(other.getKeyword()) && Double.compare(
+                coeff, other.coeff) == 0 && arg.equals(other.arg);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 43 + getKeyword().hashCode();
+        h = 31 * h + Double.hashCode(coeff);
+        return 31 * h + arg.hashCode();
+    }
+
+    final Function[] getSubFunctions() {
+        return new Function[]{arg};
+    }
+
+    final Function withSubFunctions(Function[] subFuncs) {
+        return create(subFuncs[0], coeff);
+    }
+
+    public String toString() {
+        String funcStr = getKeyword() + "(" + arg.toString() + ")";
+        if (coeff == -1) funcStr = "-" + funcStr;
+        else if (coeff != 1) funcStr = coeff + funcStr;
+        return funcStr;
+    }
+}
@@ -0,0 +1,310 @@
+//----------------------------POLYNOMIAL CLASS--------------------------------//
+//@author TitanJack
+//@project MathTools
+//A polynomial of x stored as its list of coefficients, eg. <x^5+3x^4-2x+1> is
+//stored as {1, -2, 0, 0, 3, 1}. The value is computed with Horner's method,
+//<((((1x+3)x+0)x+0)x-2)x+1>, which only takes one multiply and one add per
+//coefficient instead of a Math.pow for every term. FunctionOptimizer turns
+//every part of an expression which is a polynomial into this form, and the
+//numerator and denominator of rational functions become polynomials as well.
+
+package Functions;
+
+import NumberFormats.Numbers;
+
+import java.util.Arrays;
+
+public class Polynomial extends Function {
+
+    //Polynomials with a higher degree are left as they are, since expanding
+    //a power such as <(x+1)^100> gives huge coefficients which cancel out
+    //and lose precision
+    static final int MAX_DEGREE = 32;
+
+    //Coefficients from the lowest power of x to the highest
+    private final double[] coeffs;
+    private final double coeff;
+    //The coefficients multiplied by coeff, used to compute the polynomial
+    private final double[] scaled;
+
+    @SuppressWarnings("WeakerAccess")
+    public Polynomial(double[] coeffs) {
+        this(coeffs, 1);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public Polynomial(double[] coeffs, double coeff) {
+        //Zero coefficients of the highest powers do not change the value
+        int length = coeffs.length;
+        while (length > 1 && coeffs[length - 1] == 0) length--;
+        this.coeffs = Arrays.copyOf(coeffs, Math.max(length, 1));
+        this.coeff = coeff;
+        scaled = scale(this.coeffs, coeff);
+    }
+
+    public double compute(double x) {
+        double[] scaled = this.scaled;
+        double result = scaled[scaled.length - 1];
+        for (int k = scaled.length - 2; k >= 0; k--)
+            result = result * x + scaled[k];
+        return result;
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        //Each step of Horner's method is done for every value before moving
+        //on to the next coefficient, which the JIT turns into SIMD
+        //instructions
+        double[] scaled = this.scaled;
+        Arrays.fill(out, 0, n, scaled[scaled.length - 1]);
+        for (int k = scaled.length - 2; k >= 0; k--) {
+            double c = scaled[k];
+            for (int i = 0; i < n; i++) out[i] = out[i] * xs[i] + c;
+        }
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        //The unscaled coefficients are used, since multiplying them by coeff
+        //would have rounded them to a double
+        DoubleDouble result = DoubleDouble.of(coeffs[coeffs.length - 1]);
+        for (int k = coeffs.length - 2; k >= 0; k--)
+            result = result.multiply(x).add(coeffs[k]);
+        return result.multiply(coeff);
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        double[] scaled = this.scaled;
+        Arrays.fill(outRe, 0, n, scaled[scaled.length - 1]);
+        Arrays.fill(outIm, 0, n, 0);
+        for (int k = scaled.length - 2; k >= 0; k--) {
+            double c = scaled[k];
+            for (int i = 0; i < n; i++) {
+                double a = outRe[i], b = outIm[i];
+                outRe[i] = a * re[i] - b * im[i] + c;
+                outIm[i] = a * im[i] + b * re[i];
+            }
+        }
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        //Each pass of Horner's method divides the polynomial by (t-x), the
+        //remainder of the k-th pass being the k-th Taylor coefficient
+        BatchScratch scratch = BatchScratch.get();
+        double[] work = scratch.acquire(scaled.length);
+        try {
+            System.arraycopy(scaled, 0, work, 0, scaled.length);
+            Taylor.constant(0, out, order);
+            for (int k = 0; k <= order && k < scaled.length; k++) {
+                double result = work[scaled.length - 1];
+                for (int j = scaled.length - 2; j >= k; j--) {
+                    result = result * x + work[j];
+                    work[j] = result;
+                }
+                out[k] = result;
+            }
+        } finally {
+            scratch.release();
+        }
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        //Horner's method on intervals. Rewriting around the middle of the
+        //range would give tighter bounds for wide ranges, but the ranges
+        //used when drawing are only a few pixels wide
+        Interval x = Interval.of(lo, hi);
+        Interval result = Interval.of(scaled[scaled.length - 1], scaled[
+                scaled.length - 1]);
+        for (int k = scaled.length - 2; k >= 0; k--)
+            result = Interval.add(Interval.multiply(result, x), Interval.of(
+                    scaled[k], scaled[k]));
+        return result;
+    }
+
+    protected Function derive() {
+        return new Polynomial(derivative(coeffs), coeff);
+    }
+
+    //Function: Coefficients Of
+    //@param function       the function to be checked
+    //@return               the coefficients of the function if it is a
+    //                      polynomial of x with a degree of at most
+    //                      <MAX_DEGREE>, otherwise null
+    static double[] coefficientsOf(Function function) {
+        double[] result;
+        if (function instanceof Constant || function instanceof MathConstant)
+            return new double[]{function.compute(0)};
+        else if (function instanceof Variable) {
+            if (!((Variable)function).isX()) return null;
+            return new double[]{0, function.getCoeff()};
+        } else if (function instanceof Polynomial)
+            result = ((Polynomial)function).coeffs;
+        else if (function instanceof SumFunction) {
+            result = new double[]{0};
+            for (Function term : ((SumFunction)function).getTerms()) {
+                double[] termCoeffs = coefficientsOf(term);
+                if (termCoeffs == null) return null;
+                result = add(result, termCoeffs);
+            }
+        } else if (function instanceof GeoFunction) {
+            result = new double[]{1};
+            for (Function factor : ((GeoFunction)function).getFactors()) {
+                double[] factorCoeffs = coefficientsOf(factor);
+                if (factorCoeffs == null || degree(result) + degree(
+                        factorCoeffs) > MAX_DEGREE)
+                    return null;
+                result = multiply(result, factorCoeffs);
+            }
+        } else if (function instanceof Exponential) {
+            Function exponent = ((Exponential)function).getExponent();
+            if (!(exponent instanceof Constant)) return null;
+            double power = exponent.compute(0);
+            double[] base = coefficientsOf(((Exponential)function).getBase());
+            if (base == null || power < 0 || power != (int)power ||
+                    degree(base) * power > MAX_DEGREE)
+                return null;
+            //Expanding the power of a base with more than one term, such as
+            //<(x-100)^6>, adds up large terms which cancel near its roots,
+            //so that the expanded form loses every digit there. Such powers
+            //are kept as they are, with the base itself in Horner's form
+            if (power > 1 && !isMonomial(base)) return null;
+            result = new double[]{1};
+            for (int i = 0; i < power; i++) result = multiply(result, base);
+        } else if (function instanceof Rational) {
+            //Only a division by a number keeps a polynomial a polynomial
+            Function denominator = ((Rational)function).getDenominator();
+            double[] numerator = coefficientsOf(((Rational)function)
+                    .getNumerator());
+            double[] divisor = coefficientsOf(denominator);
+            if (numerator == null || divisor == null || divisor.length != 1)
+                return null;
+            result = scale(numerator, 1 / divisor[0]);
+        } else return null;
+        return scale(result, function.getCoeff());
+    }
+
+    //Function: Quotient Derivative
+    //@param numerator      the numerator of a rational function
+    //       denominator    the denominator of the rational function
+    //       coeff          the coefficient of the rational function
+    //@return               the derivative of the rational function, which is
+    //                      another rational function of two polynomials.
+    //                      d/dx(p/q)=(p'q-pq')/q^2
+    static Function quotientDerivative(Polynomial numerator, Polynomial
+            denominator, double coeff) {
+        double[] p = scale(numerator.coeffs, numerator.coeff);
+        double[] q = scale(denominator.coeffs, denominator.coeff);
+        double[] top = add(multiply(derivative(p), q), scale(multiply(p,
+                derivative(q)), -1));
+        return new Rational(new Polynomial(top), new Polynomial(multiply(q,
+                q)), coeff);
+    }
+
+    //Function: Get Coefficients
+    //@return               the coefficients from the lowest power of x to the
+    //                      highest, not including coeff
+    double[] getCoefficients() {
+        return coeffs;
+    }
+
+    //Function: Degree
+    //@return               the highest power of x in the polynomial
+    int degree() {
+        return coeffs.length - 1;
+    }
+
+    public double getCoeff() {
+        return coeff;
+    }
+
+    public Function withCoeff(double c) {
+        return new Polynomial(coeffs, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Polynomial) || obj.hashCode() != hashCode())
+            return false;
+        Polynomial other = (Polynomial)obj;
+        return Double.compare(coeff, other.coeff) == 0 && Arrays.equals(
+                coeffs, other.coeffs);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 19;
+        h = 31 * h + Double.hashCode(coeff);
+        return 31 * h + Arrays.hashCode(coeffs);
+    }
+
+    public String toString() {
+        String funcStr = "";
+        for (int k = coeffs.length - 1; k >= 0; k--) {
+            double c = coeffs[k];
+            if (c == 0) continue;
+            if (c > 0 && funcStr.length() > 0) funcStr += "+";
+            if (k == 0) funcStr += Numbers.formatNum(c);
+            else {
+                if (c == -1) funcStr += "-";
+                else if (c != 1) funcStr += Numbers.formatNum(c);
+                funcStr += k == 1 ? "x" : "(x)^" + k;
+            }
+        }
+        if (funcStr.length() == 0) funcStr = "0";
+        if (coeff == -1) funcStr = "-(" + funcStr + ")";
+        else if (coeff != 1) funcStr = Numbers.formatNum(coeff) + "(" +
+                funcStr + ")";
+        return funcStr;
+    }
+
+    //--------------------------COEFFICIENT MATH------------------------------//
+    //FUNCTION LIST:
+    //private static int degree(double[] a)
+    //private static boolean isMonomial(double[] a)
+    //private static double[] add(double[] a, double[] b)
+    //private static double[] multiply(double[] a, double[] b)
+    //private static double[] scale(double[] a, double c)
+    //private static double[] derivative(double[] a)
+
+    private static int degree(double[] a) {
+        return a.length - 1;
+    }
+
+    //Function: Is Monomial
+    //@param a              the coefficients of a polynomial
+    //@return               whether at most one of the coefficients is not 0
+    private static boolean isMonomial(double[] a) {
+        int terms = 0;
+        for (double c : a) if (c != 0) terms++;
+        return terms <= 1;
+    }
+
+    private static double[] add(double[] a, double[] b) {
+        double[] sum = Arrays.copyOf(a.length >= b.length ? a : b, Math.max(
+                a.length, b.length));
+        double[] shorter = a.length >= b.length ? b : a;
+        for (int k = 0; k < shorter.length; k++) sum[k] += shorter[k];
+        return sum;
+    }
+
+    private static double[] multiply(double[] a, double[] b) {
+        double[] product = new double[a.length + b.length - 1];
+        for (int i = 0; i < a.length; i++)
+            for (int j = 0; j < b.length; j++)
+                product[i + j] += a[i] * b[j];
+        return product;
+    }
+
+    private static double[] scale(double[] a, double c) {
+        double[] scaled = new double[a.length];
+        for (int k = 0; k < a.length; k++) scaled[k] = a[k] * c;
+        return scaled;
+    }
+
+    private static double[] derivative(double[] a) {
+        if (a.length == 1) return new double[]{0};
+        double[] derivative = new double[a.length - 1];
+        for (int k = 1; k < a.length; k++) derivative[k - 1] = k * a[k];
+        return derivative;
+    }
+}
@@ -0,0 +1,301 @@
+//-------------------------PRODUCT DERIVATIVE CLASS---------------------------//
+//@author TitanJack
+//@project MathTools
+//A derivative of a product, such as the derivative of <prod(k,1,10,1-x/k)>,
+//built by SeriesFunction.derive.
+//
+//The product rule gives the first derivative as the sum over every factor of
+//its derivative times the other factors. Rather than dividing the product by
+//each factor, which gives not a number wherever a factor is 0, the range is
+//gone through once while the derivatives of the product of the factors so
+//far are kept: each factor multiplies them by the rule of Leibniz. Higher
+//derivatives are kept the same way, so the derivative of this node is the
+//same node with one more derivative of the term.
+
+package Functions;
+
+import NumberFormats.Numbers;
+
+import java.util.Arrays;
+
+final class ProductDerivative extends Function {
+
+    private final int slot;
+    private final String index;
+    private final Function lower;
+    private final Function upper;
+    //The term of the product followed by its derivatives, up to the order of
+    //the derivative of the product, which is at least 1
+    private final Function[] terms;
+    private final double coeff;
+    //1/k! for every k up to the order, so that derivatives are multiplied as
+    //Taylor coefficients
+    private final double[] inverseFactorials;
+
+    ProductDerivative(int slot, String index, Function lower, Function upper,
+                      Function[] terms, double coeff) {
+        this.slot = slot;
+        this.index = index;
+        this.lower = lower;
+        this.upper = upper;
+        this.terms = terms;
+        this.coeff = coeff;
+        inverseFactorials = new double[terms.length];
+        inverseFactorials[0] = 1;
+        for (int k = 1; k < terms.length; k++)
+            inverseFactorials[k] = inverseFactorials[k - 1] / k;
+    }
+
+    public double compute(double x) {
+        BatchScratch scratch = BatchScratch.get();
+        double[] row = scratch.acquire(slot + 1);
+        try {
+            Arrays.fill(row, 0, slot + 1, Double.NaN);
+            row[VariableTable.X] = x;
+            return computeRow(row);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    public double compute(double[] env) {
+        BatchScratch scratch = BatchScratch.get();
+        int length = Math.max(env.length, slot + 1);
+        double[] row = scratch.acquire(length);
+        try {
+            System.arraycopy(env, 0, row, 0, env.length);
+            Arrays.fill(row, env.length, length, Double.NaN);
+            return computeRow(row);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    //Function: Compute Row
+    //@param row            the value of every variable, which must have room
+    //                      for the index and may be written to
+    //@return               the value of the derivative
+    private double computeRow(double[] row) {
+        double first = Math.rint(lower.compute(row));
+        double count = Math.rint(upper.compute(row)) - first + 1;
+        if (!(count <= SeriesFunction.MAX_TERMS)) return Double.NaN;
+        //An empty product is a number
+        if (count <= 0) return 0;
+        int order = terms.length - 1;
+        double[] taylor = new double[terms.length];
+        double[] factor = new double[terms.length];
+        taylor[0] = 1;
+        for (int j = 0; j < count; j++) {
+            if ((j & SeriesFunction.CHECK_MASK) == 0)
+                EvaluationBudget.checkpoint();
+            row[slot] = first + j;
+            for (int k = 0; k <= order; k++)
+                factor[k] = terms[k].compute(row) * inverseFactorials[k];
+            //From the highest order down, so that every order is made from
+            //the lower orders before they are multiplied themselves
+            for (int k = order; k >= 0; k--) {
+                double value = 0;
+                for (int l = 0; l <= k; l++)
+                    value += taylor[l] * factor[k - l];
+                taylor[k] = value;
+            }
+        }
+        return coeff * taylor[order] / inverseFactorials[order];
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        BatchScratch scratch = BatchScratch.get();
+        int length = Math.max(env == null ? 0 : env.length, slot + 1);
+        double[] unknown = scratch.acquire(n);
+        try {
+            Arrays.fill(unknown, 0, n, Double.NaN);
+            double[][] columns = new double[length][];
+            for (int s = 0; s < length; s++)
+                columns[s] = env != null && s < env.length ? env[s] : unknown;
+            if (env == null) columns[VariableTable.X] = xs;
+            if (lower instanceof Constant && upper instanceof Constant) {
+                double first = Math.rint(lower.compute(0));
+                double count = Math.rint(upper.compute(0)) - first + 1;
+                if (!(count <= SeriesFunction.MAX_TERMS))
+                    Arrays.fill(out, 0, n, Double.NaN);
+                else if (count <= 0) Arrays.fill(out, 0, n, 0);
+                else accumulate(columns, n, first, (int)count, out);
+                return;
+            }
+            double[] row = scratch.acquire(length);
+            try {
+                for (int i = 0; i < n; i++) {
+                    for (int s = 0; s < length; s++) row[s] = columns[s][i];
+                    out[i] = computeRow(row);
+                }
+            } finally {
+                scratch.release();
+            }
+        } finally {
+            scratch.release();
+        }
+    }
+
+    //Function: Accumulate
+    //@param env            the columns of every variable, with room for the
+    //                      index
+    //       n              the number of values to be computed
+    //       first          the index of the first term
+    //       count          the number of terms, at least 1
+    //       out            the array which the results are written into
+    private void accumulate(double[][] env, int n, double first, int count,
+                            double[] out) {
+        int order = terms.length - 1;
+        BatchScratch scratch = BatchScratch.get();
+        double[][] taylor = scratch.acquireColumns(terms.length, n);
+        double[][] factor = scratch.acquireColumns(terms.length, n);
+        double[] indices = scratch.acquire(n);
+        try {
+            Arrays.fill(taylor[0], 0, n, 1);
+            for (int k = 1; k <= order; k++) Arrays.fill(taylor[k], 0, n, 0);
+            double[][] columns = env.clone();
+            columns[slot] = indices;
+            for (int j = 0; j < count; j++) {
+                Arrays.fill(indices, 0, n, first + j);
+                for (int k = 0; k <= order; k++) {
+                    computeSubFunction(terms[k], null, columns, factor[k], n);
+                    double scale = inverseFactorials[k];
+                    if (scale != 1)
+                        for (int i = 0; i < n; i++) factor[k][i] *= scale;
+                }
+                for (int k = order; k >= 0; k--) {
+                    double[] result = taylor[k];
+                    for (int i = 0; i < n; i++) {
+                        double value = 0;
+                        for (int l = 0; l <= k; l++)
+                            value += taylor[l][i] * factor[k - l][i];
+                        result[i] = value;
+                    }
+                }
+            }
+            double scale = coeff / inverseFactorials[order];
+            for (int i = 0; i < n; i++) out[i] = scale * taylor[order][i];
+        } finally {
+            scratch.release();
+            scratch.releaseColumns(terms.length);
+            scratch.releaseColumns(terms.length);
+        }
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        Interval from = lower.computeInterval(lo, hi);
+        Interval to = upper.computeInterval(lo, hi);
+        if (from.isEmpty() || to.isEmpty()) return Interval.EMPTY;
+        double first = Math.rint(from.getLo());
+        double last = Math.rint(to.getLo());
+        if (first != Math.rint(from.getHi()) || last != Math.rint(to.getHi())
+                || !from.isDefined() || !to.isDefined())
+            return Interval.unknown();
+        double count = last - first + 1;
+        if (!(count <= SeriesFunction.MAX_TERMS)) return Interval.EMPTY;
+        if (count <= 0) return Interval.of(0, 0);
+        //Longer ranges would widen the interval of every order by each
+        //factor, which soon bounds nothing
+        if (count > SeriesFunction.INTERVAL_TERMS) return Interval.unknown();
+        int order = terms.length - 1;
+        Interval[] taylor = new Interval[terms.length];
+        Interval[] factor = new Interval[terms.length];
+        taylor[0] = Interval.of(1, 1);
+        for (int k = 1; k <= order; k++) taylor[k] = Interval.of(0, 0);
+        for (int j = 0; j < count; j++) {
+            Constant value = new Constant(first + j);
+            for (int k = 0; k <= order; k++)
+                factor[k] = Interval.scale(SeriesFunction.substitute(terms[k],
+                        slot, value).computeInterval(lo, hi),
+                        inverseFactorials[k]);
+            for (int k = order; k >= 0; k--) {
+                Interval sum = Interval.of(0, 0);
+                for (int l = 0; l <= k; l++)
+                    sum = Interval.add(sum, Interval.multiply(taylor[l],
+                            factor[k - l]));
+                taylor[k] = sum;
+            }
+        }
+        return Interval.scale(taylor[order], coeff / inverseFactorials[order]);
+    }
+
+    protected Function derive() {
+        Function[] higher = Arrays.copyOf(terms, terms.length + 1);
+        higher[terms.length] = terms[terms.length - 1].differentiate();
+        return new ProductDerivative(slot, index, lower, upper, higher,
+                coeff);
+    }
+
+    //Function: Get Slot
+    //@return               the slot of the index of the product
+    int getSlot() {
+        return slot;
+    }
+
+    public double getCoeff() {
+        return coeff;
+    }
+
+    public Function withCoeff(double c) {
+        return new ProductDerivative(slot, index, lower, upper, terms, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof ProductDerivative) || obj.hashCode() !=
+                hashCode())
+            return false;
+        ProductDerivative other = (ProductDerivative)obj;
+        return slot == other.slot && index.equals(other.index) && Double
+                .compare(coeff, other.coeff) == 0 && lower.equals(other
+                .lower) && upper.equals(other.upper) && Arrays.equals(terms,
+                other.terms);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 37 + slot;
+        h = 31 * h + Double.hashCode(coeff);
+        h = 31 * h + lower.hashCode();
+        h = 31 * h + upper.hashCode();
+        return 31 * h + Arrays.hashCode(terms);
+    }
+
+    Function[] getSubFunctions() {
+        Function[] subFuncs = new Function[terms.length + 2];
+        subFuncs[0] = lower;
+        subFuncs[1] = upper;
+        System.arraycopy(terms, 0, subFuncs, 2, terms.length);
+        return subFuncs;
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new ProductDerivative(slot, index, subFuncs[0], subFuncs[1],
+                Arrays.copyOfRange(subFuncs, 2, subFuncs.length), coeff);
+    }
+
+    public String toString() {
+        StringBuilder funcStr = new StringBuilder("prod(" + index + "," +
+                lower.toString() + "," + upper.toString() + "," + terms[0]
+                .toString() + ")");
+        for (int k = 1; k < terms.length; k++) funcStr.append('\'');
+        if (coeff == -1) funcStr.insert(0, "-");
+        else if (coeff != 1) funcStr.insert(0, Numbers.formatNum(coeff));
+        return funcStr.toString();
+    }
+}
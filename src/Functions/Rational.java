@@ -10,9 +10,9 @@ import NumberFormats.Numbers;
 
 public class Rational extends Function {
 
-    private Function numerator;
-    private Function denominator;
-    private double coeff;
+    private final Function numerator;
+    private final Function denominator;
+    private final double coeff;
 
     @SuppressWarnings("WeakerAccess")
     public Rational(Function n, Function d) {
@@ -38,22 +38,140 @@ public class Rational extends Function {
         return coeff * numerator.compute(x) / denominator.compute(x);
     }
 
-    public Function differentiate() {
+    public DoubleDouble compute(DoubleDouble x) {
+        return numerator.compute(x).multiply(coeff).divide(denominator
+                .compute(x));
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    public double compute(double[] env) {
+        return coeff * numerator.compute(env) / denominator.compute(env);
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        computeSubFunction(numerator, xs, env, out, n);
+        BatchScratch scratch = BatchScratch.get();
+        double[] denominatorVals = scratch.acquire(n);
+        try {
+            computeSubFunction(denominator, xs, env, denominatorVals, n);
+            for (int i = 0; i < n; i++)
+                out[i] = coeff * out[i] / denominatorVals[i];
+        } finally {
+            scratch.release();
+        }
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        numerator.computeComplex(re, im, outRe, outIm, n);
+        BatchScratch scratch = BatchScratch.get();
+        double[] denominatorRe = scratch.acquire(n);
+        double[] denominatorIm = scratch.acquire(n);
+        try {
+            denominator.computeComplex(re, im, denominatorRe, denominatorIm,
+                    n);
+            Complex.divide(outRe, outIm, denominatorRe, denominatorIm, n);
+        } finally {
+            scratch.release();
+            scratch.release();
+        }
+        Complex.scale(outRe, outIm, coeff, n);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        numerator.computeTaylor(x, out, order);
+        BatchScratch scratch = BatchScratch.get();
+        double[] denominatorVals = scratch.acquire(order + 1);
+        try {
+            denominator.computeTaylor(x, denominatorVals, order);
+            Taylor.divide(out, denominatorVals, out, order);
+        } finally {
+            scratch.release();
+        }
+        Taylor.scale(out, coeff, order);
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        //A denominator which may be 0 gives infinite bounds, which is where
+        //the poles of the function are found
+        return Interval.scale(Interval.divide(numerator.computeInterval(lo,
+                hi), denominator.computeInterval(lo, hi)), coeff);
+    }
+
+    protected Function derive() {
+        //The derivative of a quotient of two polynomials is worked out
+        //directly on their coefficients
+        if (numerator instanceof Polynomial && denominator instanceof
+                Polynomial)
+            return Polynomial.quotientDerivative((Polynomial)numerator,
+                    (Polynomial)denominator, coeff);
+        Function diffNumerator = numerator.differentiate();
+        Function diffDenominator = denominator.differentiate();
+        //A constant denominator only scales the derivative of the numerator
+        if (isZero(diffDenominator)) {
+            if (isZero(diffNumerator)) return diffNumerator;
+            return new Rational(diffNumerator, denominator, coeff);
+        }
         //Uses rational differentiation formula.
         //d/dx(f(x)/g(x))=(f'(x)g(x)-f(x)g'(x))/(g(x))^2
-        return new Rational(new SumFunction(new Function[] {
-                new GeoFunction(numerator.differentiate(), denominator),
-                new GeoFunction(numerator, denominator.differentiate(), -1)
-        }), new Exponential(denominator, 2), coeff);
+        return new Rational(sum(product(1, diffNumerator, denominator),
+                product(-1, numerator, diffDenominator)), new Exponential(
+                denominator, 2), coeff);
+    }
+
+    Function getNumerator() {
+        return numerator;
+    }
+
+    Function getDenominator() {
+        return denominator;
     }
 
     public double getCoeff() {
         return coeff;
     }
 
-    public Function setCoeff(double c) {
-        coeff = c;
-        return this;
+    public Function withCoeff(double c) {
+        return new Rational(numerator, denominator, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Rational) || obj.hashCode() != hashCode())
+            return false;
+        Rational other = (Rational)obj;
+        return Double.compare(coeff, other.coeff) == 0 && numerator.equals(
+                other.numerator) && denominator.equals(other.denominator);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 7;
+        h = 31 * h + Double.hashCode(coeff);
+        h = 31 * h + numerator.hashCode();
+        return 31 * h + denominator.hashCode();
+    }
+
+    Function[] getSubFunctions() {
+        return new Function[]{numerator, denominator};
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new Rational(subFuncs[0], subFuncs[1], coeff);
     }
 
     public String toString() {
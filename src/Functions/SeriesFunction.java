@@ -0,0 +1,543 @@
+//--------------------------SERIES FUNCTION CLASS-----------------------------//
+//@author TitanJack
+//@project MathTools
+//A sum or product of a term over a range of whole numbers, written as
+//<sum(k,1,100,sin(k*x)/k)> or <prod(k,1,10,1-x/k)>. The index <k> has its own
+//slot in the environment (see VariableTable), which is filled in for every
+//term, so the term is parsed once however many terms there are.
+//
+//The terms are added up with a compensated sum, which keeps the rounding
+//error of every addition in a second running total (see
+//DoubleDouble.twoSumError), so that the result of a long series is about as
+//accurate as its largest term. Products keep the rounding error of every
+//multiplication in the same way. Once a range holds enough work, it is split
+//between the threads of a ForkJoin pool, each of which computes the partial
+//sum of a part of the range, and the partial sums are then added up with
+//their errors.
+
+package Functions;
+
+import NumberFormats.Numbers;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class SeriesFunction extends Function {
+
+    //Ranges with more terms give not a number rather than running for ever
+    static final double MAX_TERMS = 1e8;
+    //Ranges are split between threads once computing them takes at least
+    //this many values of the term
+    private static final long PARALLEL_WORK = 1 << 14;
+    //Each task computes at most this many values of the term, unless its
+    //range is down to a single term
+    private static final long TASK_WORK = 1 << 12;
+    //Ranges with at most this many terms have the interval of every term
+    //computed on its own
+    static final int INTERVAL_TERMS = 64;
+    //How often a long scalar sum checks its budget
+    static final int CHECK_MASK = 1023;
+
+    private final boolean product;
+    private final int slot;
+    private final String index;
+    private final Function lower;
+    private final Function upper;
+    private final Function term;
+    private final double coeff;
+    //The terms with the index filled in, built the first time the interval
+    //of a series with number bounds is computed, see <termsOf>
+    private volatile Function[] substituted;
+
+    public SeriesFunction(boolean product, int slot, String index, Function
+            lower, Function upper, Function term) {
+        this(product, slot, index, lower, upper, term, 1);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public SeriesFunction(boolean product, int slot, String index, Function
+            lower, Function upper, Function term, double coeff) {
+        this.product = product;
+        this.slot = slot;
+        this.index = index;
+        this.lower = lower;
+        this.upper = upper;
+        this.term = term;
+        this.coeff = coeff;
+    }
+
+    public double compute(double x) {
+        BatchScratch scratch = BatchScratch.get();
+        double[] row = scratch.acquire(slot + 1);
+        try {
+            Arrays.fill(row, 0, slot + 1, Double.NaN);
+            row[VariableTable.X] = x;
+            return computeRow(row);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    public double compute(double[] env) {
+        //The index is written into a copy, so that <env> is left unchanged
+        //and may be shared between threads
+        BatchScratch scratch = BatchScratch.get();
+        int length = Math.max(env.length, slot + 1);
+        double[] row = scratch.acquire(length);
+        try {
+            System.arraycopy(env, 0, row, 0, env.length);
+            Arrays.fill(row, env.length, length, Double.NaN);
+            return computeRow(row);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    //Function: Compute Row
+    //@param row            the value of every variable, which must have room
+    //                      for the index and may be written to
+    //@return               the value of the series
+    private double computeRow(double[] row) {
+        double first = Math.rint(lower.compute(row));
+        double terms = Math.rint(upper.compute(row)) - first + 1;
+        if (!(terms <= MAX_TERMS)) return Double.NaN;
+        if (terms <= 0) return product ? coeff : 0;
+        if (terms >= PARALLEL_WORK && isParallel()) {
+            //The row becomes a batch of one value, so that the range can be
+            //split between threads
+            double[][] columns = new double[row.length][];
+            for (int s = 0; s < row.length; s++)
+                columns[s] = new double[]{row[s]};
+            double[] out = new double[1];
+            reduce(columns, 1, first, (int)terms, out);
+            return out[0];
+        }
+        double result = product ? 1 : 0, error = 0;
+        for (int j = 0; j < terms; j++) {
+            if ((j & CHECK_MASK) == 0) EvaluationBudget.checkpoint();
+            row[slot] = first + j;
+            double value = term.compute(row);
+            if (product) {
+                double p = result * value;
+                error = error * value + DoubleDouble.twoProductError(result,
+                        value, p);
+                result = p;
+            } else {
+                double s = result + value;
+                error += DoubleDouble.twoSumError(result, value, s);
+                result = s;
+            }
+        }
+        return coeff * finish(result, error);
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        BatchScratch scratch = BatchScratch.get();
+        int length = Math.max(env == null ? 0 : env.length, slot + 1);
+        double[] unknown = scratch.acquire(n);
+        try {
+            //Variables which were not given are unknown
+            Arrays.fill(unknown, 0, n, Double.NaN);
+            double[][] columns = new double[length][];
+            for (int s = 0; s < length; s++)
+                columns[s] = env != null && s < env.length ? env[s] : unknown;
+            if (env == null) columns[VariableTable.X] = xs;
+            if (lower instanceof Constant && upper instanceof Constant) {
+                double first = Math.rint(lower.compute(0));
+                double terms = Math.rint(upper.compute(0)) - first + 1;
+                if (!(terms <= MAX_TERMS)) Arrays.fill(out, 0, n, Double.NaN);
+                else if (terms <= 0)
+                    Arrays.fill(out, 0, n, product ? coeff : 0);
+                else reduce(columns, n, first, (int)terms, out);
+                return;
+            }
+            //Bounds which depend on a variable give every value its own
+            //range of terms
+            double[] row = scratch.acquire(length);
+            try {
+                for (int i = 0; i < n; i++) {
+                    for (int s = 0; s < length; s++) row[s] = columns[s][i];
+                    out[i] = computeRow(row);
+                }
+            } finally {
+                scratch.release();
+            }
+        } finally {
+            scratch.release();
+        }
+    }
+
+    //Function: Reduce
+    //@param env            the columns of every variable, with room for the
+    //                      index
+    //       n              the number of values to be computed
+    //       first          the index of the first term
+    //       terms          the number of terms, at least 1
+    //       out            the array which the results are written into
+    private void reduce(double[][] env, int n, double first, int terms,
+                        double[] out) {
+        if ((long)terms * n >= PARALLEL_WORK && isParallel()) {
+            double[][] partial = ForkJoinPool.commonPool().invoke(new
+                    RangeTask(env, n, first, 0, terms, EvaluationBudget.get()
+                    .remaining(), System.nanoTime()));
+            for (int i = 0; i < n; i++)
+                out[i] = coeff * finish(partial[0][i], partial[1][i]);
+            return;
+        }
+        BatchScratch scratch = BatchScratch.get();
+        double[] error = scratch.acquire(n);
+        try {
+            accumulate(env, n, first, 0, terms, out, error);
+            for (int i = 0; i < n; i++)
+                out[i] = coeff * finish(out[i], error[i]);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    //Function: Accumulate
+    //@param env            the columns of every variable, with room for the
+    //                      index
+    //       n              the number of values to be computed
+    //       first          the index of the first term
+    //       from           the first term to be computed, counted from 0
+    //       to             the term after the last term to be computed
+    //       result         the array which the sums or products are written
+    //                      into
+    //       error          the array which their rounding errors are written
+    //                      into
+    private void accumulate(double[][] env, int n, double first, int from,
+                            int to, double[] result, double[] error) {
+        Arrays.fill(result, 0, n, product ? 1 : 0);
+        Arrays.fill(error, 0, n, 0);
+        BatchScratch scratch = BatchScratch.get();
+        double[] indices = scratch.acquire(n);
+        double[] values = scratch.acquire(n);
+        try {
+            double[][] columns = env.clone();
+            columns[slot] = indices;
+            for (int j = from; j < to; j++) {
+                Arrays.fill(indices, 0, n, first + j);
+                computeSubFunction(term, null, columns, values, n);
+                if (product) {
+                    for (int i = 0; i < n; i++) {
+                        double p = result[i] * values[i];
+                        error[i] = error[i] * values[i] + DoubleDouble
+                                .twoProductError(result[i], values[i], p);
+                        result[i] = p;
+                    }
+                } else {
+                    for (int i = 0; i < n; i++) {
+                        double s = result[i] + values[i];
+                        error[i] += DoubleDouble.twoSumError(result[i],
+                                values[i], s);
+                        result[i] = s;
+                    }
+                }
+            }
+        } finally {
+            scratch.release();
+            scratch.release();
+        }
+    }
+
+    //Function: Finish
+    //@param result         a sum or product
+    //       error          its rounding error
+    //@return               the sum or product with its error added back in.
+    //                      The error is not a number once the result
+    //                      overflows, in which case the result is kept
+    private static double finish(double result, double error) {
+        if (Double.isNaN(error) || Double.isInfinite(result)) return result;
+        return result + error;
+    }
+
+    //Function: Is Parallel
+    //@return               whether there is more than one thread to split a
+    //                      range between
+    private static boolean isParallel() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        Interval from = lower.computeInterval(lo, hi);
+        Interval to = upper.computeInterval(lo, hi);
+        if (from.isEmpty() || to.isEmpty()) return Interval.EMPTY;
+        //The range of terms jumps wherever a bound passes a rounding point
+        double first = Math.rint(from.getLo());
+        double last = Math.rint(to.getLo());
+        if (first != Math.rint(from.getHi()) || last != Math.rint(to.getHi())
+                || !from.isDefined() || !to.isDefined())
+            return Interval.unknown();
+        double terms = last - first + 1;
+        if (!(terms <= MAX_TERMS)) return Interval.EMPTY;
+        if (terms <= 0) return Interval.of(product ? coeff : 0, product ?
+                coeff : 0);
+        Function[] values = termsOf(first, last);
+        Interval result;
+        if (values.length == terms) {
+            result = Interval.of(product ? 1 : 0, product ? 1 : 0);
+            for (Function value : values) {
+                Interval interval = value.computeInterval(lo, hi);
+                result = product ? Interval.multiply(result, interval) :
+                        Interval.add(result, interval);
+            }
+        } else {
+            //Every term lies in the interval of the term over the whole
+            //range of the index
+            Interval interval = values[0].computeInterval(lo, hi);
+            result = product ? Interval.multiplyCopies(interval, (int)terms) :
+                    Interval.scale(interval, terms);
+        }
+        return Interval.scale(result, coeff);
+    }
+
+    protected Function derive() {
+        //The bounds are whole numbers, so they only change where the series
+        //jumps, and the derivative is that of every term
+        Function termDiff = term.differentiate();
+        if (isZero(termDiff)) return termDiff;
+        if (!product)
+            return new SeriesFunction(false, slot, index, lower, upper,
+                    termDiff, coeff);
+        //The product rule, which is computed without dividing by the terms
+        //since any of them may be 0, see ProductDerivative
+        return new ProductDerivative(slot, index, lower, upper, new
+                Function[]{term, termDiff}, coeff);
+    }
+
+    //Function: Terms Of
+    //@param first          the index of the first term
+    //       last           the index of the last term
+    //@return               every term with the index filled in as a number,
+    //                      or for a long range, a single term with the index
+    //                      standing for the whole range, see IndexRange. The
+    //                      terms are kept when both bounds are numbers, since
+    //                      the range is then always the same
+    private Function[] termsOf(double first, double last) {
+        Function[] cached = substituted;
+        if (cached != null) return cached;
+        int count = (int)(last - first + 1);
+        Function[] built;
+        if (count <= INTERVAL_TERMS) {
+            built = new Function[count];
+            for (int j = 0; j < count; j++)
+                built[j] = substitute(term, slot, new Constant(first + j));
+        } else
+            built = new Function[]{substitute(term, slot, new IndexRange(
+                    first, last))};
+        if (lower instanceof Constant && upper instanceof Constant)
+            substituted = built;
+        return built;
+    }
+
+    //Function: Substitute
+    //@param function       a function
+    //       slot           the slot of a variable
+    //       value          the function which takes the place of the
+    //                      variable
+    //@return               the function with every use of the variable
+    //                      replaced by <value> times its coefficient. A sum,
+    //                      product or derivative of a product whose own
+    //                      index is the variable is left as it is
+    static Function substitute(Function function, int slot, Function value) {
+        if (function instanceof Variable)
+            return ((Variable)function).getSlot() == slot ? product(function
+                    .getCoeff(), value) : function;
+        if (function instanceof SeriesFunction && ((SeriesFunction)function)
+                .slot == slot || function instanceof ProductDerivative &&
+                ((ProductDerivative)function).getSlot() == slot)
+            return function;
+        Function[] subFuncs = function.getSubFunctions();
+        if (subFuncs.length == 0) return function;
+        boolean changed = false;
+        for (int i = 0; i < subFuncs.length; i++) {
+            Function replaced = substitute(subFuncs[i], slot, value);
+            if (replaced != subFuncs[i]) {
+                subFuncs[i] = replaced;
+                changed = true;
+            }
+        }
+        return changed ? function.withSubFunctions(subFuncs) : function;
+    }
+
+    //Function: Is Product
+    //@return               whether the terms are multiplied rather than added
+    boolean isProduct() {
+        return product;
+    }
+
+    public double getCoeff() {
+        return coeff;
+    }
+
+    public Function withCoeff(double c) {
+        return new SeriesFunction(product, slot, index, lower, upper, term, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof SeriesFunction) || obj.hashCode() != hashCode())
+            return false;
+        SeriesFunction other = (SeriesFunction)obj;
+        return product == other.product && slot == other.slot && index
+                .equals(other.index) && Double.compare(coeff, other.coeff) ==
+                0 && lower.equals(other.lower) && upper.equals(other.upper) &&
+                term.equals(other.term);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = product ? 29 : 31;
+        h = 31 * h + slot;
+        h = 31 * h + Double.hashCode(coeff);
+        h = 31 * h + lower.hashCode();
+        h = 31 * h + upper.hashCode();
+        return 31 * h + term.hashCode();
+    }
+
+    Function[] getSubFunctions() {
+        return new Function[]{lower, upper, term};
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new SeriesFunction(product, slot, index, subFuncs[0],
+                subFuncs[1], subFuncs[2], coeff);
+    }
+
+    public String toString() {
+        String funcStr = (product ? "prod(" : "sum(") + index + "," + lower
+                .toString() + "," + upper.toString() + "," + term.toString() +
+                ")";
+        if (coeff == -1) funcStr = "-" + funcStr;
+        else if (coeff != 1) funcStr = Numbers.formatNum(coeff) + funcStr;
+        return funcStr;
+    }
+
+    //Computes the partial sums or products of a part of a range, splitting
+    //it in half until it is small enough. The result holds the partial sums
+    //followed by their rounding errors
+    @SuppressWarnings("serial")
+    private class RangeTask extends RecursiveTask<double[][]> {
+
+        private final double[][] env;
+        private final int n;
+        private final double first;
+        private final int from;
+        private final int to;
+        //The budget of the thread which started the work, and when it did
+        private final long budget;
+        private final long start;
+
+        RangeTask(double[][] env, int n, double first, int from, int to,
+                  long budget, long start) {
+            this.env = env;
+            this.n = n;
+            this.first = first;
+            this.from = from;
+            this.to = to;
+            this.budget = budget;
+            this.start = start;
+        }
+
+        @Override
+        protected double[][] compute() {
+            if ((long)(to - from) * n <= TASK_WORK || to - from == 1)
+                return computeRange();
+            int middle = (from + to) >>> 1;
+            RangeTask left = new RangeTask(env, n, first, from, middle,
+                    budget, start);
+            RangeTask right = new RangeTask(env, n, first, middle, to,
+                    budget, start);
+            invokeAll(left, right);
+            double[][] a = left.join(), b = right.join();
+            double[] result = a[0], error = a[1];
+            for (int i = 0; i < n; i++) {
+                double x = result[i], y = b[0][i];
+                if (product) {
+                    double p = x * y;
+                    error[i] = DoubleDouble.twoProductError(x, y, p) + x *
+                            b[1][i] + error[i] * y;
+                    result[i] = p;
+                } else {
+                    double s = x + y;
+                    error[i] += b[1][i] + DoubleDouble.twoSumError(x, y, s);
+                    result[i] = s;
+                }
+            }
+            return a;
+        }
+
+        //Function: Compute Range
+        //@return               the partial sums or products of the range and
+        //                      their rounding errors
+        private double[][] computeRange() {
+            double[][] partial = new double[2][n];
+            EvaluationBudget evaluationBudget = EvaluationBudget.get();
+            boolean limited = budget != Long.MAX_VALUE;
+            if (limited)
+                evaluationBudget.begin(budget - (System.nanoTime() - start));
+            try {
+                accumulate(env, n, first, from, to, partial[0], partial[1]);
+            } finally {
+                if (limited) evaluationBudget.end();
+            }
+            return partial;
+        }
+    }
+
+    //Stands for every value of the index of a long range at once, so that a
+    //single interval of the term holds the intervals of all of its terms.
+    //It only has an interval, and no value
+    private static class IndexRange extends Function {
+
+        private final double first;
+        private final double last;
+
+        IndexRange(double first, double last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        public double compute(double x) {
+            return Double.NaN;
+        }
+
+        public Interval computeInterval(double lo, double hi) {
+            return Interval.of(first, last);
+        }
+
+        protected Function derive() {
+            return new Constant(0);
+        }
+
+        public double getCoeff() {
+            return 1;
+        }
+
+        public Function withCoeff(double c) {
+            return new IndexRange(c * first, c * last);
+        }
+
+        public String toString() {
+            return "[" + Numbers.formatNum(first) + ".." + Numbers.formatNum(
+                    last) + "]";
+        }
+    }
+}
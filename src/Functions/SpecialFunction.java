@@ -0,0 +1,597 @@
+//--------------------------SPECIAL FUNCTION CLASS----------------------------//
+//@author TitanJack
+//@project MathTools
+//The special functions of statistics and physics, which have no closed form
+//in terms of the other functions: the gamma function, its log and its log
+//derivatives (polygamma), the error function and its complement, the Bessel
+//functions J0 and J1, and the pdf and cdf of the standard normal
+//distribution.
+//
+//Each is computed by a short polynomial after reducing its argument to a
+//small range, the way FastMath computes the elementary functions:
+//  gamma, lgamma   the Lanczos approximation with g=7 and 9 terms below 10,
+//                  the Stirling series above, and the reflection formula
+//                  for x<1/2
+//  polygamma       the recurrence psi(x)=psi(x+1)-1/x up to x>=10, then the
+//                  asymptotic series. The reflection formula for x<0
+//  erf, erfc       the Maclaurin series for |x|<1/2, otherwise a Chebyshev
+//                  series for log(erfc(x)/t)+x^2 in t=2/(2+x)
+//  J0, J1          a Chebyshev series in x^2 for |x|<20, otherwise the
+//                  Hankel asymptotic series
+//Every kernel is within a few times 1e-15 of the true value, relative to the
+//value for gamma, erf, erfc and the normal distribution and relative to the
+//larger of 1 and the value for the others, see Interval.SPECIAL_ERROR.
+
+package Functions;
+
+public class SpecialFunction extends Function {
+
+    private static final double SQRT_2PI = Math.sqrt(2 * Math.PI);
+    private static final double LOG_SQRT_2PI = Math.log(SQRT_2PI);
+    private static final double SQRT1_2 = Math.sqrt(0.5);
+
+    //Lanczos approximation, g=7
+    private static final double LANCZOS_G = 7;
+    private static final double[] LANCZOS = {0.99999999999980993,
+            676.5203681218851, -1259.1392167224028, 771.32342877765313,
+            -176.61502916214059, 12.507343278686905, -0.13857109526572012,
+            9.9843695780195716e-6, 1.5056327351493116e-7};
+
+    //Gamma and lgamma use the Stirling series from here on. The Lanczos
+    //approximation loses a few digits as x grows
+    private static final double STIRLING_LIMIT = 10;
+
+    //Bernoulli numbers B2, B4, ..., B20 of the Stirling and polygamma series
+    private static final double[] BERNOULLI = {1.0 / 6, -1.0 / 30, 1.0 / 42,
+            -1.0 / 30, 5.0 / 66, -691.0 / 2730, 7.0 / 6, -3617.0 / 510,
+            43867.0 / 798, -174611.0 / 330};
+    //Polygamma is computed from its series once x is at least this plus the
+    //order
+    private static final double POLYGAMMA_SHIFT = 10;
+
+    //erf(x)/x as a series in x^2, 2/sqrt(pi)*(-1)^n/(n!(2n+1))
+    private static final double[] ERF_SERIES = {1.1283791670955126,
+            -0.37612638903183754, 0.11283791670955126, -0.026866170645131252,
+            0.005223977625442188, -0.0008548327023450853,
+            0.00012055332981789664, -1.492565035840625e-05,
+            1.6462114365889248e-06, -1.6365844691234924e-07,
+            1.4807192815879218e-08, -1.2290555301717928e-09,
+            9.422759064650411e-11};
+    //Chebyshev coefficients of log(erfc(x)/t)+x^2 in 2t-1, t=2/(2+x)
+    private static final double[] ERFC_CHEBYSHEV = {-1.3026537197817094,
+            0.6419697923564902, 0.019476473204185836, -0.009561514786808632,
+            -0.0009465953444820369, 0.00036683949785276145,
+            4.252332480690777e-05, -2.0278578112534242e-05,
+            -1.6242900046470256e-06, 1.3036558355805232e-06,
+            1.5626441722066142e-08, -8.523809591492654e-08,
+            6.5290544390988515e-09, 5.059343495551469e-09,
+            -9.91364156493033e-10, -2.273651222931836e-10,
+            9.646791102015527e-11, 2.3940380830391146e-12,
+            -6.886027526497553e-12, 8.944879273090725e-13,
+            3.130921399342958e-13, -1.1270822361367252e-13,
+            3.810905255189232e-16, 7.106097613609237e-15,
+            -1.5230282014571043e-15, -9.457494571291233e-17,
+            1.210237189224279e-16, -2.816663087747177e-17};
+    //erfc(x) is 0 as a double above this
+    private static final double ERFC_LIMIT = 27.3;
+
+    //The Bessel functions use their Chebyshev series below this
+    private static final double BESSEL_LIMIT = 20;
+    //Chebyshev coefficients of J0(x) and J1(x)/x in 2(x/20)^2-1
+    private static final double[] J0_CHEBYSHEV = {0.12096880047253818,
+            -0.0037797593189245133, 0.12967319329476584,
+            -0.006816303856117749, 0.09645067948643458, -0.10956959795427439,
+            0.00041811622886550576, -0.09392724368779434, 0.20206249190334175,
+            -0.17035948204314563, 0.08610096889173913, -0.030315358934336366,
+            0.008031578429965167, -0.0016787632941203934,
+            0.00028594750547035827, -4.064364372902416e-05,
+            4.9094499284617065e-06, -5.113571091964883e-07,
+            4.647742267664079e-08, -3.723202528453144e-09,
+            2.6511534287299047e-10, -1.6903617478257272e-11,
+            9.71251446839621e-13, -5.057598494078146e-14,
+            2.3988380744143044e-15, -1.0410191609141828e-16};
+    private static final double[] J1_CHEBYSHEV = {0.06237427989573135,
+            -0.06451258050809902, 0.06229868470935286,
+            -0.059325652776308385, 0.06188970647798579, -0.05160959841739362,
+            0.05093274668255835, -0.05155942446992976, 0.03778293256626714,
+            -0.01922942576539508, 0.007118225798500934,
+            -0.0020092319870472527, 0.00044884683294693357,
+            -8.165316385561304e-05, 1.2368376475631291e-05,
+            -1.587862323912726e-06, 1.752833569240456e-07,
+            -1.6838346804979852e-08, 1.4219397972395784e-09,
+            -1.0647464138916779e-10, 7.1228364273836125e-12,
+            -4.2850423997159877e-13, 2.331708651555845e-14,
+            -1.1536033621655995e-15, 5.2133442798978485e-17};
+    //The P and Q series of the Hankel expansion of J0 and J1 in 1/x^2
+    private static final int HANKEL_TERMS = 10;
+    private static final double[][] J0_HANKEL = hankel(0);
+    private static final double[][] J1_HANKEL = hankel(1);
+
+    private final SpecialType type;
+    //The order of the derivative of digamma, 0 for every other type
+    private final int order;
+    private final Function subFunc;
+    private final double coeff;
+
+    public SpecialFunction(SpecialType type, Function subFunc) {
+        this(type, subFunc, 1);
+    }
+
+    public SpecialFunction(SpecialType type, Function subFunc, double coeff) {
+        this(type, 0, subFunc, coeff);
+    }
+
+    SpecialFunction(SpecialType type, int order, Function subFunc,
+                    double coeff) {
+        this.type = type;
+        this.order = order;
+        this.subFunc = subFunc;
+        this.coeff = coeff;
+    }
+
+    public double compute(double x) {
+        return coeff * compute(type, order, subFunc.compute(x));
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        return DoubleDouble.of(compute(type, order, subFunc.compute(x)
+                .doubleValue())).multiply(coeff);
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    public double compute(double[] env) {
+        return coeff * compute(type, order, subFunc.compute(env));
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        computeSubFunction(subFunc, xs, env, out, n);
+        computeAll(type, order, out, n);
+        if (coeff != 1)
+            for (int i = 0; i < n; i++) out[i] *= coeff;
+    }
+
+    //Function: Compute
+    //@param type           the type of special function
+    //       order          the order of the derivative of digamma
+    //       y              the value inside of the special function
+    //@return               the special function of <y>
+    static double compute(SpecialType type, int order, double y) {
+        switch (type) {
+            case GAMMA: return gamma(y);
+            case LGAMMA: return lgamma(y);
+            case DIGAMMA: return polygamma(order, y);
+            case ERF: return erf(y);
+            case ERFC: return erfc(y);
+            case J0: return j0(y);
+            case J1: return j1(y);
+            case NORMPDF: return expMinusSquare(y, 0.5) / SQRT_2PI;
+            case NORMCDF: return normcdf(y);
+            default: return Double.NaN;
+        }
+    }
+
+    //Function: Compute All
+    //@param type           the type of special function
+    //       order          the order of the derivative of digamma
+    //       out            the values inside of the special function, which
+    //                      get replaced by the results
+    //       n              the number of values to be computed
+    static void computeAll(SpecialType type, int order, double[] out, int n) {
+        //The type is only looked up once for the whole array
+        switch (type) {
+            case GAMMA: for (int i = 0; i < n; i++) out[i] = gamma(out[i]);
+                break;
+            case LGAMMA: for (int i = 0; i < n; i++) out[i] = lgamma(out[i]);
+                break;
+            case DIGAMMA:
+                for (int i = 0; i < n; i++) out[i] = polygamma(order, out[i]);
+                break;
+            case ERF: for (int i = 0; i < n; i++) out[i] = erf(out[i]);
+                break;
+            case ERFC: for (int i = 0; i < n; i++) out[i] = erfc(out[i]);
+                break;
+            case J0: for (int i = 0; i < n; i++) out[i] = j0(out[i]);
+                break;
+            case J1: for (int i = 0; i < n; i++) out[i] = j1(out[i]);
+                break;
+            case NORMPDF:
+                for (int i = 0; i < n; i++)
+                    out[i] = expMinusSquare(out[i], 0.5) / SQRT_2PI;
+                break;
+            case NORMCDF: for (int i = 0; i < n; i++) out[i] = normcdf(out[i]);
+                break;
+        }
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        return Interval.scale(Interval.special(type, order, subFunc
+                .computeInterval(lo, hi)), coeff);
+    }
+
+    protected Function derive() {
+        Function diff = null;
+        switch (type) {
+            //d/dx(gamma(x))=gamma(x)digamma(x)
+            case GAMMA: diff = product(1, new SpecialFunction(type, subFunc),
+                    new SpecialFunction(SpecialType.DIGAMMA, subFunc));
+                break;
+            case LGAMMA: diff = new SpecialFunction(SpecialType.DIGAMMA,
+                    subFunc);
+                break;
+            case DIGAMMA: diff = new SpecialFunction(type, order + 1, subFunc,
+                    1);
+                break;
+            //d/dx(erf(x))=2/sqrt(pi)*e^(-x^2)
+            case ERF: case ERFC: diff = new Exponential(new MathConstant(
+                    ConstantType.E), new Exponential(subFunc, 2, -1), (type ==
+                    SpecialType.ERF ? 2 : -2) / Math.sqrt(Math.PI));
+                break;
+            case J0: diff = new SpecialFunction(SpecialType.J1, subFunc, -1);
+                break;
+            //d/dx(J1(x))=J0(x)-J1(x)/x, which is not a number at 0
+            case J1: diff = sum(new SpecialFunction(SpecialType.J0, subFunc),
+                    new Rational(new SpecialFunction(type, subFunc), subFunc,
+                    -1));
+                break;
+            case NORMPDF: diff = product(-1, subFunc, new SpecialFunction(type,
+                    subFunc));
+                break;
+            case NORMCDF: diff = new SpecialFunction(SpecialType.NORMPDF,
+                    subFunc);
+                break;
+        }
+        return product(coeff, diff, subFunc.differentiate());
+    }
+
+    //------------------------------KERNELS-----------------------------------//
+    //FUNCTION LIST:
+    //private static double gamma(double x)
+    //private static double lgamma(double x)
+    //private static double lanczosSum(double x)
+    //private static double stirlingSum(double x)
+    //private static double polygamma(int n, double x)
+    //private static double cotDerivative(int n, double c)
+    //private static double erf(double x)
+    //private static double erfc(double x)
+    //private static double normcdf(double x)
+    //private static double erfcTail(double z, double x, double k)
+    //private static double expMinusSquare(double x, double k)
+    //private static double j0(double x)
+    //private static double j1(double x)
+    //private static double[][] hankel(int nu)
+    //private static double chebyshev(double[] c, double u)
+    //private static double series(double[] c, double y)
+    //private static double sinPi(double x)
+
+    //Function: Gamma
+    //@return               the gamma function of <x>, not a number at 0 and
+    //                      the negative whole numbers
+    private static double gamma(double x) {
+        if (x < 0.5) {
+            //gamma(x)gamma(1-x)=pi/sin(pi*x)
+            if (x == Math.rint(x)) return Double.NaN;
+            return Math.PI / (sinPi(x) * gamma(1 - x));
+        }
+        if (x > 172) return Double.POSITIVE_INFINITY;
+        if (x >= STIRLING_LIMIT) {
+            //x^(x-1/2)e^(-x) is computed in two halves so that it does not
+            //overflow before the result does
+            double half = Math.pow(x, 0.5 * (x - 0.5)) * Math.exp(-0.5 * x);
+            return SQRT_2PI * half * half * Math.exp(stirlingSum(x));
+        }
+        x -= 1;
+        double t = x + LANCZOS_G + 0.5;
+        return SQRT_2PI * lanczosSum(x) * Math.pow(t, x + 0.5) * Math.exp(-t);
+    }
+
+    //Function: LGamma
+    //@return               the natural log of the absolute value of the gamma
+    //                      function of <x>, infinite at 0 and the negative
+    //                      whole numbers
+    private static double lgamma(double x) {
+        if (x < 0.5) {
+            if (x == Math.rint(x)) return Double.POSITIVE_INFINITY;
+            return Math.log(Math.PI / Math.abs(sinPi(x))) - lgamma(1 - x);
+        }
+        if (x == Double.POSITIVE_INFINITY) return x;
+        if (x >= STIRLING_LIMIT)
+            return (x - 0.5) * Math.log(x) - x + LOG_SQRT_2PI + stirlingSum(x);
+        x -= 1;
+        double t = x + LANCZOS_G + 0.5;
+        return LOG_SQRT_2PI + (x + 0.5) * Math.log(t) - t + Math.log(
+                lanczosSum(x));
+    }
+
+    //Function: Lanczos Sum
+    //@return               the sum of the Lanczos series at <x>
+    private static double lanczosSum(double x) {
+        double sum = LANCZOS[0];
+        for (int i = 1; i < LANCZOS.length; i++) sum += LANCZOS[i] / (x + i);
+        return sum;
+    }
+
+    //Function: Stirling Sum
+    //@return               the sum of the Stirling series at <x>, the log of
+    //                      gamma(x) less (x-1/2)log(x)-x+log(sqrt(2pi))
+    private static double stirlingSum(double x) {
+        double y = 1 / (x * x), sum = 0;
+        for (int k = BERNOULLI.length; k >= 1; k--)
+            sum = sum * y + BERNOULLI[k - 1] / (2 * k * (2 * k - 1));
+        return sum / x;
+    }
+
+    //Function: Polygamma
+    //@param n              the order of the derivative, 0 for digamma
+    //@return               the <n>-th derivative of digamma at <x>, not a
+    //                      number at 0 and the negative whole numbers
+    private static double polygamma(int n, double x) {
+        if (x <= 0 && x == Math.rint(x)) return Double.NaN;
+        if (x < 0) {
+            //Differentiating psi(1-x)-psi(x)=pi*cot(pi*x) n times
+            double cot = 1 / Math.tan(Math.PI * (x - Math.rint(x)));
+            return (n % 2 == 0 ? 1 : -1) * polygamma(n, 1 - x) - Math.pow(
+                    Math.PI, n + 1) * cotDerivative(n, cot);
+        }
+        double factorial = 1;
+        for (int k = 2; k <= n; k++) factorial *= k;
+        //psi(x)=psi(x+1)-(-1)^n*n!/x^(n+1)
+        double shifted = 0;
+        for (; x < POLYGAMMA_SHIFT + n; x++)
+            shifted += n == 0 ? 1 / x : 1 / Math.pow(x, n + 1);
+        shifted *= n % 2 == 0 ? factorial : -factorial;
+        double y = 1 / (x * x);
+        if (n == 0) {
+            //log(x)-1/(2x)-sum of B2k/(2k*x^2k)
+            double sum = 0;
+            for (int k = BERNOULLI.length; k >= 1; k--)
+                sum = (sum + BERNOULLI[k - 1] / (2 * k)) * y;
+            return Math.log(x) - 0.5 / x - sum - shifted;
+        }
+        //(-1)^(n+1)((n-1)!/x^n+n!/(2x^(n+1))+sum of B2k(2k+n-1)!/((2k)!
+        //x^(2k+n)))
+        double sum = 0, power = y;
+        double ratio = factorial * (n + 1) / 2;
+        for (int k = 1; k <= BERNOULLI.length; k++) {
+            sum += BERNOULLI[k - 1] * ratio * power;
+            power *= y;
+            ratio *= (double)(2 * k + n) * (2 * k + n + 1) / ((2 * k + 1) *
+                    (2 * k + 2));
+        }
+        double series = (factorial / n + factorial / (2 * x) + sum) / Math.pow(
+                x, n);
+        return (n % 2 == 0 ? -series : series) - shifted;
+    }
+
+    //Function: Cot Derivative
+    //@param n              the order of the derivative
+    //       c              the cotangent of an angle
+    //@return               the <n>-th derivative of cot at the angle, which
+    //                      is a polynomial in <c> found from
+    //                      P(k+1)=-(1+c^2)P'(k), P(0)=c
+    private static double cotDerivative(int n, double c) {
+        if (n == 0) return c;
+        double[] p = new double[n + 2];
+        p[1] = 1;
+        for (int k = 0; k < n; k++) {
+            //The coefficients of P'(k) are moved down one place, then the
+            //product with -(1+c^2) is built from the top down
+            for (int j = 0; j <= k + 1; j++) p[j] = (j + 1) * p[j + 1];
+            for (int j = k + 2; j >= 0; j--)
+                p[j] = -(p[j] + (j >= 2 ? p[j - 2] : 0));
+        }
+        double result = 0;
+        for (int j = n + 1; j >= 0; j--) result = result * c + p[j];
+        return result;
+    }
+
+    //Function: Erf
+    //@return               the error function of <x>
+    private static double erf(double x) {
+        if (Math.abs(x) < 0.5) return x * series(ERF_SERIES, x * x);
+        double tail = x > ERFC_LIMIT || x < -ERFC_LIMIT ? 0 : erfcTail(Math
+                .abs(x), x, 1);
+        return Math.copySign(1 - tail, x);
+    }
+
+    //Function: Erfc
+    //@return               the complementary error function of <x>, 1-erf(x)
+    private static double erfc(double x) {
+        if (Math.abs(x) < 0.5) return 1 - erf(x);
+        if (x < 0) return x < -ERFC_LIMIT ? 2 : 2 - erfcTail(-x, x, 1);
+        return x > ERFC_LIMIT ? 0 : erfcTail(x, x, 1);
+    }
+
+    //Function: Normcdf
+    //@return               the cumulative distribution function of the
+    //                      standard normal distribution at <x>,
+    //                      erfc(-x/sqrt(2))/2
+    private static double normcdf(double x) {
+        double z = x * SQRT1_2;
+        if (Math.abs(z) < 0.5) return 0.5 + 0.5 * erf(z);
+        //x^2/2 is passed on rather than z^2, which has a rounding error
+        //that grows with x
+        if (z > 0) return z > ERFC_LIMIT ? 1 : 1 - 0.5 * erfcTail(z, x, 0.5);
+        return z < -ERFC_LIMIT ? 0 : 0.5 * erfcTail(-z, x, 0.5);
+    }
+
+    //Function: Erfc Tail
+    //@param z              a value of at least 1/2
+    //       x              a value with x^2*k=z^2
+    //       k              1 or 1/2
+    //@return               erfc(<z>)
+    private static double erfcTail(double z, double x, double k) {
+        double t = 2 / (2 + z);
+        double log = chebyshev(ERFC_CHEBYSHEV, 2 * t - 1);
+        //x^2 is split so that e^(-x^2) keeps all of its digits, see
+        //expMinusSquare
+        double hi = (float)x;
+        return t * Math.exp(-k * hi * hi) * Math.exp(log - k * (x - hi) * (x +
+                hi));
+    }
+
+    //Function: Exp Minus Square
+    //@param k              1 or 1/2
+    //@return               e^(-<k>*<x>^2). x^2 rounds off digits which
+    //                      e^(-x^2) magnifies by x^2, so <x> is split into
+    //                      its first 24 bits, whose square is exact, and the
+    //                      rest
+    private static double expMinusSquare(double x, double k) {
+        if (Math.abs(x) > 1e3) return Double.isNaN(x) ? x : 0;
+        double hi = (float)x;
+        return Math.exp(-k * hi * hi) * Math.exp(-k * (x - hi) * (x + hi));
+    }
+
+    //Function: J0
+    //@return               the Bessel function of the first kind of order 0
+    //                      at <x>
+    private static double j0(double x) {
+        x = Math.abs(x);
+        if (x < BESSEL_LIMIT) return chebyshev(J0_CHEBYSHEV, x * x / (0.5 *
+                BESSEL_LIMIT * BESSEL_LIMIT) - 1);
+        if (Double.isInfinite(x)) return 0;
+        //sqrt(2/(pi*x))(P*cos(x-pi/4)-Q*sin(x-pi/4))
+        double y = 1 / (x * x);
+        double p = series(J0_HANKEL[0], y), q = series(J0_HANKEL[1], y) / x;
+        double sin = Math.sin(x), cos = Math.cos(x);
+        return Math.sqrt(1 / (Math.PI * x)) * (p * (cos + sin) - q * (sin -
+                cos));
+    }
+
+    //Function: J1
+    //@return               the Bessel function of the first kind of order 1
+    //                      at <x>
+    private static double j1(double x) {
+        double abs = Math.abs(x);
+        if (abs < BESSEL_LIMIT) return x * chebyshev(J1_CHEBYSHEV, x * x /
+                (0.5 * BESSEL_LIMIT * BESSEL_LIMIT) - 1);
+        if (Double.isInfinite(x)) return 0;
+        //sqrt(2/(pi*x))(P*cos(x-3pi/4)-Q*sin(x-3pi/4))
+        double y = 1 / (abs * abs);
+        double p = series(J1_HANKEL[0], y), q = series(J1_HANKEL[1], y) / abs;
+        double sin = Math.sin(abs), cos = Math.cos(abs);
+        double j1 = Math.sqrt(1 / (Math.PI * abs)) * (p * (sin - cos) + q *
+                (sin + cos));
+        return x < 0 ? -j1 : j1;
+    }
+
+    //Function: Hankel
+    //@param nu             the order of the Bessel function
+    //@return               the coefficients of P and Q in the Hankel
+    //                      expansion, as series in 1/x^2. The k-th term of
+    //                      the expansion is (4nu^2-1^2)...(4nu^2-(2k-1)^2)/
+    //                      (k!8^k) over x^k, and P and Q hold the even and
+    //                      odd terms with alternating signs
+    private static double[][] hankel(int nu) {
+        double[][] series = new double[2][HANKEL_TERMS];
+        double term = 1;
+        for (int k = 0; k < 2 * HANKEL_TERMS; k++) {
+            series[k % 2][k / 2] = (k / 2) % 2 == 0 ? term : -term;
+            term *= (4.0 * nu * nu - (2 * k + 1) * (2 * k + 1)) / (8 * (k +
+                    1));
+        }
+        return series;
+    }
+
+    //Function: Chebyshev
+    //@param c              Chebyshev coefficients, of which the first counts
+    //                      half
+    //       u              a value from -1 to 1
+    //@return               the Chebyshev series at <u>, by Clenshaw's method
+    private static double chebyshev(double[] c, double u) {
+        double b1 = 0, b2 = 0;
+        for (int j = c.length - 1; j > 0; j--) {
+            double b = 2 * u * b1 - b2 + c[j];
+            b2 = b1;
+            b1 = b;
+        }
+        return u * b1 - b2 + 0.5 * c[0];
+    }
+
+    //Function: Series
+    //@param c              the coefficients of a power series
+    //       y              the value of the variable
+    //@return               the series at <y>, by Horner's method
+    private static double series(double[] c, double y) {
+        double sum = 0;
+        for (int k = c.length - 1; k >= 0; k--) sum = sum * y + c[k];
+        return sum;
+    }
+
+    //Function: Sin Pi
+    //@return               sin(pi*<x>), which is exactly 0 at the whole
+    //                      numbers. <x> is reduced before it is multiplied
+    //                      by pi, so that large values keep their digits
+    private static double sinPi(double x) {
+        if (Double.isInfinite(x)) return Double.NaN;
+        //Doubles this large are all even whole numbers
+        if (Math.abs(x) >= 0x1p53) return 0;
+        double k = Math.rint(x);
+        double sin = Math.sin(Math.PI * (x - k));
+        return ((long)k & 1) == 0 ? sin : -sin;
+    }
+
+    SpecialType getType() {
+        return type;
+    }
+
+    Function getSubFunc() {
+        return subFunc;
+    }
+
+    public double getCoeff() {
+        return coeff;
+    }
+
+    public Function withCoeff(double c) {
+        return new SpecialFunction(type, order, subFunc, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof SpecialFunction) || obj.hashCode() != hashCode())
+            return false;
+        SpecialFunction other = (SpecialFunction)obj;
+        return type == other.type && order == other.order && Double.compare(
+                coeff, other.coeff) == 0 && subFunc.equals(other.subFunc);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 23 + type.ordinal();
+        h = 31 * h + order;
+        h = 31 * h + Double.hashCode(coeff);
+        return 31 * h + subFunc.hashCode();
+    }
+
+    Function[] getSubFunctions() {
+        return new Function[]{subFunc};
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new SpecialFunction(type, order, subFuncs[0], coeff);
+    }
+
+    public String toString() {
+        //Derivatives of digamma are written with primes, eg. digamma''(x)
+        StringBuilder name = new StringBuilder(type.toString());
+        for (int k = 0; k < order; k++) name.append('\'');
+        String funcStr = name + "(" + subFunc.toString() + ")";
+        if (coeff == -1) funcStr = "-" + funcStr;
+        else if (coeff != 1) funcStr = coeff + funcStr;
+        return funcStr;
+    }
+}
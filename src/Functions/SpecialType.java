@@ -0,0 +1,46 @@
+//----------------------------SPECIAL TYPE ENUM-------------------------------//
+//@author TitanJack
+//@project MathTools
+//Every type of special function which can be computed, see SpecialFunction.
+//Like TrigType, the type is looked up from its name once when the expression
+//is parsed.
+
+package Functions;
+
+import java.util.HashMap;
+
+public enum SpecialType {
+
+    GAMMA("gamma"), LGAMMA("lgamma"), DIGAMMA("digamma"), ERF("erf"),
+    ERFC("erfc"), J0("j0"), J1("j1"), NORMPDF("normpdf"),
+    NORMCDF("normcdf");
+
+    private static final HashMap<String, SpecialType> BY_NAME =
+            new HashMap<>();
+    static {
+        for (SpecialType type : values()) BY_NAME.put(type.name, type);
+    }
+
+    private final String name;
+
+    SpecialType(String name) {
+        this.name = name;
+    }
+
+    //Function: Of
+    //@param name           the name of a special function, eg. "erf"
+    //@return               the type with that name, or null if there is none
+    public static SpecialType of(String name) {
+        return BY_NAME.get(name);
+    }
+
+    //Function: Get Name
+    //@return               the name of the function as it is written
+    public String getName() {
+        return name;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
@@ -8,13 +8,14 @@ package Functions;
 
 import NumberFormats.Numbers;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class SumFunction extends Function {
 
-    private Function[] sumArr;
-    private double coeff;
+    private final Function[] sumArr;
+    private final double coeff;
 
     @SuppressWarnings("WeakerAccess")
     public SumFunction(Function[] sumArr) {
@@ -25,24 +26,15 @@ public class SumFunction extends Function {
     public SumFunction(Function[] sumArr, double coeff) {
         //To push all functions in sumArr into a hash map so that duplicate
         //functions can get stacked. Individual numbers being added are
-        //recorded separately using variable constant.
-        int constant = 0;
-        HashMap<Function, Integer> subFuncs = new HashMap<>();
+        //recorded separately using variable constant. Functions are matched
+        //by their structural equals and hashCode, and the terms keep the
+        //order they were given in.
+        double constant = 0;
+        LinkedHashMap<Function, Integer> subFuncs = new LinkedHashMap<>();
         for (int i = 0; i < sumArr.length; i++) {
             if (sumArr[i] instanceof Constant)
                 constant += sumArr[i].compute(0);
-            else {
-                boolean isMatched = false;
-                for (Map.Entry subFunc : subFuncs.entrySet()) {
-                    if (!isMatched && subFunc.getKey().toString().equals
-                            (sumArr[i].toString())) {
-                        subFuncs.put((Function)subFunc.getKey(),
-                                (int)subFunc.getValue() + 1);
-                        isMatched = true;
-                    }
-                }
-                if (!isMatched) subFuncs.put(sumArr[i], 1);
-            }
+            else subFuncs.merge(sumArr[i], 1, Integer::sum);
         }
 
         //If constant = 0, it means there are no constants to be included in
@@ -50,13 +42,13 @@ public class SumFunction extends Function {
         this.sumArr = new Function[constant == 0 ? subFuncs.size() :
                 subFuncs.size() + 1];
         int count = 0;
-        for (Map.Entry subFunc : subFuncs.entrySet()) {
-            if ((int)subFunc.getValue() == 1)
-                this.sumArr[count] = (Function)subFunc.getKey();
+        for (Map.Entry<Function, Integer> subFunc : subFuncs.entrySet()) {
+            if (subFunc.getValue() == 1)
+                this.sumArr[count] = subFunc.getKey();
             //The expression <x+x> is converted into <2x>. Unfortunately,
             //expressions such as <2x+3x> will not get combined
-            else this.sumArr[count] = new GeoFunction((int)subFunc.getValue(),
-                    (Function)subFunc.getKey());
+            else this.sumArr[count] = new GeoFunction(subFunc.getValue(),
+                    subFunc.getKey());
             count++;
         }
         if (constant != 0) this.sumArr[this.sumArr.length - 1] = new Constant
@@ -64,27 +56,158 @@ public class SumFunction extends Function {
         this.coeff = coeff;
     }
 
+    //A copy of <sum> with a different coefficient, which keeps the terms
+    //as they are instead of combining them again
+    private SumFunction(SumFunction sum, double coeff) {
+        sumArr = sum.sumArr;
+        this.coeff = coeff;
+    }
+
     public double compute(double x) {
         double result = 0;
         for (Function function : sumArr) result += function.compute(x);
         return coeff * result;
     }
 
-    public Function differentiate() {
+    public DoubleDouble compute(DoubleDouble x) {
+        DoubleDouble result = DoubleDouble.ZERO;
+        for (Function function : sumArr)
+            result = result.add(function.compute(x));
+        return result.multiply(coeff);
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    public double compute(double[] env) {
+        double result = 0;
+        for (Function function : sumArr) result += function.compute(env);
+        return coeff * result;
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        if (sumArr.length == 0) {
+            Arrays.fill(out, 0, n, 0);
+            return;
+        }
+        computeSubFunction(sumArr[0], xs, env, out, n);
+        if (sumArr.length > 1) {
+            //Each remaining term is computed into a scratch array and then
+            //added onto the running total
+            BatchScratch scratch = BatchScratch.get();
+            double[] term = scratch.acquire(n);
+            try {
+                for (int j = 1; j < sumArr.length; j++) {
+                    computeSubFunction(sumArr[j], xs, env, term, n);
+                    for (int i = 0; i < n; i++) out[i] += term[i];
+                }
+            } finally {
+                scratch.release();
+            }
+        }
+        if (coeff != 1)
+            for (int i = 0; i < n; i++) out[i] *= coeff;
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        if (sumArr.length == 0) {
+            Arrays.fill(outRe, 0, n, 0);
+            Arrays.fill(outIm, 0, n, 0);
+            return;
+        }
+        sumArr[0].computeComplex(re, im, outRe, outIm, n);
+        BatchScratch scratch = BatchScratch.get();
+        double[] termRe = scratch.acquire(n);
+        double[] termIm = scratch.acquire(n);
+        try {
+            for (int j = 1; j < sumArr.length; j++) {
+                sumArr[j].computeComplex(re, im, termRe, termIm, n);
+                Complex.add(outRe, outIm, termRe, termIm, n);
+            }
+        } finally {
+            scratch.release();
+            scratch.release();
+        }
+        Complex.scale(outRe, outIm, coeff, n);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        Taylor.constant(0, out, order);
+        BatchScratch scratch = BatchScratch.get();
+        double[] term = scratch.acquire(order + 1);
+        try {
+            for (Function function : sumArr) {
+                function.computeTaylor(x, term, order);
+                for (int k = 0; k <= order; k++) out[k] += term[k];
+            }
+        } finally {
+            scratch.release();
+        }
+        Taylor.scale(out, coeff, order);
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        Interval result = Interval.of(0, 0);
+        for (Function function : sumArr)
+            result = Interval.add(result, function.computeInterval(lo, hi));
+        return Interval.scale(result, coeff);
+    }
+
+    protected Function derive() {
         Function[] diffSumArr = new Function[sumArr.length];
         for (int i = 0; i < sumArr.length; i++) {
             diffSumArr[i] = sumArr[i].differentiate();
         }
-        return new SumFunction(diffSumArr);
+        return product(coeff, sum(diffSumArr));
+    }
+
+    Function[] getTerms() {
+        return sumArr;
     }
 
     public double getCoeff() {
         return coeff;
     }
 
-    public Function setCoeff(double c) {
-        coeff = c;
-        return this;
+    public Function withCoeff(double c) {
+        return new SumFunction(this, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof SumFunction) || obj.hashCode() != hashCode())
+            return false;
+        SumFunction other = (SumFunction)obj;
+        return Double.compare(coeff, other.coeff) == 0 && sameSubFunctions(
+                sumArr, other.sumArr);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 13;
+        h = 31 * h + Double.hashCode(coeff);
+        return 31 * h + subFunctionsHash(sumArr);
+    }
+
+    Function[] getSubFunctions() {
+        return sumArr.clone();
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new SumFunction(subFuncs, coeff);
     }
 
     public String toString() {
@@ -0,0 +1,270 @@
+//-------------------------------TAYLOR CLASS---------------------------------//
+//@author TitanJack
+//@project MathTools
+//Arithmetic on truncated Taylor series, used to compute a function together
+//with its derivatives without building a derivative tree. A series is an
+//array <a> where a[k] is the k-th derivative at the point divided by k!, so
+//x itself at the point 2 is {2, 1, 0, 0, ...}. Combining two series with one
+//of the operations below gives the series of the combined function, which
+//only takes a fixed number of multiplications for each order.
+//
+//Unless noted, <out> must be a different array from the inputs, and every
+//array holds at least <n>+1 values.
+
+package Functions;
+
+final class Taylor {
+
+    private Taylor() {
+    }
+
+    //------------------------------ARITHMETIC--------------------------------//
+    //FUNCTION LIST:
+    //static void multiply(double[] a, double[] b, double[] out, int n)
+    //static void divide(double[] a, double[] b, double[] out, int n)
+    //static void reciprocal(double[] a, double[] out, int n)
+    //static void power(double[] a, double p, double[] out, int n)
+    //static void exp(double[] a, double[] out, int n)
+    //static void log(double[] a, double[] out, int n)
+
+    //Function: Multiply
+    //Computes <out> = <a> * <b>
+    static void multiply(double[] a, double[] b, double[] out, int n) {
+        for (int k = 0; k <= n; k++) {
+            double sum = 0;
+            for (int j = 0; j <= k; j++) sum += a[j] * b[k - j];
+            out[k] = sum;
+        }
+    }
+
+    //Function: Divide
+    //Computes <out> = <a> / <b>. <out> may be the same array as <a>
+    static void divide(double[] a, double[] b, double[] out, int n) {
+        for (int k = 0; k <= n; k++) {
+            double sum = a[k];
+            for (int j = 1; j <= k; j++) sum -= b[j] * out[k - j];
+            out[k] = sum / b[0];
+        }
+    }
+
+    //Function: Reciprocal
+    //Computes <out> = 1 / <a>
+    static void reciprocal(double[] a, double[] out, int n) {
+        for (int k = 0; k <= n; k++) {
+            double sum = k == 0 ? 1 : 0;
+            for (int j = 1; j <= k; j++) sum -= a[j] * out[k - j];
+            out[k] = sum / a[0];
+        }
+    }
+
+    //Function: Power
+    //Computes <out> = <a> ^ <p> for a constant power <p>
+    static void power(double[] a, double p, double[] out, int n) {
+        if (a[0] == 0 && p == (int)p && p >= 0) {
+            //The recurrence below divides by a[0], so whole number powers at
+            //a root such as <x^2> at 0 are multiplied out instead
+            BatchScratch scratch = BatchScratch.get();
+            double[] temp = scratch.acquire(n + 1);
+            try {
+                constant(1, out, n);
+                for (int i = 0; i < p; i++) {
+                    multiply(out, a, temp, n);
+                    System.arraycopy(temp, 0, out, 0, n + 1);
+                }
+            } finally {
+                scratch.release();
+            }
+            return;
+        }
+        out[0] = Math.pow(a[0], p);
+        for (int k = 1; k <= n; k++) {
+            double sum = 0;
+            for (int j = 1; j <= k; j++)
+                sum += ((p + 1) * j - k) * a[j] * out[k - j];
+            out[k] = sum / (k * a[0]);
+        }
+    }
+
+    //Function: Exp
+    //Computes <out> = e ^ <a>
+    static void exp(double[] a, double[] out, int n) {
+        out[0] = Math.exp(a[0]);
+        for (int k = 1; k <= n; k++) {
+            double sum = 0;
+            for (int j = 1; j <= k; j++) sum += j * a[j] * out[k - j];
+            out[k] = sum / k;
+        }
+    }
+
+    //Function: Log
+    //Computes <out> = ln(<a>)
+    static void log(double[] a, double[] out, int n) {
+        out[0] = Math.log(a[0]);
+        for (int k = 1; k <= n; k++) {
+            double sum = a[k];
+            for (int j = 1; j < k; j++) sum -= (double)j / k * out[j] * a[k -
+                    j];
+            out[k] = sum / a[0];
+        }
+    }
+
+    //----------------------------TRIGONOMETRY--------------------------------//
+    //FUNCTION LIST:
+    //static void trig(TrigType type, double[] a, double[] out, int n)
+    //private static void sinCos(double[] a, double[] s, double[] c, int n,
+    //                           boolean hyperbolic)
+    //private static void inverse(TrigType type, double[] a, double[] out,
+    //                           int n)
+
+    //Function: Trig
+    //@param type           the type of trigonometric function
+    //Computes <out> = <type>(<a>)
+    static void trig(TrigType type, double[] a, double[] out, int n) {
+        BatchScratch scratch = BatchScratch.get();
+        double[][] temp = scratch.acquireColumns(2, n + 1);
+        try {
+            double[] s = temp[0], c = temp[1];
+            switch (type) {
+                case SIN: sinCos(a, out, c, n, false);
+                    break;
+                case COS: sinCos(a, s, out, n, false);
+                    break;
+                case TAN: sinCos(a, s, c, n, false);
+                    divide(s, c, out, n);
+                    break;
+                case CSC: sinCos(a, s, c, n, false);
+                    reciprocal(s, out, n);
+                    break;
+                case SEC: sinCos(a, s, c, n, false);
+                    reciprocal(c, out, n);
+                    break;
+                case COT: sinCos(a, s, c, n, false);
+                    divide(c, s, out, n);
+                    break;
+                case SINH: sinCos(a, out, c, n, true);
+                    break;
+                case COSH: sinCos(a, s, out, n, true);
+                    break;
+                case TANH: sinCos(a, s, c, n, true);
+                    divide(s, c, out, n);
+                    break;
+                case CSCH: sinCos(a, s, c, n, true);
+                    reciprocal(s, out, n);
+                    break;
+                case SECH: sinCos(a, s, c, n, true);
+                    reciprocal(c, out, n);
+                    break;
+                case COTH: sinCos(a, s, c, n, true);
+                    divide(c, s, out, n);
+                    break;
+                case ARCCSC: case ARCSEC: case ARCCOT: case ARCCSCH:
+                case ARCSECH: case ARCCOTH:
+                    //The inverse of a reciprocal function is the inverse of
+                    //the function taken of 1/a, eg. <arccsc(a)=arcsin(1/a)>
+                    reciprocal(a, s, n);
+                    inverse(type, s, out, n);
+                    break;
+                default: inverse(type, a, out, n);
+            }
+        } finally {
+            scratch.releaseColumns(2);
+        }
+        //The value itself is taken from the same formula as Trigonometric
+        //uses, so that both agree exactly
+        out[0] = Trigonometric.compute(type, a[0]);
+    }
+
+    //Function: Sin Cos
+    //Computes <s> = sin(<a>) and <c> = cos(<a>) together, since the series
+    //of each one depends on the other. With <hyperbolic>, computes sinh and
+    //cosh instead
+    private static void sinCos(double[] a, double[] s, double[] c, int n,
+                               boolean hyperbolic) {
+        s[0] = hyperbolic ? Math.sinh(a[0]) : Math.sin(a[0]);
+        c[0] = hyperbolic ? Math.cosh(a[0]) : Math.cos(a[0]);
+        for (int k = 1; k <= n; k++) {
+            double sinSum = 0, cosSum = 0;
+            for (int j = 1; j <= k; j++) {
+                sinSum += j * a[j] * c[k - j];
+                cosSum += j * a[j] * s[k - j];
+            }
+            s[k] = sinSum / k;
+            c[k] = (hyperbolic ? cosSum : -cosSum) / k;
+        }
+    }
+
+    //Function: Inverse
+    //Computes <out> = <type>(<a>) for an inverse trigonometric function,
+    //where <type> is one of the six functions with an algebraic derivative or
+    //the inverse of a reciprocal function. The derivative series is found
+    //from the formula of the derivative, eg. d/dx(arctan(a))=a'/(1+a^2), and
+    //then integrated
+    private static void inverse(TrigType type, double[] a, double[] out,
+                                int n) {
+        if (n == 0) return;
+        BatchScratch scratch = BatchScratch.get();
+        double[][] temp = scratch.acquireColumns(3, n + 1);
+        try {
+            double[] square = temp[0], factor = temp[1], slope = temp[2];
+            multiply(a, a, square, n - 1);
+            //<square> becomes the expression under the root or the division
+            //in the derivative formula
+            double sign = 1;
+            switch (type) {
+                case ARCSIN: case ARCCSC:
+                    negate(square, n - 1);
+                    square[0] += 1;
+                    power(square, -0.5, factor, n - 1);
+                    break;
+                case ARCCOS: case ARCSEC:
+                    negate(square, n - 1);
+                    square[0] += 1;
+                    power(square, -0.5, factor, n - 1);
+                    sign = -1;
+                    break;
+                case ARCTAN: case ARCCOT:
+                    square[0] += 1;
+                    reciprocal(square, factor, n - 1);
+                    break;
+                case ARCSINH: case ARCCSCH:
+                    square[0] += 1;
+                    power(square, -0.5, factor, n - 1);
+                    break;
+                case ARCCOSH: case ARCSECH:
+                    square[0] -= 1;
+                    power(square, -0.5, factor, n - 1);
+                    break;
+                default:
+                    negate(square, n - 1);
+                    square[0] += 1;
+                    reciprocal(square, factor, n - 1);
+            }
+            //<slope> holds the series of a'
+            for (int k = 0; k < n; k++) slope[k] = (k + 1) * a[k + 1];
+            multiply(slope, factor, square, n - 1);
+            for (int k = 1; k <= n; k++) out[k] = sign * square[k - 1] / k;
+        } finally {
+            scratch.releaseColumns(3);
+        }
+    }
+
+    //-------------------------------UTILITIES--------------------------------//
+
+    //Function: Constant
+    //Sets <out> to the series of a constant
+    static void constant(double value, double[] out, int n) {
+        out[0] = value;
+        for (int k = 1; k <= n; k++) out[k] = 0;
+    }
+
+    //Function: Scale
+    //Multiplies the series <a> by <c> in place
+    static void scale(double[] a, double c, int n) {
+        if (c == 1) return;
+        for (int k = 0; k <= n; k++) a[k] *= c;
+    }
+
+    private static void negate(double[] a, int n) {
+        for (int k = 0; k <= n; k++) a[k] = -a[k];
+    }
+}
@@ -0,0 +1,129 @@
+//--------------------------TIERED FUNCTION CLASS-----------------------------//
+//@author TitanJack
+//@project MathTools
+//Wraps a parsed function tree and promotes it to a compiled form once it has
+//been computed often enough. Until then, values are computed by walking the
+//tree as usual, so expressions which are typed and replaced right away never
+//pay for the compilation.
+
+package Functions;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@SuppressWarnings("WeakerAccess")
+public class TieredFunction extends Function {
+
+    //How many values are computed by the tree before it gets compiled, which
+    //is about ten frames of a curve being drawn
+    private static final long COMPILE_THRESHOLD = 20000;
+
+    private final Function function;
+    //Which thread promotes the function does not matter, the first one to
+    //pass the threshold compiles it and the others keep using the tree until
+    //the compiled form is published
+    private volatile CompiledFunction compiled;
+    private final AtomicLong computeCount;
+    private volatile boolean compileFailed;
+
+    public TieredFunction(Function function) {
+        this.function = function;
+        compiled = null;
+        computeCount = new AtomicLong();
+        compileFailed = false;
+    }
+
+    public double compute(double x) {
+        CompiledFunction compiled = this.compiled;
+        if (compiled != null) return compiled.compute(x);
+        countComputes(1);
+        return function.compute(x);
+    }
+
+    public double compute(double[] env) {
+        //Compiled code only takes x, so other variables are left to the tree
+        return function.compute(env);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        function.compute(env, out, n);
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        //Compiled code only works with doubles
+        return function.compute(x);
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        CompiledFunction compiled = this.compiled;
+        if (compiled != null) {
+            compiled.compute(xs, out, n);
+            return;
+        }
+        countComputes(n);
+        function.compute(xs, out, n);
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        //Compiled code only works with real numbers
+        function.computeComplex(re, im, outRe, outIm, n);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        function.computeTaylor(x, out, order);
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        return function.computeInterval(lo, hi);
+    }
+
+    protected Function derive() {
+        //Derivatives are built term by term and are full of repeated and
+        //cancelling parts, so they are rewritten into a cheaper form first
+        return new TieredFunction(FunctionRewriter.rewrite(
+                function.differentiate()));
+    }
+
+    public double getCoeff() {
+        return function.getCoeff();
+    }
+
+    public Function withCoeff(double c) {
+        //The compiled code contains the old coefficient, so the new function
+        //starts over with the tree
+        return new TieredFunction(function.withCoeff(c));
+    }
+
+    //Function: Is Compiled
+    //@return               whether the function has been promoted to its
+    //                      compiled form
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    //Function: Get Function
+    //@return               the function tree being wrapped
+    public Function getFunction() {
+        return function;
+    }
+
+    public String toString() {
+        return function.toString();
+    }
+
+    //Function: Count Computes
+    //@param n              the number of values which were just computed
+    //Compiles the function once the threshold has been passed. If the
+    //expression cannot be compiled, the tree keeps being used
+    private void countComputes(int n) {
+        if (compileFailed) return;
+        long count = computeCount.addAndGet(n);
+        if (count >= COMPILE_THRESHOLD && count - n < COMPILE_THRESHOLD) {
+            try {
+                compiled = FunctionCompiler.compile(function);
+            } catch (RuntimeException | LinkageError e) {
+                compileFailed = true;
+            }
+        }
+    }
+}
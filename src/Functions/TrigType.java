@@ -0,0 +1,49 @@
+//-----------------------------TRIG TYPE ENUM---------------------------------//
+//@author TitanJack
+//@project MathTools
+//Every type of trigonometric function which can be computed. The type of a
+//Trigonometric function is looked up from its name once when the expression
+//is parsed, so computing it only switches on the ordinal of the type instead
+//of comparing strings for every value.
+
+package Functions;
+
+import java.util.HashMap;
+
+public enum TrigType {
+
+    SIN("sin"), COS("cos"), TAN("tan"), CSC("csc"), SEC("sec"), COT("cot"),
+    ARCSIN("arcsin"), ARCCOS("arccos"), ARCTAN("arctan"), ARCCSC("arccsc"),
+    ARCSEC("arcsec"), ARCCOT("arccot"), SINH("sinh"), COSH("cosh"),
+    TANH("tanh"), CSCH("csch"), SECH("sech"), COTH("coth"),
+    ARCSINH("arcsinh"), ARCCOSH("arccosh"), ARCTANH("arctanh"),
+    ARCCSCH("arccsch"), ARCSECH("arcsech"), ARCCOTH("arccoth");
+
+    private static final HashMap<String, TrigType> BY_NAME = new HashMap<>();
+    static {
+        for (TrigType type : values()) BY_NAME.put(type.name, type);
+    }
+
+    private final String name;
+
+    TrigType(String name) {
+        this.name = name;
+    }
+
+    //Function: Of
+    //@param name           the name of a trigonometric function, eg. "sin"
+    //@return               the type with that name, or null if there is none
+    public static TrigType of(String name) {
+        return BY_NAME.get(name);
+    }
+
+    //Function: Get Name
+    //@return               the name of the function as it is written
+    public String getName() {
+        return name;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
@@ -8,193 +8,407 @@ package Functions;
 
 public class Trigonometric extends Function {
 
-    private String type;
-    private double coeff;
-    private Function subFunc;
+    //Every type of trigonometric function, indexed by the ordinal of the
+    //type, which is how flattened programs refer to them
+    static final TrigType[] TYPES = TrigType.values();
 
-    public Trigonometric(String type, Function subFunc) {
+    private final TrigType type;
+    private final double coeff;
+    private final Function subFunc;
+
+    public Trigonometric(TrigType type, Function subFunc) {
         this(type, subFunc, 1);
     }
 
-    public Trigonometric(String type, Function subFunc, double coeff) {
+    public Trigonometric(TrigType type, Function subFunc, double coeff) {
         this.type = type;
         this.subFunc = subFunc;
         this.coeff = coeff;
     }
 
     public double compute(double x) {
-        double y = subFunc.compute(x);
+        return coeff * compute(type, subFunc.compute(x));
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        return DoubleDouble.trig(type, subFunc.compute(x)).multiply(coeff);
+    }
+
+    //Function: Compute
+    //@param type           the type of trigonometric function
+    //       y              the value inside of the trigonometric function
+    //@return               the trigonometric function of <y>
+    static double compute(TrigType type, double y) {
         double result = 0;
         switch (type) {
-            case "sin": result = Math.sin(y);
+            case SIN: result = Math.sin(y);
                 break;
-            case "cos": result = Math.cos(y);
+            case COS: result = Math.cos(y);
                 break;
-            case "tan": result = Math.tan(y);
+            case TAN: result = Math.tan(y);
                 break;
-            case "csc": result = 1/Math.sin(y);
+            case CSC: result = 1/Math.sin(y);
                 break;
-            case "sec": result = 1/Math.cos(y);
+            case SEC: result = 1/Math.cos(y);
                 break;
-            case "cot": result = 1/Math.tan(y);
+            case COT: result = 1/Math.tan(y);
                 break;
-            case "arcsin": result = Math.asin(y);
+            case ARCSIN: result = Math.asin(y);
                 break;
-            case "arccos": result = Math.acos(y);
+            case ARCCOS: result = Math.acos(y);
                 break;
-            case "arctan": result = Math.atan(y);
+            case ARCTAN: result = Math.atan(y);
                 break;
-            case "arccsc": result = Math.asin(1/y);
+            case ARCCSC: result = Math.asin(1/y);
                 break;
-            case "arcsec": result = Math.acos(1/y);
+            case ARCSEC: result = Math.acos(1/y);
                 break;
-            case "arccot": result = Math.atan(1/y);
+            case ARCCOT: result = Math.atan(1/y);
                 break;
-            case "sinh": result = Math.sinh(y);
+            case SINH: result = Math.sinh(y);
                 break;
-            case "cosh": result = Math.cosh(y);
+            case COSH: result = Math.cosh(y);
                 break;
-            case "tanh": result = Math.tanh(y);
+            case TANH: result = Math.tanh(y);
                 break;
-            case "csch": result = 1/Math.sinh(y);
+            case CSCH: result = 1/Math.sinh(y);
                 break;
-            case "sech": result = 1/Math.cosh(y);
+            case SECH: result = 1/Math.cosh(y);
                 break;
-            case "coth": result = 1/Math.tanh(y);
+            case COTH: result = 1/Math.tanh(y);
                 break;
-            case "arcsinh": result = Math.log(y + Math.sqrt(y*y + 1.0));
+            case ARCSINH: result = Math.log(y + Math.sqrt(y*y + 1.0));
                 break;
-            case "arccosh": result = Math.log(y + Math.sqrt(y*y - 1.0));
+            case ARCCOSH: result = Math.log(y + Math.sqrt(y*y - 1.0));
                 break;
-            case "arctanh": result = 0.5 * Math.log((1.0 + y)/(1.0 - y));
+            case ARCTANH: result = 0.5 * Math.log((1.0 + y)/(1.0 - y));
                 break;
-            case "arccsch":
+            case ARCCSCH:
                 result = Math.log(1.0/y + Math.sqrt(1.0/(y*y) + 1.0));
                 break;
-            case "arcsech":
+            case ARCSECH:
                 result = Math.log(1.0/y + Math.sqrt(1.0/(y*y) - 1.0));
                 break;
-            case "arccoth": result = 0.5 * Math.log((y + 1.0)/(y - 1.0));
-                break;
-            default: System.exit(0);
+            case ARCCOTH: result = 0.5 * Math.log((y + 1.0)/(y - 1.0));
                 break;
         }
-        result = coeff * result;
         return result;
     }
 
-    public Function differentiate() {
+    public void compute(double[] xs, double[] out, int n) {
+        computeBatch(xs, null, out, n);
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        computeBatch(null, env, out, n);
+    }
+
+    public double compute(double[] env) {
+        return coeff * compute(type, subFunc.compute(env));
+    }
+
+    //Function: Compute Batch
+    //@param xs             the x values, used when <env> is null
+    //       env            the columns of every variable, or null
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    private void computeBatch(double[] xs, double[][] env, double[] out,
+                              int n) {
+        computeSubFunction(subFunc, xs, env, out, n);
+        computeAll(type, out, n);
+        if (coeff != 1)
+            for (int i = 0; i < n; i++) out[i] *= coeff;
+    }
+
+    //Function: Compute All
+    //@param type           the type of trigonometric function
+    //       out            the values inside of the trigonometric function,
+    //                      which get replaced by the results
+    //       n              the number of values to be computed
+    static void computeAll(TrigType type, double[] out, int n) {
+        //The type is only looked up once for the whole array, each case then
+        //runs through every value in a tight loop
+        switch (type) {
+            case SIN: for (int i = 0; i < n; i++) out[i] = Math.sin(out[i]);
+                break;
+            case COS: for (int i = 0; i < n; i++) out[i] = Math.cos(out[i]);
+                break;
+            case TAN: for (int i = 0; i < n; i++) out[i] = Math.tan(out[i]);
+                break;
+            case CSC:
+                for (int i = 0; i < n; i++) out[i] = 1/Math.sin(out[i]);
+                break;
+            case SEC:
+                for (int i = 0; i < n; i++) out[i] = 1/Math.cos(out[i]);
+                break;
+            case COT:
+                for (int i = 0; i < n; i++) out[i] = 1/Math.tan(out[i]);
+                break;
+            case ARCSIN:
+                for (int i = 0; i < n; i++) out[i] = Math.asin(out[i]);
+                break;
+            case ARCCOS:
+                for (int i = 0; i < n; i++) out[i] = Math.acos(out[i]);
+                break;
+            case ARCTAN:
+                for (int i = 0; i < n; i++) out[i] = Math.atan(out[i]);
+                break;
+            case ARCCSC:
+                for (int i = 0; i < n; i++) out[i] = Math.asin(1/out[i]);
+                break;
+            case ARCSEC:
+                for (int i = 0; i < n; i++) out[i] = Math.acos(1/out[i]);
+                break;
+            case ARCCOT:
+                for (int i = 0; i < n; i++) out[i] = Math.atan(1/out[i]);
+                break;
+            case SINH:
+                for (int i = 0; i < n; i++) out[i] = Math.sinh(out[i]);
+                break;
+            case COSH:
+                for (int i = 0; i < n; i++) out[i] = Math.cosh(out[i]);
+                break;
+            case TANH:
+                for (int i = 0; i < n; i++) out[i] = Math.tanh(out[i]);
+                break;
+            case CSCH:
+                for (int i = 0; i < n; i++) out[i] = 1/Math.sinh(out[i]);
+                break;
+            case SECH:
+                for (int i = 0; i < n; i++) out[i] = 1/Math.cosh(out[i]);
+                break;
+            case COTH:
+                for (int i = 0; i < n; i++) out[i] = 1/Math.tanh(out[i]);
+                break;
+            case ARCSINH:
+                for (int i = 0; i < n; i++) {
+                    double y = out[i];
+                    out[i] = Math.log(y + Math.sqrt(y*y + 1.0));
+                }
+                break;
+            case ARCCOSH:
+                for (int i = 0; i < n; i++) {
+                    double y = out[i];
+                    out[i] = Math.log(y + Math.sqrt(y*y - 1.0));
+                }
+                break;
+            case ARCTANH:
+                for (int i = 0; i < n; i++) {
+                    double y = out[i];
+                    out[i] = 0.5 * Math.log((1.0 + y)/(1.0 - y));
+                }
+                break;
+            case ARCCSCH:
+                for (int i = 0; i < n; i++) {
+                    double y = out[i];
+                    out[i] = Math.log(1.0/y + Math.sqrt(1.0/(y*y) + 1.0));
+                }
+                break;
+            case ARCSECH:
+                for (int i = 0; i < n; i++) {
+                    double y = out[i];
+                    out[i] = Math.log(1.0/y + Math.sqrt(1.0/(y*y) - 1.0));
+                }
+                break;
+            case ARCCOTH:
+                for (int i = 0; i < n; i++) {
+                    double y = out[i];
+                    out[i] = 0.5 * Math.log((y + 1.0)/(y - 1.0));
+                }
+                break;
+        }
+    }
+
+    //Function: Compute All Fast
+    //@param type           the type of trigonometric function
+    //       out            the values inside of the trigonometric function,
+    //                      which get replaced by the results
+    //       n              the number of values to be computed
+    //The same as <computeAll>, but sine, cosine, tangent and their
+    //reciprocals are computed with the approximations of FastMath, which are
+    //only meant for drawing curves. The other types are computed exactly
+    static void computeAllFast(TrigType type, double[] out, int n) {
+        switch (type) {
+            case SIN: FastMath.sin(out, n);
+                break;
+            case COS: FastMath.cos(out, n);
+                break;
+            case TAN: FastMath.tan(out, n);
+                break;
+            case CSC: FastMath.sin(out, n);
+                for (int i = 0; i < n; i++) out[i] = 1 / out[i];
+                break;
+            case SEC: FastMath.cos(out, n);
+                for (int i = 0; i < n; i++) out[i] = 1 / out[i];
+                break;
+            case COT: FastMath.tan(out, n);
+                for (int i = 0; i < n; i++) out[i] = 1 / out[i];
+                break;
+            default: computeAll(type, out, n);
+        }
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        subFunc.computeComplex(re, im, outRe, outIm, n);
+        Complex.trig(type, outRe, outIm, n);
+        Complex.scale(outRe, outIm, coeff, n);
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        BatchScratch scratch = BatchScratch.get();
+        double[] inner = scratch.acquire(order + 1);
+        try {
+            subFunc.computeTaylor(x, inner, order);
+            Taylor.trig(type, inner, out, order);
+        } finally {
+            scratch.release();
+        }
+        Taylor.scale(out, coeff, order);
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        return Interval.scale(Interval.trig(type, subFunc.computeInterval(lo,
+                hi)), coeff);
+    }
+
+    protected Function derive() {
         Function diff = null;
         switch (type) {
-            case "sin": diff = new Trigonometric("cos", subFunc, 1);
+            case SIN: diff = new Trigonometric(TrigType.COS, subFunc, 1);
                 break;
-            case "cos": diff = new Trigonometric("sin", subFunc, -1);
+            case COS: diff = new Trigonometric(TrigType.SIN, subFunc, -1);
                 break;
-            case "tan": diff = new Exponential(new Trigonometric("sec",
+            case TAN: diff = new Exponential(new Trigonometric(TrigType.SEC,
                     subFunc), 2, 1);
                 break;
-            case "csc": diff = new GeoFunction(new Trigonometric("csc",
-                    subFunc), new Trigonometric("cot", subFunc), -1);
+            case CSC: diff = new GeoFunction(new Trigonometric(TrigType.CSC,
+                    subFunc), new Trigonometric(TrigType.COT, subFunc), -1);
                 break;
-            case "sec": diff = new GeoFunction(new Trigonometric("sec",
-                    subFunc), new Trigonometric("tan", subFunc), 1);
+            case SEC: diff = new GeoFunction(new Trigonometric(TrigType.SEC,
+                    subFunc), new Trigonometric(TrigType.TAN, subFunc), 1);
                 break;
-            case "cot": diff = new Exponential(new Trigonometric("csc",
+            case COT: diff = new Exponential(new Trigonometric(TrigType.CSC,
                     subFunc), 2, -1);
                 break;
-            case "arcsin": diff = new Rational(1, new Exponential(new
+            case ARCSIN: diff = new Rational(1, new Exponential(new
                     SumFunction(new Function[]{new Constant(1), new
-                    Exponential(new Variable(), 2, -1)}), 0.5),
+                    Exponential(subFunc, 2, -1)}), 0.5),
                     1);
                 break;
-            case "arccos": diff = new Rational(1, new Exponential(new
+            case ARCCOS: diff = new Rational(1, new Exponential(new
                     SumFunction(new Function[]{new Constant(1), new
-                    Exponential(new Variable(), 2, -1)}), 0.5),
+                    Exponential(subFunc, 2, -1)}), 0.5),
                     -1);
                 break;
-            case "arctan": diff = new Rational(1, new SumFunction(new
-                    Function[]{new Constant(1), new  Exponential(new
-                    Variable(), 2)}), 1);
+            case ARCTAN: diff = new Rational(1, new SumFunction(new
+                    Function[]{new Constant(1), new  Exponential(subFunc,
+                    2)}), 1);
                 break;
-            case "arccsc": diff = new Rational(1, new GeoFunction(new
+            case ARCCSC: diff = new Rational(1, new GeoFunction(new
                     Exponential(new SumFunction(new Function[]{new Constant(
-                    1), new Rational(1, new Exponential(new
-                    Variable(), 2), -1)}), 0.5), new
-                    Exponential(new Variable(), 2)), -1);
+                    1), new Rational(1, new Exponential(subFunc, 2), -1)}),
+                    0.5), new Exponential(subFunc, 2)), -1);
                 break;
-            case "arcsec": diff = new Rational(1, new GeoFunction(new
+            case ARCSEC: diff = new Rational(1, new GeoFunction(new
                     Exponential(new SumFunction(new Function[]{new Constant(
-                    1), new Rational(1, new Exponential(new
-                    Variable(), 2), -1)}), 0.5), new
-                    Exponential(new Variable(), 2)), 1);
+                    1), new Rational(1, new Exponential(subFunc, 2), -1)}),
+                    0.5), new Exponential(subFunc, 2)), 1);
                 break;
-            case "arccot": diff = new Rational(new Constant(1),
+            case ARCCOT: diff = new Rational(new Constant(1),
                     new SumFunction (new Function[]{new Constant(1),
-                    new Exponential(new Variable(), 2)}), -1);
+                    new Exponential(subFunc, 2)}), -1);
                 break;
-            case "sinh": diff = new Trigonometric("cosh", subFunc, 1);
+            case SINH: diff = new Trigonometric(TrigType.COSH, subFunc, 1);
                 break;
-            case "cosh": diff = new Trigonometric("sinh", subFunc, 1);
+            case COSH: diff = new Trigonometric(TrigType.SINH, subFunc, 1);
                 break;
-            case "tanh": diff = new Exponential(new Trigonometric("sech",
+            case TANH: diff = new Exponential(new Trigonometric(TrigType.SECH,
                     subFunc), 2, 1);
-            case "csch": diff = new GeoFunction(new Trigonometric("csch",
-                    subFunc), new Trigonometric("coth", subFunc), -1);
                 break;
-            case "sech": diff = new GeoFunction(new Trigonometric("sech",
-                    subFunc), new Trigonometric("tanh", subFunc), 1);
+            case CSCH: diff = new GeoFunction(new Trigonometric(TrigType.CSCH,
+                    subFunc), new Trigonometric(TrigType.COTH, subFunc), -1);
+                break;
+            case SECH: diff = new GeoFunction(new Trigonometric(TrigType.SECH,
+                    subFunc), new Trigonometric(TrigType.TANH, subFunc), -1);
                 break;
-            case "coth": diff = new Exponential(new Trigonometric("csc",
+            case COTH: diff = new Exponential(new Trigonometric(TrigType.CSCH,
                     subFunc), 2, -1);
                 break;
-            case "arcsinh": diff = new Rational(1, new Exponential(
-                    new SumFunction(new Function[]{new Exponential(new
-                    Variable(), 2), new Constant(1)}), 0.5),
+            case ARCSINH: diff = new Rational(1, new Exponential(
+                    new SumFunction(new Function[]{new Exponential(subFunc,
+                    2), new Constant(1)}), 0.5),
                     1);
                 break;
-            case "arccosh": diff = new Rational(1, new Exponential(
-                    new SumFunction(new Function[]{new Exponential(new
-                    Variable(), 2), new Constant(-1)}), 0.5),
+            case ARCCOSH: diff = new Rational(1, new Exponential(
+                    new SumFunction(new Function[]{new Exponential(subFunc,
+                    2), new Constant(-1)}), 0.5),
                     1);
                 break;
-            case "arctanh": diff = new Rational(1, new SumFunction(new
-                    Function[]{new Constant(1), new  Exponential(new
-                    Variable(), 2, -1)}), 1);
+            case ARCTANH: diff = new Rational(1, new SumFunction(new
+                    Function[]{new Constant(1), new  Exponential(subFunc,
+                    2, -1)}), 1);
                 break;
-            case "arccsch": diff = new Rational(1, new GeoFunction(new
+            case ARCCSCH: diff = new Rational(1, new GeoFunction(new
                     Exponential(new SumFunction(new Function[]{new Rational(1,
-                    new Exponential(new Variable(), 2)), new Constant(
-                    1)}), 0.5), new Exponential(new Variable(),
+                    new Exponential(subFunc, 2)), new Constant(
+                    1)}), 0.5), new Exponential(subFunc,
                     2)), -1);
                 break;
-            case "arcsech": diff = new Rational(1, new GeoFunction(new
+            case ARCSECH: diff = new Rational(1, new GeoFunction(new
                     Exponential(new SumFunction(new Function[]{new Rational(1,
-                    new Exponential(new Variable(), 2)), new Constant(
-                    1)}), 0.5), new Exponential(new Variable(),
-                    2)), 1);
+                    new Exponential(subFunc, 2)), new Constant(
+                    -1)}), 0.5), new Exponential(subFunc,
+                    2)), -1);
                 break;
-            case "arccoth": diff = new Rational(new Constant(1),
-                    new SumFunction (new Function[]{new Exponential(new
-                    Variable(), 2, -1), new Constant(1), }),
-                    -1);
+            case ARCCOTH: diff = new Rational(new Constant(1),
+                    new SumFunction (new Function[]{new Exponential(subFunc,
+                    2, -1), new Constant(1), }),
+                    1);
                 break;
         }
-        if (diff == null) {
-            System.exit(0);
-            return null;
-        } else {
-            return new GeoFunction(new Function[]{diff,
-                    subFunc.differentiate()}, coeff);
-        }
+        return product(coeff, diff, subFunc.differentiate());
+    }
+
+    TrigType getType() {
+        return type;
+    }
+
+    Function getSubFunc() {
+        return subFunc;
     }
 
     public double getCoeff() {
         return coeff;
     }
 
-    public Function setCoeff(double c) {
-        coeff = c;
-        return this;
+    public Function withCoeff(double c) {
+        return new Trigonometric(type, subFunc, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof Trigonometric) || obj.hashCode() != hashCode())
+            return false;
+        Trigonometric other = (Trigonometric)obj;
+        return type == other.type && Double.compare(coeff, other.coeff)
+                == 0 && subFunc.equals(other.subFunc);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = type.ordinal();
+        h = 31 * h + Double.hashCode(coeff);
+        return 31 * h + subFunc.hashCode();
+    }
+
+    Function[] getSubFunctions() {
+        return new Function[]{subFunc};
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new Trigonometric(type, subFuncs[0], coeff);
     }
 
     public String toString() {
@@ -0,0 +1,185 @@
+//----------------------------USER FUNCTION CLASS-----------------------------//
+//@author TitanJack
+//@project MathTools
+//A call to a function the user defined by name, such as <f(2x)> after
+//<f(x)=x^2+1> was entered. The body of the definition is one function shared
+//by every call to it, so while a frame is drawn its values are taken from
+//the FrameCache: each value of the body is only computed once, however many
+//curves call it at the same x.
+//
+//Calls are parsed against the bodies in a FunctionTable. A call never
+//changes once it is built, so an expression which calls a function that is
+//defined again has to be parsed again, see InputPanel.
+
+package Functions;
+
+@SuppressWarnings("WeakerAccess")
+public class UserFunction extends Function {
+
+    private final String name;
+    //The body of the definition, a function of x
+    private final Function body;
+    private final Function arg;
+    private final double coeff;
+
+    public UserFunction(String name, Function body, Function arg) {
+        this(name, body, arg, 1);
+    }
+
+    public UserFunction(String name, Function body, Function arg,
+                        double coeff) {
+        this.name = name;
+        this.body = body;
+        this.arg = arg;
+        this.coeff = coeff;
+    }
+
+    public double compute(double x) {
+        return coeff * FrameCache.get().compute(body, arg.compute(x));
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        //Values with the extra digits are only needed for a few pixels at a
+        //time, so they are not cached
+        return body.compute(arg.compute(x)).multiply(coeff);
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        BatchScratch scratch = BatchScratch.get();
+        double[] args = scratch.acquire(n);
+        try {
+            computeSubFunction(arg, xs, null, args, n);
+            FrameCache.get().compute(body, args, out, n);
+        } finally {
+            scratch.release();
+        }
+        if (coeff != 1)
+            for (int i = 0; i < n; i++) out[i] *= coeff;
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        //The body may use parameters, whose values differ from one
+        //environment to the next, so these values are not cached
+        BatchScratch scratch = BatchScratch.get();
+        double[] args = scratch.acquire(n);
+        try {
+            computeSubFunction(arg, null, env, args, n);
+            double[][] columns = env.clone();
+            columns[VariableTable.X] = args;
+            computeSubFunction(body, null, columns, out, n);
+        } finally {
+            scratch.release();
+        }
+        if (coeff != 1)
+            for (int i = 0; i < n; i++) out[i] *= coeff;
+    }
+
+    public double compute(double[] env) {
+        //x is written into a copy, so that <env> is left unchanged and may
+        //be shared between threads
+        BatchScratch scratch = BatchScratch.get();
+        double[] row = scratch.acquire(env.length);
+        try {
+            System.arraycopy(env, 0, row, 0, env.length);
+            row[VariableTable.X] = arg.compute(env);
+            return coeff * body.compute(row);
+        } finally {
+            scratch.release();
+        }
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        BatchScratch scratch = BatchScratch.get();
+        double[] argRe = scratch.acquire(n);
+        double[] argIm = scratch.acquire(n);
+        try {
+            arg.computeComplex(re, im, argRe, argIm, n);
+            body.computeComplex(argRe, argIm, outRe, outIm, n);
+        } finally {
+            scratch.release();
+            scratch.release();
+        }
+        if (coeff != 1) {
+            for (int i = 0; i < n; i++) {
+                outRe[i] *= coeff;
+                outIm[i] *= coeff;
+            }
+        }
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        Interval inner = arg.computeInterval(lo, hi);
+        if (inner.isEmpty()) return Interval.EMPTY;
+        return Interval.scale(Interval.compose(inner, body.computeInterval(
+                inner.getLo(), inner.getHi())), coeff);
+    }
+
+    protected Function derive() {
+        //d/dx(f(g(x)))=f'(g(x))g'(x). The body caches its derivative, so
+        //every call to f' shares the same body as well
+        return product(coeff, new UserFunction(name + "'", body
+                .differentiate(), arg), arg.differentiate());
+    }
+
+    //Function: Get Name
+    //@return               the name of the function being called
+    public String getName() {
+        return name;
+    }
+
+    //Function: Get Body
+    //@return               the body of the definition
+    public Function getBody() {
+        return body;
+    }
+
+    public double getCoeff() {
+        return coeff;
+    }
+
+    public Function withCoeff(double c) {
+        return new UserFunction(name, body, arg, c);
+    }
+
+    //The body may use parameters, so a call is not a number even when its
+    //argument is
+    boolean isDeterminedBySubFunctions() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof UserFunction) || obj.hashCode() != hashCode())
+            return false;
+        UserFunction other = (UserFunction)obj;
+        return name.equals(other.name) && body.equals(other.body) && Double
+                .compare(coeff, other.coeff) == 0 && arg.equals(other.arg);
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 41 + name.hashCode();
+        h = 31 * h + body.hashCode();
+        h = 31 * h + Double.hashCode(coeff);
+        return 31 * h + arg.hashCode();
+    }
+
+    Function[] getSubFunctions() {
+        //The body is left out, so that optimizing or rewriting a call never
+        //builds a copy of the body which the cache would not share
+        return new Function[]{arg};
+    }
+
+    Function withSubFunctions(Function[] subFuncs) {
+        return new UserFunction(name, body, subFuncs[0], coeff);
+    }
+
+    public String toString() {
+        String funcStr = name + "(" + arg.toString() + ")";
+        if (coeff == -1) funcStr = "-" + funcStr;
+        else if (coeff != 1) funcStr = coeff + funcStr;
+        return funcStr;
+    }
+}
@@ -1,15 +1,22 @@
-//---------------------------EXPONENTIAL CLASS--------------------------------//
+//-----------------------------VARIABLE CLASS---------------------------------//
 //@author TitanJack
 //@project MathTools
-//A basic variable which represented as a single <x>.
+//A basic variable such as <x>, <y>, <t> or a named parameter, which reads its
+//value from its slot of the environment, see VariableTable. Anything which
+//only computes a function of x, such as compute(double x), sees variables
+//other than x as unknown.
 
 package Functions;
 
 import NumberFormats.Numbers;
 
+import java.util.Arrays;
+
 public class Variable extends Function {
 
-    private double coeff;
+    private final int slot;
+    private final String name;
+    private final double coeff;
 
     @SuppressWarnings("unused")
     public Variable() {
@@ -18,30 +25,116 @@ public class Variable extends Function {
 
     @SuppressWarnings("WeakerAccess")
     public Variable(double coeff) {
+        this(VariableTable.X, "x", coeff);
+    }
+
+    @SuppressWarnings("WeakerAccess")
+    public Variable(int slot, String name, double coeff) {
+        this.slot = slot;
+        this.name = name;
         this.coeff = coeff;
     }
 
     public double compute(double x) {
-        return coeff * x;
+        return slot == VariableTable.X ? coeff * x : Double.NaN;
+    }
+
+    public void compute(double[] xs, double[] out, int n) {
+        if (slot != VariableTable.X) {
+            Arrays.fill(out, 0, n, Double.NaN);
+            return;
+        }
+        for (int i = 0; i < n; i++) out[i] = coeff * xs[i];
+    }
+
+    public double compute(double[] env) {
+        return coeff * env[slot];
+    }
+
+    public void compute(double[][] env, double[] out, int n) {
+        double[] values = env[slot];
+        for (int i = 0; i < n; i++) out[i] = coeff * values[i];
+    }
+
+    public DoubleDouble compute(DoubleDouble x) {
+        return slot == VariableTable.X ? x.multiply(coeff) : DoubleDouble.of(
+                Double.NaN);
+    }
+
+    public void computeComplex(double[] re, double[] im, double[] outRe,
+                               double[] outIm, int n) {
+        if (slot != VariableTable.X) {
+            Arrays.fill(outRe, 0, n, Double.NaN);
+            Arrays.fill(outIm, 0, n, Double.NaN);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            outRe[i] = coeff * re[i];
+            outIm[i] = coeff * im[i];
+        }
+    }
+
+    public void computeTaylor(double x, double[] out, int order) {
+        if (slot != VariableTable.X) {
+            Taylor.constant(Double.NaN, out, order);
+            return;
+        }
+        Taylor.constant(coeff * x, out, order);
+        if (order >= 1) out[1] = coeff;
+    }
+
+    public Interval computeInterval(double lo, double hi) {
+        if (slot != VariableTable.X)
+            return Interval.of(Double.NEGATIVE_INFINITY, Double
+                    .POSITIVE_INFINITY);
+        return Interval.scale(Interval.of(lo, hi), coeff);
+    }
+
+    protected Function derive() {
+        //Every other variable is constant with respect to x
+        return new Constant(slot == VariableTable.X ? coeff : 0);
     }
 
-    public Function differentiate() {
-        return new Constant(coeff);
+    //Function: Get Slot
+    //@return               the slot of the variable in the environment
+    public int getSlot() {
+        return slot;
+    }
+
+    //Function: Is X
+    //@return               whether the variable is x
+    boolean isX() {
+        return slot == VariableTable.X;
     }
 
     public double getCoeff() {
         return coeff;
     }
 
-    public Function setCoeff(double c) {
-        coeff = c;
-        return this;
+    public Function withCoeff(double c) {
+        return new Variable(slot, name, c);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof Variable)) return false;
+        Variable other = (Variable)obj;
+        return slot == other.slot && name.equals(other.name) && Double
+                .compare(coeff, other.coeff) == 0;
+    }
+
+    @Override
+    protected int structuralHash() {
+        int h = 3;
+        h = 31 * h + slot;
+        h = 31 * h + name.hashCode();
+        return 31 * h + Double.hashCode(coeff);
     }
 
     public String toString() {
-        String funcStr = "x";
+        String funcStr = name;
         if (coeff == -1) funcStr = "-" + funcStr;
-        else if (coeff != 1) funcStr = Numbers.formatNum(coeff) + "x";
+        else if (coeff != 1) funcStr = Numbers.formatNum(coeff) + name;
         return funcStr;
     }
 }
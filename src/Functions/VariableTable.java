@@ -0,0 +1,134 @@
+//---------------------------VARIABLE TABLE CLASS-----------------------------//
+//@author TitanJack
+//@project MathTools
+//The variables which an expression may use, each given a slot. x, y and t
+//always have the first three slots, and named parameters such as <a> in
+//<a*sin(x)> get the slots after them in the order they are added. Variables
+//are looked up by name only while parsing. Afterwards each Variable node
+//holds its slot, and the values of all variables are passed in as an array
+//indexed by slot, see Function.compute(double[] env).
+//
+//The index of a sum or product, such as <k> in <sum(k,1,10,x^k)>, also gets
+//a slot, which the sum fills in itself for every term.
+
+package Functions;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+@SuppressWarnings("WeakerAccess")
+public final class VariableTable {
+
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int T = 2;
+
+    private final ArrayList<String> names;
+    private final HashMap<String, Integer> slots;
+    //The slots which were added as the index of a sum or product
+    private final BitSet indices;
+
+    public VariableTable() {
+        names = new ArrayList<>();
+        slots = new HashMap<>();
+        indices = new BitSet();
+        add("x");
+        add("y");
+        add("t");
+    }
+
+    //Function: Get Slot
+    //@param name           the name of a variable
+    //@return               the slot of the variable, or -1 if there is no
+    //                      variable with that name
+    public synchronized int getSlot(String name) {
+        Integer slot = slots.get(name);
+        return slot != null ? slot : -1;
+    }
+
+    //Function: Add Parameter
+    //@param name           the name of the parameter, made of letters only
+    //@return               the slot of the parameter. A name which is already
+    //                      in the table keeps its slot
+    public synchronized int addParameter(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null && slot > T && !indices.get(slot)) return slot;
+        if (slot != null)
+            throw new IllegalArgumentException("Not a parameter: " + name);
+        if (!isValidName(name))
+            throw new IllegalArgumentException("Invalid parameter name: " +
+                    name);
+        return add(name);
+    }
+
+    //Function: Add Index
+    //@param name           the name of the index of a sum or product
+    //@return               the slot of the index, or -1 if the name is not
+    //                      valid or is x, y, t or a parameter. A name which
+    //                      is already in the table keeps its slot
+    public synchronized int addIndex(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null) return indices.get(slot) ? slot : -1;
+        if (!isValidName(name)) return -1;
+        slot = add(name);
+        indices.set(slot);
+        return slot;
+    }
+
+    //Function: Is Index
+    //@param slot           the slot of a variable
+    //@return               whether the variable was added as the index of a
+    //                      sum or product rather than as a parameter
+    public synchronized boolean isIndex(int slot) {
+        return indices.get(slot);
+    }
+
+    //Function: Get Name
+    //@param slot           the slot of a variable
+    //@return               the name of the variable
+    public synchronized String getName(int slot) {
+        return names.get(slot);
+    }
+
+    //Function: Size
+    //@return               the number of slots, which is the length of an
+    //                      environment
+    public synchronized int size() {
+        return names.size();
+    }
+
+    //Function: New Environment
+    //@return               an array with room for the value of every
+    //                      variable, all set to 0
+    public double[] newEnvironment() {
+        return new double[size()];
+    }
+
+    //Function: New Environment (Batch)
+    //@param n              the number of values of each variable
+    //@return               a column of <n> values for every variable, all
+    //                      set to 0
+    public double[][] newEnvironment(int n) {
+        return new double[size()][n];
+    }
+
+    //Function: Is Valid Name
+    //@param name           a possible name of a parameter
+    //@return               whether the name is only made of letters and is
+    //                      not the name of a function or constant, including
+    //                      the functions of plugins
+    static boolean isValidName(String name) {
+        if (name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++)
+            if (!Character.isLetter(name.charAt(i))) return false;
+        return !FunctionKeywords.isReserved(name);
+    }
+
+    private int add(String name) {
+        int slot = names.size();
+        names.add(name);
+        slots.put(name, slot);
+        return slot;
+    }
+}
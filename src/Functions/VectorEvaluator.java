@@ -0,0 +1,431 @@
+//-------------------------VECTOR EVALUATOR CLASS-----------------------------//
+//@author TitanJack
+//@project MathTools
+//Computes a flat function over lanes of x values. The values are processed in
+//small blocks which stay in the CPU cache, and every opcode of the program
+//runs as a plain counted loop over the lanes of the block. Sums, products,
+//quotients, scaling and whole number powers are only multiplies and adds, so
+//the JIT turns these loops into SIMD instructions. Trigonometric functions,
+//logs and other powers have no SIMD form, so their lanes are computed one at a
+//time with the Math methods.
+//
+//The evaluator can also compute in float precision, which fits twice as many
+//lanes into each SIMD register. Floats only have about 7 significant digits,
+//so this is only allowed for polynomial and rational functions, and only when
+//the view is close enough to the origin that the rounding stays well below a
+//pixel (see <canUseFloat>).
+//
+//Functions with trigonometric functions, logs and other powers can be
+//computed with the approximations of FastMath instead of the Math methods,
+//which are several times faster as they run as SIMD instructions. This is
+//only allowed when their error stays well below a pixel (see
+//<canUseFastMath>).
+
+package Functions;
+
+@SuppressWarnings("WeakerAccess")
+public class VectorEvaluator {
+
+    //The number of lanes computed together
+    private static final int BLOCK = 256;
+
+    //Largest value of |x| * zoom for which float precision is used. Floats
+    //round x by at most 2^-24 of its size, which is then below 1/256th of a
+    //pixel
+    private static final double FLOAT_PIXEL_LIMIT = 1 << 16;
+    //Largest error of FastMath in pixels. The error of each approximation is
+    //multiplied by the function value and zoom to get its size on the
+    //screen, and by FAST_MATH_GROWTH to allow for the error growing as it
+    //passes through the rest of the function, such as the power in pow
+    private static final double FAST_MATH_PIXEL_LIMIT = 1.0 / 16;
+    private static final double FAST_MATH_GROWTH = 100;
+
+    private static final ThreadLocal<Lanes> LOCAL_LANES =
+            ThreadLocal.withInitial(Lanes::new);
+
+    private final byte[] ops;
+    private final int[] operands;
+    private final double[] numbers;
+    private final float[] floatNumbers;
+    private final Function[] calls;
+    private final int maxStack;
+    private final boolean vectorizable;
+    private final boolean approximable;
+
+    private VectorEvaluator(FlatFunction function) {
+        ops = function.getOps();
+        operands = function.getOperands();
+        numbers = function.getNumbers();
+        calls = function.getCalls();
+        maxStack = function.getMaxStack();
+        floatNumbers = new float[numbers.length];
+        for (int i = 0; i < numbers.length; i++)
+            floatNumbers[i] = (float)numbers[i];
+        vectorizable = findVectorizable();
+        approximable = findApproximable();
+    }
+
+    //Function: Of
+    //@param function       the function to be computed
+    //@return               an evaluator for the function
+    public static VectorEvaluator of(Function function) {
+        if (function instanceof TieredFunction)
+            function = ((TieredFunction)function).getFunction();
+        return new VectorEvaluator(FlatFunction.flatten(function));
+    }
+
+    //Function: Is Vectorizable
+    //@return               whether every opcode of the function has a SIMD
+    //                      form, meaning the function is made up of only
+    //                      numbers, x, sums, products, quotients and whole
+    //                      number powers
+    public boolean isVectorizable() {
+        return vectorizable;
+    }
+
+    //Function: Can Use Float
+    //@param zoom           the number of pixels per unit
+    //       minX           the smallest x value to be computed
+    //       maxX           the largest x value to be computed
+    //@return               whether computing in float precision keeps the
+    //                      rounding of x well below a pixel
+    public boolean canUseFloat(double zoom, double minX, double maxX) {
+        return vectorizable && Math.max(Math.abs(minX), Math.abs(maxX)) *
+                zoom < FLOAT_PIXEL_LIMIT;
+    }
+
+    //Function: Can Use Fast Math
+    //@param zoom           the number of pixels per unit
+    //       maxY           the largest visible function value, ignoring
+    //                      sign
+    //@return               whether the function has a trigonometric
+    //                      function, log or power which FastMath can
+    //                      compute, and the error of FastMath stays well
+    //                      below a pixel. Errors which do not scale with the
+    //                      value, such as those of log and sine, are
+    //                      covered by counting every value as at least 1
+    public boolean canUseFastMath(double zoom, double maxY) {
+        return approximable && Math.max(maxY, 1) * zoom * FastMath.MAX_ERROR *
+                FAST_MATH_GROWTH < FAST_MATH_PIXEL_LIMIT;
+    }
+
+    //Function: Compute
+    //@param xs             the x values to be computed
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    public void compute(double[] xs, double[] out, int n) {
+        compute(xs, out, n, false);
+    }
+
+    //Function: Compute Fast
+    //@param xs             the x values to be computed
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    //Computes trigonometric functions, logs and powers with the
+    //approximations of FastMath. Should only be used for drawing, and only
+    //when <canUseFastMath> allows it
+    public void computeFast(double[] xs, double[] out, int n) {
+        compute(xs, out, n, true);
+    }
+
+    private void compute(double[] xs, double[] out, int n, boolean fast) {
+        Lanes lanes = LOCAL_LANES.get();
+        double[][] stack = lanes.doubleStack(maxStack);
+        for (int start = 0; start < n; start += BLOCK) {
+            int length = Math.min(BLOCK, n - start);
+            System.arraycopy(xs, start, lanes.x, 0, length);
+            computeBlock(lanes, stack, length, fast);
+            System.arraycopy(stack[0], 0, out, start, length);
+        }
+    }
+
+    //Function: Compute
+    //@param xs             the x values to be computed, in float precision
+    //       out            the array which the results are written into
+    //       n              the number of values to be computed
+    //Should only be used when <canUseFloat> allows it
+    public void compute(float[] xs, float[] out, int n) {
+        Lanes lanes = LOCAL_LANES.get();
+        float[][] stack = lanes.floatStack(maxStack);
+        for (int start = 0; start < n; start += BLOCK) {
+            int length = Math.min(BLOCK, n - start);
+            System.arraycopy(xs, start, lanes.floatX, 0, length);
+            computeBlock(lanes, stack, length);
+            System.arraycopy(stack[0], 0, out, start, length);
+        }
+    }
+
+    //Function: Compute Block
+    //@param lanes          the lanes of the current thread, holding the x
+    //                      values of the block
+    //       stack          the stack of lanes
+    //       n              the number of lanes in the block
+    //       fast           whether FastMath is used
+    private void computeBlock(Lanes lanes, double[][] stack, int n,
+                              boolean fast) {
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            int operand = operands[pc];
+            double[] lane;
+            switch (ops[pc]) {
+                case FlatFunction.CONST:
+                    lane = stack[++top];
+                    double number = numbers[operand];
+                    for (int i = 0; i < n; i++) lane[i] = number;
+                    break;
+                case FlatFunction.X:
+                    System.arraycopy(lanes.x, 0, stack[++top], 0, n);
+                    break;
+                case FlatFunction.ADD:
+                    lane = stack[top - operand + 1];
+                    for (int j = 1; j < operand; j++) {
+                        double[] term = stack[top - operand + 1 + j];
+                        for (int i = 0; i < n; i++) lane[i] += term[i];
+                    }
+                    top -= operand - 1;
+                    break;
+                case FlatFunction.MUL:
+                    lane = stack[top - operand + 1];
+                    for (int j = 1; j < operand; j++) {
+                        double[] factor = stack[top - operand + 1 + j];
+                        for (int i = 0; i < n; i++) lane[i] *= factor[i];
+                    }
+                    top -= operand - 1;
+                    break;
+                case FlatFunction.DIV:
+                    lane = stack[top - 1];
+                    double[] divisor = stack[top];
+                    for (int i = 0; i < n; i++) lane[i] /= divisor[i];
+                    top--;
+                    break;
+                case FlatFunction.POW:
+                    lane = stack[top - 1];
+                    double[] powers = stack[top];
+                    if (fast) FastMath.pow(lane, powers, n);
+                    else
+                        for (int i = 0; i < n; i++)
+                            lane[i] = Math.pow(lane[i], powers[i]);
+                    top--;
+                    break;
+                case FlatFunction.POWC:
+                    double power = numbers[operand];
+                    if (isSmallWholeNumber(power))
+                        wholePower(stack[top], stack[top + 1], (int)power, n);
+                    else if (fast && power == 0.5) {
+                        //Square roots are exact and already SIMD
+                        lane = stack[top];
+                        for (int i = 0; i < n; i++)
+                            lane[i] = Math.sqrt(lane[i]);
+                    } else if (fast) FastMath.pow(stack[top], power, n);
+                    else {
+                        lane = stack[top];
+                        for (int i = 0; i < n; i++)
+                            lane[i] = Math.pow(lane[i], power);
+                    }
+                    break;
+                case FlatFunction.SCALE:
+                    lane = stack[top];
+                    double scale = numbers[operand];
+                    for (int i = 0; i < n; i++) lane[i] *= scale;
+                    break;
+                case FlatFunction.LOG:
+                    lane = stack[top];
+                    if (fast) FastMath.log(lane, n);
+                    else
+                        for (int i = 0; i < n; i++) lane[i] = Math.log(lane[i]);
+                    break;
+                case FlatFunction.TRIG:
+                    if (fast)
+                        Trigonometric.computeAllFast(Trigonometric.TYPES[
+                                operand], stack[top], n);
+                    else
+                        Trigonometric.computeAll(Trigonometric.TYPES[operand],
+                                stack[top], n);
+                    break;
+                case FlatFunction.CALL:
+                    calls[operand].compute(lanes.x, stack[++top], n);
+                    break;
+            }
+        }
+    }
+
+    //Function: Compute Block
+    //@param lanes          the lanes of the current thread, holding the x
+    //                      values of the block
+    //       stack          the stack of lanes
+    //       n              the number of lanes in the block
+    //The float precision version of computing a block
+    private void computeBlock(Lanes lanes, float[][] stack, int n) {
+        int top = -1;
+        for (int pc = 0; pc < ops.length; pc++) {
+            int operand = operands[pc];
+            float[] lane;
+            switch (ops[pc]) {
+                case FlatFunction.CONST:
+                    lane = stack[++top];
+                    float number = floatNumbers[operand];
+                    for (int i = 0; i < n; i++) lane[i] = number;
+                    break;
+                case FlatFunction.X:
+                    System.arraycopy(lanes.floatX, 0, stack[++top], 0, n);
+                    break;
+                case FlatFunction.ADD:
+                    lane = stack[top - operand + 1];
+                    for (int j = 1; j < operand; j++) {
+                        float[] term = stack[top - operand + 1 + j];
+                        for (int i = 0; i < n; i++) lane[i] += term[i];
+                    }
+                    top -= operand - 1;
+                    break;
+                case FlatFunction.MUL:
+                    lane = stack[top - operand + 1];
+                    for (int j = 1; j < operand; j++) {
+                        float[] factor = stack[top - operand + 1 + j];
+                        for (int i = 0; i < n; i++) lane[i] *= factor[i];
+                    }
+                    top -= operand - 1;
+                    break;
+                case FlatFunction.DIV:
+                    lane = stack[top - 1];
+                    float[] divisor = stack[top];
+                    for (int i = 0; i < n; i++) lane[i] /= divisor[i];
+                    top--;
+                    break;
+                case FlatFunction.POW:
+                    lane = stack[top - 1];
+                    float[] powers = stack[top];
+                    for (int i = 0; i < n; i++)
+                        lane[i] = (float)Math.pow(lane[i], powers[i]);
+                    top--;
+                    break;
+                case FlatFunction.POWC:
+                    double power = numbers[operand];
+                    if (isSmallWholeNumber(power))
+                        wholePower(stack[top], stack[top + 1], (int)power, n);
+                    else {
+                        lane = stack[top];
+                        for (int i = 0; i < n; i++)
+                            lane[i] = (float)Math.pow(lane[i], power);
+                    }
+                    break;
+                case FlatFunction.SCALE:
+                    lane = stack[top];
+                    float scale = floatNumbers[operand];
+                    for (int i = 0; i < n; i++) lane[i] *= scale;
+                    break;
+                case FlatFunction.LOG:
+                    lane = stack[top];
+                    for (int i = 0; i < n; i++)
+                        lane[i] = (float)Math.log(lane[i]);
+                    break;
+                case FlatFunction.TRIG:
+                    lane = stack[top];
+                    TrigType type = Trigonometric.TYPES[operand];
+                    for (int i = 0; i < n; i++)
+                        lane[i] = (float)Trigonometric.compute(type, lane[i]);
+                    break;
+                case FlatFunction.CALL:
+                    lane = stack[++top];
+                    for (int i = 0; i < n; i++)
+                        lane[i] = (float)calls[operand].compute(
+                                lanes.floatX[i]);
+                    break;
+            }
+        }
+    }
+
+    //Function: Whole Power
+    //@param lane           the lanes to be raised to the power
+    //       temp           a free lane used to hold the base
+    //       power          a whole number power
+    //       n              the number of lanes
+    //Computes the power by multiplying the base by itself
+    private static void wholePower(double[] lane, double[] temp, int power,
+                                   int n) {
+        int times = Math.abs(power);
+        System.arraycopy(lane, 0, temp, 0, n);
+        for (int i = 0; i < n; i++) lane[i] = 1;
+        for (int k = 0; k < times; k++)
+            for (int i = 0; i < n; i++) lane[i] *= temp[i];
+        if (power < 0)
+            for (int i = 0; i < n; i++) lane[i] = 1 / lane[i];
+    }
+
+    private static void wholePower(float[] lane, float[] temp, int power,
+                                   int n) {
+        int times = Math.abs(power);
+        System.arraycopy(lane, 0, temp, 0, n);
+        for (int i = 0; i < n; i++) lane[i] = 1;
+        for (int k = 0; k < times; k++)
+            for (int i = 0; i < n; i++) lane[i] *= temp[i];
+        if (power < 0)
+            for (int i = 0; i < n; i++) lane[i] = 1 / lane[i];
+    }
+
+    private static boolean isSmallWholeNumber(double power) {
+        return power == (int)power && Math.abs(power) <= 16;
+    }
+
+    //Function: Find Vectorizable
+    //@return               whether every opcode of the program has a SIMD form
+    private boolean findVectorizable() {
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case FlatFunction.POW: case FlatFunction.LOG:
+                case FlatFunction.TRIG: case FlatFunction.CALL:
+                    return false;
+                case FlatFunction.POWC:
+                    if (!isSmallWholeNumber(numbers[operands[pc]]))
+                        return false;
+                    break;
+            }
+        }
+        return true;
+    }
+
+    //Function: Find Approximable
+    //@return               whether the program has an opcode which FastMath
+    //                      computes
+    private boolean findApproximable() {
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case FlatFunction.POW: case FlatFunction.LOG:
+                    return true;
+                case FlatFunction.TRIG:
+                    switch (Trigonometric.TYPES[operands[pc]]) {
+                        case SIN: case COS: case TAN:
+                        case CSC: case SEC: case COT:
+                            return true;
+                    }
+                    break;
+                case FlatFunction.POWC:
+                    if (!isSmallWholeNumber(numbers[operands[pc]]))
+                        return true;
+                    break;
+            }
+        }
+        return false;
+    }
+
+    //The lanes used by one thread. The stack has one spare lane on top, which
+    //whole number powers use to hold their base
+    private static class Lanes {
+
+        private final double[] x = new double[BLOCK];
+        private final float[] floatX = new float[BLOCK];
+        private double[][] doubles = new double[0][];
+        private float[][] floats = new float[0][];
+
+        double[][] doubleStack(int maxStack) {
+            if (doubles.length < maxStack + 1)
+                doubles = new double[maxStack + 1][BLOCK];
+            return doubles;
+        }
+
+        float[][] floatStack(int maxStack) {
+            if (floats.length < maxStack + 1)
+                floats = new float[maxStack + 1][BLOCK];
+            return floats;
+        }
+    }
+}
@@ -30,7 +30,10 @@ public class Axis {
     //Renders the axis with respect to the origin
     public void paint(Graphics g) {
 
-        Point origin = GraphProgram.getOrigin();
+        //The origin is kept in doubles, since it can be far outside of the
+        //window when zoomed in on a point far away from it
+        double originX = GraphProgram.getOriginX().doubleValue();
+        double originY = GraphProgram.getOriginY().doubleValue();
         g.setColor(Color.BLACK);
         Graphics2D g2d = (Graphics2D)g;
         Color axisColor = GraphProgram.getTheme().getAxisColor();
@@ -73,36 +76,37 @@ public class Axis {
         }
         //The distance of the starting position (250 beyond the left border)
         //from the position of the origin
-        double dxorigin = -250 - origin.x;
+        double dxorigin = -250 - originX;
         //The coordinate value (must be in whole increments) close to the
         //starting point, cannot be exactly at the starting point or else
         //amount of increments won't be a whole number
-        double coordX = (int)(dxorigin / spacing) * increment;
+        double coordX = Math.floor(dxorigin / spacing) * increment;
         //The position of this starting coordinate value
-        double posX = (int)(dxorigin / spacing) * spacing;
+        double posX = Math.floor(dxorigin / spacing) * spacing;
 
         g.setColor(axisColor);
         g.setFont(new Font("Arial", Font.BOLD, 16));
-        g.drawString("0", origin.x - 10, origin.y +
+        g.drawString("0", (int)originX - 10, (int)originY +
                 g.getFontMetrics().getHeight());
 
         //Cycle through each coordinate value on the x axis which needs to be
         //displayed on screen
-        while (posX + origin.x < width + 250) {
+        while (posX + originX < width + 250) {
             if (Math.abs(coordX) > 1e-10) {
                 g.setColor(axisColor);
-                g.drawString(Numbers.trimDigits(coordX, 3), (int) (posX + origin.x),
-                        origin.y + g.getFontMetrics().getHeight());
+                g.drawString(Numbers.trimDigits(coordX, 3), (int) (posX +
+                        originX), (int)originY + g.getFontMetrics()
+                        .getHeight());
             }
             if (GraphProgram.isGridLineActive()) {
                 g2d.setColor(GraphProgram.getTheme().getGridLineColor());
                 g2d.setStroke(new BasicStroke(2));
-                g2d.drawLine((int) (posX + origin.x), -250, (int) (posX +
-                        origin.x), height + 250);
+                g2d.drawLine((int) (posX + originX), -250, (int) (posX +
+                        originX), height + 250);
                 g2d.setStroke(new BasicStroke(1));
                 for (int i = 1; i < 4; i++) {
-                    g2d.drawLine((int)(posX + origin.x + spacing * i / 4.0),
-                            -250, (int)(posX + origin.x + spacing * i / 4.0),
+                    g2d.drawLine((int)(posX + originX + spacing * i / 4.0),
+                            -250, (int)(posX + originX + spacing * i / 4.0),
                             height + 250);
                 }
             }
@@ -111,25 +115,25 @@ public class Axis {
         }
 
         //Starting from 250 beyond the top of the program window
-        double dyorigin = -250 - origin.y;
-        double coordY = (int)(dyorigin / spacing) * increment;
-        double posY = (int)(dyorigin / spacing) * spacing;
+        double dyorigin = -250 - originY;
+        double coordY = Math.floor(dyorigin / spacing) * increment;
+        double posY = Math.floor(dyorigin / spacing) * spacing;
         //Displays all coordinate values on the y axis
-        while (posY + origin.y < height + 250) {
+        while (posY + originY < height + 250) {
             if (Math.abs(coordY) > 1e-10) {
                 g.setColor(axisColor);
-                g.drawString(Numbers.trimDigits(-coordY, 3), origin.x + 10,
-                        (int) (posY + origin.y));
+                g.drawString(Numbers.trimDigits(-coordY, 3), (int)originX +
+                        10, (int) (posY + originY));
             }
             if (GraphProgram.isGridLineActive()) {
                 g2d.setColor(GraphProgram.getTheme().getGridLineColor());
                 g2d.setStroke(new BasicStroke(2));
-                g2d.drawLine(-250, (int) (posY + origin.y),
-                        width + 250, (int) (posY + origin.y));
+                g2d.drawLine(-250, (int) (posY + originY),
+                        width + 250, (int) (posY + originY));
                 g2d.setStroke(new BasicStroke(1));
                 for (int i = 1; i < 4; i++) {
-                    g2d.drawLine(-250, (int)(posY + origin.y + spacing *
-                            i / 4.0), width + 250, (int)(posY + origin.y
+                    g2d.drawLine(-250, (int)(posY + originY + spacing *
+                            i / 4.0), width + 250, (int)(posY + originY
                             + spacing * i / 4.0));
                 }
             }
@@ -141,9 +145,9 @@ public class Axis {
         g2d.setStroke(new BasicStroke(3));
         g.setColor(axisColor);
         //Draws the axis lines
-        if (origin.x > -250 && origin.x < width + 250)
-            g2d.drawLine(origin.x, -250, origin.x, height + 250);
-        if (origin.y > -250 && origin.y < height + 250)
-            g2d.drawLine(-2, origin.y, width + 250, origin.y);
+        if (originX > -250 && originX < width + 250)
+            g2d.drawLine((int)originX, -250, (int)originX, height + 250);
+        if (originY > -250 && originY < height + 250)
+            g2d.drawLine(-2, (int)originY, width + 250, (int)originY);
     }
 }
@@ -0,0 +1,180 @@
+//---------------------------DOMAIN COLORING CLASS----------------------------//
+//@author TitanJack
+//@project Graph Plane
+//Colors every pixel of the plane by the value of a function at the complex
+//number the pixel stands for. The hue shows the argument of the value, so
+//that the colors wind around zeros and poles, and the brightness repeats from
+//dark to light with every doubling of the modulus.
+//
+//Every pixel is computed, so the rows of the image are split between the
+//threads of a ForkJoin pool, each of which computes a whole row at a time
+//into arrays it keeps for the next frame. The image is only computed again
+//once the function or the view changes.
+
+package Grapher;
+
+import Functions.DoubleDouble;
+import Functions.Function;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+@SuppressWarnings({"WeakerAccess"})
+public class DomainColoring {
+
+    //Rows are computed by one task once there are at most this many left
+    private static final int ROWS_PER_TASK = 8;
+    private static final double LN_2 = Math.log(2);
+    //Pixels where the function is undefined or infinite
+    private static final int UNDEFINED_COLOR = 0x808080;
+    private static final int INFINITE_COLOR = 0xFFFFFF;
+
+    //The real parts, imaginary parts and the two parts of the values of a
+    //row, kept by each thread
+    private static final ThreadLocal<double[][]> ROWS =
+            ThreadLocal.withInitial(() -> new double[4][0]);
+
+    private BufferedImage image;
+    private int[] pixels;
+    //The function and view which the image was computed for
+    private Function function;
+    private double zoom;
+    private DoubleDouble originX;
+    private DoubleDouble originY;
+
+    public DomainColoring() {
+        image = null;
+        function = null;
+    }
+
+    //Function: Paint
+    //@param function           the function to be colored
+    //       zoom               the current zoom ratio of the graph
+    //       originX            the exact horizontal position of the origin
+    //       originY            the exact vertical position of the origin
+    //       g                  the graphics component
+    public void paint(Function function, double zoom, DoubleDouble originX,
+                      DoubleDouble originY, Graphics g) {
+        int width = GraphProgram.getWindowWidth();
+        int height = GraphProgram.getWindowHeight();
+        if (width <= 0 || height <= 0) return;
+        //A new origin object is made whenever the origin moves
+        boolean unchanged = image != null && image.getWidth() == width &&
+                image.getHeight() == height && this.function == function &&
+                this.zoom == zoom && this.originX == originX &&
+                this.originY == originY;
+        if (!unchanged) {
+            if (image == null || image.getWidth() != width ||
+                    image.getHeight() != height) {
+                image = new BufferedImage(width, height,
+                        BufferedImage.TYPE_INT_RGB);
+                pixels = ((DataBufferInt)image.getRaster().getDataBuffer())
+                        .getData();
+            }
+            ForkJoinPool.commonPool().invoke(new RowTask(function, zoom,
+                    originX.doubleValue(), originY.doubleValue(), width, 0,
+                    height));
+            this.function = function;
+            this.zoom = zoom;
+            this.originX = originX;
+            this.originY = originY;
+        }
+        g.drawImage(image, 0, 0, null);
+    }
+
+    //Function: Color Of
+    //@param re                 the real part of a value
+    //       im                 the imaginary part of a value
+    //@return                   the color of the value as an RGB integer
+    private static int colorOf(double re, double im) {
+        if (Double.isNaN(re) || Double.isNaN(im)) return UNDEFINED_COLOR;
+        double squared = re * re + im * im;
+        if (Double.isInfinite(squared)) return INFINITE_COLOR;
+        if (squared == 0) return 0;
+        //log2 of the modulus, of which only the fraction is kept
+        double band = 0.5 * Math.log(squared) / LN_2;
+        band -= Math.floor(band);
+        return Color.HSBtoRGB(turns(re, im), 0.85f, (float)(0.55 + 0.45 *
+                band));
+    }
+
+    //Function: Turns
+    //@param re                 the real part of a value
+    //       im                 the imaginary part of a value
+    //@return                   the argument of the value as a fraction of a
+    //                          whole turn. An approximation of the arctangent
+    //                          within a quarter of a degree is used, which is
+    //                          several times faster than Math.atan2 and too
+    //                          close to tell apart in color
+    private static float turns(double re, double im) {
+        double absRe = Math.abs(re), absIm = Math.abs(im);
+        //The angle from the nearest axis is found from the smaller ratio
+        boolean steep = absIm > absRe;
+        double t = steep ? absRe / absIm : absIm / absRe;
+        double angle = t * (0.125 + 0.0436 * (1 - t));
+        if (steep) angle = 0.25 - angle;
+        if (re < 0) angle = 0.5 - angle;
+        return (float)(im < 0 ? -angle : angle);
+    }
+
+    //Computes the pixels of a range of rows, splitting it in half until it
+    //is small enough
+    @SuppressWarnings("serial")
+    private class RowTask extends RecursiveAction {
+
+        private final Function function;
+        private final double zoom;
+        private final double x0;
+        private final double y0;
+        private final int width;
+        private final int start;
+        private final int end;
+
+        RowTask(Function function, double zoom, double x0, double y0,
+                int width, int start, int end) {
+            this.function = function;
+            this.zoom = zoom;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.width = width;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= ROWS_PER_TASK) {
+                computeRows();
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new RowTask(function, zoom, x0, y0, width, start,
+                    middle), new RowTask(function, zoom, x0, y0, width,
+                    middle, end));
+        }
+
+        //Function: Compute Rows
+        //Computes the values of the function for each row and colors the
+        //pixels of the row
+        private void computeRows() {
+            double[][] rows = ROWS.get();
+            if (rows[0].length < width)
+                for (int k = 0; k < rows.length; k++)
+                    rows[k] = new double[width];
+            double[] re = rows[0], im = rows[1];
+            double[] valueRe = rows[2], valueIm = rows[3];
+            for (int i = 0; i < width; i++) re[i] = (i - x0) / zoom;
+            for (int row = start; row < end; row++) {
+                double y = (y0 - row) / zoom;
+                for (int i = 0; i < width; i++) im[i] = y;
+                function.computeComplex(re, im, valueRe, valueIm, width);
+                int offset = row * width;
+                for (int i = 0; i < width; i++)
+                    pixels[offset + i] = colorOf(valueRe[i], valueIm[i]);
+            }
+        }
+    }
+}
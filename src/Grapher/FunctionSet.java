@@ -3,22 +3,175 @@
 //@project Graph Plane
 //The Function Set class holds the function being displayed on the graph as well
 //as it's properties such as color and whether it is hidden
+//
+//The samples of the curve are kept between frames, and only computed again
+//once the view, the function or the value of a parameter it uses changes. A
+//function of parameters is drawn bound to their current values, see
+//ParameterValues, while its samples are computed node by node so that
+//moving a slider only recomputes the nodes which use the parameter, see
+//IncrementalEvaluator
+//
+//A family of curves, such as <a*sin(x) for a in 0..5>, is held by a set whose
+//members are drawn as curves of their own. The members are computed together
+//in one batch by the set of the family, see FamilyEvaluator, and each member
+//takes its samples from the batch
 
 package Grapher;
 
+import Functions.BudgetExceededException;
+import Functions.ChebyshevSurrogate;
+import Functions.DoubleDouble;
+import Functions.EvaluationBudget;
+import Functions.FamilyEvaluator;
 import Functions.Function;
+import Functions.IncrementalEvaluator;
+import Functions.Interval;
+import Functions.ParameterValues;
+import Functions.VectorEvaluator;
 
 import java.awt.*;
+import java.util.Arrays;
 
 @SuppressWarnings({"WeakerAccess"})
 public class FunctionSet {
 
+    //How many samples are computed beyond the left and right edges of the
+    //window
+    private static final int SAMPLE_MARGIN = 250;
+    //The bounds of the curve are checked for this many columns at a time
+    private static final int BLOCK_SIZE = 16;
+    //How far past the top and bottom of the window a curve still counts as
+    //visible, which covers the width of the stroke
+    private static final int EDGE_MARGIN = 4;
+    //The curve is computed in double-double once rounding x or y to a double
+    //moves it by more than this many pixels. Computing a function rounds many
+    //times over, so the limit is far below a whole pixel
+    private static final double PRECISION_LIMIT = 1e-3;
+    //Functions which take longer than this many nanoseconds per sample are
+    //drawn from a Chebyshev surrogate, see ChebyshevSurrogate. The cost is the
+    //fastest of the first COST_FRAMES frames, so that it is not thrown off by
+    //the function being compiled or by a slow frame
+    private static final double SURROGATE_COST = 60;
+    private static final int COST_FRAMES = 16;
+    //The surrogate is at most this many pixels off the curve, and is built a
+    //few times more accurate than that so that it lasts while zooming in
+    private static final double SURROGATE_PIXEL_ERROR = 1.0 / 16;
+    private static final double SURROGATE_HEADROOM = 4;
+    //The surrogate covers the window and this many window sizes around it, so
+    //that it lasts while panning
+    private static final double SURROGATE_MARGIN = 1;
+    //How many samples of the surrogate are checked against the function every
+    //frame
+    private static final int SURROGATE_CHECKS = 2;
+    //How long the samples of a frame may take, in nanoseconds. A function
+    //which goes over is sampled only at every COARSE_STEP-th column after
+    //that, and is not drawn at all if it still goes over
+    private static final long FRAME_BUDGET = 100_000_000;
+    private static final int COARSE_STEP = 8;
+
+    //What is drawn in a column, which is the space between a sample and the
+    //sample before it
+    //Nothing, the curve is off the screen or undefined
+    private static final byte SKIP = 0;
+    //A line between the two samples
+    private static final byte LINE = 1;
+    //A line between samples which are not computed but filled in from the
+    //ends of the block, as the curve moves by less than a pixel there
+    private static final byte FLAT = 2;
+    //Nothing, the curve has a pole between the two samples
+    private static final byte BREAK = 3;
+
     private Function function;
+    private VectorEvaluator evaluator;
+    //The function as it was entered, the parameters it uses, and the values
+    //of the parameters <function> was last bound to
+    private Function source;
+    private ParameterValues parameters;
+    private int[] parameterSlots;
+    private double[] boundValues;
+    //Computes the samples of a function of parameters, with the values of
+    //the parameters written into <environment>
+    private IncrementalEvaluator incremental;
+    private double[] environment;
+    private double[] sampleYs;
+    //The members of a family, or null, and the batch they are computed in
+    private FunctionSet[] members;
+    private FamilyEvaluator familyEvaluator;
+    //The set of the family a member belongs to, or null, and the index of
+    //the member
+    private final FunctionSet family;
+    private final int member;
+    //The x values and the values of every member computed in the last
+    //batch, and the view and parameters they were computed for
+    private double[] familyXs;
+    private double[][] familyYs;
+    private double[] familyEnvironment;
+    private double[] lastFamilyEnvironment;
+    private boolean familyValid;
+    private double familyZoom;
+    private DoubleDouble familyOriginX;
+    private DoubleDouble familyOriginY;
+    private int familyCount;
+    //Whether the batch went over its budget, in which case each member is
+    //computed on its own
+    private boolean familyOverBudget;
     private Color color;
     private boolean hidden;
 
+    //The x values and vertical pixel positions of the curve sampled during
+    //the last paint
+    private double[] sampleXs;
+    private double[] samplePosYs;
+    private float[] floatSampleXs;
+    private float[] floatSampleYs;
+    private int sampleStartX;
+    private int sampleCount;
+    //What is drawn in each column, and the samples which have to be computed
+    private byte[] columns;
+    private double[] neededXs;
+    private double[] neededYs;
+    private double[] neededPosYs;
+    private double sampleZoom;
+    //Whether the samples were computed exactly, rather than in float
+    //precision or with approximate math
+    private boolean samplesExact;
+    private DoubleDouble sampleOriginX;
+    private DoubleDouble sampleOriginY;
+    //The window size and the rendering modes the samples were computed for
+    private int sampleWidth;
+    private int sampleHeight;
+    private int sampleModes;
+
+    //The fastest time of computing a sample exactly, in nanoseconds, and the
+    //number of frames it was measured over
+    private double sampleCost;
+    private int costFrames;
+    //The surrogate of the function, and how often it failed its checks. The
+    //surrogate is no longer used once it failed twice
+    private ChebyshevSurrogate surrogate;
+    private int surrogateFailures;
+    private int checkOffset;
+    //Whether the function went over its budget once and is sampled coarsely,
+    //and whether it went over again and is not drawn. A function which went
+    //over while sampled coarsely is only tried again once the view differs
+    //from the one it went over on
+    private boolean coarse;
+    private boolean overBudget;
+    private double overBudgetZoom;
+    private DoubleDouble overBudgetOriginX;
+    private DoubleDouble overBudgetOriginY;
+    private int overBudgetWidth;
+    private int overBudgetHeight;
+
     public FunctionSet(Color color) {
+        this(color, null, 0);
+    }
+
+    private FunctionSet(Color color, FunctionSet family, int member) {
         function = null;
+        parameterSlots = new int[0];
+        this.family = family;
+        this.member = member;
         this.color = color;
         hidden = false;
     }
@@ -31,8 +184,10 @@ public class FunctionSet {
     }
 
     //Function: Get Function
-    //@return                   the function object
+    //@return                   the function object, with its parameters set
+    //                          to their current values
     public Function getFunction() {
+        bindParameters();
         return function;
     }
 
@@ -48,11 +203,120 @@ public class FunctionSet {
         return hidden;
     }
 
+    //Function: Is Over Budget
+    //@return                   whether the function took too long to be
+    //                          drawn in full, and is drawn coarsely or not
+    //                          at all in the current view
+    public boolean isOverBudget() {
+        if (members != null)
+            for (FunctionSet memberSet : members)
+                if (memberSet.isOverBudget()) return true;
+        return coarse || overBudget;
+    }
+
+    //Function: Get Members
+    //@return                   the sets of the members of the family, which
+    //                          are drawn in place of this set, or null if
+    //                          the set does not hold a family
+    public FunctionSet[] getMembers() {
+        return members;
+    }
+
     //Function: Set Function
     //@param function           new function object
     //Assigns new function object
     public void setFunction(Function function) {
+        setFunction(function, null);
+    }
+
+    //Function: Set Function
+    //@param function           new function object, which may use parameters
+    //       parameters         the values of the parameters, or null if the
+    //                          function uses none
+    //Assigns new function object
+    public void setFunction(Function function, ParameterValues parameters) {
+        members = null;
+        familyEvaluator = null;
+        source = function;
+        this.parameters = parameters;
+        parameterSlots = function != null && parameters != null ? parameters
+                .parametersOf(function) : new int[0];
         this.function = function;
+        incremental = null;
+        if (parameterSlots.length > 0) {
+            //The members of a family take their samples from the batch
+            if (family == null)
+                incremental = new IncrementalEvaluator(function);
+            environment = new double[parameterSlots[parameterSlots.length -
+                    1] + 1];
+            boundValues = new double[parameterSlots.length];
+            this.function = null;
+            bindParameters();
+        }
+        //The vector lanes only take x, so functions of parameters are not
+        //computed over them
+        evaluator = function != null && parameterSlots.length == 0 && family
+                == null ? VectorEvaluator.of(function) : null;
+        sampleCount = 0;
+        sampleCost = 0;
+        costFrames = 0;
+        surrogate = null;
+        surrogateFailures = 0;
+        coarse = false;
+        overBudget = false;
+    }
+
+    //Function: Set Family
+    //@param function           the function of the family, which uses the
+    //                          variable of the family and may use parameters
+    //       slot               the slot of the variable of the family
+    //       values             the value of the variable for each member
+    //       parameters         the values of the parameters
+    //Assigns a family of curves, each of which is drawn by a member set
+    public void setFamily(Function function, int slot, double[] values,
+                          ParameterValues parameters) {
+        setFunction(null);
+        this.parameters = parameters;
+        familyEvaluator = new FamilyEvaluator(function, slot, values);
+        int[] slots = parameters.parametersOf(function);
+        familyEnvironment = new double[slots.length > 0 ? slots[slots
+                .length - 1] + 1 : 0];
+        lastFamilyEnvironment = new double[familyEnvironment.length];
+        familyValid = false;
+        familyOverBudget = false;
+        familyXs = null;
+        members = new FunctionSet[values.length];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new FunctionSet(color, this, i);
+            members[i].setFunction(familyEvaluator.getMember(i), parameters);
+            members[i].hidden = hidden;
+        }
+    }
+
+    //Function: Bind Parameters
+    //Binds the function again if the value of any parameter it uses changed
+    //since it was last bound, which also drops the samples of the old values
+    private void bindParameters() {
+        if (parameterSlots.length == 0) return;
+        boolean changed = function == null;
+        for (int i = 0; i < parameterSlots.length; i++) {
+            double value = parameters.get(parameterSlots[i]);
+            if (Double.compare(value, boundValues[i]) != 0) {
+                boundValues[i] = value;
+                changed = true;
+            }
+        }
+        if (changed) {
+            function = parameters.bind(source);
+            sampleCount = 0;
+        }
+    }
+
+    //Function: Set Over Budget
+    //Marks the function as too slow to be drawn, such as when parsing it took
+    //too long
+    public void setOverBudget() {
+        overBudget = true;
     }
 
     //Function: Set Color
@@ -61,42 +325,493 @@ public class FunctionSet {
     @SuppressWarnings("unused")
     public void setColor(Color color) {
         this.color = color;
+        if (members != null)
+            for (FunctionSet memberSet : members) memberSet.color = color;
     }
 
     //Function: Toggle Hidden
     //Cycles between hidden and not hidden
     public void toggleHidden() {
         hidden = !hidden;
+        if (members != null)
+            for (FunctionSet memberSet : members) memberSet.hidden = hidden;
+    }
+
+    //Function: Get Sampled Position
+    //@param posX               a horizontal position in the pixel/graphic
+    //                          coordinate system
+    //       zoom               the current zoom ratio of the graph
+    //       originX            the exact horizontal position of the origin
+    //       originY            the exact vertical position of the origin
+    //@return                   the vertical position of the curve at that
+    //                          position, taken from the samples of the last
+    //                          paint when they are available and exact
+    public double getSampledPosition(int posX, double zoom, DoubleDouble
+            originX, DoubleDouble originY) {
+        int index = posX - sampleStartX;
+        //A new origin object is made whenever the origin moves
+        if (index >= 0 && index < sampleCount && sampleZoom == zoom &&
+                sampleOriginX == originX && sampleOriginY == originY &&
+                samplesExact && !Double.isNaN(samplePosYs[index]))
+            return samplePosYs[index];
+        return position(posX, zoom, originX, originY);
     }
 
     //Function: Paint
     //@param zoom               the current zoom ratio of the graph
-    //       origin             the graphical coordinate points of the origin
+    //       originX            the exact horizontal position of the origin
+    //       originY            the exact vertical position of the origin
     //       g                  the graphics component
-    public void paint(double zoom, Point origin, Graphics g) {
+    public void paint(double zoom, DoubleDouble originX, DoubleDouble originY,
+                      Graphics g) {
 
+        //The samples of the last frame are drawn again if nothing they
+        //depend on changed, such as for every curve which does not use the
+        //parameter whose slider is being moved
+        bindParameters();
         int width = GraphProgram.getWindowWidth();
+        int height = GraphProgram.getWindowHeight();
+        int modes = (GraphProgram.isFloatRenderingActive() ? 1 : 0) |
+                (GraphProgram.isFastMathActive() ? 2 : 0);
+        //A new origin object is made whenever the origin moves
+        boolean unchanged = sampleCount > 0 && sampleZoom == zoom &&
+                sampleOriginX == originX && sampleOriginY == originY &&
+                sampleWidth == width && sampleHeight == height &&
+                sampleModes == modes;
+        if (overBudget) {
+            if (overBudgetZoom == zoom && overBudgetOriginX == originX &&
+                    overBudgetOriginY == originY && overBudgetWidth == width
+                    && overBudgetHeight == height)
+                return;
+            //A slow frame, such as one held up by garbage collection or an
+            //expensive part of the curve, does not hide it for good
+            overBudget = false;
+        }
+
+        //A function which takes too long is cancelled partway, so that it does
+        //not hold up the rest of the graph, and is sampled more coarsely on
+        //the next frame
+        if (!unchanged && family != null)
+            family.computeFamily(zoom, originX, originY);
+        EvaluationBudget budget = EvaluationBudget.get();
+        budget.begin(FRAME_BUDGET);
+        try {
+            if (!unchanged) computeSamples(zoom, originX, originY);
+        } catch (BudgetExceededException e) {
+            if (coarse) {
+                overBudget = true;
+                overBudgetZoom = zoom;
+                overBudgetOriginX = originX;
+                overBudgetOriginY = originY;
+                overBudgetWidth = width;
+                overBudgetHeight = height;
+            }
+            coarse = true;
+            sampleCount = 0;
+            return;
+        } finally {
+            budget.end();
+        }
+        sampleWidth = width;
+        sampleHeight = height;
+        sampleModes = modes;
+
         Graphics2D g2d = (Graphics2D)g;
         g2d.setStroke(new BasicStroke(4));
         g2d.setColor(color);
-        //The coordinate system relative to the program window
-        int posX = -250;
-        //The coordinate system relative to the origin
-        double coordX = (posX - origin.x) / zoom;
-        double lastVal = function.compute(coordX);
-        //From left to right (250 beyond the left edge and 250
-        //beyond the right edge), cycles through every pixel to
-        //render a piece of the function
-        while (posX < width + 250) {
-            posX++;
-            coordX = (posX - origin.x) / zoom;
-            double currentVal = function.compute(coordX);
+        for (int i = 1; i < sampleCount; i++) {
+            if (columns[i] != LINE && columns[i] != FLAT) continue;
+            double prev = samplePosYs[i - 1], next = samplePosYs[i];
+            if (Double.isNaN(prev) || Double.isInfinite(prev) || Double
+                    .isNaN(next) || Double.isInfinite(next))
+                continue;
+            int posX = sampleStartX + i;
             //Draws a line that connects the function values at the
             //current and previous pixel position
-            g2d.drawLine(posX - 1, origin.y - (int) (lastVal
-                    * zoom), posX, origin.y - (int) (currentVal *
-                    zoom));
-            lastVal = currentVal;
+            g2d.drawLine(posX - 1, (int)prev, posX, (int)next);
+        }
+    }
+
+    //Function: Compute Samples
+    //@param zoom               the current zoom ratio of the graph
+    //       originX            the exact horizontal position of the origin
+    //       originY            the exact vertical position of the origin
+    //Plans the columns of the curve and computes the samples which are needed
+    //to draw them
+    private void computeSamples(double zoom, DoubleDouble originX,
+                                DoubleDouble originY) {
+        int width = GraphProgram.getWindowWidth();
+        //From left to right (250 beyond the left edge and 250 beyond the right
+        //edge), every pixel gets a sample. The samples are computed together
+        //so that the function tree is only walked once per frame instead of
+        //once per pixel, and only where the curve can be seen
+        sampleStartX = -SAMPLE_MARGIN;
+        sampleCount = width + 2 * SAMPLE_MARGIN + 1;
+        if (sampleXs == null || sampleXs.length < sampleCount) {
+            sampleXs = new double[sampleCount];
+            samplePosYs = new double[sampleCount];
+            neededXs = new double[sampleCount];
+            neededYs = new double[sampleCount];
+            neededPosYs = new double[sampleCount];
+            columns = new byte[sampleCount];
+        }
+        double x0 = originX.doubleValue(), y0 = originY.doubleValue();
+        for (int i = 0; i < sampleCount; i++)
+            sampleXs[i] = (sampleStartX + i - x0) / zoom;
+        double top = (y0 + EDGE_MARGIN) / zoom;
+        double bottom = (y0 - GraphProgram.getWindowHeight() - EDGE_MARGIN) /
+                zoom;
+        if (coarse) planCoarseColumns();
+        else planColumns(zoom, top, bottom);
+
+        //Only the samples at the ends of drawn columns are computed
+        int needed = 0;
+        for (int i = 0; i < sampleCount; i++)
+            if (isNeeded(i)) neededXs[needed++] = sampleXs[i];
+        double maxY = Math.max(Math.abs(top), Math.abs(bottom));
+        samplesExact = true;
+        if (needsPrecision(zoom, Math.max(Math.abs(sampleXs[0]), Math.abs(
+                sampleXs[sampleCount - 1])), maxY))
+            computePreciseSamples(zoom, originX, originY);
+        else {
+            //Polynomial and rational functions are computed over SIMD lanes,
+            //in float precision if it is turned on and precise enough.
+            //Expensive functions are computed from their surrogate, which
+            //stays within a fraction of a pixel and so counts as exact. Other
+            //functions can use approximate math if it is turned on. Functions
+            //of parameters change too often for any of these
+            if (family != null) {
+                double[] familySamples = family.getFamilySamples(member);
+                if (coarse || familySamples == null)
+                    function.compute(neededXs, neededYs, needed);
+                else
+                    pickNeeded(familySamples, needed);
+            } else if (incremental != null) {
+                if (coarse) function.compute(neededXs, neededYs, needed);
+                else computeIncrementalSamples(needed);
+            } else if (GraphProgram.isFloatRenderingActive() && evaluator
+                    .canUseFloat(zoom, sampleXs[0], sampleXs[sampleCount -
+                    1])) {
+                computeFloatSamples(needed);
+                samplesExact = false;
+            } else if (canUseSurrogate(zoom, top, bottom))
+                computeSurrogateSamples(zoom, needed);
+            else if (GraphProgram.isFastMathActive() && evaluator
+                    .canUseFastMath(zoom, maxY)) {
+                evaluator.computeFast(neededXs, neededYs, needed);
+                samplesExact = false;
+            } else {
+                long start = System.nanoTime();
+                if (evaluator.isVectorizable())
+                    evaluator.compute(neededXs, neededYs, needed);
+                else
+                    function.compute(neededXs, neededYs, needed);
+                measureCost(System.nanoTime() - start, needed);
+            }
+            for (int i = 0; i < needed; i++)
+                neededPosYs[i] = y0 - neededYs[i] * zoom;
+        }
+        fillSamples();
+        if (coarse) samplesExact = false;
+        sampleZoom = zoom;
+        sampleOriginX = originX;
+        sampleOriginY = originY;
+    }
+
+    //Function: Needs Precision
+    //@param zoom               the current zoom ratio of the graph
+    //       maxX               the largest visible x value, ignoring sign
+    //       maxY               the largest visible function value, ignoring
+    //                          sign
+    //@return                   whether the curve has to be computed in
+    //                          double-double to be drawn accurately, which
+    //                          is only when the graph is zoomed in so far
+    //                          that the gap between neighbouring doubles is
+    //                          close to the size of a pixel
+    private static boolean needsPrecision(double zoom, double maxX, double
+            maxY) {
+        return Math.ulp(Math.max(maxX, maxY)) * zoom > PRECISION_LIMIT;
+    }
+
+    //Function: Position
+    //@param posX               a horizontal position in the pixel/graphic
+    //                          coordinate system
+    //       zoom               the current zoom ratio of the graph
+    //       originX            the exact horizontal position of the origin
+    //       originY            the exact vertical position of the origin
+    //@return                   the vertical position of the curve, computed
+    //                          in double-double
+    private double position(int posX, double zoom, DoubleDouble originX,
+                            DoubleDouble originY) {
+        DoubleDouble x = originX.negate().add(posX).divide(DoubleDouble.of(
+                zoom));
+        return originY.subtract(function.compute(x).multiply(zoom))
+                .doubleValue();
+    }
+
+    //Function: Plan Columns
+    //@param zoom               the current zoom ratio of the graph
+    //       top                the highest visible function value
+    //       bottom             the lowest visible function value
+    //Decides what is drawn in each column from the bounds of the function
+    //over blocks of columns, see Interval. Blocks where the curve is off the
+    //screen are skipped, blocks where it barely moves are filled in from
+    //their ends, and blocks which may hold a pole are checked column by
+    //column so that no line is drawn across the pole
+    private void planColumns(double zoom, double top, double bottom) {
+        columns[0] = SKIP;
+        for (int start = 1; start < sampleCount; start += BLOCK_SIZE) {
+            EvaluationBudget.checkpoint();
+            int end = Math.min(start + BLOCK_SIZE, sampleCount) - 1;
+            Interval bounds = function.computeInterval(sampleXs[start - 1],
+                    sampleXs[end]);
+            byte column;
+            if (bounds.isEmpty() || bounds.getLo() > top || bounds.getHi() <
+                    bottom)
+                column = SKIP;
+            else if (!bounds.isContinuous()) {
+                for (int i = start; i <= end; i++)
+                    columns[i] = planColumn(i, top, bottom);
+                continue;
+            } else if (bounds.isDefined() && (bounds.getHi() - bounds.getLo())
+                    * zoom < 1)
+                column = FLAT;
+            else
+                column = LINE;
+            for (int i = start; i <= end; i++) columns[i] = column;
+        }
+    }
+
+    //Function: Plan Coarse Columns
+    //Makes every column flat except for every COARSE_STEP-th one, so that
+    //only two in every COARSE_STEP samples are computed and the curve is
+    //drawn as straight lines between them. The bounds of the function are
+    //not computed, so poles are not found and lines may be drawn across them
+    private void planCoarseColumns() {
+        columns[0] = SKIP;
+        for (int i = 1; i < sampleCount; i++)
+            columns[i] = (sampleStartX + i) % COARSE_STEP == 0 ? LINE : FLAT;
+    }
+
+    //Function: Plan Column
+    //@param i                  the index of the sample at the right of the
+    //                          column
+    //       top                the highest visible function value
+    //       bottom             the lowest visible function value
+    //@return                   what is drawn in the column
+    private byte planColumn(int i, double top, double bottom) {
+        Interval bounds = function.computeInterval(sampleXs[i - 1],
+                sampleXs[i]);
+        if (bounds.isEmpty() || bounds.getLo() > top || bounds.getHi() <
+                bottom)
+            return SKIP;
+        return bounds.isContinuous() ? LINE : BREAK;
+    }
+
+    //Function: Is Needed
+    //@param i                  the index of a sample
+    //@return                   whether the sample has to be computed, which
+    //                          is at both ends of a drawn column and at both
+    //                          ends of a flat block
+    private boolean isNeeded(int i) {
+        byte next = i + 1 < sampleCount ? columns[i + 1] : SKIP;
+        return columns[i] == LINE || columns[i] == BREAK || next == LINE ||
+                next == BREAK || (columns[i] == FLAT) != (next == FLAT);
+    }
+
+    //Function: Fill Samples
+    //Moves the computed samples to their places, fills in the samples of
+    //flat blocks from the ends of the block and marks the samples which were
+    //not computed as not a number
+    private void fillSamples() {
+        int needed = 0;
+        int flatStart = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            samplePosYs[i] = isNeeded(i) ? neededPosYs[needed++] :
+                    Double.NaN;
+            byte next = i + 1 < sampleCount ? columns[i + 1] : SKIP;
+            if (columns[i] != FLAT && next == FLAT) flatStart = i;
+            if (columns[i] == FLAT && next != FLAT) {
+                //A straight line between the two ends of the flat block
+                double left = samplePosYs[flatStart], right = samplePosYs[i];
+                for (int j = flatStart + 1; j < i; j++)
+                    samplePosYs[j] = left + (right - left) * (j - flatStart) /
+                            (i - flatStart);
+            }
+        }
+    }
+
+    //Function: Compute Precise Samples
+    //@param zoom               the current zoom ratio of the graph
+    //       originX            the exact horizontal position of the origin
+    //       originY            the exact vertical position of the origin
+    //Computes the positions of the needed samples in double-double, see
+    //DoubleDouble. The x values are found from the exact origin rather than
+    //from <sampleXs>, which are too coarse to tell the pixels apart
+    private void computePreciseSamples(double zoom, DoubleDouble originX,
+                                       DoubleDouble originY) {
+        DoubleDouble scale = DoubleDouble.of(zoom);
+        int needed = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            if (!isNeeded(i)) continue;
+            EvaluationBudget.checkpoint();
+            DoubleDouble x = originX.negate().add(sampleStartX + i).divide(
+                    scale);
+            neededPosYs[needed++] = originY.subtract(function.compute(x)
+                    .multiply(zoom)).doubleValue();
+        }
+    }
+
+    //Function: Measure Cost
+    //@param time               how long computing the samples took, in
+    //                          nanoseconds
+    //       n                  the number of samples computed
+    private void measureCost(long time, int n) {
+        if (n == 0 || costFrames >= COST_FRAMES) return;
+        double cost = (double)time / n;
+        sampleCost = costFrames == 0 ? cost : Math.min(sampleCost, cost);
+        costFrames++;
+    }
+
+    //Function: Can Use Surrogate
+    //@param zoom               the current zoom ratio of the graph
+    //       top                the highest visible function value
+    //       bottom             the lowest visible function value
+    //@return                   whether the function is expensive enough to be
+    //                          drawn from a surrogate, which is built here if
+    //                          the last one does not cover the window
+    private boolean canUseSurrogate(double zoom, double top, double bottom) {
+        if (costFrames < COST_FRAMES || sampleCost < SURROGATE_COST ||
+                surrogateFailures >= 2)
+            return false;
+        double lo = sampleXs[0], hi = sampleXs[sampleCount - 1];
+        double tolerance = SURROGATE_PIXEL_ERROR / zoom;
+        if (surrogate == null || !surrogate.covers(lo, hi, bottom, top,
+                tolerance)) {
+            double marginX = (hi - lo) * SURROGATE_MARGIN;
+            double marginY = (top - bottom) * SURROGATE_MARGIN;
+            surrogate = ChebyshevSurrogate.build(function, lo - marginX,
+                    hi + marginX, bottom - marginY, top + marginY,
+                    tolerance / SURROGATE_HEADROOM);
+        }
+        return true;
+    }
+
+    //Function: Compute Surrogate Samples
+    //@param zoom               the current zoom ratio of the graph
+    //       n                  the number of samples to be computed
+    //Computes the samples from the surrogate, and checks a few of them
+    //against the function. If the check fails the samples are computed from
+    //the function instead, and the surrogate is dropped and built again on
+    //the next frame
+    private void computeSurrogateSamples(double zoom, int n) {
+        surrogate.compute(neededXs, neededYs, n);
+        //A few different samples are checked every frame
+        for (int i = 0; i < SURROGATE_CHECKS && n > 0; i++) {
+            checkOffset = (checkOffset + 7919) % n;
+            if (!surrogate.check(neededXs[checkOffset],
+                    SURROGATE_PIXEL_ERROR / zoom)) {
+                surrogate = null;
+                surrogateFailures++;
+                function.compute(neededXs, neededYs, n);
+                return;
+            }
+        }
+    }
+
+    //Function: Compute Incremental Samples
+    //@param n                  the number of samples needed
+    //Computes the function of parameters at every sample rather than only
+    //at the needed ones, since which samples are needed changes with the
+    //parameters. The x values of the samples stay the same while a slider is
+    //moved, so only the nodes which use the parameter are computed again
+    private void computeIncrementalSamples(int n) {
+        if (sampleYs == null || sampleYs.length < sampleCount)
+            sampleYs = new double[sampleCount];
+        parameters.fill(environment);
+        incremental.compute(sampleXs, environment, sampleYs, sampleCount);
+        pickNeeded(sampleYs, n);
+    }
+
+    //Function: Pick Needed
+    //@param ys                 the values of the function at every sample
+    //       n                  the number of samples needed
+    //Copies the values of the needed samples to <neededYs>
+    private void pickNeeded(double[] ys, int n) {
+        int needed = 0;
+        for (int i = 0; i < sampleCount && needed < n; i++)
+            if (isNeeded(i)) neededYs[needed++] = ys[i];
+    }
+
+    //Function: Compute Family
+    //@param zoom               the current zoom ratio of the graph
+    //       originX            the exact horizontal position of the origin
+    //       originY            the exact vertical position of the origin
+    //Computes every member of the family at every sample in one batch,
+    //unless it was already computed for the view and the values of the
+    //parameters, such as by the member which was drawn first. The x values
+    //are the same as the ones of the samples of the members
+    private void computeFamily(double zoom, DoubleDouble originX,
+                               DoubleDouble originY) {
+        if (familyOverBudget) return;
+        int count = GraphProgram.getWindowWidth() + 2 * SAMPLE_MARGIN + 1;
+        parameters.fill(familyEnvironment);
+        //A new origin object is made whenever the origin moves
+        if (familyValid && familyZoom == zoom && familyOriginX == originX &&
+                familyOriginY == originY && familyCount == count && Arrays
+                .equals(familyEnvironment, lastFamilyEnvironment))
+            return;
+        familyValid = false;
+        if (familyXs == null || familyXs.length < count) {
+            familyXs = new double[count];
+            familyYs = new double[members.length][count];
+        }
+        double x0 = originX.doubleValue();
+        for (int i = 0; i < count; i++)
+            familyXs[i] = (i - SAMPLE_MARGIN - x0) / zoom;
+        //The whole batch gets the budget of a single frame. If it goes over,
+        //each member is computed on its own under its own budget instead
+        EvaluationBudget budget = EvaluationBudget.get();
+        budget.begin(FRAME_BUDGET);
+        try {
+            familyEvaluator.compute(familyXs, familyEnvironment, familyYs,
+                    count);
+        } catch (BudgetExceededException e) {
+            familyOverBudget = true;
+            return;
+        } finally {
+            budget.end();
+        }
+        familyValid = true;
+        familyZoom = zoom;
+        familyOriginX = originX;
+        familyOriginY = originY;
+        familyCount = count;
+        System.arraycopy(familyEnvironment, 0, lastFamilyEnvironment, 0,
+                familyEnvironment.length);
+    }
+
+    //Function: Get Family Samples
+    //@param member             the index of a member
+    //@return                   the values of the member at every sample,
+    //                          computed in the last batch, or null if the
+    //                          batch went over its budget
+    private double[] getFamilySamples(int member) {
+        return familyValid ? familyYs[member] : null;
+    }
+
+    //Function: Compute Float Samples
+    //Computes the samples of the function in float precision, which fits
+    //twice as many values into each SIMD instruction
+    private void computeFloatSamples(int n) {
+        if (floatSampleXs == null || floatSampleXs.length < n) {
+            floatSampleXs = new float[n];
+            floatSampleYs = new float[n];
         }
+        for (int i = 0; i < n; i++)
+            floatSampleXs[i] = (float)neededXs[i];
+        evaluator.compute(floatSampleXs, floatSampleYs, n);
+        for (int i = 0; i < n; i++)
+            neededYs[i] = floatSampleYs[i];
     }
 }
@@ -8,6 +8,8 @@
 
 package Grapher;
 
+import Functions.DoubleDouble;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
@@ -16,13 +18,24 @@ import java.awt.event.*;
 @SuppressWarnings({"WeakerAccess"})
 public class GraphProgram extends JPanel {
 
+    //The rounded origin is kept within this many pixels of the window
+    private static final int MAX_POSITION = 1 << 30;
+
     private static int width;
     private static int height;
     private static double zoom;
     private static double prevZoom;
     private static Point origin;
+    //The exact position of the origin. <origin> is the same position rounded
+    //to whole pixels, which stops being accurate once the graph is zoomed in
+    //far away from the origin
+    private static DoubleDouble originX;
+    private static DoubleDouble originY;
     private static boolean gridLine;
     private static boolean darkMode;
+    private static boolean floatRendering;
+    private static boolean fastMath;
+    private static boolean domainColoring;
     private static JFrame window;
     private static GraphProgram graph;
     private static GraphTheme defaultTheme;
@@ -64,7 +77,7 @@ public class GraphProgram extends JPanel {
                 int shiftX = e.getX() - mousePos.x;
                 int shiftY = e.getY() - mousePos.y;
                 //When dragged, set the origin to follow the motion of the mouse
-                origin.setLocation(origin.x + shiftX, origin.y + shiftY);
+                setOrigin(originX.add(shiftX), originY.add(shiftY));
                 mousePos = e.getPoint();
                 repaint();
             }
@@ -106,6 +119,13 @@ public class GraphProgram extends JPanel {
         grid.updateFunctions(functions);
     }
 
+    //Update Slow Inputs
+    //Flags the inputs whose functions took too long to draw in the frame
+    //which was just drawn, see InputPanel
+    public void updateSlowInputs() {
+        inputPanel.updateSlowInputs();
+    }
+
     public boolean isSettingsPanelHidden() {
         return settingsPanel.isHidden();
     }
@@ -135,15 +155,25 @@ public class GraphProgram extends JPanel {
     //public static void repaintGraph()
     //public static void setZoom(double zoom, Point refPos)
     //public static void recenterOrigin()
+    //private static void setOrigin(DoubleDouble x, DoubleDouble y)
+    //private static int roundPosition(DoubleDouble position)
     //public static void toggleGridLine()
     //public static void toggleDarkMode()
+    //public static void toggleFloatRendering()
+    //public static void toggleFastMath()
+    //public static void toggleDomainColoring()
     //public static double getZoom()
     //public static double getPrevZoom()
     //public static int getWindowWidth()
     //public static int getWindowHeight()
     //public static Point getOrigin()
+    //public static DoubleDouble getOriginX()
+    //public static DoubleDouble getOriginY()
     //public static boolean isGridLineActive()
     //public static boolean isDarkModeActive()
+    //public static boolean isFloatRenderingActive()
+    //public static boolean isFastMathActive()
+    //public static boolean isDomainColoringActive()
     //public static GraphTheme getTheme()
 
     //Function: Point In Bounds
@@ -176,19 +206,24 @@ public class GraphProgram extends JPanel {
     public static void setZoom(double zoom, Point refPos) {
 
         if (zoom > 1e-7 && zoom < 1e10) {
-            double zoomRate = zoom / GraphProgram.zoom;
             prevZoom = GraphProgram.zoom;
             GraphProgram.zoom = zoom;
             if (refPos != null) {
                 //Because the graph zooms in at where the reference location is
                 //and not at the origin, the origin must adjust its position
                 //to appear as if the graph is focused on where the reference
-                //position is
+                //position is. The coordinates under the reference position
+                //are found first, so that the origin does not drift from
+                //the rounding of the zoom rate
                 if (!pointInBounds(refPos, new Rectangle(origin.x - 50,
-                        origin.y - 50, 100, 100)))
-                    origin.setLocation((origin.x - refPos.x) * zoomRate +
-                        refPos.x, (origin.y - refPos.y) * zoomRate +
-                        refPos.y);
+                        origin.y - 50, 100, 100))) {
+                    DoubleDouble refX = originX.negate().add(refPos.x)
+                            .divide(DoubleDouble.of(prevZoom));
+                    DoubleDouble refY = originY.negate().add(refPos.y)
+                            .divide(DoubleDouble.of(prevZoom));
+                    setOrigin(refX.multiply(-zoom).add(refPos.x), refY
+                            .multiply(-zoom).add(refPos.y));
+                }
             }
         }
     }
@@ -197,7 +232,29 @@ public class GraphProgram extends JPanel {
     //Moves the origin position of the graph to the center of the program
     public static void recenterOrigin() {
         Point center = new Point(width / 2, height / 2);
-        origin.setLocation(center.x, center.y);
+        setOrigin(DoubleDouble.of(center.x), DoubleDouble.of(center.y));
+    }
+
+    //Function: Set Origin
+    //@param x                  the exact horizontal position of the origin
+    //       y                  the exact vertical position of the origin
+    //Moves the origin, keeping the rounded <origin> within what an int can
+    //hold
+    private static void setOrigin(DoubleDouble x, DoubleDouble y) {
+        originX = x;
+        originY = y;
+        origin.setLocation(roundPosition(x), roundPosition(y));
+    }
+
+    //Function: Round Position
+    //@param position           an exact position in the pixel/graphic
+    //                          coordinate system
+    //@return                   the position rounded to a whole pixel, clamped
+    //                          far enough outside of the window to stay
+    //                          invisible without overflowing when moved
+    private static int roundPosition(DoubleDouble position) {
+        double rounded = Math.rint(position.doubleValue());
+        return (int)Math.max(-MAX_POSITION, Math.min(MAX_POSITION, rounded));
     }
 
     //Function: Toggle Grid Line
@@ -212,6 +269,27 @@ public class GraphProgram extends JPanel {
         darkMode = !darkMode;
     }
 
+    //Function: Toggle Float Rendering
+    //Turns computing polynomial and rational curves in float precision on and
+    //off
+    public static void toggleFloatRendering() {
+        floatRendering = !floatRendering;
+    }
+
+    //Function: Toggle Fast Math
+    //Turns computing trigonometric functions, logs and powers of curves with
+    //faster approximations on and off
+    public static void toggleFastMath() {
+        fastMath = !fastMath;
+    }
+
+    //Function: Toggle Domain Coloring
+    //Switches between drawing the curves of the functions and coloring the
+    //plane by the complex values of the first function
+    public static void toggleDomainColoring() {
+        domainColoring = !domainColoring;
+    }
+
     //Function: Get Zoom
     //@return                   the amount by which the graph is zoomed
     public static double getZoom() {
@@ -241,6 +319,20 @@ public class GraphProgram extends JPanel {
         return origin;
     }
 
+    //Function: Get Origin X
+    //@return                   the exact horizontal position of the origin in
+    //                          the pixel/graphic coordinate system
+    public static DoubleDouble getOriginX() {
+        return originX;
+    }
+
+    //Function: Get Origin Y
+    //@return                   the exact vertical position of the origin in
+    //                          the pixel/graphic coordinate system
+    public static DoubleDouble getOriginY() {
+        return originY;
+    }
+
     //Function: Is Grid Line Active
     //@return                   whether grid lines should be displayed on the
     //                          graph
@@ -255,6 +347,27 @@ public class GraphProgram extends JPanel {
         return darkMode;
     }
 
+    //Function: Is Float Rendering Active
+    //@return                   whether curves may be computed in float
+    //                          precision when the view allows it
+    public static boolean isFloatRenderingActive() {
+        return floatRendering;
+    }
+
+    //Function: Is Fast Math Active
+    //@return                   whether curves may be computed with
+    //                          approximate math when the view allows it
+    public static boolean isFastMathActive() {
+        return fastMath;
+    }
+
+    //Function: Is Domain Coloring Active
+    //@return                   whether the plane is colored by the complex
+    //                          values of a function instead of drawing curves
+    public static boolean isDomainColoringActive() {
+        return domainColoring;
+    }
+
     //Function: Get Theme
     //@return                   the color specifications for each component
     //                          in the graph program
@@ -279,9 +392,14 @@ public class GraphProgram extends JPanel {
         zoom = 100;
         Point center = new Point(width / 2, height / 2);
         origin = new Point(center.x, center.y);
+        originX = DoubleDouble.of(center.x);
+        originY = DoubleDouble.of(center.y);
         graph = new GraphProgram();
         gridLine = false;
         darkMode = false;
+        floatRendering = false;
+        fastMath = false;
+        domainColoring = false;
 
         window = new JFrame();
         window.add(graph);
@@ -7,6 +7,8 @@
 
 package Grapher;
 
+import Functions.DoubleDouble;
+import Functions.FrameCache;
 import NumberFormats.Numbers;
 
 import java.awt.*;
@@ -16,10 +18,12 @@ public class Grid {
 
     private Axis axis;
     private FunctionSet[] functions;
+    private DomainColoring domainColoring;
 
     public Grid() {
         functions = new FunctionSet[0];
         axis = new Axis();
+        domainColoring = new DomainColoring();
     }
 
     //Function: Update Functions
@@ -33,11 +37,11 @@ public class Grid {
     //Print the coordinate numbers of a specified point onto the graph
     private void drawCoordText(int x, int y, Graphics g) {
 
-        double zoom = GraphProgram.getZoom();
-        Point origin = GraphProgram.getOrigin();
-        String coordText = "(" + Numbers.trimDigits((x - origin.x) / zoom,
-                2) + ", " + Numbers.trimDigits((origin.y - y) /
-                zoom, 2) + ")";
+        DoubleDouble zoom = DoubleDouble.of(GraphProgram.getZoom());
+        String coordText = "(" + Numbers.trimDigits(GraphProgram.getOriginX()
+                .negate().add(x).divide(zoom).doubleValue(), 2) + ", " +
+                Numbers.trimDigits(GraphProgram.getOriginY().subtract(
+                DoubleDouble.of(y)).divide(zoom).doubleValue(), 2) + ")";
         g.setColor(GraphProgram.getTheme().getPanelColor());
         g.setFont(new Font("Arial", Font.BOLD, 20));
         int textHeight = g.getFontMetrics().getHeight();
@@ -53,28 +57,76 @@ public class Grid {
     //Renders the axis and functions to the screen
     public void paintGraph(Point mousePos, Graphics g) {
 
-        Point origin = GraphProgram.getOrigin();
+        DoubleDouble originX = GraphProgram.getOriginX();
+        DoubleDouble originY = GraphProgram.getOriginY();
         g.setColor(GraphProgram.getTheme().getBackgroundColor());
         g.fillRect(0, 0, GraphProgram.getWindowWidth(),
                 GraphProgram.getWindowHeight());
-        axis.paint(g);
 
         //Note: at default zoom = 100, every 100 pixels will be a value 1 in
         //the coordinate system
         double zoom = GraphProgram.getZoom();
+        //Functions defined by the user are computed once for the frame and
+        //shared by every curve which calls them
+        FrameCache frameCache = FrameCache.get();
+        frameCache.begin();
+        try {
+            paintFunctions(mousePos, zoom, originX, originY, g);
+        } finally {
+            frameCache.end();
+        }
+        //The frame which went over budget flags its input right away,
+        //rather than once the input panel happens to be drawn again
+        GraphProgram.getGraph().updateSlowInputs();
+
+        if (!GraphProgram.getGraph().isSettingsPanelHidden()) {
+            Point center = new Point(GraphProgram.getWindowWidth() / 2,
+                    GraphProgram.getWindowHeight() / 2);
+            g.setColor(GraphProgram.getTheme().getAxisColor());
+            g.fillRect(center.x - 10, center.y - 2, 20, 4);
+            g.fillRect(center.x - 2, center.y - 10, 4, 20);
+            drawCoordText(center.x, center.y, g);
+        }
+    }
+
+    //Function: Paint Functions
+    //@param mousePos           the position of the mouse, or null
+    //       zoom               the current zoom ratio of the graph
+    //       originX            the exact horizontal position of the origin
+    //       originY            the exact vertical position of the origin
+    //       g                  the graphics component
+    //Renders the functions, and the point on the function closest to the
+    //mouse
+    private void paintFunctions(Point mousePos, double zoom, DoubleDouble
+            originX, DoubleDouble originY, Graphics g) {
+        //In domain coloring mode the plane is colored by the first visible
+        //function in place of drawing the curves
+        boolean domainColored = false;
+        if (GraphProgram.isDomainColoringActive()) {
+            for (FunctionSet function : functions) {
+                if (function.canBeDisplayed()) {
+                    domainColoring.paint(function.getFunction(), zoom,
+                            originX, originY, g);
+                    domainColored = true;
+                    break;
+                }
+            }
+        }
+        axis.paint(g);
+
         double minOffset = 0, targetY = 0;
         int selectedIndex = -1;
-        for (int i = 0; i < functions.length; i++) {
+        for (int i = 0; i < functions.length && !domainColored; i++) {
             if (functions[i].canBeDisplayed()) {
-                functions[i].paint(zoom, origin, g);
+                functions[i].paint(zoom, originX, originY, g);
 
                 //Finds the function that is closest to the mouse vertically
                 //at the current x position of the mouse
                 if (mousePos != null) {
                     //The y value of the function with respect to the pixel
                     //coordinate system
-                    double yVal = origin.y - functions[i].getFunction().
-                            compute((mousePos.x - origin.x) / zoom) * zoom;
+                    double yVal = functions[i].getSampledPosition(
+                            mousePos.x, zoom, originX, originY);
                     double offset = Math.abs(mousePos.y - yVal);
                     //If the function is the first visible one on the list or if
                     //it is the closest
@@ -97,14 +149,5 @@ public class Grid {
             g.fillOval(mousePos.x - 8, (int)targetY - 8,
                     16, 16);
         }
-
-        if (!GraphProgram.getGraph().isSettingsPanelHidden()) {
-            Point center = new Point(GraphProgram.getWindowWidth() / 2,
-                    GraphProgram.getWindowHeight() / 2);
-            g.setColor(GraphProgram.getTheme().getAxisColor());
-            g.fillRect(center.x - 10, center.y - 2, 20, 4);
-            g.fillRect(center.x - 2, center.y - 10, 4, 20);
-            drawCoordText(center.x, center.y, g);
-        }
     }
 }
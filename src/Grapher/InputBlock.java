@@ -3,7 +3,8 @@
 //@project Graph Plane
 //An individual input element in the list of inputs from the input panel. Each
 //blocks contain a color identifier, text field input, and a button to delete
-//the input block itself.
+//the input block itself. A block which defines a parameter, eg. <a=2>, also
+//shows a slider below the text field which sets the value of the parameter.
 
 package Grapher;
 
@@ -14,6 +15,11 @@ import java.util.Random;
 @SuppressWarnings({"WeakerAccess"})
 public class InputBlock extends JPanel {
 
+    //The slider moves in steps of 1/SLIDER_STEPS, and goes from -SLIDER_RANGE
+    //to SLIDER_RANGE unless the value is typed in from further out
+    private static final int SLIDER_STEPS = 100;
+    private static final int SLIDER_RANGE = 10;
+
     private double width;
     private double height;
     private int id;
@@ -22,8 +28,11 @@ public class InputBlock extends JPanel {
     private JTextField textField;
     private JButton deleteBtn;
     private JButton colorBtn;
+    private JSlider slider;
     private Color color;
     private boolean invalidInput;
+    //Whether the function entered takes too long to be drawn in full
+    private boolean slowInput;
 
     public InputBlock(int id) {
         color = getRandomColor();
@@ -34,6 +43,10 @@ public class InputBlock extends JPanel {
         deleteBtn.setContentAreaFilled(false);
         colorBtn = new JButton();
         colorBtn.setBackground(color);
+        slider = new JSlider(-SLIDER_RANGE * SLIDER_STEPS, SLIDER_RANGE *
+                SLIDER_STEPS, 0);
+        slider.setOpaque(false);
+        slider.setVisible(false);
 
         //Give the entire section the look a text field to make it look like the
         //button exists inside of the text field
@@ -48,6 +61,7 @@ public class InputBlock extends JPanel {
         this.setLayout(null);
         this.add(textBlock);
         this.add(colorBtn);
+        this.add(slider);
         this.setOpaque(false);
     }
 
@@ -91,6 +105,10 @@ public class InputBlock extends JPanel {
         textBlock.setBounds((int)(width - 20 - fieldWidth), (int)
                 ((height / 2) - (fieldHeight / 2)), (int)fieldWidth,
                 (int)fieldHeight);
+        //The slider fills the space below the text field
+        slider.setBounds((int)(width - 20 - fieldWidth), (int)((height / 2)
+                + (fieldHeight / 2)), (int)fieldWidth, (int)((height -
+                fieldHeight) / 2));
     }
 
     //Function: Set Invalid Input
@@ -101,6 +119,50 @@ public class InputBlock extends JPanel {
         this.invalidInput = invalidInput;
     }
 
+    //Function: Set Slow Input
+    //@param slowInput      whether the function entered into the text field
+    //                      took too long to be drawn in full
+    //Sets the text field to be in a slow/normal state
+    public void setSlowInput(boolean slowInput) {
+        this.slowInput = slowInput;
+    }
+
+    //Function: Is Slow Input
+    //@return               whether the text field is in the slow state
+    public boolean isSlowInput() {
+        return slowInput;
+    }
+
+    //Function: Set Parameter
+    //@param parameter      whether the block defines a parameter
+    //Shows or hides the slider of the block
+    public void setParameter(boolean parameter) {
+        slider.setVisible(parameter);
+    }
+
+    //Function: Set Slider Value
+    //@param value          the value of the parameter
+    //Moves the slider to the value, widening its range if the value is
+    //outside of it
+    public void setSliderValue(double value) {
+        int range = (int)Math.max(SLIDER_RANGE, Math.ceil(Math.abs(value)));
+        slider.setMinimum(-range * SLIDER_STEPS);
+        slider.setMaximum(range * SLIDER_STEPS);
+        slider.setValue((int)Math.round(value * SLIDER_STEPS));
+    }
+
+    //Function: Get Slider Value
+    //@return               the value the slider is set to
+    public double getSliderValue() {
+        return (double)slider.getValue() / SLIDER_STEPS;
+    }
+
+    //Function: Get Slider
+    //@return               the slider object
+    public JSlider getSlider() {
+        return slider;
+    }
+
     //Function: Set New Random Color
     //Updates the function color of the input block to a new random color
     public void setNewRandomColor() {
@@ -149,14 +211,19 @@ public class InputBlock extends JPanel {
         super.paintComponent(g);
         g.setColor(new Color(225, 45, 51, 100));
         //The input block will be highlighted red when an entered expression
-        //is invalid
+        //is invalid, and amber when it is too slow to be drawn in full
         if (invalidInput) {
             g.fillRect(0, 0, (int)width, (int)height);
+        } else if (slowInput) {
+            g.setColor(new Color(225, 160, 0, 100));
+            g.fillRect(0, 0, (int)width, (int)height);
         }
         g.setColor(GraphProgram.getTheme().getTextColor());
         g.setFont(new Font("Arial", Font.PLAIN, 40));
-        //Equation prompt
-        g.drawString("y=", 75, (int)(height / 2 + g.getFontMetrics().
-                getHeight() / 2) - 7);
+        //Equation prompt, left out for definitions such as f(x)=x^2 which
+        //hold their own
+        if (textField.getText().indexOf('=') < 0)
+            g.drawString("y=", 75, (int)(height / 2 + g.getFontMetrics().
+                    getHeight() / 2) - 7);
     }
 }
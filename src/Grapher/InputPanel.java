@@ -4,22 +4,56 @@
 //Contains the list of input boxes and stores the functions entered by the user.
 //The input panel will allow the user to add, remove and manipulate the input
 //boxes to create multiple functions on the graph
+//
+//A block may also define a function by name, eg. <f(x)=x^2+1>, which the
+//other blocks can then call, eg. <g(x)=f(x)^2+f(2x)>. The panel keeps the
+//names each block calls, so that once a definition changes, every block
+//which depends on it, directly or through other definitions, is parsed
+//again, in an order where each definition comes before its callers
+//
+//A block may also define a parameter, eg. <a=2>, which the other blocks can
+//use like x, eg. <a*sin(x)>. Such a block has a slider. Moving the slider
+//only changes the value of the parameter and parses nothing again, the
+//curves which use the parameter pick up the new value when they are drawn,
+//see FunctionSet
+//
+//A block may also hold a family of curves, eg. <a*sin(x) for a in 0..5 step
+//0.1>, whose members are each drawn as a curve of their own
 
 package Grapher;
 
+import Functions.BudgetExceededException;
+import Functions.EvaluationBudget;
 import Functions.Function;
 import Functions.FunctionConstructor;
+import Functions.FunctionRewriter;
+import Functions.FunctionTable;
 import Functions.InvalidExpressionException;
+import Functions.ParameterValues;
+import Functions.TieredFunction;
+import Functions.UserFunction;
+import Functions.Variable;
+import Functions.VariableTable;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 @SuppressWarnings({"WeakerAccess"})
 public class InputPanel extends JPanel {
 
+    //How long parsing an expression and rewriting it may each take, in
+    //nanoseconds. The input is flagged if parsing takes longer, and the
+    //function is kept as it was parsed if rewriting takes longer
+    private static final long PARSE_BUDGET = 200_000_000;
+    private static final long REWRITE_BUDGET = 100_000_000;
+
     private double posX;
     private double width;
     private double height;
@@ -32,12 +66,36 @@ public class InputPanel extends JPanel {
     private JButton togglePanelBtn;
     private boolean hidden;
 
+    //The variables and defined functions shared by every block
+    private final VariableTable variables;
+    private final FunctionTable definitions;
+    private final ParameterValues parameters;
+    //The names of the functions each block calls
+    private final HashMap<InputBlock, Set<String>> references;
+    //The name each block tries to define, whether or not the definition is
+    //valid, and the block which holds the valid definition of each name
+    private final HashMap<InputBlock, String> definedNames;
+    private final HashMap<String, InputBlock> definingBlocks;
+    //The names out of those which are defined as parameters
+    private final Set<String> parameterNames;
+    //Whether the text or slider of a block is being set to match the other,
+    //which must not be taken as the user changing it
+    private boolean syncingParameter;
+
     public InputPanel(double posX, double posY, double width, double height) {
 
         inputBlocks = new ArrayList<>();
         functions = new ArrayList<>();
         scrollPos = 0;
         hidden = false;
+        variables = new VariableTable();
+        definitions = new FunctionTable();
+        references = new HashMap<>();
+        definedNames = new HashMap<>();
+        definingBlocks = new HashMap<>();
+        parameterNames = new HashSet<>();
+        parameters = new ParameterValues(variables);
+        syncingParameter = false;
 
         addBtn = new JButton("+");
         addBtn.setFocusPainted(false);
@@ -113,6 +171,9 @@ public class InputPanel extends JPanel {
             }
         });
 
+        //Listen for the slider of a parameter being moved
+        inputBlock.getSlider().addChangeListener(e -> moveSlider(inputBlock));
+
         JButton deleteBtn = inputBlock.getDeleteBtn();
         //Listen for deleting the input block
         deleteBtn.addActionListener(e -> removeInputBlock(inputBlock));
@@ -129,8 +190,8 @@ public class InputPanel extends JPanel {
             function.toggleHidden();
             colorBtn.setBackground(function.isHidden() ? new Color(0, 0,
                     0, 0) : function.getColor());
-            GraphProgram.getGraph().updateGridFunctions(functions.toArray(new
-                    FunctionSet[0]));
+            GraphProgram.getGraph().updateGridFunctions(
+                    getGridFunctions());
             GraphProgram.repaintGraph();
         });
 
@@ -158,11 +219,15 @@ public class InputPanel extends JPanel {
             this.remove(inputBlock);
             this.revalidate();
 
-            GraphProgram.getGraph().updateGridFunctions(functions.toArray(new
-                    FunctionSet[0]));
             //Shifts the indexes stored by the input blocks below up
             for (int i = index; i < inputBlocks.size(); i++)
                 inputBlocks.get(i).setId(i);
+            //Blocks which called the function the block defined are parsed
+            //again without it
+            String name = forget(inputBlock);
+            if (name != null) updateDependents(inputBlock, name, null);
+            GraphProgram.getGraph().updateGridFunctions(
+                    getGridFunctions());
 
             //Scrolls the list up if the list no longer occupies the bottom
             //of the window but still has a height greater than that of the
@@ -179,28 +244,317 @@ public class InputPanel extends JPanel {
     //@param inputBlock             verification of the text inputted into this
     //                              block
     //Checks the text entered into the text field of this block to see if it
-    //is a proper expression
+    //is a proper expression, and parses every block which depends on the
+    //function it defined again
     private void evaluateTextInput(InputBlock inputBlock) {
+        if (syncingParameter) return;
+        //A new value typed for a parameter only moves its slider
+        if (retypeParameter(inputBlock)) {
+            GraphProgram.repaintGraph();
+            return;
+        }
+        String oldName = forget(inputBlock);
+        parseInput(inputBlock);
+        updateDependents(inputBlock, oldName, definedNames.get(inputBlock));
+        GraphProgram.getGraph().updateGridFunctions(getGridFunctions());
+        GraphProgram.repaintGraph();
+    }
 
+    //Function: Parse Input
+    //@param inputBlock             the block to be parsed
+    //Parses the text of the block into the function it draws, and defines
+    //the function it names, if any. Definitions which would define a name
+    //twice or call themselves are flagged as invalid
+    private void parseInput(InputBlock inputBlock) {
         JTextField textField = inputBlock.getTextField();
-        int index = inputBlock.getId();
-        FunctionConstructor fc = new FunctionConstructor();
+        String text = textField.getText();
+        FunctionConstructor fc = new FunctionConstructor(variables,
+                definitions);
+        String name = null;
+        boolean parameter = false;
+        double value = 0;
+        boolean parsed = false;
         Function function = null;
+        String familyBody = null;
+        int familySlot = -1;
+        double[] familyValues = null;
+        boolean overBudget = false;
+        EvaluationBudget budget = EvaluationBudget.get();
+        budget.begin(PARSE_BUDGET);
         try {
-            function = fc.toFunction(textField.getText());
+            familyBody = fc.getFamilyBody(text);
+            name = familyBody == null ? fc.getDefinedName(text) : null;
+            parameter = name != null && fc.isParameterDefinition(text);
+            String body = familyBody != null ? familyBody : name == null ?
+                    text : fc.getBody(text);
+            references.put(inputBlock, parameter ? new HashSet<>() : fc
+                    .getReferencedNames(body));
+            if (familyBody != null) {
+                //The variable of the family is its own, like the index of a
+                //sum, rather than a name the block depends on
+                familySlot = fc.toFamilyIndex(text);
+                familyValues = fc.toFamilyValues(text);
+                references.get(inputBlock).remove(variables.getName(
+                        familySlot));
+            }
+            if (name != null) {
+                definedNames.put(inputBlock, name);
+                if (definingBlocks.containsKey(name))
+                    throw new InvalidExpressionException(name + " is " +
+                            "already defined");
+                if (reaches(references.get(inputBlock), name, new
+                        HashSet<>()))
+                    throw new InvalidExpressionException(name + " is " +
+                            "defined in terms of itself");
+            }
+            assertParametersDefined(references.get(inputBlock));
+            if (parameter) {
+                value = fc.toParameterValue(text);
+                int slot = variables.getSlot(name);
+                if (slot >= 0 && variables.isIndex(slot))
+                    throw new InvalidExpressionException(name + " is the " +
+                            "index of a sum, product or family");
+            } else
+                function = fc.toFunction(body);
+            parsed = true;
             inputBlock.setInvalidInput(false);
         } catch (InvalidExpressionException e) {
-            if (textField.getText().length() == 0)
+            if (text.length() == 0)
                 inputBlock.setInvalidInput(false);
             else
                 inputBlock.setInvalidInput(true);
+        } catch (BudgetExceededException e) {
+            inputBlock.setInvalidInput(false);
+            overBudget = true;
+        } finally {
+            budget.end();
+        }
+        parameter = parameter && parsed;
+        inputBlock.setParameter(parameter);
+        if (parameter) {
+            //A parameter draws nothing itself
+            variables.addParameter(name);
+            definingBlocks.put(name, inputBlock);
+            parameterNames.add(name);
+            setParameter(inputBlock, variables.getSlot(name), value);
+        }
+        //The function is rewritten into its cheapest form, and compiled
+        //once it has been drawn for a few frames
+        if (function != null) {
+            function = new TieredFunction(rewrite(function));
+            if (name != null) {
+                //The block draws its own definition through a call, so that
+                //the values it computes are shared with the callers
+                definitions.define(name, function);
+                definingBlocks.put(name, inputBlock);
+                function = new UserFunction(name, function, new Variable());
+            }
+        }
+        FunctionSet functionSet = functions.get(inputBlock.getId());
+        if (function != null && familyBody != null)
+            functionSet.setFamily(function, familySlot, familyValues,
+                    parameters);
+        else
+            functionSet.setFunction(function, parameters);
+        if (overBudget) functionSet.setOverBudget();
+    }
+
+    //Function: Get Grid Functions
+    //@return                       the sets drawn by the grid, which are the
+    //                              sets of the blocks with every family
+    //                              replaced by its members
+    private FunctionSet[] getGridFunctions() {
+        ArrayList<FunctionSet> gridFunctions = new ArrayList<>();
+        for (FunctionSet function : functions) {
+            FunctionSet[] members = function.getMembers();
+            if (members != null) Collections.addAll(gridFunctions, members);
+            else gridFunctions.add(function);
+        }
+        return gridFunctions.toArray(new FunctionSet[0]);
+    }
+
+    //Function: Forget
+    //@param inputBlock             a block which is being changed or removed
+    //@return                       the name of the function the block
+    //                              defined, or null if it defined none
+    //Removes the names the block calls and the function it defined
+    private String forget(InputBlock inputBlock) {
+        references.remove(inputBlock);
+        String name = definedNames.remove(inputBlock);
+        if (name != null && definingBlocks.get(name) == inputBlock) {
+            definingBlocks.remove(name);
+            definitions.remove(name);
+            parameterNames.remove(name);
+        }
+        return name;
+    }
+
+    //Function: Assert Parameters Defined
+    //@param names                  the names a block uses
+    //Makes sure that every parameter the block uses is still defined by a
+    //block. A parameter keeps its slot once it was added, so it would still
+    //be parsed after the block defining it is gone
+    private void assertParametersDefined(Set<String> names) throws
+            InvalidExpressionException {
+        for (String name : names) {
+            int slot = variables.getSlot(name);
+            if (slot > VariableTable.T && !variables.isIndex(slot) &&
+                    !parameterNames.contains(name))
+                throw new InvalidExpressionException(name + " is not " +
+                        "defined");
+        }
+    }
+
+    //Function: Set Parameter
+    //@param inputBlock             the block defining the parameter
+    //       slot                   the slot of the parameter
+    //       value                  the new value of the parameter
+    //Sets the value of the parameter and moves the slider of the block to it
+    private void setParameter(InputBlock inputBlock, int slot, double value) {
+        parameters.set(slot, value);
+        syncingParameter = true;
+        try {
+            inputBlock.setSliderValue(value);
+        } finally {
+            syncingParameter = false;
+        }
+    }
+
+    //Function: Retype Parameter
+    //@param inputBlock             a block whose text was changed
+    //@return                       whether the block defined a parameter and
+    //                              still defines the same one, in which case
+    //                              only its value is changed
+    private boolean retypeParameter(InputBlock inputBlock) {
+        String name = definedNames.get(inputBlock);
+        if (name == null || !parameterNames.contains(name) || definingBlocks
+                .get(name) != inputBlock)
+            return false;
+        String text = inputBlock.getTextField().getText();
+        FunctionConstructor fc = new FunctionConstructor(variables,
+                definitions);
+        try {
+            if (!name.equals(fc.getDefinedName(text)) || !fc
+                    .isParameterDefinition(text))
+                return false;
+            setParameter(inputBlock, variables.getSlot(name), fc
+                    .toParameterValue(text));
+        } catch (InvalidExpressionException e) {
+            return false;
+        }
+        return true;
+    }
+
+    //Function: Move Slider
+    //@param inputBlock             the block whose slider was moved
+    //Sets the parameter of the block to the value of the slider, and writes
+    //the value into the text field. Nothing is parsed again, the curves which
+    //use the parameter are drawn with the new value
+    private void moveSlider(InputBlock inputBlock) {
+        if (syncingParameter) return;
+        String name = definedNames.get(inputBlock);
+        if (name == null || definingBlocks.get(name) != inputBlock ||
+                !parameterNames.contains(name))
+            return;
+        double value = inputBlock.getSliderValue();
+        if (!parameters.set(variables.getSlot(name), value)) return;
+        syncingParameter = true;
+        try {
+            inputBlock.getTextField().setText(name + "=" + formatValue(
+                    value));
+        } finally {
+            syncingParameter = false;
         }
-        functions.get(index).setFunction(function);
-        GraphProgram.getGraph().updateGridFunctions(functions.toArray(new
-                FunctionSet[0]));
         GraphProgram.repaintGraph();
     }
 
+    //Function: Format Value
+    //@param value                  a value set by a slider
+    //@return                       the value as it is written after the name
+    //                              of the parameter, eg. 2 or -0.25
+    private static String formatValue(double value) {
+        if (value == Math.rint(value)) return Long.toString((long)value);
+        return Double.toString(value);
+    }
+
+    //Function: Reaches
+    //@param names                  the names of functions being called
+    //       target                 the name of a function
+    //       visited                the names which were already followed
+    //@return                       whether any of the functions calls the
+    //                              target, directly or through other
+    //                              definitions
+    private boolean reaches(Set<String> names, String target, Set<String>
+            visited) {
+        for (String name : names) {
+            if (name.equals(target)) return true;
+            InputBlock definingBlock = definingBlocks.get(name);
+            if (definingBlock != null && visited.add(name) && reaches(
+                    references.get(definingBlock), target, visited))
+                return true;
+        }
+        return false;
+    }
+
+    //Function: Update Dependents
+    //@param source                 the block which was changed
+    //       oldName                the name the block defined before, or null
+    //       newName                the name the block defines now, or null
+    //Parses every block which depends on either name again. A block
+    //depends on a name if it calls it or tries to define it as well, since
+    //it may become the valid definition. The blocks are ordered so that
+    //each one is parsed after the definitions it calls
+    private void updateDependents(InputBlock source, String oldName, String
+            newName) {
+        ArrayList<InputBlock> order = new ArrayList<>();
+        Set<InputBlock> visited = new HashSet<>();
+        visited.add(source);
+        if (oldName != null) visitDependents(oldName, visited, order);
+        if (newName != null) visitDependents(newName, visited, order);
+        //Dependents were added after the blocks which depend on them
+        Collections.reverse(order);
+        for (InputBlock inputBlock : order) {
+            forget(inputBlock);
+            parseInput(inputBlock);
+        }
+    }
+
+    //Function: Visit Dependents
+    //@param name                   the name of a function
+    //       visited                the blocks which were already visited
+    //       order                  the list the blocks are added to, each
+    //                              one after every block depending on it
+    private void visitDependents(String name, Set<InputBlock> visited,
+                                 ArrayList<InputBlock> order) {
+        for (InputBlock inputBlock : inputBlocks) {
+            Set<String> names = references.get(inputBlock);
+            boolean dependent = (names != null && names.contains(name)) ||
+                    name.equals(definedNames.get(inputBlock));
+            if (!dependent || !visited.add(inputBlock)) continue;
+            String definedName = definedNames.get(inputBlock);
+            if (definedName != null)
+                visitDependents(definedName, visited, order);
+            order.add(inputBlock);
+        }
+    }
+
+    //Function: Rewrite
+    //@param function               a parsed function
+    //@return                       the function rewritten into its cheapest
+    //                              form, or the function itself if rewriting
+    //                              it takes too long
+    private static Function rewrite(Function function) {
+        EvaluationBudget budget = EvaluationBudget.get();
+        budget.begin(REWRITE_BUDGET);
+        try {
+            return FunctionRewriter.rewrite(function);
+        } catch (BudgetExceededException e) {
+            return function;
+        } finally {
+            budget.end();
+        }
+    }
+
     //Function: Scroll
     //@param scrollAmt          the distance to be scrolled
     //Scrolls the list of input boxes up or down by a specified amount
@@ -279,11 +633,30 @@ public class InputPanel extends JPanel {
         return (300 + inputBlocks.size() * 100);
     }
 
+    //Function: Update Slow Inputs
+    //Flags the input blocks whose functions took too long to draw, right
+    //after the graph was drawn, and repaints the panel if any flag changed
+    public void updateSlowInputs() {
+        boolean changed = false;
+        for (int i = 0; i < inputBlocks.size(); i++) {
+            InputBlock inputBlock = inputBlocks.get(i);
+            boolean slowInput = functions.get(i).isOverBudget();
+            if (inputBlock.isSlowInput() != slowInput) {
+                inputBlock.setSlowInput(slowInput);
+                changed = true;
+            }
+        }
+        if (changed) repaint();
+    }
+
     //Function: Paint Component
     //@param g                  the graphics component
     //Renders the list of input block components and other panel graphics
     @Override
     public void paintComponent(Graphics g) {
+        //Input blocks whose functions took too long to draw are flagged
+        for (int i = 0; i < inputBlocks.size(); i++)
+            inputBlocks.get(i).setSlowInput(functions.get(i).isOverBudget());
         Color btnTextColor = GraphProgram.getTheme().getTextColor();
         addBtn.setForeground(btnTextColor);
         togglePanelBtn.setForeground(btnTextColor);
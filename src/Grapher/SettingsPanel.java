@@ -23,6 +23,9 @@ public class SettingsPanel extends JPanel {
     private JButton increaseZoomBtn;
     private JButton gridLineBtn;
     private JButton darkModeBtn;
+    private JButton floatRenderBtn;
+    private JButton fastMathBtn;
+    private JButton domainColoringBtn;
     private JButton centerOriginBtn;
     private JButton settingsBtn;
     private JTextField zoomInput;
@@ -90,6 +93,30 @@ public class SettingsPanel extends JPanel {
             GraphProgram.repaintGraph();
         });
 
+        //Toggle computing curves in float precision for faster rendering
+        floatRenderBtn = new JButton("Float Rendering");
+        mountJButton(floatRenderBtn, 25f, SwingConstants.CENTER);
+        floatRenderBtn.addActionListener(e -> {
+            GraphProgram.toggleFloatRendering();
+            GraphProgram.repaintGraph();
+        });
+
+        //Toggle computing curves with approximate math for faster rendering
+        fastMathBtn = new JButton("Fast Math");
+        mountJButton(fastMathBtn, 25f, SwingConstants.CENTER);
+        fastMathBtn.addActionListener(e -> {
+            GraphProgram.toggleFastMath();
+            GraphProgram.repaintGraph();
+        });
+
+        //Toggle coloring the complex plane by the values of a function
+        domainColoringBtn = new JButton("Domain Coloring");
+        mountJButton(domainColoringBtn, 25f, SwingConstants.CENTER);
+        domainColoringBtn.addActionListener(e -> {
+            GraphProgram.toggleDomainColoring();
+            GraphProgram.repaintGraph();
+        });
+
         //Input for user specified zoom value
         zoomInput = new JTextField();
         zoomInput.setFont(zoomInput.getFont().deriveFont(30f));
@@ -227,6 +254,10 @@ public class SettingsPanel extends JPanel {
         settingsBtn.setBounds(0, (int)height - 150, 60, 60);
         gridLineBtn.setBounds(center - 170, (int)height - 230, 340, 60);
         darkModeBtn.setBounds(center - 170, (int)height - 150, 340, 60);
+        floatRenderBtn.setBounds(center - 170, (int)height - 310, 340, 60);
+        fastMathBtn.setBounds(center - 170, (int)height - 390, 340, 60);
+        domainColoringBtn.setBounds(center - 170, (int)height - 470, 340,
+                60);
         zoomInput.setBounds(center - 100, 150, 200, 60);
     }
 
@@ -247,6 +278,15 @@ public class SettingsPanel extends JPanel {
         settingsBtn.setIcon(theme.getSettingsIcon());
         gridLineBtn.setForeground(textColor);
         darkModeBtn.setForeground(textColor);
+        floatRenderBtn.setForeground(textColor);
+        floatRenderBtn.setText(GraphProgram.isFloatRenderingActive() ?
+                "Float Rendering: On" : "Float Rendering: Off");
+        fastMathBtn.setForeground(textColor);
+        fastMathBtn.setText(GraphProgram.isFastMathActive() ?
+                "Fast Math: On" : "Fast Math: Off");
+        domainColoringBtn.setForeground(textColor);
+        domainColoringBtn.setText(GraphProgram.isDomainColoringActive() ?
+                "Domain Coloring: On" : "Domain Coloring: Off");
         if (!zoomInputSelected)
             zoomInput.setText(Numbers.trimDigits(GraphProgram.getZoom(),
                     3) + "%");
@@ -0,0 +1,48 @@
+//---------------------------FRAME CACHE TEST CLASS---------------------------//
+//@author TitanJack
+//@project MathTools
+//Checks that values taken from the FrameCache land in the right places of a
+//batch, including when a user function calls another one, whose batch goes
+//through the cache while the batch of the caller is still being filled.
+
+package Functions;
+
+import java.util.Arrays;
+
+public class FrameCacheTest {
+
+    public static void main(String[] args) throws InvalidExpressionException {
+        nestedUserFunctions();
+        System.out.println("FrameCacheTest passed");
+    }
+
+    //Function: Nested User Functions
+    //Defines <f(x)=x^2> and <g(x)=f(x)+1>, fills the cache at some of the x
+    //values, and then computes g over more of them in one batch
+    private static void nestedUserFunctions() throws
+            InvalidExpressionException {
+        FunctionTable functions = new FunctionTable();
+        FunctionConstructor constructor = new FunctionConstructor(new
+                VariableTable(), functions);
+        functions.define("f", constructor.toFunction("x^2"));
+        functions.define("g", constructor.toFunction("f(x)+1"));
+        Function g = constructor.toFunction("g(x)");
+        double[] warm = {0, 1, 2};
+        double[] xs = {0, 1, 2, 3, 4};
+        double[] out = new double[xs.length];
+        Arrays.fill(out, -99);
+        FrameCache cache = FrameCache.get();
+        cache.begin();
+        try {
+            g.compute(warm, new double[warm.length], warm.length);
+            g.compute(xs, out, xs.length);
+        } finally {
+            cache.end();
+        }
+        double[] expected = {1, 2, 5, 10, 17};
+        if (!Arrays.equals(out, expected))
+            throw new AssertionError("g over " + Arrays.toString(xs) +
+                    " gave " + Arrays.toString(out) + " instead of " + Arrays
+                    .toString(expected));
+    }
+}
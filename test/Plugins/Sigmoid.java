@@ -0,0 +1,57 @@
+//-------------------------------SIGMOID CLASS--------------------------------//
+//@author TitanJack
+//@project MathTools
+//The logistic function 1/(1+e^-y), written as <sigmoid(x)>. It is a sample
+//of a function added by a plugin, see SigmoidPlugin, and only uses what the
+//Functions package makes public to plugins.
+//
+//Its derivative is sigmoid(y)*sigmoid(-y), which is again made of sigmoid
+//nodes, so every derivative of it is defined everywhere.
+
+package Plugins;
+
+import Functions.Function;
+import Functions.GeoFunction;
+import Functions.Interval;
+import Functions.PluginFunction;
+
+public final class Sigmoid extends PluginFunction {
+
+    static final String KEYWORD = "sigmoid";
+
+    Sigmoid(Function arg, double coeff) {
+        super(arg, coeff);
+    }
+
+    protected double kernel(double y) {
+        //Written so that e is only raised to negative powers, which cannot
+        //overflow
+        if (y >= 0) return 1 / (1 + Math.exp(-y));
+        double e = Math.exp(y);
+        return e / (1 + e);
+    }
+
+    protected void kernel(double[] ys, int n) {
+        for (int i = 0; i < n; i++) ys[i] = kernel(ys[i]);
+    }
+
+    protected Interval kernelInterval(Interval y) {
+        //The function is increasing, and the bounds are moved outwards by
+        //one step to cover the rounding of exp
+        return Interval.of(Math.max(0, Math.nextDown(kernel(y.getLo()))),
+                Math.min(1, Math.nextUp(kernel(y.getHi()))));
+    }
+
+    protected Function kernelDerivative(Function arg) {
+        return new GeoFunction(new Sigmoid(arg, 1), new Sigmoid(new
+                GeoFunction(-1, arg), 1));
+    }
+
+    protected PluginFunction create(Function arg, double coeff) {
+        return new Sigmoid(arg, coeff);
+    }
+
+    public String getKeyword() {
+        return KEYWORD;
+    }
+}
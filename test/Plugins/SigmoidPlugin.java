@@ -0,0 +1,24 @@
+//---------------------------SIGMOID PLUGIN CLASS-----------------------------//
+//@author TitanJack
+//@project MathTools
+//A sample FunctionPlugin, which adds the keyword <sigmoid>. It is only on
+//the class path of the tests, and is listed in
+//test-resources/META-INF/services/Functions.FunctionPlugin the same way a
+//plugin in a jar of its own would list itself.
+
+package Plugins;
+
+import Functions.Function;
+import Functions.FunctionPlugin;
+import Functions.PluginFunction;
+
+public final class SigmoidPlugin implements FunctionPlugin {
+
+    public String[] getKeywords() {
+        return new String[]{Sigmoid.KEYWORD};
+    }
+
+    public PluginFunction create(String keyword, Function arg) {
+        return new Sigmoid(arg, 1);
+    }
+}
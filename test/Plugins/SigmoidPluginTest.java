@@ -0,0 +1,85 @@
+//-------------------------SIGMOID PLUGIN TEST CLASS--------------------------//
+//@author TitanJack
+//@project MathTools
+//Checks that the sample plugin is loaded through the ServiceLoader, and that
+//its scalar, batch, interval and derivative kernels agree with each other.
+//Run with test-resources on the class path.
+
+package Plugins;
+
+import Functions.Constant;
+import Functions.Function;
+import Functions.FunctionConstructor;
+import Functions.Interval;
+import Functions.InvalidExpressionException;
+
+public class SigmoidPluginTest {
+
+    public static void main(String[] args) throws InvalidExpressionException {
+        FunctionConstructor constructor = new FunctionConstructor();
+        Function f = constructor.toFunction("sigmoid(3x)");
+        check(constructor.toFunction("sigmoidx").toString().equals(
+                "sigmoid(x)"), "sigmoidx is parsed as sigmoid(x)");
+        batchMatchesScalar(f);
+        intervalHoldsValues(f);
+        derivativeMatchesDifference(f);
+        negatedConstant();
+        System.out.println("SigmoidPluginTest passed");
+    }
+
+    //Function: Batch Matches Scalar
+    //@param f              a function of the plugin
+    private static void batchMatchesScalar(Function f) {
+        double[] xs = new double[512];
+        double[] out = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) xs[i] = -800 + i * 3.2;
+        f.compute(xs, out, xs.length);
+        for (int i = 0; i < xs.length; i++)
+            check(out[i] == f.compute(xs[i]) && !Double.isNaN(out[i]),
+                    "batch value at " + xs[i]);
+    }
+
+    //Function: Interval Holds Values
+    //@param f              a function of the plugin
+    private static void intervalHoldsValues(Function f) {
+        Interval interval = f.computeInterval(-1, 0.5);
+        for (double x = -1; x <= 0.5; x += 1.0 / 64)
+            check(f.compute(x) >= interval.getLo() && f.compute(x) <=
+                    interval.getHi(), "interval " + interval + " at " + x);
+    }
+
+    //Function: Derivative Matches Difference
+    //@param f              a function of the plugin
+    private static void derivativeMatchesDifference(Function f) {
+        Function d = f.differentiate();
+        Function d2 = d.differentiate();
+        double h = 1e-5;
+        for (double x = -2; x <= 2; x += 0.25) {
+            double slope = (f.compute(x + h) - f.compute(x - h)) / (2 * h);
+            double bend = (d.compute(x + h) - d.compute(x - h)) / (2 * h);
+            check(Math.abs(d.compute(x) - slope) < 1e-6, "derivative at " +
+                    x);
+            check(Math.abs(d2.compute(x) - bend) < 1e-6, "second " +
+                    "derivative at " + x);
+        }
+    }
+
+    //Function: Negated Constant
+    //The derivative kernel negates its argument, which must also hold for a
+    //negative number, whose coefficient is -1 rather than its value
+    private static void negatedConstant() {
+        Constant minusThree = new Constant(-3);
+        double expected = 1 / (1 + Math.exp(3)) / (1 + Math.exp(-3));
+        double actual = new Sigmoid(minusThree, 1).kernelDerivative(
+                minusThree).compute(0);
+        check(Math.abs(actual - expected) < 1e-15, "derivative at -3 gave " +
+                actual + " instead of " + expected);
+    }
+
+    //Function: Check
+    //@param passed         whether a check passed
+    //       description    what was checked
+    private static void check(boolean passed, String description) {
+        if (!passed) throw new AssertionError("Failed: " + description);
+    }
+}